@@ -0,0 +1,162 @@
+package de.soundboardcrafter.benchmark;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Simple harness for micro benchmarks on the JVM: Runs each operation some times
+ * to warm up, then measures some more runs and collects the results, which can be written
+ * as JSON (to compare them between commits).
+ * <p>
+ * The results are written to the directory given in the system property
+ * <code>benchmark.resultsDir</code>.
+ */
+public class Benchmarker {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    /**
+     * The result of one benchmark
+     */
+    public static class Result {
+        @NonNull
+        private final String name;
+        private final int size;
+        private final long minNanos;
+        private final long medianNanos;
+        private final long meanNanos;
+
+        Result(@NonNull String name, int size, long[] nanos) {
+            this.name = name;
+            this.size = size;
+
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            minNanos = sorted[0];
+            medianNanos = sorted[sorted.length / 2];
+            meanNanos = Arrays.stream(sorted).sum() / sorted.length;
+        }
+
+        @NonNull
+        public String getName() {
+            return name;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getMinNanos() {
+            return minNanos;
+        }
+
+        public long getMedianNanos() {
+            return medianNanos;
+        }
+
+        public long getMeanNanos() {
+            return meanNanos;
+        }
+
+        @Override
+        @NonNull
+        public String toString() {
+            return String.format(Locale.ROOT, "%s [size %d]: median %.3f ms, min %.3f ms",
+                    name, size, medianNanos / 1_000_000.0, minNanos / 1_000_000.0);
+        }
+    }
+
+    private final List<Result> results = new ArrayList<>();
+
+    /**
+     * Measures this operation.
+     *
+     * @param size the size of the data the operation works on (the number of
+     *             soundboards, e.g.)
+     */
+    public void measure(String name, int size, Runnable operation) {
+        measurePrepared(name, size, () -> operation);
+    }
+
+    /**
+     * Measures an operation that has to be prepared before each run - preparation is not
+     * measured.
+     *
+     * @param prepare prepares the data for a run and returns the operation to measure
+     */
+    public void measurePrepared(String name, int size, Supplier<Runnable> prepare) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            prepare.get().run();
+        }
+
+        long[] nanos = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            Runnable operation = prepare.get();
+            long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Result result = new Result(name, size, nanos);
+        System.out.println(result);
+        results.add(result);
+    }
+
+    public ImmutableList<Result> getResults() {
+        return ImmutableList.copyOf(results);
+    }
+
+    /**
+     * Writes the results to this file in the results directory.
+     *
+     * @return the file written
+     */
+    public File writeJson(String fileName) throws IOException {
+        File dir = new File(System.getProperty("benchmark.resultsDir", "build/benchmark-results"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+
+        File file = new File(dir, fileName);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+        return file;
+    }
+
+    public String toJson() {
+        StringBuilder res = new StringBuilder();
+        res.append("{\"warmupIterations\":").append(WARMUP_ITERATIONS)
+                .append(",\"measuredIterations\":").append(MEASURED_ITERATIONS)
+                .append(",\"results\":[");
+        boolean first = true;
+        for (Result result : results) {
+            if (!first) {
+                res.append(",");
+            }
+            first = false;
+            res.append(String.format(Locale.ROOT,
+                    "{\"name\":\"%s\",\"size\":%d,"
+                            + "\"minNanos\":%d,\"medianNanos\":%d,\"meanNanos\":%d}",
+                    result.getName().replace("\\", "\\\\").replace("\"", "\\\""),
+                    result.getSize(),
+                    result.getMinNanos(), result.getMedianNanos(), result.getMeanNanos()));
+        }
+        res.append("]}");
+        return res.toString();
+    }
+}
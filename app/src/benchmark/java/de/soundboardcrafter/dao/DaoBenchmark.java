@@ -0,0 +1,159 @@
+package de.soundboardcrafter.dao;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.IOException;
+import java.util.Date;
+
+import de.soundboardcrafter.benchmark.Benchmarker;
+import de.soundboardcrafter.model.FileSystemFolderAudioLocation;
+import de.soundboardcrafter.model.Sound;
+import de.soundboardcrafter.model.Soundboard;
+import de.soundboardcrafter.model.SoundboardWithSounds;
+import de.soundboardcrafter.model.audio.AudioSelectionChanges;
+import de.soundboardcrafter.model.audio.BasicAudioModel;
+import de.soundboardcrafter.model.audio.FullAudioModel;
+
+/**
+ * Benchmarks for the DAOs, running against the (native) SQLite of Robolectric on
+ * synthetic libraries of 10, 100 and 1000 soundboards.
+ * <p>
+ * Run with <code>./gradlew testDebugUnitTest -Pbenchmark --tests '*Benchmark'</code>,
+ * the results are written to <code>app/build/benchmark-results/DaoBenchmark.json</code>.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DaoBenchmark {
+    private static final int[] NUM_SOUNDBOARDS = {10, 100, 1000};
+    private static final int SOUNDS_PER_SOUNDBOARD = 20;
+    private static final int NUM_ADDITIONS = 300;
+    private static final int SEARCH_LIMIT = 50;
+
+    private int audioCount;
+
+    /**
+     * All benchmarks are run from one test - the DAOs are singletons that would survive
+     * Robolectric's environment between tests.
+     */
+    @Test
+    public void benchmarkDaos() throws IOException {
+        Context context = RuntimeEnvironment.getApplication();
+        SoundboardDao soundboardDao = SoundboardDao.getInstance(context);
+        SoundDao soundDao = SoundDao.getInstance(context);
+        SearchDao searchDao = SearchDao.getInstance(context);
+
+        Benchmarker benchmarker = new Benchmarker();
+
+        for (int numSoundboards : NUM_SOUNDBOARDS) {
+            soundboardDao.clearDatabase();
+            soundboardDao.insertSoundboardsAndInsertAllSounds(createLibrary(numSoundboards));
+
+            benchmarker.measure("SoundboardDao.findAllWithSounds", numSoundboards,
+                    soundboardDao::findAllWithSounds);
+            benchmarker.measure("SoundDao.findAllByAudioLocation", numSoundboards,
+                    soundDao::findAllByAudioLocation);
+            benchmarker.measure("FullJoinSoundboardCursorWrapper.getRow", numSoundboards,
+                    () -> assertEquals(numSoundboards * SOUNDS_PER_SOUNDBOARD,
+                            mapAllRows(soundboardDao)));
+
+            // Additionally, index as many audio files on the device as there are sounds
+            searchDao.replaceDeviceAudiosIfChanged(
+                    createDeviceAudios(numSoundboards * SOUNDS_PER_SOUNDBOARD));
+            benchmarker.measure("SearchDao.search (prefix)", numSoundboards,
+                    () -> searchDao.search("Aud", SEARCH_LIMIT));
+            benchmarker.measure("SearchDao.search (two words)", numSoundboards,
+                    () -> searchDao.search("audio 12", SEARCH_LIMIT));
+
+            // Here, size is the number of sounds on the soundboard
+            SoundboardWithSounds largeSoundboard = createSoundboard(numSoundboards);
+            soundboardDao.insertSoundboardsAndInsertAllSounds(
+                    ImmutableList.of(largeSoundboard));
+            benchmarker.measure("SoundboardDao.moveSound", numSoundboards,
+                    () -> soundboardDao.moveSound(largeSoundboard.getId(),
+                            0, numSoundboards - 1));
+
+            benchmarker.measurePrepared(
+                    "SoundboardDao.updateWithChanges (" + NUM_ADDITIONS + " additions)",
+                    numSoundboards,
+                    () -> {
+                        Soundboard soundboard = new Soundboard("Soundboard", false);
+                        soundboardDao.insert(soundboard);
+                        AudioSelectionChanges changes = createAdditions();
+                        return () -> soundboardDao.updateWithChanges(soundboard, changes);
+                    });
+        }
+
+        System.out.println("Results written to " +
+                benchmarker.writeJson(DaoBenchmark.class.getSimpleName() + ".json"));
+    }
+
+    private ImmutableList<SoundboardWithSounds> createLibrary(int numSoundboards) {
+        ImmutableList.Builder<SoundboardWithSounds> res = ImmutableList.builder();
+        for (int i = 0; i < numSoundboards; i++) {
+            res.add(createSoundboard(SOUNDS_PER_SOUNDBOARD));
+        }
+        return res.build();
+    }
+
+    private SoundboardWithSounds createSoundboard(int numSounds) {
+        ImmutableList.Builder<Sound> sounds = ImmutableList.builder();
+        for (int i = 0; i < numSounds; i++) {
+            BasicAudioModel audio = createAudio();
+            sounds.add(new Sound(audio.getAudioLocation(), audio.getName()));
+        }
+
+        return new SoundboardWithSounds(
+                new Soundboard("Soundboard " + audioCount, false), sounds.build());
+    }
+
+    private AudioSelectionChanges createAdditions() {
+        ImmutableList.Builder<BasicAudioModel> audios = ImmutableList.builder();
+        for (int i = 0; i < NUM_ADDITIONS; i++) {
+            audios.add(createAudio());
+        }
+
+        AudioSelectionChanges res = new AudioSelectionChanges();
+        res.addAll(audios.build());
+        return res;
+    }
+
+    private ImmutableList<FullAudioModel> createDeviceAudios(int numAudios) {
+        ImmutableList.Builder<FullAudioModel> res = ImmutableList.builder();
+        for (int i = 0; i < numAudios; i++) {
+            BasicAudioModel audio = createAudio();
+            res.add(new FullAudioModel(audio.getAudioLocation(), audio.getName(),
+                    "Artist " + (i % 100), new Date(), 60));
+        }
+        return res.build();
+    }
+
+    private BasicAudioModel createAudio() {
+        audioCount++;
+        return new BasicAudioModel(
+                new FileSystemFolderAudioLocation("/sdcard/Music/audio" + audioCount + ".mp3"),
+                "Audio " + audioCount);
+    }
+
+    private static int mapAllRows(SoundboardDao soundboardDao) {
+        int res = 0;
+        try (FullJoinSoundboardCursorWrapper cursor = new FullJoinSoundboardCursorWrapper(
+                soundboardDao.rawQueryOrThrow(
+                        FullJoinSoundboardCursorWrapper.queryString(null, null)))) {
+            while (cursor.moveToNext()) {
+                cursor.getRow();
+                res++;
+            }
+        }
+        return res;
+    }
+}
@@ -5,15 +5,12 @@ import static de.soundboardcrafter.activity.common.TutorialUtil.createClickTutor
 import static de.soundboardcrafter.dao.TutorialDao.Key.AUDIO_FILE_LIST_EDIT;
 
 import android.app.Activity;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.ServiceConnection;
 import android.content.pm.PackageManager;
 import android.media.AudioManager;
 import android.os.AsyncTask;
 import android.os.Bundle;
-import android.os.IBinder;
 import android.util.Log;
 import android.util.Pair;
 import android.view.LayoutInflater;
@@ -37,10 +34,12 @@ import androidx.fragment.app.Fragment;
 import com.getkeepsafe.taptargetview.TapTargetView;
 import com.google.android.material.snackbar.Snackbar;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -55,10 +54,12 @@ import de.soundboardcrafter.activity.common.audiofile.list.AudioSubfolderRow;
 import de.soundboardcrafter.activity.common.audioloader.AssetsAudioLoader;
 import de.soundboardcrafter.activity.common.audioloader.AudioLoader;
 import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerService;
+import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerServiceConnection;
 import de.soundboardcrafter.activity.common.mediaplayer.SoundboardMediaPlayer;
 import de.soundboardcrafter.activity.sound.edit.audiofile.list.AudiofileListSoundEditActivity;
 import de.soundboardcrafter.activity.sound.edit.common.SoundEditFragment;
 import de.soundboardcrafter.activity.sound.event.SoundEventListener;
+import de.soundboardcrafter.dao.SearchDao;
 import de.soundboardcrafter.dao.SoundDao;
 import de.soundboardcrafter.dao.TutorialDao;
 import de.soundboardcrafter.model.AbstractAudioLocation;
@@ -76,7 +77,6 @@ import de.soundboardcrafter.model.audio.FullAudioModel;
  * Shows Soundboard in a Grid
  */
 public class AudioFileListFragment extends Fragment implements
-        ServiceConnection,
         AudioItem.Callback,
         SoundEventListener {
 
@@ -103,7 +103,7 @@ public class AudioFileListFragment extends Fragment implements
     private ImageView iconFolderUp;
     private TextView folderPath;
     private AudioFileListItemAdapter adapter;
-    private MediaPlayerService mediaPlayerService;
+    private MediaPlayerServiceConnection serviceConnection;
     @Nullable
     private SoundboardMediaPlayer mediaPlayer;
 
@@ -114,6 +114,12 @@ public class AudioFileListFragment extends Fragment implements
 
     private IAudioFileSelection selection;
 
+    /**
+     * The task currently loading the audio files - if any
+     */
+    @Nullable
+    private FindAudioFilesTask findAudioFilesTask;
+
     /**
      * Creates an <code>AudioFileListFragment</code>.
      */
@@ -122,47 +128,20 @@ public class AudioFileListFragment extends Fragment implements
         return new AudioFileListFragment();
     }
 
-    @Override
     @UiThread
-    public void onServiceConnected(ComponentName name, IBinder binder) {
-        MediaPlayerService.Binder b = (MediaPlayerService.Binder) binder;
-        mediaPlayerService = b.getService();
+    private void onServiceConnected(@NonNull MediaPlayerService service) {
         // As soon the media player service is connected, the play/playingStartedOrStopped icons
         // can be
         // set correctly
         updateUI();
     }
 
-    @Override
-    @UiThread
-    public void onServiceDisconnected(ComponentName name) {
-        // TODO What to do on Service Disconnected?
-    }
-
-    @Override
-    @UiThread
-    public void onBindingDied(ComponentName name) {
-        // TODO What to do on Service Died?
-    }
-
-    @Override
-    @UiThread
-    public void onNullBinding(ComponentName name) {
-        // TODO What to do on Null Binding?
-    }
-
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setHasOptionsMenu(true);
 
-        // TODO Necessary?! Also done in onResume()
-        bindService();
-    }
-
-    private void bindService() {
-        Intent intent = new Intent(requireActivity(), MediaPlayerService.class);
-        requireActivity().bindService(intent, this, Context.BIND_AUTO_CREATE);
+        serviceConnection = MediaPlayerServiceConnection.getInstance(requireContext());
     }
 
     @Override
@@ -170,8 +149,6 @@ public class AudioFileListFragment extends Fragment implements
     public void onPause() {
         super.onPause();
         stopPlaying();
-
-        requireActivity().unbindService(this);
     }
 
     @Override
@@ -396,15 +373,26 @@ public class AudioFileListFragment extends Fragment implements
     }
 
     public void loadAudioFiles() {
-        new FindAudioFilesTask(this, selection, sortOrder).execute();
+        if (findAudioFilesTask != null) {
+            // The old results must not overwrite the new ones
+            findAudioFilesTask.cancel(false);
+        }
+
+        findAudioFilesTask = new FindAudioFilesTask(this, selection, sortOrder);
+        findAudioFilesTask.execute();
     }
 
     private void onClickAudioItem(@NonNull AudioItem audioFileItemRow, int position) {
-        MediaPlayerService service = getService();
-        if (service == null) {
-            return;
-        }
+        // If the service is not connected yet, the audio is played as soon as it is.
+        serviceConnection.run(this, service -> {
+            if (isResumed()) {
+                onClickAudioItem(service, audioFileItemRow, position);
+            }
+        });
+    }
 
+    private void onClickAudioItem(@NonNull MediaPlayerService service,
+                                  @NonNull AudioItem audioFileItemRow, int position) {
         boolean positionWasPlaying = adapter.isPlaying(position);
         stopPlaying();
 
@@ -456,14 +444,6 @@ public class AudioFileListFragment extends Fragment implements
         mediaPlayer = null;
     }
 
-    private MediaPlayerService getService() {
-        if (mediaPlayerService == null) {
-            // TODO Necessary?! Also done in onResume()
-            bindService();
-        }
-        return mediaPlayerService;
-    }
-
     @Override
     @UiThread
     public void onEdit(@NonNull AudioModelAndSound audioModelAndSound) {
@@ -562,6 +542,39 @@ public class AudioFileListFragment extends Fragment implements
         }
     }
 
+    /**
+     * Brings the entries shown into their final order (after streaming). The entry at the top
+     * of the screen stays where it is, so only the entries out of order visibly move - and
+     * an audio file playing keeps playing.
+     */
+    @UiThread
+    private void reorderAudioFolderEntries(
+            List<? extends AbstractAudioFolderEntry> reordered) {
+        int firstVisiblePosition = listView.getFirstVisiblePosition();
+        @Nullable View firstVisibleView = listView.getChildAt(0);
+        @Nullable AbstractAudioFolderEntry firstVisibleEntry =
+                firstVisiblePosition < adapter.getCount() ?
+                        adapter.getItem(firstVisiblePosition) : null;
+
+        adapter.reorderAudioFolderEntries(reordered);
+
+        if (firstVisibleView != null && firstVisibleEntry != null) {
+            int newPosition = reordered.indexOf(firstVisibleEntry);
+            if (newPosition >= 0) {
+                listView.setSelectionFromTop(newPosition, firstVisibleView.getTop());
+            }
+        }
+    }
+
+    /**
+     * Appends these entries to the list (while streaming).
+     */
+    @UiThread
+    private void addAudioFolderEntries(
+            List<? extends AbstractAudioFolderEntry> audioFolderEntries) {
+        adapter.addAudioFolderEntries(audioFolderEntries);
+    }
+
     @UiThread
     private void updateUI() {
         if (adapter != null) {
@@ -577,7 +590,7 @@ public class AudioFileListFragment extends Fragment implements
 
         requireActivity().setVolumeControlStream(AudioManager.STREAM_MUSIC);
 
-        bindService();
+        serviceConnection.run(this, this::onServiceConnected);
     }
 
     @UiThread
@@ -606,8 +619,20 @@ public class AudioFileListFragment extends Fragment implements
      * A background task, used to retrieve audio files (and audio folders)
      * and corresponding sounds from the database.
      */
-    static class FindAudioFilesTask extends AsyncTask<Void, Void,
+    static class FindAudioFilesTask extends AsyncTask<Void,
+            ImmutableList<AbstractAudioFolderEntry>,
             ImmutableList<? extends AbstractAudioFolderEntry>> {
+        /**
+         * When streaming, the size of the first chunk - small enough to fill the first
+         * screen fast.
+         */
+        private static final int FIRST_CHUNK_SIZE = 50;
+
+        /**
+         * When streaming, the size of all subsequent chunks
+         */
+        private static final int CHUNK_SIZE = 1000;
+
         @NonNull
         private final WeakReference<AudioFileListFragment> fragmentRef;
 
@@ -616,6 +641,21 @@ public class AudioFileListFragment extends Fragment implements
         @NonNull
         private final AudioModelAndSound.SortOrder sortOrder;
 
+        /**
+         * Whether the first chunk has already been shown (when streaming)
+         */
+        private boolean firstChunkShown;
+
+        /**
+         * Whether the streamed chunks are already the complete and sorted result
+         */
+        private boolean resultAlreadyShown;
+
+        /**
+         * Whether the result contains the streamed entries, only re-sorted
+         */
+        private boolean resultStreamed;
+
         FindAudioFilesTask(@NonNull AudioFileListFragment fragment, IAudioFileSelection selection,
                            @NonNull AudioModelAndSound.SortOrder sortOrder) {
             super();
@@ -634,7 +674,73 @@ public class AudioFileListFragment extends Fragment implements
                 return null;
             }
 
-            return loadAudioFolderEntries(fragment.getContext());
+            Context appContext = fragment.requireContext().getApplicationContext();
+
+            if (selection instanceof AnywhereInTheFileSystemAudioLocation) {
+                return streamAudioFolderEntries(appContext);
+            }
+
+            return loadAudioFolderEntries(appContext);
+        }
+
+        /**
+         * Streams all audio files on the device, in chunks, (roughly) sorted by the
+         * MediaStore - so that the first audio files can be shown while the rest is still
+         * loading. Returns the completely sorted result.
+         */
+        @WorkerThread
+        @SuppressWarnings("unchecked")
+        private ImmutableList<AbstractAudioFolderEntry> streamAudioFolderEntries(
+                Context appContext) {
+            Map<IAudioFileSelection, Sound> soundMap =
+                    SoundDao.getInstance(appContext).findAllByAudioLocation();
+
+            List<FullAudioModel> audioModelsStreamed = new ArrayList<>();
+            List<AbstractAudioFolderEntry> streamed = new ArrayList<>();
+            new AudioLoader().streamAudiosAnywhereInTheFileSystem(appContext, sortOrder,
+                    FIRST_CHUNK_SIZE, CHUNK_SIZE,
+                    audioModels -> {
+                        if (isCancelled()) {
+                            return;
+                        }
+
+                        ImmutableList<AbstractAudioFolderEntry> chunk =
+                                join(audioModels, soundMap);
+                        audioModelsStreamed.addAll(audioModels);
+                        streamed.addAll(chunk);
+                        publishProgress(chunk);
+                    });
+
+            if (!isCancelled()) {
+                // Now we know all audio files on the device
+                SearchDao.getInstance(appContext)
+                        .replaceDeviceAudiosIfChanged(audioModelsStreamed);
+            }
+
+            // The MediaStore only knows the titles of the audio files, not the sound names -
+            // so we might have to re-sort. As the list is nearly sorted, this is cheap.
+            Comparator<AbstractAudioFolderEntry> comparator =
+                    AbstractAudioFolderEntry.byTypeAnd(sortOrder);
+            if (!streamed.isEmpty() && Ordering.from(comparator).isOrdered(streamed)) {
+                resultAlreadyShown = true;
+                return ImmutableList.copyOf(streamed);
+            }
+
+            streamed.sort(comparator);
+            resultStreamed = true;
+            return ImmutableList.copyOf(streamed);
+        }
+
+        private static ImmutableList<AbstractAudioFolderEntry> join(
+                ImmutableList<FullAudioModel> audioModels,
+                Map<IAudioFileSelection, Sound> soundMap) {
+            ImmutableList.Builder<AbstractAudioFolderEntry> res = ImmutableList.builder();
+            for (FullAudioModel audioModel : audioModels) {
+                res.add(new AudioModelAndSound(
+                        audioModel,
+                        soundMap.get(audioModel.getAudioLocation())));
+            }
+            return res.build();
         }
 
         /**
@@ -660,17 +766,33 @@ public class AudioFileListFragment extends Fragment implements
                     new ArrayList<>(audioModelsAndFolders.first.size() +
                             audioModelsAndFolders.second.size());
             res.addAll(audioModelsAndFolders.second);
-            for (FullAudioModel audioModel : audioModelsAndFolders.first) {
-                res.add(new AudioModelAndSound(
-                        audioModel,
-                        soundMap.get(audioModel.getAudioLocation())));
-            }
+            res.addAll(join(audioModelsAndFolders.first, soundMap));
 
             res.sort(AbstractAudioFolderEntry.byTypeAnd(sortOrder));
 
             return ImmutableList.copyOf(res);
         }
 
+        @SafeVarargs
+        @Override
+        @UiThread
+        protected final void onProgressUpdate(
+                ImmutableList<AbstractAudioFolderEntry>... chunks) {
+            @Nullable AudioFileListFragment fragment = fragmentRef.get();
+            if (fragment == null || fragment.getContext() == null) {
+                return;
+            }
+
+            for (ImmutableList<AbstractAudioFolderEntry> chunk : chunks) {
+                if (!firstChunkShown) {
+                    fragment.setAudioFolderEntries(chunk);
+                    firstChunkShown = true;
+                } else {
+                    fragment.addAudioFolderEntries(chunk);
+                }
+            }
+        }
+
         @Override
         @UiThread
         protected void onPostExecute(
@@ -682,7 +804,15 @@ public class AudioFileListFragment extends Fragment implements
                 return;
             }
             fragment.updateOptionsMenu();
-            fragment.setAudioFolderEntries(audioFolderEntries);
+            if (resultAlreadyShown) {
+                return;
+            }
+
+            if (resultStreamed && firstChunkShown) {
+                fragment.reorderAudioFolderEntries(audioFolderEntries);
+            } else {
+                fragment.setAudioFolderEntries(audioFolderEntries);
+            }
         }
     }
 
@@ -61,6 +61,34 @@ public abstract class AbstractAudioFileListAdapter<T> extends BaseAdapter {
         notifyDataSetChanged();
     }
 
+    /**
+     * Brings the entries into this order - these must be the same entries as before. The entry
+     * playing stays playing.
+     */
+    public void reorderAudioFolderEntries(List<? extends T> reordered) {
+        @Nullable T entryPlaying =
+                positionPlaying != null ? audioFolderEntries.get(positionPlaying) : null;
+
+        audioFolderEntries.clear();
+        audioFolderEntries.addAll(reordered);
+
+        if (entryPlaying != null) {
+            int newPositionPlaying = audioFolderEntries.indexOf(entryPlaying);
+            positionPlaying = newPositionPlaying >= 0 ? newPositionPlaying : null;
+        }
+
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Appends these entries to the end of the list.
+     */
+    public void addAudioFolderEntries(Collection<? extends T> audioFolderEntries) {
+        this.audioFolderEntries.addAll(audioFolderEntries);
+
+        notifyDataSetChanged();
+    }
+
     protected ImmutableList<T> copyAudioFolderEntries() {
         return ImmutableList.copyOf(audioFolderEntries);
     }
@@ -0,0 +1,306 @@
+package de.soundboardcrafter.activity.common.audioloader;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static de.soundboardcrafter.activity.common.audioloader.AssetsAudioLoader.ASSET_SOUND_PATH;
+import static de.soundboardcrafter.activity.common.audioloader.AssetsAudioLoader.pathOrFileNameToInternationalName;
+
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.core.os.ConfigurationCompat;
+import androidx.core.os.LocaleListCompat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.soundboardcrafter.model.AssetFolderAudioLocation;
+import de.soundboardcrafter.model.PathUtil;
+import de.soundboardcrafter.model.audio.BasicAudioModel;
+
+/**
+ * Immutable tree of the provided sounds (the audio files in the assets), with all names
+ * already translated and the number of audio files each folder contains recursively.
+ * <p>
+ * The tree is built once per process (and again only when the user's locales change) from
+ * the {@link ProvidedSoundsIndex} - so the assets are never walked more than once and no
+ * translations file is read more than once.
+ */
+class AssetTree {
+    private static final String TAG = AssetTree.class.getName();
+
+    @Nullable
+    private static ProvidedSoundsIndex index;
+
+    @Nullable
+    private static AssetTree instance;
+
+    /**
+     * The locale markers the names have been translated for
+     */
+    private final ImmutableList<String> localeMarkers;
+
+    @NonNull
+    private final ProvidedSoundsIndex sourceIndex;
+
+    private final ImmutableMap<String, Folder> foldersByPath;
+
+    private final ImmutableMap<String, List<BasicAudioModel>> allAudiosByTopFolderName;
+
+    /**
+     * Returns the tree for the user's current locales.
+     *
+     * @throws IOException if there is no sounds index and the assets could not be walked
+     */
+    @WorkerThread
+    static synchronized AssetTree getInstance(@NonNull AssetManager assets) throws IOException {
+        ImmutableList<String> localeMarkers = getLocaleMarkers();
+        if (instance != null && instance.localeMarkers.equals(localeMarkers)) {
+            return instance;
+        }
+
+        instance = build(loadOrScanIndex(assets), localeMarkers);
+        return instance;
+    }
+
+    /**
+     * Returns the index of the provided sounds - loading it (or walking the assets) on
+     * first use.
+     */
+    @NonNull
+    private static ProvidedSoundsIndex loadOrScanIndex(@NonNull AssetManager assets)
+            throws IOException {
+        if (index == null) {
+            index = loadIndex(assets);
+        }
+
+        if (index == null) {
+            index = ProvidedSoundsIndex.scan(assets);
+        }
+
+        return index;
+    }
+
+    /**
+     * Loads the index of the provided sounds generated at build time - or returns
+     * <code>null</code>, if there is no (usable) index.
+     */
+    @Nullable
+    private static ProvidedSoundsIndex loadIndex(@NonNull AssetManager assets) {
+        try {
+            return ProvidedSoundsIndex.load(assets);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Could not load sounds index, walking the assets instead", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the markers used in the names of translation files, in the order
+     * they shall be looked for: For each of the user's locales, first the language tag,
+     * then the language.
+     */
+    private static ImmutableList<String> getLocaleMarkers() {
+        final LocaleListCompat locales =
+                ConfigurationCompat.getLocales(Resources.getSystem().getConfiguration());
+
+        ImmutableList.Builder<String> res = ImmutableList.builder();
+        for (int i = 0; i < locales.size(); i++) {
+            final Locale locale = locales.get(i);
+            res.add(locale.toLanguageTag());
+            res.add(locale.getLanguage().toLowerCase());
+        }
+
+        return res.build();
+    }
+
+    /**
+     * Builds the tree from this index, translating all names for these locale markers.
+     */
+    @NonNull
+    static AssetTree build(@NonNull ProvidedSoundsIndex index,
+                           @NonNull ImmutableList<String> localeMarkers) {
+        checkNotNull(index, "index is null");
+        checkNotNull(localeMarkers, "localeMarkers is null");
+
+        FolderBuilder root = new FolderBuilder(ASSET_SOUND_PATH,
+                PathUtil.extractFileName(ASSET_SOUND_PATH));
+        Map<String, FolderBuilder> folderBuilders = new TreeMap<>();
+        folderBuilders.put(ASSET_SOUND_PATH, root);
+
+        ImmutableMap.Builder<String, List<BasicAudioModel>> allAudiosByTopFolderName =
+                ImmutableMap.builder();
+        for (String topFolderPath : index.getTopFolderPaths()) {
+            getOrCreateFolder(index, localeMarkers, folderBuilders, topFolderPath);
+
+            ImmutableList.Builder<BasicAudioModel> audios = ImmutableList.builder();
+            for (String audioPath : index.getAudioPaths(topFolderPath)) {
+                BasicAudioModel audio = new BasicAudioModel(
+                        new AssetFolderAudioLocation(audioPath),
+                        index.translate(audioPath, pathOrFileNameToInternationalName(audioPath),
+                                localeMarkers));
+                audios.add(audio);
+                getOrCreateFolder(index, localeMarkers, folderBuilders,
+                        getParent(audioPath))
+                        .audios.add(audio);
+            }
+
+            allAudiosByTopFolderName.put(
+                    index.translate(topFolderPath, PathUtil.extractFileName(topFolderPath),
+                            localeMarkers),
+                    audios.build());
+        }
+
+        ImmutableMap.Builder<String, Folder> foldersByPath = ImmutableMap.builder();
+        root.build(foldersByPath);
+
+        return new AssetTree(localeMarkers, index, foldersByPath.build(),
+                allAudiosByTopFolderName.build());
+    }
+
+    /**
+     * Returns the builder for the folder with this path - creating it (and its parents),
+     * if necessary.
+     */
+    private static FolderBuilder getOrCreateFolder(
+            @NonNull ProvidedSoundsIndex index, List<String> localeMarkers,
+            Map<String, FolderBuilder> folderBuilders, String path) {
+        @Nullable FolderBuilder res = folderBuilders.get(path);
+        if (res != null) {
+            return res;
+        }
+
+        res = new FolderBuilder(path,
+                index.translate(path, PathUtil.extractFileName(path), localeMarkers));
+        folderBuilders.put(path, res);
+        getOrCreateFolder(index, localeMarkers, folderBuilders, getParent(path))
+                .subFolders.put(path, res);
+
+        return res;
+    }
+
+    private static String getParent(String path) {
+        return path.substring(0, path.lastIndexOf('/'));
+    }
+
+    private AssetTree(ImmutableList<String> localeMarkers,
+                      @NonNull ProvidedSoundsIndex sourceIndex,
+                      ImmutableMap<String, Folder> foldersByPath,
+                      ImmutableMap<String, List<BasicAudioModel>> allAudiosByTopFolderName) {
+        this.localeMarkers = localeMarkers;
+        this.sourceIndex = sourceIndex;
+        this.foldersByPath = foldersByPath;
+        this.allAudiosByTopFolderName = allAudiosByTopFolderName;
+    }
+
+    /**
+     * Returns the folder with this path (neither starting nor ending with a slash) - or
+     * <code>null</code>, if there is no such folder containing any audio files.
+     */
+    @Nullable
+    Folder getFolder(String path) {
+        return foldersByPath.get(path);
+    }
+
+    /**
+     * Returns all audio files, mapping the (translated) top folder name
+     * to the audio files recursively contained.
+     */
+    ImmutableMap<String, List<BasicAudioModel>> getAllAudiosByTopFolderName() {
+        return allAudiosByTopFolderName;
+    }
+
+    /**
+     * Returns the index this tree has been built from - e.g. to find the names of an
+     * audio file in all languages.
+     */
+    @NonNull
+    ProvidedSoundsIndex getIndex() {
+        return sourceIndex;
+    }
+
+    /**
+     * A folder in the assets, with its (translated) name, its audio files and subfolders.
+     */
+    static class Folder {
+        private final String path;
+        private final String name;
+        private final ImmutableList<Folder> subFolders;
+        private final ImmutableList<BasicAudioModel> audios;
+        private final int numAudioFilesRecursively;
+
+        private Folder(String path, String name, ImmutableList<Folder> subFolders,
+                       ImmutableList<BasicAudioModel> audios) {
+            this.path = path;
+            this.name = name;
+            this.subFolders = subFolders;
+            this.audios = audios;
+
+            int numAudioFiles = audios.size();
+            for (Folder subFolder : subFolders) {
+                numAudioFiles += subFolder.numAudioFilesRecursively;
+            }
+            numAudioFilesRecursively = numAudioFiles;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the direct subfolders, ordered by path.
+         */
+        ImmutableList<Folder> getSubFolders() {
+            return subFolders;
+        }
+
+        /**
+         * Returns the audio files directly contained in this folder, ordered by path.
+         */
+        ImmutableList<BasicAudioModel> getAudios() {
+            return audios;
+        }
+
+        int getNumAudioFilesRecursively() {
+            return numAudioFilesRecursively;
+        }
+    }
+
+    private static class FolderBuilder {
+        private final String path;
+        private final String name;
+        private final Map<String, FolderBuilder> subFolders = new TreeMap<>();
+        private final List<BasicAudioModel> audios = new ArrayList<>();
+
+        FolderBuilder(String path, String name) {
+            this.path = path;
+            this.name = name;
+        }
+
+        Folder build(ImmutableMap.Builder<String, Folder> foldersByPath) {
+            ImmutableList.Builder<Folder> builtSubFolders = ImmutableList.builder();
+            for (FolderBuilder subFolder : subFolders.values()) {
+                builtSubFolders.add(subFolder.build(foldersByPath));
+            }
+
+            Folder res = new Folder(path, name, builtSubFolders.build(),
+                    ImmutableList.copyOf(audios));
+            foldersByPath.put(path, res);
+            return res;
+        }
+    }
+}
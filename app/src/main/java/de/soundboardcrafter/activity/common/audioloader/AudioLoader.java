@@ -2,16 +2,19 @@ package de.soundboardcrafter.activity.common.audioloader;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.provider.MediaStore;
 import android.util.Pair;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import de.soundboardcrafter.model.AbstractAudioLocation;
 import de.soundboardcrafter.model.AnywhereInTheFileSystemAudioLocation;
@@ -19,6 +22,7 @@ import de.soundboardcrafter.model.AssetFolderAudioLocation;
 import de.soundboardcrafter.model.FileSystemFolderAudioLocation;
 import de.soundboardcrafter.model.IAudioFileSelection;
 import de.soundboardcrafter.model.audio.AudioFolder;
+import de.soundboardcrafter.model.audio.AudioModelAndSound;
 import de.soundboardcrafter.model.audio.BasicAudioModel;
 import de.soundboardcrafter.model.audio.FullAudioModel;
 
@@ -58,6 +62,36 @@ public class AudioLoader {
                 "folder instance of unexpected class: " + selection.getClass());
     }
 
+    /**
+     * Retrieves all audio files anywhere in the file system, in chunks. The
+     * chunks are already (roughly) in the sort order - as far as the MediaStore can sort
+     * them: The MediaStore only knows the audio titles, not the names of the sounds.
+     *
+     * @param firstChunkSize the size of the first chunk - to be able to show the first
+     *                       audio files as soon as possible
+     * @param chunkSize      the size of all subsequent chunks
+     */
+    @SuppressLint("MissingPermission")
+    @WorkerThread
+    public void streamAudiosAnywhereInTheFileSystem(
+            Context context, AudioModelAndSound.SortOrder sortOrder,
+            int firstChunkSize, int chunkSize,
+            Consumer<ImmutableList<FullAudioModel>> consumer) {
+        fileSystemAudioLoader.streamAudios(context, toMediaStoreOrderBy(sortOrder),
+                firstChunkSize, chunkSize, consumer);
+    }
+
+    private static String toMediaStoreOrderBy(AudioModelAndSound.SortOrder sortOrder) {
+        switch (sortOrder) {
+            case BY_NAME:
+                return MediaStore.Audio.AudioColumns.TITLE + " COLLATE LOCALIZED ASC";
+            case BY_DATE:
+                return MediaStore.Audio.AudioColumns.DATE_ADDED + " DESC";
+            default:
+                throw new IllegalStateException("Unexpected sort order: " + sortOrder);
+        }
+    }
+
     @Nullable
     public FullAudioModel getAudio(Context context, AbstractAudioLocation audioLocation,
                                    String name) {
@@ -84,4 +118,13 @@ public class AudioLoader {
             Context appContext) {
         return assetsAudioLoader.getAllAudiosByTopFolderName(appContext);
     }
+
+    /**
+     * Loads all audio files from the assets (with their localized names), each with
+     * all names it has in any language.
+     */
+    public ImmutableList<Pair<BasicAudioModel, ImmutableSet<String>>>
+    getAllAudiosFromAssetsWithAllNames(Context appContext) {
+        return assetsAudioLoader.getAllAudiosWithAllNames(appContext);
+    }
 }
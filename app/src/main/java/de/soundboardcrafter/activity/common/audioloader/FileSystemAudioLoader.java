@@ -10,6 +10,7 @@ import android.provider.MediaStore;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresPermission;
 
 import com.google.common.collect.ImmutableList;
@@ -21,6 +22,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
 
@@ -43,6 +45,26 @@ class FileSystemAudioLoader {
     ImmutableList<FullAudioModel> getAudios(Context context) {
         final ImmutableList.Builder<FullAudioModel> res = ImmutableList.builder();
 
+        streamAudios(context, null, Integer.MAX_VALUE, Integer.MAX_VALUE, res::addAll);
+
+        return res.build();
+    }
+
+    /**
+     * Loads all audio files from the device in this order, passing them to the
+     * <code>consumer</code> in chunks, while the cursor is still being read.
+     *
+     * @param orderBy        the MediaStore sort order - or <code>null</code>
+     *                       for an arbitrary order
+     * @param firstChunkSize the size of the first chunk - to be able to show the first
+     *                       audio files as soon as possible
+     * @param chunkSize      the size of all subsequent chunks
+     */
+    @RequiresPermission(anyOf = { "android.permission.READ_EXTERNAL_STORAGE",
+            "android.permission.READ_MEDIA_AUDIO"})
+    void streamAudios(Context context, @Nullable String orderBy,
+                      int firstChunkSize, int chunkSize,
+                      Consumer<ImmutableList<FullAudioModel>> consumer) {
         Uri uri = MediaStore.Audio.Media.EXTERNAL_CONTENT_URI;
         // MediaStore.Audio.AudioColumns.DURATION has "always" been there and
         // works fine
@@ -53,18 +75,30 @@ class FileSystemAudioLoader {
                 MediaStore.Audio.AudioColumns.DURATION};
 
         try (Cursor c = context.getContentResolver().query(uri,
-                projection, null, null, null)) {
-            if (c != null) {
-                while (c.moveToNext()) {
-                    String path = c.getString(0);
-                    res.add(createAudioModel(
-                            path, c.getString(1), c.getString(2),
-                            c.getInt(3), c.getLong(4)));
+                projection, null, null, orderBy)) {
+            if (c == null) {
+                return;
+            }
+
+            int currentChunkSize = firstChunkSize;
+            List<FullAudioModel> chunk = new ArrayList<>();
+            while (c.moveToNext()) {
+                String path = c.getString(0);
+                chunk.add(createAudioModel(
+                        path, c.getString(1), c.getString(2),
+                        c.getInt(3), c.getLong(4)));
+
+                if (chunk.size() >= currentChunkSize) {
+                    consumer.accept(ImmutableList.copyOf(chunk));
+                    chunk.clear();
+                    currentChunkSize = chunkSize;
                 }
             }
-        }
 
-        return res.build();
+            if (!chunk.isEmpty()) {
+                consumer.accept(ImmutableList.copyOf(chunk));
+            }
+        }
     }
 
     FullAudioModel getAudio(Context context, String path, String name) {
@@ -0,0 +1,271 @@
+package de.soundboardcrafter.activity.common.audioloader;
+
+import static de.soundboardcrafter.activity.common.audioloader.AssetsAudioLoader.ASSET_SOUND_PATH;
+import static de.soundboardcrafter.activity.common.audioloader.AssetsAudioLoader.pathOrFileNameToInternationalName;
+
+import android.content.res.AssetManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Index of the provided sounds, generated at build time by the
+ * <code>generateProvidedSoundsIndex</code> task (see <code>app/build.gradle</code>).
+ * With this index, the provided sounds can be found without walking the assets. (If there
+ * is no index, the same data is collected by walking the assets once, see
+ * {@link #scan(AssetManager)}.)
+ * <p>
+ * The index is a UTF-8 text file, each line contains tab-separated fields:
+ * <ul>
+ * <li><code>F path</code>: A top folder below {@link AssetsAudioLoader#ASSET_SOUND_PATH}.
+ * The following audio files are (recursively) contained in this folder.</li>
+ * <li><code>A path</code>: An audio file.</li>
+ * <li><code>T directory localeMarker internationalName translation</code>: A translation
+ * from a {@link TranslationsFile} in this directory.</li>
+ * </ul>
+ * Folders and files are ordered by name, folder by folder.
+ */
+class ProvidedSoundsIndex {
+    /**
+     * Path of the index inside the assets directory
+     */
+    private static final String ASSET_PATH = "provided_sounds.index";
+
+    private static final String SEPARATOR = "\t";
+
+    private final ImmutableList<String> topFolderPaths;
+    private final ImmutableListMultimap<String, String> audioPathsByTopFolderPath;
+
+    /**
+     * Maps directory and locale marker to the translations (international name to
+     * translated name).
+     */
+    private final ImmutableMap<String, ImmutableMap<String, String>> translations;
+
+    /**
+     * Loads the index from the assets - or returns <code>null</code>, if there is no index.
+     */
+    @Nullable
+    static ProvidedSoundsIndex load(@NonNull AssetManager assets) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(assets.open(ASSET_PATH), StandardCharsets.UTF_8))) {
+            return parse(reader);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    @NonNull
+    static ProvidedSoundsIndex parse(@NonNull BufferedReader reader) throws IOException {
+        ImmutableList.Builder<String> topFolderPaths = ImmutableList.builder();
+        ImmutableListMultimap.Builder<String, String> audioPathsByTopFolderPath =
+                ImmutableListMultimap.builder();
+        Map<String, ImmutableMap.Builder<String, String>> translations = new HashMap<>();
+
+        @Nullable String currentTopFolderPath = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            final String[] parts = line.split(SEPARATOR);
+            switch (parts[0]) {
+                case "F":
+                    checkNumParts(line, parts, 2);
+                    currentTopFolderPath = parts[1];
+                    topFolderPaths.add(currentTopFolderPath);
+                    break;
+                case "A":
+                    checkNumParts(line, parts, 2);
+                    if (currentTopFolderPath == null) {
+                        throw new IllegalStateException(
+                                "Audio file outside a top folder in sounds index: " + line);
+                    }
+                    audioPathsByTopFolderPath.put(currentTopFolderPath, parts[1]);
+                    break;
+                case "T":
+                    checkNumParts(line, parts, 5);
+                    translations.computeIfAbsent(toTranslationsKey(parts[1], parts[2]),
+                            k -> ImmutableMap.builder())
+                            .put(parts[3], parts[4]);
+                    break;
+                default:
+                    throw new IllegalStateException(
+                            "Unexpected line in sounds index: '" + line + "'");
+            }
+        }
+
+        ImmutableMap.Builder<String, ImmutableMap<String, String>> translationsBuilt =
+                ImmutableMap.builder();
+        for (Map.Entry<String, ImmutableMap.Builder<String, String>> entry :
+                translations.entrySet()) {
+            translationsBuilt.put(entry.getKey(), entry.getValue().build());
+        }
+
+        return new ProvidedSoundsIndex(topFolderPaths.build(),
+                audioPathsByTopFolderPath.build(), translationsBuilt.build());
+    }
+
+    /**
+     * Builds the index by walking the assets below {@link AssetsAudioLoader#ASSET_SOUND_PATH}
+     * (for builds without a generated index). Each translations file is read once.
+     */
+    @NonNull
+    static ProvidedSoundsIndex scan(@NonNull AssetManager assets) throws IOException {
+        ImmutableList.Builder<String> topFolderPaths = ImmutableList.builder();
+        ImmutableListMultimap.Builder<String, String> audioPathsByTopFolderPath =
+                ImmutableListMultimap.builder();
+        ImmutableMap.Builder<String, ImmutableMap<String, String>> translations =
+                ImmutableMap.builder();
+
+        for (String fileName : listSorted(assets, ASSET_SOUND_PATH)) {
+            String path = ASSET_SOUND_PATH + "/" + fileName;
+            if (isFolder(fileName)) {
+                topFolderPaths.add(path);
+                scan(assets, path, path, audioPathsByTopFolderPath, translations);
+            } else if (TranslationsFile.isTranslationsFile(fileName)) {
+                // Translations of the top folder names
+                translations.put(toTranslationsKey(ASSET_SOUND_PATH,
+                                TranslationsFile.toLocaleMarker(fileName)),
+                        readTranslations(assets, path));
+            }
+        }
+
+        return new ProvidedSoundsIndex(topFolderPaths.build(),
+                audioPathsByTopFolderPath.build(), translations.build());
+    }
+
+    private static void scan(
+            @NonNull AssetManager assets, String directory, String topFolderPath,
+            ImmutableListMultimap.Builder<String, String> audioPathsByTopFolderPath,
+            ImmutableMap.Builder<String, ImmutableMap<String, String>> translations)
+            throws IOException {
+        for (String fileName : listSorted(assets, directory)) {
+            String path = directory + "/" + fileName;
+            if (isFolder(fileName)) {
+                scan(assets, path, topFolderPath, audioPathsByTopFolderPath, translations);
+            } else if (TranslationsFile.isTranslationsFile(fileName)) {
+                translations.put(toTranslationsKey(directory,
+                                TranslationsFile.toLocaleMarker(fileName)),
+                        readTranslations(assets, path));
+            } else {
+                audioPathsByTopFolderPath.put(topFolderPath, path);
+            }
+        }
+    }
+
+    @NonNull
+    private static List<String> listSorted(@NonNull AssetManager assets, String directory)
+            throws IOException {
+        @Nullable String[] fileNames = assets.list(directory);
+        if (fileNames == null) {
+            return ImmutableList.of();
+        }
+
+        return Stream.of(fileNames).sorted().collect(ImmutableList.toImmutableList());
+    }
+
+    private static boolean isFolder(String fileName) {
+        return !fileName.contains(".");
+    }
+
+    private static ImmutableMap<String, String> readTranslations(
+            @NonNull AssetManager assets, String path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(assets.open(path), StandardCharsets.UTF_8))) {
+            return TranslationsFile.parse(reader, path);
+        }
+    }
+
+    private static void checkNumParts(String line, String[] parts, int expected) {
+        if (parts.length != expected) {
+            throw new IllegalStateException("Wrong line format in sounds index: '" + line + "'");
+        }
+    }
+
+    private ProvidedSoundsIndex(ImmutableList<String> topFolderPaths,
+                                ImmutableListMultimap<String, String> audioPathsByTopFolderPath,
+                                ImmutableMap<String, ImmutableMap<String, String>> translations) {
+        this.topFolderPaths = topFolderPaths;
+        this.audioPathsByTopFolderPath = audioPathsByTopFolderPath;
+        this.translations = translations;
+    }
+
+    /**
+     * Returns the paths of the folders right below {@link AssetsAudioLoader#ASSET_SOUND_PATH},
+     * ordered by name.
+     */
+    ImmutableList<String> getTopFolderPaths() {
+        return topFolderPaths;
+    }
+
+    /**
+     * Returns the paths of all audio files (recursively) contained in this top folder -
+     * ordered by name, folder by folder.
+     */
+    ImmutableList<String> getAudioPaths(String topFolderPath) {
+        return audioPathsByTopFolderPath.get(topFolderPath);
+    }
+
+    /**
+     * Returns all names of this audio file: The international name and the translations
+     * for all locales.
+     */
+    ImmutableSet<String> getAllNames(String audioPath) {
+        String internationalName = pathOrFileNameToInternationalName(audioPath);
+        String keyPrefix = audioPath.substring(0, audioPath.lastIndexOf('/')) + SEPARATOR;
+
+        ImmutableSet.Builder<String> res = ImmutableSet.builder();
+        res.add(internationalName);
+        for (Map.Entry<String, ImmutableMap<String, String>> entry : translations.entrySet()) {
+            if (entry.getKey().startsWith(keyPrefix)) {
+                @Nullable String translation = entry.getValue().get(internationalName);
+                if (translation != null) {
+                    res.add(translation);
+                }
+            }
+        }
+
+        return res.build();
+    }
+
+    /**
+     * Translates the name of this file or folder, using the translations file from the
+     * parent directory.
+     *
+     * @param localeMarkers the locale markers to look for translations, in order of preference
+     */
+    String translate(String path, String internationalName, List<String> localeMarkers) {
+        String directory = path.substring(0, path.lastIndexOf('/'));
+        for (String localeMarker : localeMarkers) {
+            @Nullable ImmutableMap<String, String> translationsForLocale =
+                    translations.get(toTranslationsKey(directory, localeMarker));
+            if (translationsForLocale != null) {
+                // The first translations file found is used.
+                return translationsForLocale.getOrDefault(internationalName, internationalName);
+            }
+        }
+
+        return internationalName;
+    }
+
+    private static String toTranslationsKey(String directory, String localeMarker) {
+        return directory + SEPARATOR + localeMarker;
+    }
+}
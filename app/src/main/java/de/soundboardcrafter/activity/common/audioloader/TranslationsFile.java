@@ -0,0 +1,68 @@
+package de.soundboardcrafter.activity.common.audioloader;
+
+import androidx.annotation.NonNull;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * A <code>translations.*.txt</code> file next to the provided sounds, e.g.
+ * <code>translations.de.txt</code>: Each line translates the international name of a
+ * file or folder in this directory, like <code>internationalName = translation</code>.
+ * <p>
+ * The <code>generateProvidedSoundsIndex</code> task in <code>app/build.gradle</code> follows
+ * the same format.
+ */
+final class TranslationsFile {
+    private static final String EXTENSION = "txt";
+    private static final String PREFIX = "translations.";
+
+    private TranslationsFile() {
+    }
+
+    static boolean isTranslationsFile(@NonNull String fileName) {
+        return fileName.startsWith(PREFIX)
+                && fileName.toLowerCase().endsWith("." + EXTENSION);
+    }
+
+    /**
+     * Returns the locale marker from the name of this translations file, e.g.
+     * <code>de</code> for <code>translations.de.txt</code>.
+     */
+    @NonNull
+    static String toLocaleMarker(@NonNull String translationsFileName) {
+        return translationsFileName.substring(PREFIX.length(),
+                translationsFileName.length() - EXTENSION.length() - 1);
+    }
+
+    /**
+     * Parses a translations file.
+     *
+     * @param path the path of the file - for error messages
+     * @return the translations, mapping the international name to the translated name
+     */
+    @NonNull
+    static ImmutableMap<String, String> parse(@NonNull BufferedReader reader,
+                                              @NonNull String path) throws IOException {
+        ImmutableMap.Builder<String, String> res = ImmutableMap.builder();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            final String[] parts = line.split("=");
+            if (parts.length != 2) {
+                throw new IllegalStateException("Wrong translation line format in " + path
+                        + ": '" + line + "'");
+            }
+
+            res.put(parts[0].trim(), parts[1].trim());
+        }
+
+        return res.build();
+    }
+}
@@ -0,0 +1,374 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.MediaExtractor;
+import android.media.MediaPlayer;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+
+import de.soundboardcrafter.model.AbstractAudioLocation;
+import de.soundboardcrafter.model.AssetFolderAudioLocation;
+import de.soundboardcrafter.model.FileSystemFolderAudioLocation;
+
+/**
+ * Process-wide cache of open audio files, so that sounds that are played again and again
+ * don't have to be opened (and looked up in the APK) each time.
+ * <p>
+ * Media players get the open file descriptor (which they duplicate). The media player
+ * decodes in the media server process, which then reads the file directly. The
+ * {@link PcmDecoder} decodes in the app process, so it reads the audio from a memory-mapped
+ * region instead (see {@link MappedMediaDataSource}).
+ * <p>
+ * Handles are reference-counted: Each user acquires a handle (see
+ * {@link #acquire(Context, AbstractAudioLocation)}) and closes it after use, the cache holds
+ * one more reference. So a handle that's evicted while it's still in use is only closed
+ * when its last user is done.
+ * <p>
+ * For files from the file system, the last-modified time and size are checked from time to
+ * time (see {@link #CHECK_INTERVAL_NANOS}) - so when a file changes, it is opened again.
+ * <code>AudioFileHandles</code> are thread-safe.
+ */
+class AudioFileHandles {
+    private static final String TAG = AudioFileHandles.class.getName();
+
+    /**
+     * Maximum number of files kept open
+     */
+    private static final int MAX_OPEN_FILES = 32;
+
+    /**
+     * Larger audio files are not memory-mapped
+     */
+    private static final long MAX_MAPPED_BYTES = 16L * 1024 * 1024;
+
+    /**
+     * Files from the file system are checked for changes at most once in this interval
+     */
+    private static final long CHECK_INTERVAL_NANOS = 5_000_000_000L;
+
+    private static AudioFileHandles instance;
+
+    private final Cache<AbstractAudioLocation, Handle> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_OPEN_FILES)
+            .removalListener(notification -> {
+                @Nullable Handle handle = (Handle) notification.getValue();
+                if (handle != null) {
+                    // The cache's reference
+                    handle.release();
+                }
+            })
+            .recordStats()
+            .build();
+
+    static synchronized AudioFileHandles getInstance() {
+        if (instance == null) {
+            instance = new AudioFileHandles();
+        }
+
+        return instance;
+    }
+
+    private AudioFileHandles() {
+    }
+
+    /**
+     * Acquires the open file for this audio location - opening it, if necessary. The caller
+     * has to close the handle after use.
+     *
+     * @throws IOException In case of an I/O problem (no audio file at this location, e.g.)
+     */
+    @NonNull
+    Handle acquire(@NonNull Context context, @NonNull AbstractAudioLocation audioLocation)
+            throws IOException {
+        checkNotNull(context, "context is null");
+        checkNotNull(audioLocation, "audioLocation is null");
+
+        while (true) {
+            Handle handle = get(context, audioLocation);
+            if (handle.isOutdated()) {
+                // The file has changed - open it again
+                cache.asMap().remove(audioLocation, handle);
+            } else if (handle.tryAcquire()) {
+                return handle;
+            }
+            // Otherwise, the handle has been evicted and closed in the meantime
+        }
+    }
+
+    @NonNull
+    private Handle get(@NonNull Context context, @NonNull AbstractAudioLocation audioLocation)
+            throws IOException {
+        try {
+            return cache.get(audioLocation, () -> open(context, audioLocation));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not open " + audioLocation, e.getCause());
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @NonNull
+    private static Handle open(@NonNull Context context,
+                               @NonNull AbstractAudioLocation audioLocation) throws IOException {
+        if (audioLocation instanceof FileSystemFolderAudioLocation) {
+            File file = new File(
+                    ((FileSystemFolderAudioLocation) audioLocation).getInternalPath());
+            ParcelFileDescriptor parcelFileDescriptor =
+                    ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+            return new Handle(audioLocation, parcelFileDescriptor.getFileDescriptor(),
+                    0, parcelFileDescriptor.getStatSize(), parcelFileDescriptor, file);
+        }
+
+        if (audioLocation instanceof AssetFolderAudioLocation) {
+            @NonNull String assetPath =
+                    ((AssetFolderAudioLocation) audioLocation).getInternalPath();
+            AssetFileDescriptor assetFileDescriptor = context.getAssets().openFd(assetPath);
+            return new Handle(audioLocation, assetFileDescriptor.getFileDescriptor(),
+                    assetFileDescriptor.getStartOffset(), assetFileDescriptor.getLength(),
+                    assetFileDescriptor, null);
+        }
+
+        throw new IllegalStateException("Unexpected audio location type: " +
+                audioLocation.getClass());
+    }
+
+    /**
+     * Removes all files from the cache - the files are closed when they are not in use
+     * anymore.
+     */
+    void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns a human-readable report, as shown in the service dump.
+     */
+    @NonNull
+    String toReport() {
+        CacheStats stats = cache.stats();
+        return String.format(Locale.ROOT,
+                "Open audio files\n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n",
+                "open", cache.size(),
+                "reused", stats.hitCount(),
+                "opened", stats.missCount(),
+                "closed", stats.evictionCount());
+    }
+
+    /**
+     * An open audio file (or a region of a file, e.g. of the APK for assets). Close it
+     * after use.
+     */
+    static class Handle implements AutoCloseable {
+        @NonNull
+        private final AbstractAudioLocation audioLocation;
+
+        @NonNull
+        private final FileDescriptor fileDescriptor;
+        private final long offset;
+        private final long length;
+
+        @NonNull
+        private final Closeable closeable;
+
+        /**
+         * The file in the file system - or <code>null</code> for assets (which do not change
+         * while the app is installed).
+         */
+        @Nullable
+        private final File file;
+        private final long lastModified;
+        private final long fileSize;
+        private long checkedNanos;
+
+        /**
+         * The number of users (including the cache) - the file is closed when this
+         * drops to 0.
+         */
+        private int refCount = 1;
+
+        /**
+         * The memory-mapped region - <code>null</code> until needed.
+         */
+        @Nullable
+        private ByteBuffer mapped;
+
+        Handle(@NonNull AbstractAudioLocation audioLocation,
+               @NonNull FileDescriptor fileDescriptor, long offset, long length,
+               @NonNull Closeable closeable, @Nullable File file) {
+            this.audioLocation = checkNotNull(audioLocation, "audioLocation is null");
+            this.fileDescriptor = fileDescriptor;
+            this.offset = offset;
+            this.length = length;
+            this.closeable = closeable;
+            this.file = file;
+            lastModified = file != null ? file.lastModified() : 0;
+            fileSize = file != null ? file.length() : 0;
+            checkedNanos = System.nanoTime();
+        }
+
+        /**
+         * Returns whether the file has changed since it has been opened - only checked once
+         * in {@link #CHECK_INTERVAL_NANOS}.
+         */
+        private synchronized boolean isOutdated() {
+            if (file == null) {
+                return false;
+            }
+
+            long now = System.nanoTime();
+            if (now - checkedNanos < CHECK_INTERVAL_NANOS) {
+                return false;
+            }
+
+            checkedNanos = now;
+            return file.lastModified() != lastModified || file.length() != fileSize;
+        }
+
+        @NonNull
+        AbstractAudioLocation getAudioLocation() {
+            return audioLocation;
+        }
+
+        /**
+         * Returns the start of the audio in the file (which is not 0 for assets, e.g.).
+         */
+        long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns the length of the audio in the file - as of when the file has been opened.
+         */
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the last-modified time of the file as of when it has been opened -
+         * or 0 for assets.
+         */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Acquires the handle for one more user.
+         *
+         * @return <code>false</code>, if the handle has already been closed
+         */
+        private synchronized boolean tryAcquire() {
+            if (refCount == 0) {
+                return false;
+            }
+
+            refCount++;
+            return true;
+        }
+
+        /**
+         * Sets this file as the data source of this media player.
+         */
+        void setDataSourceOf(@NonNull MediaPlayer mediaPlayer) throws IOException {
+            // Javadoc: "It is the caller's responsibility to close the file descriptor. It is
+            // safe to do so as soon as this call returns."
+            mediaPlayer.setDataSource(fileDescriptor, offset, length);
+        }
+
+        /**
+         * Sets this file as the data source of this extractor - memory-mapped, if possible.
+         */
+        void setDataSourceOf(@NonNull MediaExtractor extractor) throws IOException {
+            @Nullable ByteBuffer mappedRegion = map();
+            if (mappedRegion != null) {
+                extractor.setDataSource(new MappedMediaDataSource(mappedRegion));
+                return;
+            }
+
+            extractor.setDataSource(fileDescriptor, offset, length);
+        }
+
+        /**
+         * Maps the region into memory, if not done yet.
+         *
+         * @return the mapped region - or <code>null</code>, if the region is too large
+         * to be mapped
+         */
+        @Nullable
+        private synchronized ByteBuffer map() throws IOException {
+            if (mapped != null) {
+                return mapped;
+            }
+
+            if (length < 0 || length > MAX_MAPPED_BYTES) {
+                return null;
+            }
+
+            // Maps a duplicate of the file descriptor, which is closed right away (together
+            // with the stream and its channel) - the mapping stays valid.
+            try (FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(
+                    ParcelFileDescriptor.dup(fileDescriptor))) {
+                mapped = in.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, length);
+            }
+            return mapped;
+        }
+
+        /**
+         * Releases the handle for this user.
+         */
+        @Override
+        public void close() {
+            release();
+        }
+
+        /**
+         * Releases one reference - and closes the file, if it was the last one.
+         */
+        private synchronized void release() {
+            if (refCount == 0) {
+                return;
+            }
+
+            refCount--;
+            if (refCount > 0) {
+                return;
+            }
+
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Could not close audio file", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Statistics of the gapless loops since the process has been started: How many loops are
+ * active (each one using two media players), how often the loops have been repeated - and
+ * how many of these repetitions have <i>not</i> been gapless, because the next player
+ * had not been prepared in time.
+ * <p>
+ * Contains no Android dependencies, <code>GaplessLoopStats</code> are thread-safe.
+ *
+ * @see GaplessLooper
+ */
+public class GaplessLoopStats {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static GaplessLoopStats instance;
+
+    private int activeLoops;
+    private long loopsStarted;
+    private long gaplessRepetitions;
+    private long repetitionsWithGap;
+    private long prepareCount;
+    private long prepareNanos;
+
+    public static synchronized GaplessLoopStats getInstance() {
+        if (instance == null) {
+            instance = new GaplessLoopStats();
+        }
+
+        return instance;
+    }
+
+    GaplessLoopStats() {
+    }
+
+    synchronized void loopStarted() {
+        activeLoops++;
+        loopsStarted++;
+    }
+
+    synchronized void loopReleased() {
+        activeLoops--;
+    }
+
+    /**
+     * Records that a loop has been repeated - either gapless (the next player has been started
+     * by the platform) or with a gap.
+     */
+    synchronized void repeated(boolean gapless) {
+        if (gapless) {
+            gaplessRepetitions++;
+        } else {
+            repetitionsWithGap++;
+        }
+    }
+
+    /**
+     * Records that the next player of a loop has been prepared (again).
+     */
+    synchronized void prepared(long nanos) {
+        prepareCount++;
+        prepareNanos += nanos;
+    }
+
+    public synchronized int getActiveLoops() {
+        return activeLoops;
+    }
+
+    public synchronized long getGaplessRepetitions() {
+        return gaplessRepetitions;
+    }
+
+    public synchronized long getRepetitionsWithGap() {
+        return repetitionsWithGap;
+    }
+
+    /**
+     * Returns a human-readable report, as shown in the debug screen and the service dump.
+     */
+    @NonNull
+    public synchronized String toReport() {
+        return String.format(Locale.ROOT,
+                "Gapless loops\n" +
+                        "%-24s %8d (%d media players)%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8.1f%n",
+                "active", activeLoops, 2 * activeLoops,
+                "started", loopsStarted,
+                "repetitions gapless", gaplessRepetitions,
+                "repetitions with gap", repetitionsWithGap,
+                "mean prepare ms", prepareCount == 0 ? Double.NaN :
+                        prepareNanos / NANOS_PER_MILLI / prepareCount);
+    }
+}
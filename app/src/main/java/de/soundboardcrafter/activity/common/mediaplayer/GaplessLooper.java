@@ -0,0 +1,271 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.media.MediaPlayer;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import java.io.IOException;
+
+/**
+ * Plays a {@link SoundboardMediaPlayer} in a gapless loop.
+ * <p>
+ * {@link MediaPlayer#setLooping(boolean)} seeks back to the start when the end has been
+ * reached, which leaves an audible gap on many devices. Instead, the looper prepares
+ * a second player (the <i>twin</i>) on the same audio and chains it after the playing player
+ * (see {@link MediaPlayer#setNextMediaPlayer(MediaPlayer)}), so the platform starts it
+ * seamlessly. Whenever one player has handed over to the other, the finished player is
+ * prepared again and chained after the other one.
+ * <p>
+ * So a looping sound never uses more than two media players, and no decoded audio is
+ * kept in memory. See {@link GaplessLoopStats}.
+ */
+@UiThread
+class GaplessLooper {
+    private static final String TAG = GaplessLooper.class.getName();
+
+    /**
+     * Creates the twin: A new media player with the same data source and audio attributes
+     * as the primary player. The twin does not have to be prepared.
+     */
+    @FunctionalInterface
+    interface TwinFactory {
+        MediaPlayer create() throws IOException;
+    }
+
+    @NonNull
+    private final SoundboardMediaPlayer primary;
+
+    @NonNull
+    private final MediaPlayer twin;
+
+    /**
+     * The player that's currently playing (or was playing last)
+     */
+    @NonNull
+    private MediaPlayer current;
+
+    /**
+     * Whether the player that is <i>not</i> {@link #current} has been prepared, so it
+     * can take over.
+     */
+    private boolean otherPrepared;
+
+    /**
+     * Whether the twin has failed - then, the primary player is restarted (with a gap)
+     * at the end of each repetition.
+     */
+    private boolean twinFailed;
+
+    private boolean loop = true;
+
+    private boolean released;
+
+    private long prepareStartNanos;
+
+    /**
+     * Creates a looper. The primary player must already be playing, the twin must
+     * not have been prepared yet.
+     */
+    GaplessLooper(@NonNull SoundboardMediaPlayer primary, @NonNull MediaPlayer twin,
+                  float volume) {
+        this.primary = checkNotNull(primary, "primary is null");
+        this.twin = checkNotNull(twin, "twin is null");
+        current = primary;
+
+        primary.setOnPreparedListener(this::onPrepared);
+        twin.setOnPreparedListener(this::onPrepared);
+        twin.setOnCompletionListener(this::onTwinCompleted);
+        twin.setOnErrorListener(this::onTwinError);
+        twin.setVolume(volume, volume);
+
+        GaplessLoopStats.getInstance().loopStarted();
+
+        prepareStartNanos = SystemClock.elapsedRealtimeNanos();
+        twin.prepareAsync();
+    }
+
+    /**
+     * Sets whether the sound shall (still) be played in a loop. When the loop is switched off,
+     * the current repetition is played until its end.
+     */
+    void setLoop(boolean loop) {
+        if (released || this.loop == loop) {
+            return;
+        }
+
+        this.loop = loop;
+
+        if (otherPrepared) {
+            if (loop) {
+                chainOther();
+            } else {
+                current.setNextMediaPlayer(null);
+            }
+        }
+    }
+
+    void setVolume(float volume) {
+        if (!released) {
+            twin.setVolume(volume, volume);
+        }
+    }
+
+    /**
+     * Returns whether the primary player is the one that's currently playing (or was
+     * playing last).
+     */
+    boolean isPrimaryCurrent() {
+        return current == primary;
+    }
+
+    boolean isTwinPlaying() {
+        return !released && twin.isPlaying();
+    }
+
+    /**
+     * To be called when this player has completed a repetition.
+     *
+     * @return <code>true</code> if the loop goes on - <code>false</code>, if the playing has
+     * really completed
+     */
+    boolean onRepetitionCompleted(@NonNull MediaPlayer finished) {
+        if (released || finished != current || !loop) {
+            return false;
+        }
+
+        if (!otherPrepared) {
+            // The other player has not been prepared in time - repeat with a (small) gap
+            finished.start();
+            GaplessLoopStats.getInstance().repeated(false);
+            return true;
+        }
+
+        MediaPlayer other = other(finished);
+        boolean gapless = isPlaying(other);
+        if (!gapless) {
+            other.start();
+        }
+        GaplessLoopStats.getInstance().repeated(gapless);
+
+        current = other;
+        otherPrepared = false;
+        prepareAgain(finished);
+        return true;
+    }
+
+    /**
+     * Releases the twin. The primary player is not released.
+     */
+    void release() {
+        if (released) {
+            return;
+        }
+
+        detach().release();
+    }
+
+    /**
+     * Ends the loop without releasing the twin - so the twin can be released on another
+     * thread (see {@link PlayerReaper}).
+     *
+     * @return the twin, still to be released
+     */
+    @NonNull
+    MediaPlayer detach() {
+        released = true;
+
+        if (current == primary && otherPrepared) {
+            try {
+                primary.setNextMediaPlayer(null);
+            } catch (IllegalStateException e) {
+                // The primary player is in an error state. Can't do anything about it.
+            }
+        }
+
+        GaplessLoopStats.getInstance().loopReleased();
+        return twin;
+    }
+
+    private void onPrepared(MediaPlayer player) {
+        if (released || player == current) {
+            return;
+        }
+
+        GaplessLoopStats.getInstance()
+                .prepared(SystemClock.elapsedRealtimeNanos() - prepareStartNanos);
+        otherPrepared = true;
+
+        if (loop) {
+            chainOther();
+        }
+    }
+
+    private void chainOther() {
+        if (isPlaying(current)) {
+            current.setNextMediaPlayer(other(current));
+        }
+    }
+
+    private void prepareAgain(@NonNull MediaPlayer player) {
+        if (player == twin && twinFailed) {
+            return;
+        }
+
+        if (player == primary) {
+            primary.stopThisPlayerOnly();
+        } else {
+            player.stop();
+        }
+
+        prepareStartNanos = SystemClock.elapsedRealtimeNanos();
+        player.prepareAsync();
+    }
+
+    private void onTwinCompleted(MediaPlayer mediaPlayer) {
+        if (!onRepetitionCompleted(twin)) {
+            primary.playingCompleted();
+        }
+    }
+
+    private boolean onTwinError(MediaPlayer mediaPlayer, int what, int extra) {
+        Log.w(TAG, "Error in the twin of " + primary.getSoundName() + " - what: " + what +
+                " extra: " + extra);
+
+        if (released) {
+            return true;
+        }
+
+        twinFailed = true;
+
+        if (current == twin) {
+            // The twin was playing - so this is the end.
+            primary.playingCompleted();
+            return true;
+        }
+
+        if (otherPrepared) {
+            primary.setNextMediaPlayer(null);
+            otherPrepared = false;
+        }
+
+        return true;
+    }
+
+    private boolean isPlaying(@NonNull MediaPlayer player) {
+        if (player == primary) {
+            return primary.isThisPlayerPlaying();
+        }
+
+        return player.isPlaying();
+    }
+
+    @NonNull
+    private MediaPlayer other(@NonNull MediaPlayer player) {
+        return player == primary ? twin : primary;
+    }
+}
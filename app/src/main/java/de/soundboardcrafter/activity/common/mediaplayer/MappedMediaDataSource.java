@@ -0,0 +1,47 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.media.MediaDataSource;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link MediaDataSource} that reads from a memory-mapped region of an audio file -
+ * without any system calls.
+ */
+class MappedMediaDataSource extends MediaDataSource {
+    /**
+     * Own view of the mapped region (so that the position is not shared)
+     */
+    @NonNull
+    private final ByteBuffer buffer;
+
+    MappedMediaDataSource(@NonNull ByteBuffer mapped) {
+        buffer = checkNotNull(mapped, "mapped is null").duplicate();
+    }
+
+    @Override
+    public synchronized int readAt(long position, byte[] dest, int offset, int size) {
+        if (position >= buffer.limit()) {
+            return -1;
+        }
+
+        int count = (int) Math.min(size, buffer.limit() - position);
+        buffer.position((int) position);
+        buffer.get(dest, offset, count);
+        return count;
+    }
+
+    @Override
+    public long getSize() {
+        return buffer.limit();
+    }
+
+    @Override
+    public void close() {
+        // The mapped region is shared - it is unmapped when it is no longer referenced.
+    }
+}
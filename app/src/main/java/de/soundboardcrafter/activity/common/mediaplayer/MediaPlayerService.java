@@ -9,10 +9,14 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.media.MediaPlayer;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
 import android.os.PowerManager;
+import android.os.SystemClock;
 import android.support.v4.media.MediaMetadataCompat;
 import android.support.v4.media.session.MediaSessionCompat;
 import android.support.v4.media.session.PlaybackStateCompat;
@@ -25,11 +29,17 @@ import androidx.annotation.UiThread;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import androidx.core.app.ServiceCompat;
+import androidx.preference.PreferenceManager;
 
+import java.io.FileDescriptor;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 import de.soundboardcrafter.R;
@@ -49,6 +59,15 @@ public class MediaPlayerService extends Service {
         void playingStartedOrStopped();
     }
 
+    /**
+     * Listener for new {@link PlayingState} snapshots
+     */
+    @FunctionalInterface
+    public interface OnPlayingStateChanged {
+        @UiThread
+        void playingStateChanged(@NonNull PlayingState playingState);
+    }
+
     private static final String TAG = MediaPlayerService.class.getName();
 
     private static final String NOTIFICATION_CHANNEL_ID = "mediaPlayerNotificationChannel";
@@ -59,6 +78,27 @@ public class MediaPlayerService extends Service {
     private static final int MAX_NOTIFICATION_LENGTH = 40;
     private static final String MEDIA_SESSION_TAG = "SOUNDBOARD_CRAFTER_MEDIA_SESSION";
 
+    /**
+     * Changes of the playing sounds within this time are shown in the notification
+     * (and the media session) at once
+     */
+    private static final long NOTIFICATION_UPDATE_DELAY_MILLIS = 150;
+
+    /**
+     * Defined in preferences.xml.
+     */
+    private static final String PREF_KEY_USE_MIXING_ENGINE = "useMixingEngine";
+
+    /**
+     * Defined in preferences.xml.
+     */
+    private static final String PREF_KEY_MAX_SIMULTANEOUS_SOUNDS = "maxSimultaneousSounds";
+
+    /**
+     * Defined in preferences.xml.
+     */
+    private static final String PREF_KEY_VOICE_STEALING_POLICY = "voiceStealingPolicy";
+
     private static final String ACTION_STOP = "action_stop";
     private static final int REQUEST_CODE_STOP = 1;
 
@@ -76,9 +116,79 @@ public class MediaPlayerService extends Service {
      */
     private final SoundboardMediaPlayers mediaPlayers = new SoundboardMediaPlayers();
 
+    /**
+     * Mixes the sounds, if the user has switched the mixing engine on - created on first use.
+     */
+    @Nullable
+    private MixingEngine mixingEngine;
+
+    private final MixingEngine.Callback mixingEngineCallback = new MixingEngine.Callback() {
+        @Override
+        public void voiceStarted(@NonNull MixerVoice voice) {
+            playingHasChanged();
+        }
+
+        @Override
+        public void voiceCompleted(@NonNull MixerVoice voice) {
+            voice.playingLogicallyStopped();
+            onCompletion(voice);
+        }
+
+        @Override
+        public void voiceFailed(@NonNull MixerVoice voice, @NonNull Exception e) {
+            voice.playingLogicallyStopped();
+            mediaPlayers.remove(voice);
+            playingHasChanged();
+        }
+    };
+
     @Nullable
     private OnAnyPlayingStartedOrStopped onAnyPlayingStartedOrStopped;
 
+    private final List<OnPlayingStateChanged> onPlayingStateChangedListeners =
+            new ArrayList<>();
+
+    /**
+     * The version of the latest {@link PlayingState} - process-wide, so that versions stay
+     * unique even when the service is re-created.
+     */
+    private static long lastPlayingStateVersion = PlayingState.EMPTY.getVersion();
+
+    /**
+     * The latest snapshot of the sounds <i>actively playing</i>
+     */
+    @NonNull
+    private PlayingState playingState = PlayingState.EMPTY;
+
+    private final Handler uiThreadHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Updates the media session, the notification and the foreground state - posted
+     * when the playing has changed, see {@link #scheduleNotificationUpdate()}.
+     */
+    private final Runnable notificationUpdater =
+            this::updateMediaSessionNotificationAndForegroundService;
+
+    private boolean notificationUpdateScheduled;
+
+    /**
+     * The long summary currently shown in the media session - <code>null</code>, if
+     * nothing is shown as playing.
+     */
+    @Nullable
+    private String shownLongSummary;
+
+    /**
+     * The short summary currently shown in the notification - <code>null</code>, if
+     * the service is not in the foreground.
+     */
+    @Nullable
+    private String shownShortSummary;
+
+    // Only written on the UI thread (volatile, because they are read when dumping the service)
+    private volatile long notificationUpdatesRequested;
+    private volatile long notificationUpdatesPosted;
+
     public MediaPlayerService() {
         Log.d(TAG, "MediaPlayerService is created");
     }
@@ -156,6 +266,30 @@ public class MediaPlayerService extends Service {
         this.onAnyPlayingStartedOrStopped = onAnyPlayingStartedOrStopped;
     }
 
+    /**
+     * Adds a listener that is informed about each new {@link PlayingState}. The listener
+     * should call {@link #getPlayingState()} for the initial state.
+     */
+    public void addOnPlayingStateChanged(@NonNull OnPlayingStateChanged listener) {
+        checkNotNull(listener, "listener is null");
+
+        if (!onPlayingStateChangedListeners.contains(listener)) {
+            onPlayingStateChangedListeners.add(listener);
+        }
+    }
+
+    public void removeOnPlayingStateChanged(@NonNull OnPlayingStateChanged listener) {
+        onPlayingStateChangedListeners.remove(listener);
+    }
+
+    /**
+     * Returns the latest snapshot of the sounds <i>actively playing</i>.
+     */
+    @NonNull
+    public PlayingState getPlayingState() {
+        return playingState;
+    }
+
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
@@ -258,12 +392,137 @@ public class MediaPlayerService extends Service {
     public void play(@Nullable Soundboard soundboard, @NonNull Sound sound,
                      @Nullable SoundboardMediaPlayer.OnPlayingStopped onPlayingStopped)
             throws IOException {
+        play(soundboard, sound, onPlayingStopped, SystemClock.elapsedRealtimeNanos());
+    }
+
+    /**
+     * Adds a media player and starts playing.
+     *
+     * @param clickRealtimeNanos the time the user has clicked to play the sound (as in
+     *                           {@link SystemClock#elapsedRealtimeNanos()}) - used to
+     *                           measure the playback latency
+     * @throws IOException In case of an I/O problem (no audio file at <code>soundPath</code>, e.g.)
+     * @see PlaybackLatencyStats
+     */
+    public void play(@Nullable Soundboard soundboard, @NonNull Sound sound,
+                     @Nullable SoundboardMediaPlayer.OnPlayingStopped onPlayingStopped,
+                     long clickRealtimeNanos)
+            throws IOException {
         checkNotNull(sound, "sound is null");
 
-        SoundboardMediaPlayer mediaPlayer = mediaPlayers.get(soundboard, sound);
+        if (isMixingEngineEnabled()) {
+            playWithMixingEngine(soundboard, sound, onPlayingStopped, clickRealtimeNanos);
+            return;
+        }
+
+        playWithMediaPlayer(soundboard, sound, onPlayingStopped, clickRealtimeNanos);
+    }
+
+    private boolean isMixingEngineEnabled() {
+        return PreferenceManager.getDefaultSharedPreferences(this)
+                .getBoolean(PREF_KEY_USE_MIXING_ENGINE, false);
+    }
+
+    /**
+     * Stops other players (according to the {@link VoiceStealingPolicy} from the settings),
+     * if a new player for this sound would exceed the maximum number of players.
+     */
+    private void stealPlayersToMakeRoom(@Nullable Soundboard soundboard, @NonNull Sound sound,
+                                        boolean mixerVoice) {
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(this);
+        int maxPlayers = preferences.getInt(PREF_KEY_MAX_SIMULTANEOUS_SOUNDS,
+                SoundboardMediaPlayers.DEFAULT_MAX_PLAYERS);
+        VoiceStealingPolicy policy = VoiceStealingPolicy.fromName(
+                preferences.getString(PREF_KEY_VOICE_STEALING_POLICY, null));
+
+        int stolen = mediaPlayers.stealPlayersToMakeRoom(soundboard, sound, mixerVoice,
+                maxPlayers, policy);
+        if (stolen > 0) {
+            Log.d(TAG, "Stopped " + stolen + " sound(s) to play " + sound.getName());
+            playingHasChanged();
+        }
+    }
+
+    @NonNull
+    private MixingEngine getMixingEngine() {
+        if (mixingEngine == null) {
+            mixingEngine = new MixingEngine(this, mixingEngineCallback);
+        }
+
+        return mixingEngine;
+    }
+
+    /**
+     * Adds a voice to the {@link MixingEngine} and starts playing - or falls back to a
+     * media player, if the sound is too long for the engine.
+     */
+    private void playWithMixingEngine(@Nullable Soundboard soundboard, @NonNull Sound sound,
+                                      @Nullable SoundboardMediaPlayer.OnPlayingStopped
+                                              onPlayingStopped,
+                                      long clickRealtimeNanos) {
+        PlaybackStartTrace trace =
+                new PlaybackStartTrace(sound.getAudioLocation(), clickRealtimeNanos);
+
+        @Nullable SoundboardPlayer existingPlayer = mediaPlayers.get(soundboard, sound);
+        if (existingPlayer != null) {
+            // Play again from the start
+            mediaPlayers.remove(existingPlayer);
+        }
+
+        stealPlayersToMakeRoom(soundboard, sound, true);
+        MixerVoice voice = new MixerVoice(sound.getName(),
+                SoundboardMediaPlayers.percentageToVolume(sound.getVolumePercentage()),
+                sound.isLoop());
+        trace.mark(PlaybackLatencyStats.Phase.ACQUIRE);
+        voice.setPlaybackStartTrace(trace);
+        voice.setOnPlayingStopped(onPlayingStopped);
+        trace.mark(PlaybackLatencyStats.Phase.SET_DATA_SOURCE);
+        mediaPlayers.putActive(soundboard, sound, voice);
+
+        getMixingEngine().play(voice, sound.getAudioLocation(), () -> {
+            if (voice.isStopRequested() || mediaPlayers.getActive(soundboard, sound) != voice) {
+                // Stopped or replaced in the meantime
+                return;
+            }
+
+            mediaPlayers.remove(voice);
+            try {
+                playWithMediaPlayer(soundboard, sound, onPlayingStopped, clickRealtimeNanos);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Could not play " + sound.getName(), e);
+                voice.playingLogicallyStopped();
+                playingHasChanged();
+            }
+        });
+    }
+
+    /**
+     * Adds a media player (or reuses the existing one) and starts playing.
+     *
+     * @throws IOException In case of an I/O problem (no audio file at <code>soundPath</code>, e.g.)
+     */
+    private void playWithMediaPlayer(@Nullable Soundboard soundboard, @NonNull Sound sound,
+                                     @Nullable SoundboardMediaPlayer.OnPlayingStopped
+                                             onPlayingStopped,
+                                     long clickRealtimeNanos)
+            throws IOException {
+        PlaybackStartTrace trace =
+                new PlaybackStartTrace(sound.getAudioLocation(), clickRealtimeNanos);
+
+        @Nullable SoundboardPlayer existingPlayer = mediaPlayers.get(soundboard, sound);
+        if (existingPlayer != null && !(existingPlayer instanceof SoundboardMediaPlayer)) {
+            // Played by the mixing engine before
+            mediaPlayers.remove(existingPlayer);
+            existingPlayer = null;
+        }
+
+        SoundboardMediaPlayer mediaPlayer = (SoundboardMediaPlayer) existingPlayer;
         if (mediaPlayer == null) {
+            stealPlayersToMakeRoom(soundboard, sound, false);
             mediaPlayer = new SoundboardMediaPlayer();
+            trace.mark(PlaybackLatencyStats.Phase.ACQUIRE);
             try {
+                mediaPlayer.setPlaybackStartTrace(trace);
                 mediaPlayer.setOnPlayingStopped(onPlayingStopped);
                 initMediaPlayer(sound, mediaPlayer);
             } catch (IOException | RuntimeException e) {
@@ -276,6 +535,8 @@ public class MediaPlayerService extends Service {
                 // update the callbacks
                 mediaPlayer.setOnPlayingStopped(onPlayingStopped);
                 mediaPlayer.reset();
+                trace.mark(PlaybackLatencyStats.Phase.ACQUIRE);
+                mediaPlayer.setPlaybackStartTrace(trace);
                 initMediaPlayer(sound, mediaPlayer);
             } catch (IOException | RuntimeException e) {
                 mediaPlayers.remove(mediaPlayer);
@@ -285,7 +546,7 @@ public class MediaPlayerService extends Service {
         }
 
         mediaPlayer.setOnPreparedListener(mp -> {
-            mp.start();
+            ((SoundboardMediaPlayer) mp).startPrepared();
             playingHasChanged();
         });
         mediaPlayer.prepareAsync();
@@ -305,8 +566,13 @@ public class MediaPlayerService extends Service {
             throws IOException {
         checkNotNull(audioLocation, "audioLocation is null");
 
+        PlaybackStartTrace trace =
+                new PlaybackStartTrace(audioLocation, SystemClock.elapsedRealtimeNanos());
+
         SoundboardMediaPlayer mediaPlayer = new SoundboardMediaPlayer();
+        trace.mark(PlaybackLatencyStats.Phase.ACQUIRE);
         try {
+            mediaPlayer.setPlaybackStartTrace(trace);
             mediaPlayer.setOnPlayingStopped(() -> {
                 if (onPlayingStopped != null) {
                     onPlayingStopped.stop();
@@ -328,19 +594,78 @@ public class MediaPlayerService extends Service {
             onAnyPlayingStartedOrStopped.playingStartedOrStopped();
         }
 
-        updateMediaSessionNotificationAndForegroundService();
+        publishPlayingState();
+
+        scheduleNotificationUpdate();
     }
 
+    /**
+     * Schedules an update of the media session, the notification and the foreground
+     * state - unless one is already scheduled. So when sounds are started or stopped
+     * in quick succession, the system is called only once - and never while the user is
+     * just starting a sound.
+     */
+    private void scheduleNotificationUpdate() {
+        notificationUpdatesRequested++;
+
+        if (notificationUpdateScheduled) {
+            return;
+        }
+
+        notificationUpdateScheduled = true;
+        uiThreadHandler.postDelayed(notificationUpdater, NOTIFICATION_UPDATE_DELAY_MILLIS);
+    }
+
+    /**
+     * Publishes a new {@link PlayingState} - if the sounds <i>actively playing</i>
+     * have changed.
+     */
+    private void publishPlayingState() {
+        PlayingState newPlayingState =
+                mediaPlayers.createPlayingState(lastPlayingStateVersion + 1);
+        if (newPlayingState.hasSamePlayingSounds(playingState)) {
+            return;
+        }
+
+        lastPlayingStateVersion = newPlayingState.getVersion();
+        playingState = newPlayingState;
+
+        // Listeners might remove themselves
+        for (OnPlayingStateChanged listener : new ArrayList<>(onPlayingStateChangedListeners)) {
+            listener.playingStateChanged(playingState);
+        }
+    }
+
+    /**
+     * Updates the media session, the notification and the foreground state - if anything
+     * visible has changed.
+     */
     private void updateMediaSessionNotificationAndForegroundService() {
+        notificationUpdateScheduled = false;
+
         if (mediaPlayers.activePlayersEmpty()) {
+            if (shownLongSummary == null && shownShortSummary == null) {
+                return;
+            }
+
+            notificationUpdatesPosted++;
             mediaSession.setPlaybackState(createPlaybackStateNotPlaying());
             mediaSession.setMetadata(null);
             stopForeground(true);
+            shownLongSummary = null;
+            shownShortSummary = null;
             return;
         }
 
         String shortSummary = buildSummary(SummaryStyle.SHORT);
         String longSummary = buildSummary(SummaryStyle.LONG);
+        if (longSummary.equals(shownLongSummary) && shortSummary.equals(shownShortSummary)) {
+            return;
+        }
+
+        notificationUpdatesPosted++;
+        shownLongSummary = longSummary;
+        shownShortSummary = shortSummary;
 
         PendingIntent stopPendingIntent = createStopPendingIntent();
 
@@ -431,9 +756,9 @@ public class MediaPlayerService extends Service {
 
     private String buildSummary(SummaryStyle style) {
         StringBuilder res = new StringBuilder();
-        for (Iterator<SoundboardMediaPlayer> playerIt = mediaPlayers.activePlayersIterator();
+        for (Iterator<SoundboardPlayer> playerIt = mediaPlayers.activePlayersIterator();
              playerIt.hasNext(); ) {
-            SoundboardMediaPlayer player = playerIt.next();
+            SoundboardPlayer player = playerIt.next();
             if (res.length() > 0) {
                 res.append(", ");
             }
@@ -532,7 +857,7 @@ public class MediaPlayerService extends Service {
      * Called when MediaPlayer is ready
      */
     private void onPrepared(MediaPlayer player) {
-        player.start();
+        ((SoundboardMediaPlayer) player).startPrepared();
     }
 
     private boolean onError(SoundboardMediaPlayer player, int what, int extra) {
@@ -543,15 +868,58 @@ public class MediaPlayerService extends Service {
         return true;
     }
 
-    private void onCompletion(SoundboardMediaPlayer player) {
+    private void onCompletion(SoundboardPlayer player) {
         mediaPlayers.remove(player);
         playingHasChanged();
     }
 
+    /**
+     * Dumps the playback latency, gapless loop, open file, voice stealing, player reaper,
+     * notification update and mixing engine statistics, see
+     * <code>adb shell dumpsys activity service
+     * de.soundboardcrafter/.activity.common.mediaplayer.MediaPlayerService</code>.
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        writer.println(PlaybackLatencyStats.getInstance().toReport());
+        writer.println(GaplessLoopStats.getInstance().toReport());
+        writer.println(AudioFileHandles.getInstance().toReport());
+        writer.println(mediaPlayers.toReport());
+        writer.println(PlayerReaper.getInstance().toReport());
+        writer.println(String.format(Locale.ROOT,
+                "Notification updates\n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n",
+                "requested", notificationUpdatesRequested,
+                "posted", notificationUpdatesPosted));
+        if (mixingEngine != null) {
+            writer.println(mixingEngine.toReport());
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        if (level == TRIM_MEMORY_RUNNING_CRITICAL || level >= TRIM_MEMORY_MODERATE) {
+            // The audio can easily be decoded (and the files opened) again
+            PcmCache.getInstance().clear();
+            AudioFileHandles.getInstance().clear();
+        }
+    }
+
     @Override
     public void onDestroy() {
         stopPlaying(false);
 
+        if (mixingEngine != null) {
+            mixingEngine.release();
+            mixingEngine = null;
+        }
+
+        uiThreadHandler.removeCallbacks(notificationUpdater);
+        notificationUpdateScheduled = false;
+
         mediaSession.setActive(false);
         mediaSession.release();
 
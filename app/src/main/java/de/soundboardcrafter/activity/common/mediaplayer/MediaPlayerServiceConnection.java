@@ -0,0 +1,173 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.IBinder;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide connection to the {@link MediaPlayerService}: The service is started and bound
+ * once (with the application context) and stays bound - so activities and fragments don't
+ * have to bind and unbind themselves, and no screen has to wait for its own bind round trip.
+ * <p>
+ * The service can be observed lifecycle-aware (see {@link #observe(LifecycleOwner, Observer)}).
+ * Commands issued before the service is connected are queued and run as soon as it's
+ * connected (see {@link #run(LifecycleOwner, Consumer)}) - so even a click on the first
+ * frame of a new screen is not lost.
+ */
+@MainThread
+public class MediaPlayerServiceConnection implements ServiceConnection {
+    private static final String TAG = MediaPlayerServiceConnection.class.getName();
+
+    private static MediaPlayerServiceConnection instance;
+
+    @NonNull
+    private final Context appContext;
+
+    /**
+     * The service - no value while the service is not connected
+     */
+    private final MutableLiveData<MediaPlayerService> service = new MutableLiveData<>();
+
+    /**
+     * Commands to run as soon as the service is connected
+     */
+    private final Queue<PendingCommand> pendingCommands = new ArrayDeque<>();
+
+    private boolean bound;
+
+    /**
+     * Returns the connection - binding the service, if not done yet.
+     */
+    @NonNull
+    public static MediaPlayerServiceConnection getInstance(@NonNull Context context) {
+        checkNotNull(context, "context is null");
+
+        if (instance == null) {
+            instance = new MediaPlayerServiceConnection(context.getApplicationContext());
+        }
+
+        instance.bindIfNecessary();
+        return instance;
+    }
+
+    private MediaPlayerServiceConnection(@NonNull Context appContext) {
+        this.appContext = appContext;
+    }
+
+    private void bindIfNecessary() {
+        if (bound) {
+            return;
+        }
+
+        Intent intent = new Intent(appContext, MediaPlayerService.class);
+        // Started, so that it goes on playing in the foreground when the app is left
+        appContext.startService(intent);
+        bound = appContext.bindService(intent, this, Context.BIND_AUTO_CREATE);
+    }
+
+    /**
+     * Returns the service - or <code>null</code>, if it's not connected (yet).
+     */
+    @Nullable
+    public MediaPlayerService getService() {
+        return service.getValue();
+    }
+
+    /**
+     * Observes the service as long as the owner is started - the observer is called
+     * when the service has been connected (and with <code>null</code>, when the service has
+     * been disconnected).
+     */
+    public void observe(@NonNull LifecycleOwner owner,
+                        @NonNull Observer<MediaPlayerService> observer) {
+        service.observe(owner, observer);
+    }
+
+    /**
+     * Runs this command with the service - right away, if the service is connected,
+     * otherwise as soon as it's connected. A queued command is dropped if the owner
+     * has been destroyed in the meantime.
+     */
+    public void run(@NonNull LifecycleOwner owner,
+                    @NonNull Consumer<MediaPlayerService> command) {
+        checkNotNull(owner, "owner is null");
+        checkNotNull(command, "command is null");
+
+        @Nullable MediaPlayerService currentService = getService();
+        if (currentService != null) {
+            command.accept(currentService);
+            return;
+        }
+
+        pendingCommands.add(new PendingCommand(owner, command));
+        bindIfNecessary();
+    }
+
+    @Override
+    public void onServiceConnected(ComponentName name, IBinder binder) {
+        Log.d(TAG, "MediaPlayerService is connected");
+
+        MediaPlayerService connectedService = ((MediaPlayerService.Binder) binder).getService();
+        service.setValue(connectedService);
+
+        PendingCommand pendingCommand;
+        while ((pendingCommand = pendingCommands.poll()) != null) {
+            if (pendingCommand.owner.getLifecycle().getCurrentState()
+                    != Lifecycle.State.DESTROYED) {
+                pendingCommand.command.accept(connectedService);
+            }
+        }
+    }
+
+    @Override
+    public void onServiceDisconnected(ComponentName name) {
+        // The system binds again, as soon as the service is available.
+        Log.d(TAG, "MediaPlayerService is disconnected");
+        service.setValue(null);
+    }
+
+    @Override
+    public void onBindingDied(ComponentName name) {
+        Log.d(TAG, "MediaPlayerService binding has died");
+        service.setValue(null);
+
+        appContext.unbindService(this);
+        bound = false;
+        bindIfNecessary();
+    }
+
+    @Override
+    public void onNullBinding(ComponentName name) {
+        Log.w(TAG, "MediaPlayerService has null binding");
+    }
+
+    private static class PendingCommand {
+        @NonNull
+        private final LifecycleOwner owner;
+        @NonNull
+        private final Consumer<MediaPlayerService> command;
+
+        PendingCommand(@NonNull LifecycleOwner owner,
+                       @NonNull Consumer<MediaPlayerService> command) {
+            this.owner = owner;
+            this.command = command;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+/**
+ * One sound played by the {@link MixingEngine}. Volume and loop can be changed
+ * from the UI thread at any time, the mixer thread picks up the changes with the next
+ * buffer. Volume changes (including stopping) are ramped over one buffer, so they
+ * don't click. Fading out (see {@link #fadeOut()}) is done by the mixer thread, with a gain
+ * ramp per sample.
+ */
+class MixerVoice implements SoundboardPlayer {
+    private static final float SAMPLE_TO_FLOAT = 1f / 32768f;
+
+    /**
+     * Duration of a fade-out
+     */
+    private static final double FADE_OUT_SECS = 2.5;
+
+    /**
+     * Gain at the end of a fade-out (-60 dB) - the voice is removed then
+     */
+    private static final float FADE_OUT_MIN_GAIN = 0.001f;
+
+    @NonNull
+    private final String soundName;
+
+    private volatile float volume;
+
+    private volatile boolean loop;
+
+    /**
+     * Set when the voice shall stop - the mixer thread then ramps the voice down
+     * and removes it.
+     */
+    private volatile boolean stopRequested;
+
+    /**
+     * The decoded audio - <code>null</code> while the audio is still being decoded.
+     */
+    @Nullable
+    private volatile PcmAudio audio;
+
+    /**
+     * Set when the voice shall fade out - the mixer thread then lowers the gain sample
+     * by sample and removes the voice.
+     */
+    private volatile boolean fadingOut;
+
+    /**
+     * Set by the mixer thread when the audio has been played completely.
+     */
+    private volatile boolean completed;
+
+    /**
+     * Set by the mixer thread when the voice has been faded out.
+     */
+    private volatile boolean fadedOut;
+
+    @Nullable
+    private SoundboardMediaPlayer.OnPlayingStopped onPlayingStopped;
+
+    /**
+     * Trace of the current playback start - <code>null</code> when playback has been started.
+     */
+    @Nullable
+    private PlaybackStartTrace playbackStartTrace;
+
+    // Only accessed by the mixer thread
+    private int positionFrames;
+    private float appliedVolume;
+    private float fadeGain = 1f;
+    private float fadeFactorPerFrame;
+
+    MixerVoice(@NonNull String soundName, float volume, boolean loop) {
+        this.soundName = checkNotNull(soundName, "soundName is null");
+        this.volume = volume;
+        this.loop = loop;
+    }
+
+    @Override
+    @NonNull
+    public String getSoundName() {
+        return soundName;
+    }
+
+    @Override
+    public float getVolume() {
+        return volume;
+    }
+
+    @Override
+    public void setVolume(float volume) {
+        this.volume = volume;
+    }
+
+    @Override
+    public void setGaplessLoop(boolean loop) {
+        this.loop = loop;
+    }
+
+    @Override
+    public boolean isGaplessLoop() {
+        return loop;
+    }
+
+    /**
+     * Returns whether the voice is playing - <code>false</code> while the audio is
+     * still being decoded.
+     */
+    @Override
+    public boolean isPlaying() {
+        return audio != null && !completed && !stopRequested;
+    }
+
+    boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    @Override
+    public void setOnPlayingStopped(
+            @Nullable SoundboardMediaPlayer.OnPlayingStopped onPlayingStopped) {
+        this.onPlayingStopped = onPlayingStopped;
+    }
+
+    void setPlaybackStartTrace(@Nullable PlaybackStartTrace playbackStartTrace) {
+        this.playbackStartTrace = playbackStartTrace;
+    }
+
+    /**
+     * Marks the end of this phase of the playback start (if it is traced).
+     */
+    void markPlaybackStart(@NonNull PlaybackLatencyStats.Phase phase) {
+        if (playbackStartTrace != null) {
+            playbackStartTrace.mark(phase);
+        }
+    }
+
+    /**
+     * To be called when the audio has been decoded: The voice is ready to be mixed.
+     */
+    @WorkerThread
+    void setAudio(@NonNull PcmAudio audio) {
+        markPlaybackStart(PlaybackLatencyStats.Phase.PREPARE);
+        this.audio = checkNotNull(audio, "audio is null");
+    }
+
+    /**
+     * To be called when the voice has been added to the mixer. Finishes the
+     * trace of the playback start.
+     */
+    @WorkerThread
+    void started() {
+        markPlaybackStart(PlaybackLatencyStats.Phase.START);
+
+        if (playbackStartTrace != null) {
+            playbackStartTrace.finish();
+            playbackStartTrace = null;
+        }
+    }
+
+    /**
+     * Adds the next frames of this voice to the mix. If the audio is still being decoded
+     * and the frames are not available yet, nothing is added for the rest of the buffer.
+     *
+     * @param mix    left and right channel interleaved, values between -1 and 1
+     * @param frames the number of frames to mix
+     * @return whether the voice shall go on playing - <code>false</code>, if the voice has been
+     * stopped, has completed (see {@link #isCompleted()}) or has been faded out
+     * (see {@link #isFadedOut()})
+     */
+    @WorkerThread
+    boolean mixInto(@NonNull float[] mix, int frames) {
+        @Nullable PcmAudio currentAudio = audio;
+        if (currentAudio == null) {
+            return !stopRequested;
+        }
+
+        // Order matters, see PcmAudio
+        boolean audioComplete = currentAudio.isComplete();
+        int frameCount = currentAudio.getFrameCount();
+        short[] samples = currentAudio.getSamples();
+
+        boolean stopping = stopRequested;
+        boolean fading = fadingOut;
+        if (fading && fadeFactorPerFrame == 0) {
+            fadeFactorPerFrame = (float) Math.pow(FADE_OUT_MIN_GAIN,
+                    1 / (FADE_OUT_SECS * currentAudio.getSampleRate()));
+        }
+
+        float targetVolume = stopping ? 0f : volume;
+        float volumeStep = (targetVolume - appliedVolume) / frames;
+        float currentVolume = appliedVolume;
+
+        for (int i = 0; i < frames; i++) {
+            if (positionFrames >= frameCount) {
+                if (!audioComplete) {
+                    // Not decoded yet
+                    appliedVolume = currentVolume;
+                    return !stopping;
+                }
+
+                if (!loop || frameCount == 0) {
+                    completed = true;
+                    return false;
+                }
+
+                positionFrames = 0;
+            }
+
+            if (fading) {
+                fadeGain *= fadeFactorPerFrame;
+                if (fadeGain < FADE_OUT_MIN_GAIN) {
+                    fadedOut = true;
+                    return false;
+                }
+            }
+
+            currentVolume += volumeStep;
+            float factor = currentVolume * fadeGain * SAMPLE_TO_FLOAT;
+            int sampleIndex = positionFrames * PcmAudio.CHANNEL_COUNT;
+            mix[i * PcmAudio.CHANNEL_COUNT] += samples[sampleIndex] * factor;
+            mix[i * PcmAudio.CHANNEL_COUNT + 1] += samples[sampleIndex + 1] * factor;
+
+            positionFrames++;
+        }
+
+        appliedVolume = targetVolume;
+
+        return !stopping;
+    }
+
+    /**
+     * Returns whether the audio has been played completely (and not looped).
+     */
+    boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns whether the voice has been faded out completely.
+     */
+    boolean isFadedOut() {
+        return fadedOut;
+    }
+
+    /**
+     * Starts fading out the voice. When the voice has been faded out, the mixer removes it
+     * (see {@link #isFadedOut()}).
+     */
+    @UiThread
+    void fadeOut() {
+        fadingOut = true;
+    }
+
+    @Override
+    @UiThread
+    public void stop() {
+        stopRequested = true;
+        playingLogicallyStopped();
+    }
+
+    @Override
+    @UiThread
+    public void release() {
+        stopRequested = true;
+    }
+
+    @Override
+    @UiThread
+    public void playingLogicallyStopped() {
+        if (onPlayingStopped != null) {
+            onPlayingStopped.stop();
+            onPlayingStopped = null;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import de.soundboardcrafter.model.AbstractAudioLocation;
+
+/**
+ * Plays many sounds at the same time through one single {@link AudioTrack}: The sounds are
+ * decoded into memory (see {@link PcmDecoder} and {@link PcmCache}) and mixed on a
+ * high-priority audio thread, applying each {@link MixerVoice}'s volume, loop and fade-out.
+ * A sound starts playing as soon as its first frames have been decoded, the rest is decoded
+ * in the background.
+ * <p>
+ * Compared to one media player per sound, this needs only one output stream and no decoder
+ * while playing, so dozens of sounds can be played simultaneously. Sounds longer than
+ * {@link PcmDecoder#MAX_DURATION_US} are not played by the engine.
+ */
+class MixingEngine {
+    private static final String TAG = MixingEngine.class.getName();
+
+    /**
+     * Frames mixed per buffer (about 5 ms at 48 kHz)
+     */
+    private static final int FRAMES_PER_BUFFER = 256;
+
+    /**
+     * Number of sounds decoded in parallel
+     */
+    private static final int DECODER_THREAD_COUNT = 3;
+
+    private static final String WAKE_LOCK_TAG = "SoundboardCrafter:MixingEngine";
+
+    /**
+     * Callbacks from the engine - all of them are called on the UI thread.
+     */
+    interface Callback {
+        /**
+         * The voice has started playing.
+         */
+        @UiThread
+        void voiceStarted(@NonNull MixerVoice voice);
+
+        /**
+         * The voice has been played completely (and was not looping) - or has been
+         * faded out.
+         */
+        @UiThread
+        void voiceCompleted(@NonNull MixerVoice voice);
+
+        /**
+         * The audio for the voice could not be decoded.
+         */
+        @UiThread
+        void voiceFailed(@NonNull MixerVoice voice, @NonNull Exception e);
+    }
+
+    @NonNull
+    private final Context appContext;
+
+    @NonNull
+    private final Callback callback;
+
+    private final Handler uiThreadHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Decodes the audio - several sounds at a time, so that one long sound does not delay
+     * starting the others
+     */
+    private final ExecutorService decoderExecutor =
+            Executors.newFixedThreadPool(DECODER_THREAD_COUNT);
+
+    private final PcmCache pcmCache = PcmCache.getInstance();
+
+    /**
+     * The voices currently mixed (and the voices that are still being decoded are
+     * <i>not</i> contained).
+     */
+    private final List<MixerVoice> voices = new CopyOnWriteArrayList<>();
+
+    /**
+     * Guards waiting for voices
+     */
+    private final Object lock = new Object();
+
+    private final int sampleRate;
+
+    @NonNull
+    private final AudioTrack audioTrack;
+
+    @NonNull
+    private final PowerManager.WakeLock wakeLock;
+
+    @NonNull
+    private final MixerThread mixerThread;
+
+    private volatile boolean released;
+
+    MixingEngine(@NonNull Context context, @NonNull Callback callback) {
+        appContext = checkNotNull(context, "context is null").getApplicationContext();
+        this.callback = checkNotNull(callback, "callback is null");
+
+        sampleRate = AudioTrack.getNativeOutputSampleRate(AudioManager.STREAM_MUSIC);
+        audioTrack = createAudioTrack(sampleRate);
+
+        PowerManager powerManager =
+                (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+        wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, WAKE_LOCK_TAG);
+        wakeLock.setReferenceCounted(false);
+
+        mixerThread = new MixerThread();
+        mixerThread.start();
+    }
+
+    private static AudioTrack createAudioTrack(int sampleRate) {
+        int minBufferSizeInBytes = AudioTrack.getMinBufferSize(sampleRate,
+                AudioFormat.CHANNEL_OUT_STEREO, AudioFormat.ENCODING_PCM_FLOAT);
+
+        AudioTrack.Builder builder = new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_GAME)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setEncoding(AudioFormat.ENCODING_PCM_FLOAT)
+                        .setSampleRate(sampleRate)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_STEREO)
+                        .build())
+                .setBufferSizeInBytes(Math.max(minBufferSizeInBytes,
+                        2 * FRAMES_PER_BUFFER * PcmAudio.CHANNEL_COUNT * Float.BYTES))
+                .setTransferMode(AudioTrack.MODE_STREAM);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Decodes the audio (in the background) and starts playing the voice as soon as the first
+     * frames have been decoded. The {@link Callback} is informed about the outcome.
+     *
+     * @param onTooLong called on the UI thread, if the audio is too long to be played
+     *                  by the engine
+     */
+    @UiThread
+    void play(@NonNull MixerVoice voice, @NonNull AbstractAudioLocation audioLocation,
+              @NonNull Runnable onTooLong) {
+        checkNotNull(voice, "voice is null");
+        checkNotNull(audioLocation, "audioLocation is null");
+        checkNotNull(onTooLong, "onTooLong is null");
+
+        decoderExecutor.execute(() -> decodeAndStart(voice, audioLocation, onTooLong));
+    }
+
+    @WorkerThread
+    private void decodeAndStart(@NonNull MixerVoice voice,
+                                @NonNull AbstractAudioLocation audioLocation,
+                                @NonNull Runnable onTooLong) {
+        if (released || voice.isStopRequested()) {
+            return;
+        }
+
+        AtomicBoolean started = new AtomicBoolean();
+        PcmAudio audio;
+        try (AudioFileHandles.Handle handle =
+                     AudioFileHandles.getInstance().acquire(appContext, audioLocation)) {
+            audio = pcmCache.get(handle, sampleRate,
+                    () -> PcmDecoder.decode(handle, sampleRate,
+                            partialAudio -> {
+                                started.set(true);
+                                start(voice, partialAudio);
+                            }));
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Could not decode " + audioLocation, e);
+            if (!started.get()) {
+                uiThreadHandler.post(() -> callback.voiceFailed(voice, e));
+            }
+            // Otherwise, the voice plays what has been decoded
+            return;
+        }
+
+        if (started.get()) {
+            return;
+        }
+
+        if (audio == null) {
+            uiThreadHandler.post(onTooLong);
+            return;
+        }
+
+        start(voice, audio);
+    }
+
+    /**
+     * Starts playing the voice - the audio might still be being decoded.
+     */
+    @WorkerThread
+    private void start(@NonNull MixerVoice voice, @NonNull PcmAudio audio) {
+        if (released) {
+            return;
+        }
+
+        voice.setAudio(audio);
+        addVoice(voice);
+        voice.started();
+
+        uiThreadHandler.post(() -> callback.voiceStarted(voice));
+    }
+
+    private void addVoice(@NonNull MixerVoice voice) {
+        synchronized (lock) {
+            voices.add(voice);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of voices currently mixed.
+     */
+    int getVoiceCount() {
+        return voices.size();
+    }
+
+    /**
+     * Returns a human-readable report, as shown in the service dump.
+     */
+    @NonNull
+    String toReport() {
+        return String.format(Locale.ROOT,
+                "Mixing engine\n%-24s %8d%n%-24s %8d%n%-24s %8d%n",
+                "sample rate", sampleRate,
+                "voices", getVoiceCount(),
+                "underruns", released ? 0 : audioTrack.getUnderrunCount())
+                + "\n" + pcmCache.toReport();
+    }
+
+    /**
+     * Stops all voices and releases all resources. The engine cannot be used afterwards.
+     * <p>
+     * Does not wait for the mixer thread - the mixer thread releases the audio track itself,
+     * after it has written its last buffer.
+     */
+    @UiThread
+    void release() {
+        synchronized (lock) {
+            released = true;
+            lock.notifyAll();
+        }
+
+        decoderExecutor.shutdownNow();
+    }
+
+    /**
+     * Mixes all voices and writes them to the audio track. Stops the track (and waits)
+     * while there are no voices.
+     */
+    private class MixerThread extends Thread {
+        MixerThread() {
+            super("MixingEngine");
+        }
+
+        @Override
+        @WorkerThread
+        public void run() {
+            try {
+                mixUntilReleased();
+            } finally {
+                voices.clear();
+                audioTrack.release();
+                wakeLock.release();
+            }
+        }
+
+        @WorkerThread
+        private void mixUntilReleased() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+
+            float[] mix = new float[FRAMES_PER_BUFFER * PcmAudio.CHANNEL_COUNT];
+            boolean trackPlaying = false;
+
+            while (!released) {
+                if (voices.isEmpty()) {
+                    if (trackPlaying) {
+                        // Plays the data already written, then stops
+                        audioTrack.stop();
+                        wakeLock.release();
+                        trackPlaying = false;
+                    }
+
+                    if (!awaitVoices()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                if (!trackPlaying) {
+                    wakeLock.acquire();
+                    audioTrack.play();
+                    trackPlaying = true;
+                }
+
+                Arrays.fill(mix, 0f);
+                for (MixerVoice voice : voices) {
+                    if (!voice.mixInto(mix, FRAMES_PER_BUFFER)) {
+                        voices.remove(voice);
+                        if (voice.isCompleted() || voice.isFadedOut()) {
+                            uiThreadHandler.post(() -> callback.voiceCompleted(voice));
+                        }
+                    }
+                }
+
+                for (int i = 0; i < mix.length; i++) {
+                    mix[i] = Math.max(-1f, Math.min(1f, mix[i]));
+                }
+
+                audioTrack.write(mix, 0, mix.length, AudioTrack.WRITE_BLOCKING);
+            }
+
+            if (trackPlaying) {
+                audioTrack.stop();
+            }
+        }
+
+        /**
+         * Waits until there are voices to mix.
+         *
+         * @return <code>false</code>, if the engine has been released instead
+         */
+        private boolean awaitVoices() {
+            synchronized (lock) {
+                while (voices.isEmpty() && !released) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return false;
+                    }
+                }
+
+                return !released;
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.Arrays;
+
+/**
+ * Decoded audio: 16 bit stereo PCM at a certain sample rate.
+ * <p>
+ * Audio can be played while it's still being decoded: The decoder thread appends the frames
+ * (see {@link #append(short[], int, int)}) until the audio is complete, other threads may
+ * read the frames decoded so far. Readers have to call {@link #isComplete()} first, then
+ * {@link #getFrameCount()} and then {@link #getSamples()}.
+ */
+class PcmAudio {
+    static final int CHANNEL_COUNT = 2;
+
+    /**
+     * The samples, left and right channel interleaved. Only the first
+     * {@link #frameCount} frames are valid. Replaced (not modified) when it has to grow.
+     */
+    @NonNull
+    private volatile short[] samples;
+
+    private final int sampleRate;
+
+    private volatile int frameCount;
+
+    private volatile boolean complete;
+
+    /**
+     * Creates complete audio from these samples.
+     */
+    PcmAudio(@NonNull short[] samples, int sampleRate) {
+        checkNotNull(samples, "samples is null");
+        checkArgument(samples.length % CHANNEL_COUNT == 0,
+                "Number of samples not a multiple of the channel count");
+        checkArgument(sampleRate > 0, "sampleRate must be positive");
+
+        this.samples = samples;
+        this.sampleRate = sampleRate;
+        frameCount = samples.length / CHANNEL_COUNT;
+        complete = true;
+    }
+
+    /**
+     * Creates empty audio, that's going to be appended to.
+     *
+     * @param capacityFrames the expected number of frames
+     */
+    PcmAudio(int sampleRate, int capacityFrames) {
+        checkArgument(sampleRate > 0, "sampleRate must be positive");
+        checkArgument(capacityFrames >= 0, "capacityFrames must not be negative");
+
+        samples = new short[capacityFrames * CHANNEL_COUNT];
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Appends these samples (left and right channel interleaved).
+     */
+    @WorkerThread
+    void append(@NonNull short[] src, int offset, int length) {
+        checkState(!complete, "Audio is already complete");
+        checkArgument(length % CHANNEL_COUNT == 0,
+                "Number of samples not a multiple of the channel count");
+
+        int size = frameCount * CHANNEL_COUNT;
+        short[] target = samples;
+        if (size + length > target.length) {
+            // Readers may still use the old array
+            target = Arrays.copyOf(target, Math.max(size + length, target.length * 2));
+            samples = target;
+        }
+
+        System.arraycopy(src, offset, target, size, length);
+        frameCount += length / CHANNEL_COUNT;
+    }
+
+    /**
+     * Marks the audio as complete - no more frames will be appended.
+     */
+    @WorkerThread
+    void complete() {
+        int size = frameCount * CHANNEL_COUNT;
+        if (samples.length > size) {
+            samples = Arrays.copyOf(samples, size);
+        }
+
+        complete = true;
+    }
+
+    /**
+     * Returns whether all frames have been decoded.
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the samples, left and right channel interleaved. Only the first
+     * {@link #getFrameCount()} frames are valid. The array must not be modified.
+     */
+    @NonNull
+    short[] getSamples() {
+        return samples;
+    }
+
+    int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Returns the number of frames decoded so far.
+     */
+    int getFrameCount() {
+        return frameCount;
+    }
+
+    long getSizeInBytes() {
+        return (long) samples.length * Short.BYTES;
+    }
+}
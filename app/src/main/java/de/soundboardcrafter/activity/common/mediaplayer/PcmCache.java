@@ -0,0 +1,209 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Objects;
+
+import de.soundboardcrafter.model.AbstractAudioLocation;
+
+/**
+ * Process-wide cache of decoded audio, so that sounds that are played again and again
+ * don't have to be decoded each time. The cache is limited to a certain number of bytes,
+ * the least recently used audio is evicted first.
+ * <p>
+ * Audio is cached together with the offset, length and last-modified time of the open audio
+ * file (see {@link AudioFileHandles}) - so when a file changes (and is opened again), the old
+ * entry is not used any more. <code>PcmCache</code>s are thread-safe.
+ */
+class PcmCache {
+    private static final double BYTES_PER_MEBIBYTE = 1024.0 * 1024.0;
+
+    /**
+     * Share of the maximum heap size the cache may use by default
+     */
+    private static final int DEFAULT_HEAP_FRACTION = 8;
+
+    /**
+     * Upper limit for the default cache size
+     */
+    private static final long DEFAULT_MAX_BYTES_LIMIT = 64L * 1024 * 1024;
+
+    private static PcmCache instance;
+
+    private final long maxBytes;
+
+    private final Cache<Key, PcmAudio> cache;
+
+    static synchronized PcmCache getInstance() {
+        if (instance == null) {
+            instance = new PcmCache(Math.min(
+                    Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_FRACTION,
+                    DEFAULT_MAX_BYTES_LIMIT));
+        }
+
+        return instance;
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxBytes the maximum size of all decoded audio in the cache
+     */
+    PcmCache(long maxBytes) {
+        checkArgument(maxBytes > 0, "maxBytes must be positive");
+
+        this.maxBytes = maxBytes;
+        cache = CacheBuilder.newBuilder()
+                // Strict LRU order
+                .concurrencyLevel(1)
+                .maximumWeight(maxBytes)
+                .weigher((Key key, PcmAudio audio) ->
+                        (int) Math.min(audio.getSizeInBytes(), Integer.MAX_VALUE))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the decoded audio from the cache - or decodes (and caches) it.
+     *
+     * @param handle the open audio file
+     * @return the decoded audio - or <code>null</code>, if the audio is too long to be
+     * decoded (see {@link PcmDecoder#MAX_DURATION_US})
+     */
+    @Nullable
+    @WorkerThread
+    PcmAudio get(@NonNull AudioFileHandles.Handle handle, int sampleRate,
+                 @NonNull Decoder decoder) throws IOException {
+        Key key = Key.of(handle, sampleRate);
+
+        @Nullable PcmAudio res = cache.getIfPresent(key);
+        if (res != null) {
+            return res;
+        }
+
+        res = decoder.decode();
+        if (res != null) {
+            cache.put(key, res);
+        }
+
+        return res;
+    }
+
+    /**
+     * Removes all entries (but keeps the statistics).
+     */
+    void clear() {
+        cache.invalidateAll();
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the current size of all decoded audio in the cache.
+     */
+    long getSizeInBytes() {
+        return cache.asMap().values().stream()
+                .mapToLong(PcmAudio::getSizeInBytes)
+                .sum();
+    }
+
+    @NonNull
+    CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns a human-readable report, as shown in the service dump.
+     */
+    @NonNull
+    String toReport() {
+        CacheStats stats = getStats();
+        return String.format(Locale.ROOT,
+                "Decoded audio cache\n" +
+                        "%-24s %8.1f / %.1f MiB (%d sounds)%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8.2f%n",
+                "size", getSizeInBytes() / BYTES_PER_MEBIBYTE, maxBytes / BYTES_PER_MEBIBYTE,
+                cache.size(),
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "evictions", stats.evictionCount(),
+                "hit rate", stats.hitRate());
+    }
+
+    /**
+     * Decodes the audio on a cache miss.
+     */
+    @FunctionalInterface
+    interface Decoder {
+        @Nullable
+        PcmAudio decode() throws IOException;
+    }
+
+    /**
+     * Cache key: The audio location, with the offset, length and last-modified time of the
+     * open file - and the sample rate the audio is decoded to.
+     */
+    private static class Key {
+        @NonNull
+        private final AbstractAudioLocation audioLocation;
+        private final long offset;
+        private final long length;
+        private final long lastModified;
+        private final int sampleRate;
+
+        /**
+         * Creates the key from what has been found out when the file has been opened - so
+         * the file is not accessed here.
+         */
+        static Key of(@NonNull AudioFileHandles.Handle handle, int sampleRate) {
+            return new Key(handle.getAudioLocation(), handle.getOffset(), handle.getLength(),
+                    handle.getLastModified(), sampleRate);
+        }
+
+        private Key(@NonNull AbstractAudioLocation audioLocation, long offset, long length,
+                    long lastModified, int sampleRate) {
+            this.audioLocation = checkNotNull(audioLocation, "audioLocation is null");
+            this.offset = offset;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return offset == key.offset &&
+                    length == key.length &&
+                    lastModified == key.lastModified &&
+                    sampleRate == key.sampleRate &&
+                    audioLocation.equals(key.audioLocation);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(audioLocation, offset, length, lastModified, sampleRate);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import de.soundboardcrafter.model.AbstractAudioLocation;
+
+/**
+ * Decodes audio into {@link PcmAudio} (using {@link MediaCodec}) - converting it
+ * to stereo and resampling it to the requested sample rate. The audio can be played while
+ * it's still being decoded, see {@link Listener}.
+ */
+@WorkerThread
+class PcmDecoder {
+    /**
+     * Audio longer than this is not decoded - it shall be played by a media player instead.
+     */
+    static final long MAX_DURATION_US = 30_000_000L;
+
+    private static final long TIMEOUT_US = 10_000L;
+
+    /**
+     * If the codec neither accepts input nor produces output for this time, decoding is
+     * given up.
+     */
+    private static final long NO_PROGRESS_TIMEOUT_NANOS = 3_000_000_000L;
+
+    /**
+     * Informed when the first frames have been decoded.
+     */
+    @FunctionalInterface
+    interface Listener {
+        /**
+         * The first frames have been decoded - the audio can be played, while the rest is
+         * decoded in the background (on the calling thread). Only called when the duration
+         * of the audio is known beforehand and not longer than {@link #MAX_DURATION_US}.
+         * If the audio still turns out to be longer, it's cut off.
+         *
+         * @param audio the audio - growing, until it's complete
+         */
+        @WorkerThread
+        void firstFramesDecoded(@NonNull PcmAudio audio);
+    }
+
+    private PcmDecoder() {
+    }
+
+    /**
+     * Decodes the audio.
+     *
+     * @param handle   the open audio file
+     * @param listener informed when the first frames have been decoded - or
+     *                 <code>null</code>
+     * @return the decoded audio - or <code>null</code>, if the audio is longer than
+     * {@link #MAX_DURATION_US} (even if the <code>listener</code> has already been called and
+     * the audio has been cut off)
+     * @throws IOException In case of an I/O problem or if the audio cannot be decoded. If the
+     *                     <code>listener</code> has already been called, the audio decoded
+     *                     so far is completed.
+     */
+    @Nullable
+    static PcmAudio decode(@NonNull AudioFileHandles.Handle handle, int sampleRate,
+                           @Nullable Listener listener) throws IOException {
+        AbstractAudioLocation audioLocation = handle.getAudioLocation();
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            handle.setDataSourceOf(extractor);
+
+            int trackIndex = findAudioTrack(extractor);
+            if (trackIndex < 0) {
+                throw new IOException("No audio track found in " + audioLocation);
+            }
+
+            MediaFormat format = extractor.getTrackFormat(trackIndex);
+            long durationUs = format.containsKey(MediaFormat.KEY_DURATION) ?
+                    format.getLong(MediaFormat.KEY_DURATION) : -1;
+            if (durationUs > MAX_DURATION_US) {
+                return null;
+            }
+
+            extractor.selectTrack(trackIndex);
+
+            @Nullable String mime = format.getString(MediaFormat.KEY_MIME);
+            if (mime == null) {
+                throw new IOException("No MIME type found for " + audioLocation);
+            }
+
+            MediaCodec codec = MediaCodec.createDecoderByType(mime);
+            try {
+                codec.configure(format, null, null, 0);
+                codec.start();
+
+                return decode(extractor, codec, format, sampleRate, durationUs,
+                        durationUs >= 0 ? listener : null);
+            } finally {
+                codec.release();
+            }
+        } finally {
+            extractor.release();
+        }
+    }
+
+    private static int findAudioTrack(@NonNull MediaExtractor extractor) {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            @Nullable String mime = extractor.getTrackFormat(i).getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("audio/")) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Decodes all samples.
+     *
+     * @param durationUs the expected duration - or -1, if unknown
+     * @return the decoded audio - or <code>null</code>, if the audio turned out to be longer
+     * than {@link #MAX_DURATION_US}
+     */
+    @Nullable
+    private static PcmAudio decode(@NonNull MediaExtractor extractor,
+                                   @NonNull MediaCodec codec,
+                                   @NonNull MediaFormat inputFormat,
+                                   int sampleRate, long durationUs,
+                                   @Nullable Listener listener) throws IOException {
+        StereoSamples decoded = new StereoSamples(
+                inputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+                inputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT),
+                AudioFormat.ENCODING_PCM_16BIT);
+        PcmAudio res = new PcmAudio(sampleRate,
+                durationUs >= 0 ? (int) (durationUs * sampleRate / 1_000_000L) : 0);
+        Resampler resampler = new Resampler(sampleRate);
+        boolean listenerCalled = false;
+
+        try {
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            boolean inputDone = false;
+            long lastProgressNanos = System.nanoTime();
+            while (true) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException("Decoding has been interrupted");
+                }
+
+                if (!inputDone) {
+                    int inputIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        lastProgressNanos = System.nanoTime();
+                        ByteBuffer inputBuffer = codec.getInputBuffer(inputIndex);
+                        int size = inputBuffer == null ? -1 :
+                                extractor.readSampleData(inputBuffer, 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, 0,
+                                    MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inputIndex, 0, size,
+                                    extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+
+                int outputIndex = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+                if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    lastProgressNanos = System.nanoTime();
+                    decoded.setFormat(codec.getOutputFormat());
+                } else if (outputIndex >= 0) {
+                    lastProgressNanos = System.nanoTime();
+                    ByteBuffer outputBuffer = codec.getOutputBuffer(outputIndex);
+                    if (outputBuffer != null && info.size > 0) {
+                        outputBuffer.position(info.offset);
+                        outputBuffer.limit(info.offset + info.size);
+                        decoded.append(outputBuffer.order(ByteOrder.nativeOrder()));
+                    }
+                    codec.releaseOutputBuffer(outputIndex, false);
+
+                    boolean tooLong = decoded.getDurationUs() > MAX_DURATION_US;
+                    if (tooLong && !listenerCalled) {
+                        return null;
+                    }
+
+                    // If the audio is already playing, it's cut off
+                    boolean endOfStream = tooLong
+                            || (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+                    resampler.resample(decoded, res, endOfStream);
+
+                    if (endOfStream) {
+                        res.complete();
+                        // Audio that has been cut off must not be cached
+                        return tooLong ? null : res;
+                    }
+
+                    if (listener != null && !listenerCalled && res.getFrameCount() > 0) {
+                        listenerCalled = true;
+                        listener.firstFramesDecoded(res);
+                    }
+                }
+
+                if (System.nanoTime() - lastProgressNanos > NO_PROGRESS_TIMEOUT_NANOS) {
+                    throw new IOException("Decoder made no progress for "
+                            + NO_PROGRESS_TIMEOUT_NANOS / 1_000_000L + " ms");
+                }
+            }
+        } finally {
+            if (listenerCalled && !res.isComplete()) {
+                // Let the voice play what has been decoded so far
+                res.complete();
+            }
+        }
+    }
+
+    /**
+     * Linearly resamples the stereo samples decoded so far, appending the resampled frames to
+     * the audio - one chunk after the other.
+     */
+    private static class Resampler {
+        private final int toRate;
+
+        /**
+         * The number of frames already resampled
+         */
+        private int resampledFrames;
+
+        Resampler(int toRate) {
+            this.toRate = toRate;
+        }
+
+        /**
+         * Resamples the frames that can be resampled so far.
+         *
+         * @param end whether all frames have been decoded
+         */
+        void resample(@NonNull StereoSamples from, @NonNull PcmAudio to, boolean end) {
+            int fromFrames = from.getFrameCount();
+            short[] samples = from.getSamples();
+
+            if (from.sampleRate == toRate) {
+                to.append(samples, resampledFrames * PcmAudio.CHANNEL_COUNT,
+                        (fromFrames - resampledFrames) * PcmAudio.CHANNEL_COUNT);
+                resampledFrames = fromFrames;
+                return;
+            }
+
+            if (fromFrames == 0) {
+                return;
+            }
+
+            int toFrames = (int) ((long) fromFrames * toRate / from.sampleRate);
+            double step = (double) from.sampleRate / toRate;
+            short[] chunk = new short[Math.max(toFrames - resampledFrames, 0)
+                    * PcmAudio.CHANNEL_COUNT];
+            int chunkFrames = 0;
+            for (int i = resampledFrames; i < toFrames; i++) {
+                double position = i * step;
+                int frame = (int) position;
+                if (!end && frame + 1 >= fromFrames) {
+                    // Wait for the next frame to interpolate
+                    break;
+                }
+
+                int nextFrame = Math.min(frame + 1, fromFrames - 1);
+                double fraction = position - frame;
+                for (int channel = 0; channel < PcmAudio.CHANNEL_COUNT; channel++) {
+                    double value =
+                            samples[frame * PcmAudio.CHANNEL_COUNT + channel] * (1 - fraction)
+                                    + samples[nextFrame * PcmAudio.CHANNEL_COUNT + channel]
+                                    * fraction;
+                    chunk[chunkFrames * PcmAudio.CHANNEL_COUNT + channel] =
+                            (short) Math.round(value);
+                }
+                chunkFrames++;
+            }
+
+            to.append(chunk, 0, chunkFrames * PcmAudio.CHANNEL_COUNT);
+            resampledFrames += chunkFrames;
+        }
+    }
+
+    /**
+     * Growing buffer of 16 bit stereo samples, converted from the decoder output.
+     */
+    private static class StereoSamples {
+        private int sampleRate;
+        private int channelCount;
+        private int encoding;
+
+        private short[] samples = new short[64 * 1024];
+        private int size;
+
+        StereoSamples(int sampleRate, int channelCount, int encoding) {
+            this.sampleRate = sampleRate;
+            this.channelCount = channelCount;
+            this.encoding = encoding;
+        }
+
+        void setFormat(@NonNull MediaFormat outputFormat) {
+            sampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+            channelCount = outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+            encoding = outputFormat.containsKey(MediaFormat.KEY_PCM_ENCODING) ?
+                    outputFormat.getInteger(MediaFormat.KEY_PCM_ENCODING) :
+                    AudioFormat.ENCODING_PCM_16BIT;
+        }
+
+        /**
+         * Appends the frames from this buffer (in the current output format). Only the first two
+         * channels are kept, mono is converted to stereo.
+         */
+        void append(@NonNull ByteBuffer buffer) {
+            int bytesPerSample = encoding == AudioFormat.ENCODING_PCM_FLOAT ? 4 : 2;
+            int frames = buffer.remaining() / (bytesPerSample * channelCount);
+            ensureCapacity(size + frames * PcmAudio.CHANNEL_COUNT);
+
+            for (int frame = 0; frame < frames; frame++) {
+                int frameStart = buffer.position();
+                short left = readSample(buffer);
+                short right = channelCount > 1 ? readSample(buffer) : left;
+                buffer.position(frameStart + bytesPerSample * channelCount);
+
+                samples[size++] = left;
+                samples[size++] = right;
+            }
+        }
+
+        private short readSample(@NonNull ByteBuffer buffer) {
+            if (encoding == AudioFormat.ENCODING_PCM_FLOAT) {
+                float value = Math.max(-1f, Math.min(1f, buffer.getFloat()));
+                return (short) (value * Short.MAX_VALUE);
+            }
+
+            return buffer.getShort();
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > samples.length) {
+                samples = Arrays.copyOf(samples, Math.max(capacity, samples.length * 2));
+            }
+        }
+
+        long getDurationUs() {
+            return (long) (size / PcmAudio.CHANNEL_COUNT) * 1_000_000L / sampleRate;
+        }
+
+        int getFrameCount() {
+            return size / PcmAudio.CHANNEL_COUNT;
+        }
+
+        /**
+         * Returns the samples - only the first {@link #getFrameCount()} frames are valid.
+         */
+        @NonNull
+        short[] getSamples() {
+            return samples;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rolling statistics of the playback latency - the time from the click on a sound until the
+ * audio starts, split into phases. The statistics are kept separately for each
+ * {@link AudioLocationType}, each over the last {@link #WINDOW_SIZE} playback starts.
+ * <p>
+ * Contains no Android dependencies, <code>PlaybackLatencyStats</code> are thread-safe.
+ *
+ * @see PlaybackStartTrace
+ */
+public class PlaybackLatencyStats {
+    /**
+     * Number of playback starts (per location type) the statistics are computed from
+     */
+    static final int WINDOW_SIZE = 200;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    public enum AudioLocationType {
+        ASSET, FILE_SYSTEM
+    }
+
+    /**
+     * A phase of starting playback. The duration of each phase is measured from
+     * the end of the previous phase.
+     */
+    public enum Phase {
+        /**
+         * From the click until a media player has been created or reused
+         */
+        ACQUIRE,
+        /**
+         * Setting the data source (and the other player parameters)
+         */
+        SET_DATA_SOURCE,
+        /**
+         * Until the media player has been prepared asynchronously
+         */
+        PREPARE,
+        /**
+         * Starting the prepared media player
+         */
+        START,
+        /**
+         * The complete time from click until playback has started
+         */
+        TOTAL
+    }
+
+    private static PlaybackLatencyStats instance;
+
+    private final Map<AudioLocationType, Map<Phase, RollingWindow>> windows =
+            new EnumMap<>(AudioLocationType.class);
+
+    public static synchronized PlaybackLatencyStats getInstance() {
+        if (instance == null) {
+            instance = new PlaybackLatencyStats();
+        }
+
+        return instance;
+    }
+
+    PlaybackLatencyStats() {
+        for (AudioLocationType locationType : AudioLocationType.values()) {
+            Map<Phase, RollingWindow> windowsForLocationType = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                windowsForLocationType.put(phase, new RollingWindow());
+            }
+            windows.put(locationType, windowsForLocationType);
+        }
+    }
+
+    /**
+     * Records one playback start.
+     *
+     * @param phaseNanos the duration of each {@link Phase}, indexed by the phase's ordinal
+     */
+    synchronized void record(@NonNull AudioLocationType locationType, long[] phaseNanos) {
+        Map<Phase, RollingWindow> windowsForLocationType = windows.get(locationType);
+        for (Phase phase : Phase.values()) {
+            windowsForLocationType.get(phase).add(phaseNanos[phase.ordinal()]);
+        }
+    }
+
+    /**
+     * Returns the number of recorded playback starts for this location type (at most
+     * {@link #WINDOW_SIZE}).
+     */
+    public synchronized int getCount(@NonNull AudioLocationType locationType) {
+        return windows.get(locationType).get(Phase.TOTAL).size();
+    }
+
+    /**
+     * Returns this percentile of the duration of this phase in milliseconds -
+     * or <code>NaN</code>, if nothing has been recorded yet.
+     *
+     * @param percentile between 0 (exclusive) and 100 (inclusive)
+     */
+    public synchronized double getPercentileMillis(@NonNull AudioLocationType locationType,
+                                                   @NonNull Phase phase, int percentile) {
+        return windows.get(locationType).get(phase).getPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns a human-readable report, as shown in the debug screen and the service dump.
+     */
+    @NonNull
+    public synchronized String toReport() {
+        StringBuilder res = new StringBuilder();
+        res.append("Playback latency in ms (last ").append(WINDOW_SIZE)
+                .append(" starts per location type)\n");
+
+        for (AudioLocationType locationType : AudioLocationType.values()) {
+            res.append("\n").append(locationType).append(" (")
+                    .append(getCount(locationType)).append(" starts)\n");
+            res.append(String.format(Locale.ROOT, "%-16s %8s %8s %8s%n",
+                    "phase", "p50", "p95", "p99"));
+            for (Phase phase : Phase.values()) {
+                res.append(String.format(Locale.ROOT, "%-16s %8.1f %8.1f %8.1f%n",
+                        phase.name().toLowerCase(Locale.ROOT),
+                        getPercentileMillis(locationType, phase, 50),
+                        getPercentileMillis(locationType, phase, 95),
+                        getPercentileMillis(locationType, phase, 99)));
+            }
+        }
+
+        return res.toString();
+    }
+
+    /**
+     * Ring buffer of the last {@link #WINDOW_SIZE} values
+     */
+    private static class RollingWindow {
+        private final long[] values = new long[WINDOW_SIZE];
+        private int size;
+        private int next;
+
+        void add(long value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            if (size < values.length) {
+                size++;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the percentile (nearest rank) - or <code>NaN</code>, if the window is empty.
+         */
+        double getPercentile(int percentile) {
+            if (size == 0) {
+                return Double.NaN;
+            }
+
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * size);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import de.soundboardcrafter.activity.common.mediaplayer.PlaybackLatencyStats.AudioLocationType;
+import de.soundboardcrafter.activity.common.mediaplayer.PlaybackLatencyStats.Phase;
+import de.soundboardcrafter.model.AbstractAudioLocation;
+import de.soundboardcrafter.model.AssetFolderAudioLocation;
+
+/**
+ * Timestamps of one playback start, from the click until the media player has started.
+ * When finished, the trace is recorded in the {@link PlaybackLatencyStats}.
+ */
+class PlaybackStartTrace {
+    @NonNull
+    private final AudioLocationType locationType;
+    private final long clickNanos;
+    private long lastMarkNanos;
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    /**
+     * @param clickRealtimeNanos the time of the click, as in
+     *                           {@link SystemClock#elapsedRealtimeNanos()}
+     */
+    PlaybackStartTrace(@NonNull AbstractAudioLocation audioLocation, long clickRealtimeNanos) {
+        locationType = audioLocation instanceof AssetFolderAudioLocation ?
+                AudioLocationType.ASSET : AudioLocationType.FILE_SYSTEM;
+        clickNanos = clickRealtimeNanos;
+        lastMarkNanos = clickRealtimeNanos;
+    }
+
+    /**
+     * Marks the end of this phase (which started when the previous phase ended).
+     */
+    void mark(@NonNull Phase phase) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        phaseNanos[phase.ordinal()] = now - lastMarkNanos;
+        lastMarkNanos = now;
+    }
+
+    /**
+     * Finishes the trace (playback has started) and records it.
+     */
+    void finish() {
+        phaseNanos[Phase.TOTAL.ordinal()] = lastMarkNanos - clickNanos;
+        PlaybackLatencyStats.getInstance().record(locationType, phaseNanos);
+    }
+}
@@ -0,0 +1,141 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.media.MediaPlayer;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops and releases media players on a dedicated thread, because {@link MediaPlayer#release()}
+ * may take several milliseconds per player - too long for the UI thread when many sounds are
+ * stopped at once.
+ * <p>
+ * The players handed over must have been detached from the UI thread (see
+ * {@link SoundboardMediaPlayer#detach()}), so that no callbacks interfere. The number
+ * of players waiting to be released is bounded: When there are too many, the caller has to
+ * release the player itself.
+ */
+class PlayerReaper {
+    private static final String TAG = PlayerReaper.class.getName();
+
+    /**
+     * Maximum number of players waiting to be released
+     */
+    private static final int MAX_PENDING = 32;
+
+    private static PlayerReaper instance;
+
+    private final BlockingQueue<MediaPlayer> queue = new LinkedBlockingQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    // Volatile, because they are read when dumping the service
+    private volatile int maxPendingCount;
+    private volatile long releasedCount;
+    private volatile long releasedByCallerCount;
+
+    static synchronized PlayerReaper getInstance() {
+        if (instance == null) {
+            instance = new PlayerReaper();
+        }
+
+        return instance;
+    }
+
+    private PlayerReaper() {
+        Thread thread = new Thread(this::run, "PlayerReaper");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops and releases these players in the background - or right away, if there
+     * are already too many players waiting to be released.
+     */
+    @UiThread
+    void reap(@NonNull Iterable<? extends MediaPlayer> players) {
+        checkNotNull(players, "players is null");
+
+        for (MediaPlayer player : players) {
+            if (pendingCount.get() >= MAX_PENDING) {
+                stop(player);
+                player.release();
+                releasedByCallerCount++; // Only written on the UI thread
+                continue;
+            }
+
+            int pending = pendingCount.incrementAndGet();
+            if (pending > maxPendingCount) {
+                maxPendingCount = pending; // Only written on the UI thread
+            }
+            queue.add(player);
+        }
+    }
+
+    @WorkerThread
+    private void run() {
+        List<MediaPlayer> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+
+            // Silence all players first - releasing takes longer.
+            for (MediaPlayer player : batch) {
+                stop(player);
+            }
+
+            for (MediaPlayer player : batch) {
+                try {
+                    player.release();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Could not release media player", e);
+                }
+                pendingCount.decrementAndGet();
+                releasedCount++; // Only written on this thread
+            }
+
+            batch.clear();
+        }
+    }
+
+    private static void stop(@NonNull MediaPlayer player) {
+        try {
+            player.stop();
+        } catch (IllegalStateException e) {
+            // The player has not been prepared (or is in an error state) - releasing it
+            // is enough.
+        }
+    }
+
+    /**
+     * Returns a human-readable report, as shown in the service dump.
+     */
+    @NonNull
+    String toReport() {
+        return String.format(Locale.ROOT,
+                "Player reaper\n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n" +
+                        "%-24s %8d%n",
+                "pending", pendingCount.get(),
+                "max pending", maxPendingCount,
+                "released", releasedCount,
+                "released by caller", releasedByCallerCount);
+    }
+}
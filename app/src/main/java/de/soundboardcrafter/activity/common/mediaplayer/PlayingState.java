@@ -0,0 +1,66 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the sounds that are <i>actively playing</i> (playing <i>and not
+ * fading out</i>), published by the {@link MediaPlayerService} whenever this changes.
+ * Each new snapshot gets a higher version, so consumers can easily skip snapshots they
+ * have already seen and diff consecutive snapshots.
+ */
+public class PlayingState {
+    /**
+     * The state before anything has been published: Nothing is playing.
+     */
+    public static final PlayingState EMPTY = new PlayingState(0, ImmutableSet.of());
+
+    private final long version;
+
+    private final ImmutableSet<MediaPlayerSearchId> activelyPlaying;
+
+    PlayingState(long version, @NonNull ImmutableSet<MediaPlayerSearchId> activelyPlaying) {
+        this.version = version;
+        this.activelyPlaying = checkNotNull(activelyPlaying, "activelyPlaying is null");
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns whether this sound is <i>actively playing</i> in this soundboard.
+     */
+    public boolean isActivelyPlaying(@Nullable UUID soundboardId, @NonNull UUID soundId) {
+        return activelyPlaying.contains(new MediaPlayerSearchId(soundboardId, soundId));
+    }
+
+    /**
+     * Returns the IDs of the sounds in this soundboard that have started or stopped
+     * <i>actively playing</i> since the <code>previous</code> state.
+     */
+    public ImmutableSet<UUID> getSoundIdsChangedSince(@NonNull PlayingState previous,
+                                                      @Nullable UUID soundboardId) {
+        checkNotNull(previous, "previous is null");
+
+        return Sets.symmetricDifference(activelyPlaying, previous.activelyPlaying).stream()
+                .filter(searchId -> Objects.equals(soundboardId, searchId.getSoundboardId()))
+                .map(MediaPlayerSearchId::getSoundId)
+                .collect(ImmutableSet.toImmutableSet());
+    }
+
+    /**
+     * Returns whether the same sounds are playing in both states (regardless of the version).
+     */
+    boolean hasSamePlayingSounds(@NonNull PlayingState other) {
+        return activelyPlaying.equals(other.activelyPlaying);
+    }
+}
@@ -1,13 +1,21 @@
 package de.soundboardcrafter.activity.common.mediaplayer;
 
+import android.content.Context;
 import android.media.MediaPlayer;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
 
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
 import java.io.Serializable;
 
-public class SoundboardMediaPlayer extends MediaPlayer {
+public class SoundboardMediaPlayer extends MediaPlayer implements SoundboardPlayer {
+    private static final String TAG = SoundboardMediaPlayer.class.getName();
+
     private float volume;
 
     /**
@@ -24,6 +32,35 @@ public class SoundboardMediaPlayer extends MediaPlayer {
     @Nullable
     private OnPlayingStopped onPlayingStopped;
 
+    /**
+     * Trace of the current playback start - <code>null</code> when playback has been started.
+     */
+    @Nullable
+    private PlaybackStartTrace playbackStartTrace;
+
+    @Nullable
+    private OnCompletionListener onCompletionListener;
+
+    /**
+     * Whether the sound shall be played in a (gapless) loop
+     */
+    private boolean loop;
+
+    @Nullable
+    private GaplessLooper.TwinFactory loopTwinFactory;
+
+    /**
+     * Plays the sound in a gapless loop - <code>null</code> if the sound is not looping
+     * or the loop has not been started yet.
+     */
+    @Nullable
+    private GaplessLooper looper;
+
+    @Nullable
+    private Context wakeModeContext;
+
+    private int wakeMode;
+
     SoundboardMediaPlayer() {
         setVolume(1f);
     }
@@ -38,32 +75,142 @@ public class SoundboardMediaPlayer extends MediaPlayer {
     /**
      * Returns the name of the sound that's currently played - or the last sound played.
      */
+    @Override
     @Nullable
-    String getSoundName() {
+    public String getSoundName() {
         return soundName;
     }
 
-    float getVolume() {
+    @Override
+    public float getVolume() {
         return volume;
     }
 
-    void setVolume(float volume) {
+    @Override
+    public void setVolume(float volume) {
         this.volume = volume;
 
         setVolume(volume, volume);
+
+        if (looper != null) {
+            looper.setVolume(volume);
+        }
+    }
+
+    /**
+     * Sets the factory that creates a second player for the same audio - needed for
+     * gapless looping.
+     */
+    void setLoopTwinFactory(@Nullable GaplessLooper.TwinFactory loopTwinFactory) {
+        this.loopTwinFactory = loopTwinFactory;
+    }
+
+    /**
+     * Sets whether the sound shall be played in a gapless loop. Can also be called while
+     * the sound is playing.
+     *
+     * @see GaplessLooper
+     */
+    @Override
+    public void setGaplessLoop(boolean loop) {
+        this.loop = loop;
+
+        if (looper != null) {
+            looper.setLoop(loop);
+        } else if (!loop) {
+            // Might have fallen back to looping with gaps
+            setLooping(false);
+        } else if (super.isPlaying()) {
+            startLooper();
+        }
+    }
+
+    @Override
+    public boolean isGaplessLoop() {
+        return loop;
+    }
+
+    private void startLooper() {
+        if (loopTwinFactory == null) {
+            setLooping(true);
+            return;
+        }
+
+        MediaPlayer twin;
+        try {
+            twin = loopTwinFactory.create();
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Could not create a second player for " + soundName +
+                    " - looping with gaps", e);
+            setLooping(true);
+            return;
+        }
+
+        if (wakeModeContext != null) {
+            twin.setWakeMode(wakeModeContext, wakeMode);
+        }
+
+        looper = new GaplessLooper(this, twin, volume);
+    }
+
+    private void releaseLooper() {
+        if (looper != null) {
+            looper.release();
+            looper = null;
+        }
+    }
+
+    @Override
+    public void setWakeMode(Context context, int mode) {
+        super.setWakeMode(context, mode);
+
+        wakeModeContext = context;
+        wakeMode = mode;
+    }
+
+    /**
+     * Returns whether the sound is playing - which might be the second player,
+     * if the sound is played in a gapless loop.
+     */
+    @Override
+    public boolean isPlaying() {
+        return super.isPlaying() || (looper != null && looper.isTwinPlaying());
+    }
+
+    /**
+     * Returns whether <i>this</i> player is playing - disregarding the second player
+     * of a gapless loop.
+     */
+    boolean isThisPlayerPlaying() {
+        return super.isPlaying();
     }
 
     @Override
     public void setOnCompletionListener(OnCompletionListener listener) {
+        onCompletionListener = listener;
+
         super.setOnCompletionListener(event -> {
-            try {
-                playingLogicallyStopped();
-            } finally {
-                listener.onCompletion(this);
+            if (looper != null && looper.onRepetitionCompleted(this)) {
+                return;
             }
+
+            playingCompleted();
         });
     }
 
+    /**
+     * To be called when the sound has been played completely (including all repetitions).
+     */
+    void playingCompleted() {
+        try {
+            playingLogicallyStopped();
+        } finally {
+            if (onCompletionListener != null) {
+                onCompletionListener.onCompletion(this);
+            }
+        }
+    }
+
     @Override
     public void setOnErrorListener(OnErrorListener listener) {
         super.setOnErrorListener((mp, what, extra) -> {
@@ -77,21 +224,108 @@ public class SoundboardMediaPlayer extends MediaPlayer {
         });
     }
 
-    void setOnPlayingStopped(@Nullable OnPlayingStopped onPlayingStopped) {
+    /**
+     * Sets the trace for the upcoming playback start
+     */
+    void setPlaybackStartTrace(@Nullable PlaybackStartTrace playbackStartTrace) {
+        this.playbackStartTrace = playbackStartTrace;
+    }
+
+    /**
+     * Marks the end of this phase of the playback start (if it is traced).
+     */
+    void markPlaybackStart(@NonNull PlaybackLatencyStats.Phase phase) {
+        if (playbackStartTrace != null) {
+            playbackStartTrace.mark(phase);
+        }
+    }
+
+    /**
+     * To be called when the player has been prepared: Starts the player and finishes the
+     * trace of the playback start.
+     */
+    void startPrepared() {
+        markPlaybackStart(PlaybackLatencyStats.Phase.PREPARE);
+        start();
+        markPlaybackStart(PlaybackLatencyStats.Phase.START);
+
+        if (playbackStartTrace != null) {
+            playbackStartTrace.finish();
+            playbackStartTrace = null;
+        }
+
+        if (loop && looper == null) {
+            startLooper();
+        }
+    }
+
+    @Override
+    public void setOnPlayingStopped(@Nullable OnPlayingStopped onPlayingStopped) {
         this.onPlayingStopped = onPlayingStopped;
     }
 
     @Override
     public void stop() throws IllegalStateException {
-        super.stop();
+        if (looper == null || looper.isPrimaryCurrent()) {
+            super.stop();
+        } // else this player is just being prepared for the next repetition
+
+        releaseLooper();
         playingLogicallyStopped();
     }
 
+    /**
+     * Stops <i>this</i> player (not the second player of a gapless loop) - without
+     * logically stopping the playing.
+     */
+    void stopThisPlayerOnly() {
+        super.stop();
+    }
+
+    /**
+     * Detaches this player from the UI thread without stopping it: Removes all listeners and
+     * ends a gapless loop. Afterwards, nothing refers to the returned players anymore,
+     * so they can be stopped and released on any thread (see {@link PlayerReaper}).
+     * Does not call {@link #playingLogicallyStopped()}.
+     *
+     * @return this player - and the second player of a gapless loop, if any
+     */
+    @UiThread
+    ImmutableList<MediaPlayer> detach() {
+        onPlayingStopped = null;
+        onCompletionListener = null;
+        playbackStartTrace = null;
+        super.setOnCompletionListener(null);
+        super.setOnErrorListener(null);
+        setOnPreparedListener(null);
+
+        if (looper == null) {
+            return ImmutableList.of(this);
+        }
+
+        MediaPlayer twin = looper.detach();
+        looper = null;
+        return ImmutableList.of(this, twin);
+    }
+
+    @Override
+    public void reset() {
+        releaseLooper();
+        super.reset();
+    }
+
+    @Override
+    public void release() {
+        releaseLooper();
+        super.release();
+    }
+
     /**
      * This is called / has to be called when playing has logically
      * stopped.
      */
-    void playingLogicallyStopped() {
+    @Override
+    public void playingLogicallyStopped() {
         if (onPlayingStopped != null) {
             onPlayingStopped.stop();
             onPlayingStopped = null;
@@ -3,8 +3,8 @@ package de.soundboardcrafter.activity.common.mediaplayer;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.content.Context;
-import android.content.res.AssetFileDescriptor;
 import android.media.AudioAttributes;
+import android.media.MediaPlayer;
 import android.os.Handler;
 import android.os.Looper;
 
@@ -15,31 +15,39 @@ import androidx.annotation.UiThread;
 import com.google.common.collect.ImmutableSet;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.WeakHashMap;
 import java.util.function.Predicate;
 
 import de.soundboardcrafter.model.AbstractAudioLocation;
-import de.soundboardcrafter.model.AssetFolderAudioLocation;
-import de.soundboardcrafter.model.FileSystemFolderAudioLocation;
 import de.soundboardcrafter.model.Sound;
 import de.soundboardcrafter.model.Soundboard;
 
 class SoundboardMediaPlayers {
+    /**
+     * Default maximum number of media players (or mixer voices) playing at the same time
+     */
+    static final int DEFAULT_MAX_PLAYERS = 16;
+
     /**
      * The players that are <i>actively playing</i>, that is, they are <i>not</i> fading out.
      */
-    private final HashMap<MediaPlayerSearchId, SoundboardMediaPlayer> activePlayers =
+    private final HashMap<MediaPlayerSearchId, SoundboardPlayer> activePlayers =
             new HashMap<>();
 
     /**
      * The players that are <i>not</i> fading out.
      */
-    private final HashMap<MediaPlayerSearchId, SoundboardMediaPlayer> playersFadingOut =
+    private final HashMap<MediaPlayerSearchId, SoundboardPlayer> playersFadingOut =
             new HashMap<>();
 
     /**
@@ -49,11 +57,31 @@ class SoundboardMediaPlayers {
     private final Handler uiThreadHandler = new Handler(Looper.getMainLooper());
 
     /**
-     * {@link java.lang.Runnable}  that does a single fade-out step for all players that
-     * shall be faded out - and schedules itself for the next step, if necessary.
+     * {@link java.lang.Runnable}  that does a single fade-out step for all media players that
+     * shall be faded out - and schedules itself for the next step, if necessary. (Mixer voices
+     * fade themselves out on the audio thread.)
      */
     private final Fader fader = new Fader();
 
+    /**
+     * Whether the {@link #fader} is currently scheduled
+     */
+    private boolean faderRunning;
+
+    /**
+     * Sequence number of the start of each player - to find the oldest player. Players
+     * that have been garbage-collected drop out automatically.
+     */
+    private final Map<SoundboardPlayer, Long> startSequences = new WeakHashMap<>();
+
+    private long nextStartSequence;
+
+    /**
+     * Number of players that have been stopped to make room for another player
+     * (volatile, because it's read when dumping the service)
+     */
+    private volatile long stolenCount;
+
     @UiThread
     boolean activePlayersEmpty() {
         return activePlayers.isEmpty();
@@ -76,34 +104,46 @@ class SoundboardMediaPlayers {
             throws IOException {
         mediaPlayer.setSoundName(soundName);
         initDataSource(context, mediaPlayer, audioLocation);
-        mediaPlayer.setAudioAttributes(
-                new AudioAttributes.Builder().setUsage(AudioAttributes.USAGE_GAME).build());
+        mediaPlayer.markPlaybackStart(PlaybackLatencyStats.Phase.SET_DATA_SOURCE);
+        setAudioAttributes(mediaPlayer);
         SoundboardMediaPlayers.setVolume(
                 mediaPlayer,
                 SoundboardMediaPlayers.percentageToVolume(volumePercentage));
-        mediaPlayer.setLooping(loop);
+        mediaPlayer.setLoopTwinFactory(() -> createLoopTwin(context, audioLocation));
+        mediaPlayer.setGaplessLoop(loop);
+    }
+
+    /**
+     * Creates a second media player for this audio - for gapless looping.
+     * Does not prepare the player.
+     *
+     * @see GaplessLooper
+     */
+    private static MediaPlayer createLoopTwin(Context context,
+                                              @NonNull AbstractAudioLocation audioLocation)
+            throws IOException {
+        MediaPlayer res = new MediaPlayer();
+        try {
+            initDataSource(context, res, audioLocation);
+            setAudioAttributes(res);
+            return res;
+        } catch (IOException | RuntimeException e) {
+            res.release();
+            throw e;
+        }
     }
 
-    private static void initDataSource(Context context, SoundboardMediaPlayer mediaPlayer,
+    private static void setAudioAttributes(MediaPlayer mediaPlayer) {
+        mediaPlayer.setAudioAttributes(
+                new AudioAttributes.Builder().setUsage(AudioAttributes.USAGE_GAME).build());
+    }
+
+    private static void initDataSource(Context context, MediaPlayer mediaPlayer,
                                        @NonNull AbstractAudioLocation audioLocation)
             throws IOException {
-        if (audioLocation instanceof FileSystemFolderAudioLocation) {
-            mediaPlayer.setDataSource(
-                    ((FileSystemFolderAudioLocation) audioLocation).getInternalPath());
-        } else if (audioLocation instanceof AssetFolderAudioLocation) {
-            @NonNull String assetPath =
-                    ((AssetFolderAudioLocation) audioLocation).getInternalPath();
-            try (AssetFileDescriptor fileDescriptor = context.getAssets().openFd(assetPath)) {
-                // Javadoc: "It is the caller's responsibility to close the file descriptor. It is
-                // safe to do so as soon as this call returns."
-                mediaPlayer.setDataSource(
-                        fileDescriptor.getFileDescriptor(),
-                        fileDescriptor.getStartOffset(),
-                        fileDescriptor.getLength());
-            }
-        } else {
-            throw new IllegalStateException("Unexpected audio location type: " +
-                    audioLocation.getClass());
+        try (AudioFileHandles.Handle handle =
+                     AudioFileHandles.getInstance().acquire(context, audioLocation)) {
+            handle.setDataSourceOf(mediaPlayer);
         }
     }
 
@@ -116,11 +156,11 @@ class SoundboardMediaPlayers {
 
     private void setOnPlayingStopped(MediaPlayerSearchId searchId, @Nullable
             SoundboardMediaPlayer.OnPlayingStopped onPlayingStopped) {
-        SoundboardMediaPlayer activePlayer = activePlayers.get(searchId);
+        SoundboardPlayer activePlayer = activePlayers.get(searchId);
         if (activePlayer != null) {
             activePlayer.setOnPlayingStopped(onPlayingStopped);
         }
-        SoundboardMediaPlayer playerFadingOut =
+        SoundboardPlayer playerFadingOut =
                 playersFadingOut.get(searchId);
         if (playerFadingOut != null) {
             playerFadingOut.setOnPlayingStopped(onPlayingStopped);
@@ -133,7 +173,7 @@ class SoundboardMediaPlayers {
      */
     @UiThread
     boolean isActivelyPlaying(@NonNull Soundboard soundboard, @NonNull UUID soundId) {
-        SoundboardMediaPlayer mediaPlayer = activePlayers.get(
+        SoundboardPlayer mediaPlayer = activePlayers.get(
                 new MediaPlayerSearchId(soundboard.getId(), soundId));
         if (mediaPlayer != null) {
             return mediaPlayer.isPlaying();
@@ -142,18 +182,28 @@ class SoundboardMediaPlayers {
     }
 
 
+    /**
+     * Returns the media player for this sound in this soundboard - if it is
+     * <i>not</i> fading out.
+     */
+    @UiThread
+    @Nullable
+    SoundboardPlayer getActive(@Nullable Soundboard soundboard, Sound sound) {
+        return activePlayers.get(new MediaPlayerSearchId(soundboard, sound));
+    }
+
     /**
      * Returns the media player for this sound in this soundboard.
      * The media player may be <i>actively playing</i> or <i>fading out</i>.
      */
     @UiThread
-    SoundboardMediaPlayer get(@Nullable Soundboard soundboard, Sound sound) {
+    SoundboardPlayer get(@Nullable Soundboard soundboard, Sound sound) {
         MediaPlayerSearchId searchId = new MediaPlayerSearchId(soundboard, sound);
         return get(searchId);
     }
 
-    private SoundboardMediaPlayer get(MediaPlayerSearchId searchId) {
-        @Nullable SoundboardMediaPlayer activePlayer = activePlayers.get(searchId);
+    private SoundboardPlayer get(MediaPlayerSearchId searchId) {
+        @Nullable SoundboardPlayer activePlayer = activePlayers.get(searchId);
         if (activePlayer != null) {
             return activePlayer;
         }
@@ -172,11 +222,11 @@ class SoundboardMediaPlayers {
 
         MediaPlayerSearchId searchId = new MediaPlayerSearchId(soundboard, sound);
 
-        SoundboardMediaPlayer activePlayer = activePlayers.get(searchId);
+        SoundboardPlayer activePlayer = activePlayers.get(searchId);
         if (activePlayer != null) {
             stop(searchId, activePlayer, fadeOut);
         } else if (!fadeOut) {
-            SoundboardMediaPlayer playerFadingOut =
+            SoundboardPlayer playerFadingOut =
                     playersFadingOut.get(searchId);
             if (playerFadingOut != null) {
                 stop(searchId, playerFadingOut, false);
@@ -190,9 +240,9 @@ class SoundboardMediaPlayers {
      * @param fadeOut Whether the playing shall be faded out.
      */
     @UiThread
-    private void stop(MediaPlayerSearchId searchId, SoundboardMediaPlayer player, boolean fadeOut) {
+    private void stop(MediaPlayerSearchId searchId, SoundboardPlayer player, boolean fadeOut) {
         if (!fadeOut) {
-            player.stop();
+            player.playingLogicallyStopped();
             remove(player);
             return;
         }
@@ -201,15 +251,42 @@ class SoundboardMediaPlayers {
     }
 
     /**
-     * Removes this player from the active players and the players fading out.
+     * Removes this player from the active players and the players fading out - and
+     * releases it (in the background, see {@link #release(SoundboardPlayer)}).
      */
     @UiThread
-    void remove(SoundboardMediaPlayer mediaPlayer) {
-        mediaPlayer.release();
+    void remove(SoundboardPlayer mediaPlayer) {
+        release(mediaPlayer);
         activePlayers.values().remove(mediaPlayer);
         playersFadingOut.values().remove(mediaPlayer);
     }
 
+    /**
+     * Stops and releases this player. Does not call
+     * {@link SoundboardPlayer#playingLogicallyStopped()}.
+     * <p>
+     * Media players are detached right away, so they won't call back anymore - but the native
+     * stop and release is left to the {@link PlayerReaper}.
+     */
+    @UiThread
+    private static void release(SoundboardPlayer player) {
+        if (player instanceof SoundboardMediaPlayer) {
+            PlayerReaper.getInstance().reap(((SoundboardMediaPlayer) player).detach());
+        } else {
+            player.release();
+        }
+    }
+
+    /**
+     * Stops playing logically (see {@link SoundboardPlayer#playingLogicallyStopped()}) - and
+     * stops and releases this player, see {@link #release(SoundboardPlayer)}.
+     */
+    @UiThread
+    private static void stopAndRelease(SoundboardPlayer player) {
+        player.playingLogicallyStopped();
+        release(player);
+    }
+
     /**
      * Returns whether this sound is <i>actively playing</i>, that is,
      * it is playing <i>and not fading out</i>.
@@ -221,7 +298,7 @@ class SoundboardMediaPlayers {
         return activePlayers.entrySet().stream()
                 .filter(e -> e.getKey().getSoundId().equals(sound.getId()))
                 .map(Map.Entry::getValue)
-                .anyMatch(SoundboardMediaPlayer::isPlaying);
+                .anyMatch(SoundboardPlayer::isPlaying);
     }
 
     /**
@@ -235,6 +312,19 @@ class SoundboardMediaPlayers {
                 .collect(ImmutableSet.toImmutableSet());
     }
 
+    /**
+     * Creates a snapshot of the sounds that are <i>actively playing</i>:
+     * Playing <i>and not fading out</i>.
+     */
+    @UiThread
+    PlayingState createPlayingState(long version) {
+        return new PlayingState(version,
+                activePlayers.entrySet().stream()
+                        .filter(e -> e.getValue().isPlaying())
+                        .map(Map.Entry::getKey)
+                        .collect(ImmutableSet.toImmutableSet()));
+    }
+
     /**
      * Return whether in this soundboard there is more than one sound <i>actively playing</i>.
      * To be <i>actively playing</i> means, a sound is playing <i>and not fading out</i>.
@@ -292,13 +382,13 @@ class SoundboardMediaPlayers {
      * Sets the volume for this <code>mediaPlayer</code>.
      */
     @UiThread
-    private static void setVolume(@NonNull SoundboardMediaPlayer mediaPlayer, float volume) {
+    private static void setVolume(@NonNull SoundboardPlayer mediaPlayer, float volume) {
         checkNotNull(mediaPlayer, "mediaPlayer is null");
         mediaPlayer.setVolume(volume);
     }
 
     @UiThread
-    private static float percentageToVolume(int volumePercentage) {
+    static float percentageToVolume(int volumePercentage) {
         return (float) volumePercentage / 100f;
     }
 
@@ -321,12 +411,12 @@ class SoundboardMediaPlayers {
     }
 
     /**
-     * Sets whether this <code>mediaPlayer</code> shall play in a loop.
+     * Sets whether this <code>mediaPlayer</code> shall play in a (gapless) loop.
      */
     @UiThread
-    private static void setLoop(@NonNull SoundboardMediaPlayer mediaPlayer, boolean loop) {
+    private static void setLoop(@NonNull SoundboardPlayer mediaPlayer, boolean loop) {
         checkNotNull(mediaPlayer, "mediaPlayer is null");
-        mediaPlayer.setLooping(loop);
+        mediaPlayer.setGaplessLoop(loop);
     }
 
     /**
@@ -362,19 +452,18 @@ class SoundboardMediaPlayers {
     }
 
     private void stopPlaying(Predicate<MediaPlayerSearchId> filter, boolean fadeOut) {
-        for (Iterator<Map.Entry<MediaPlayerSearchId, SoundboardMediaPlayer>> entryIt =
+        for (Iterator<Map.Entry<MediaPlayerSearchId, SoundboardPlayer>> entryIt =
              activePlayers.entrySet().iterator(); entryIt.hasNext(); ) {
-            Map.Entry<MediaPlayerSearchId, SoundboardMediaPlayer> entry = entryIt.next();
+            Map.Entry<MediaPlayerSearchId, SoundboardPlayer> entry = entryIt.next();
             MediaPlayerSearchId searchId = entry.getKey();
 
             if (filter.test(searchId)) {
-                SoundboardMediaPlayer player = entry.getValue();
+                SoundboardPlayer player = entry.getValue();
                 if (!fadeOut) {
-                    player.stop();
-                    player.release();
+                    stopAndRelease(player);
                 } else {
                     player.playingLogicallyStopped();
-                    startFaderIfNotRunning();
+                    startFadeOut(player);
                     playersFadingOut.put(searchId, player);
                 }
                 entryIt.remove();
@@ -382,13 +471,11 @@ class SoundboardMediaPlayers {
         }
 
         if (!fadeOut) {
-            for (Iterator<Map.Entry<MediaPlayerSearchId, SoundboardMediaPlayer>> entryIt =
+            for (Iterator<Map.Entry<MediaPlayerSearchId, SoundboardPlayer>> entryIt =
                  playersFadingOut.entrySet().iterator(); entryIt.hasNext(); ) {
-                Map.Entry<MediaPlayerSearchId, SoundboardMediaPlayer> entry = entryIt.next();
+                Map.Entry<MediaPlayerSearchId, SoundboardPlayer> entry = entryIt.next();
                 if (filter.test(entry.getKey())) {
-                    SoundboardMediaPlayer player = entry.getValue();
-                    player.stop();
-                    player.release();
+                    stopAndRelease(entry.getValue());
                     entryIt.remove();
                 }
             }
@@ -402,17 +489,16 @@ class SoundboardMediaPlayers {
      */
     @UiThread
     void stopPlaying(boolean fadeOut) {
-        for (Map.Entry<MediaPlayerSearchId, SoundboardMediaPlayer> entry :
+        for (Map.Entry<MediaPlayerSearchId, SoundboardPlayer> entry :
                 activePlayers.entrySet()) {
             MediaPlayerSearchId searchId = entry.getKey();
-            SoundboardMediaPlayer player = entry.getValue();
+            SoundboardPlayer player = entry.getValue();
 
             if (!fadeOut) {
-                player.stop();
-                player.release();
+                stopAndRelease(player);
             } else {
                 player.playingLogicallyStopped();
-                startFaderIfNotRunning();
+                startFadeOut(player);
                 playersFadingOut.put(searchId, player);
             }
         }
@@ -420,52 +506,160 @@ class SoundboardMediaPlayers {
         activePlayers.clear();
 
         if (!fadeOut) {
-            for (Iterator<SoundboardMediaPlayer> playerIt = playersFadingOutIterator();
+            for (Iterator<SoundboardPlayer> playerIt = playersFadingOutIterator();
                  playerIt.hasNext(); ) {
-                SoundboardMediaPlayer player = playerIt.next();
-                player.stop();
-                player.release();
+                stopAndRelease(playerIt.next());
             }
 
             playersFadingOut.clear();
         }
     }
 
-    private void fadeOut(MediaPlayerSearchId searchId, SoundboardMediaPlayer player) {
+    private void fadeOut(MediaPlayerSearchId searchId, SoundboardPlayer player) {
         player.playingLogicallyStopped();
-        startFaderIfNotRunning();
+        startFadeOut(player);
         putFadingOut(searchId, player);
     }
 
+    /**
+     * Starts fading out this player: A mixer voice fades itself out on the audio thread,
+     * media players are faded out by the {@link Fader}.
+     */
+    @UiThread
+    private void startFadeOut(SoundboardPlayer player) {
+        if (player instanceof MixerVoice) {
+            ((MixerVoice) player).fadeOut();
+            return;
+        }
+
+        startFaderIfNotRunning();
+    }
+
     /**
      * If there is currently no {@link Fader} running, start one.
      */
     private void startFaderIfNotRunning() {
-        if (playersFadingOut.isEmpty()) {
-            // Currently, there is no Fader running - start one!
+        if (!faderRunning) {
+            faderRunning = true;
             uiThreadHandler.postDelayed(fader, 50);
         }
     }
 
     @NonNull
     @UiThread
-    Iterator<SoundboardMediaPlayer> activePlayersIterator() {
+    Iterator<SoundboardPlayer> activePlayersIterator() {
         return activePlayers.values().iterator();
     }
 
     @NonNull
     @UiThread
-    private Iterator<SoundboardMediaPlayer> playersFadingOutIterator() {
+    private Iterator<SoundboardPlayer> playersFadingOutIterator() {
         return playersFadingOut.values().iterator();
     }
 
+    /**
+     * Makes room for a new player for this sound: If there are already <code>maxPlayers</code>
+     * players of the same kind (media players or mixer voices), stops and removes
+     * ("steals") players, as chosen by the <code>policy</code>. The player currently
+     * registered for this sound is not counted, because it is replaced anyway.
+     * <p>
+     * Call this directly before creating the new player and {@link #putActive(Soundboard,
+     * Sound, SoundboardPlayer)} it (on the UI thread, in the same call), so that the limit
+     * is never exceeded.
+     *
+     * @return the number of players stolen
+     */
+    @UiThread
+    int stealPlayersToMakeRoom(@Nullable Soundboard soundboard, @NonNull Sound sound,
+                               boolean mixerVoice, int maxPlayers,
+                               @NonNull VoiceStealingPolicy policy) {
+        checkNotNull(sound, "sound is null");
+        checkNotNull(policy, "policy is null");
+
+        MediaPlayerSearchId searchId = new MediaPlayerSearchId(soundboard, sound);
+
+        List<StealingCandidate> candidates = new ArrayList<>();
+        addStealingCandidates(candidates, activePlayers, searchId, mixerVoice, false);
+        addStealingCandidates(candidates, playersFadingOut, searchId, mixerVoice, true);
+
+        if (candidates.size() < maxPlayers) {
+            return 0;
+        }
+
+        candidates.sort(stealingOrder(policy));
+
+        int res = 0;
+        for (StealingCandidate candidate : candidates) {
+            if (candidates.size() - res < maxPlayers) {
+                break;
+            }
+
+            candidate.player.playingLogicallyStopped();
+            remove(candidate.player);
+            res++;
+        }
+
+        stolenCount += res; // Only written on the UI thread
+        return res;
+    }
+
+    private void addStealingCandidates(
+            List<StealingCandidate> candidates,
+            Map<MediaPlayerSearchId, SoundboardPlayer> players,
+            MediaPlayerSearchId excludedSearchId, boolean mixerVoice, boolean fadingOut) {
+        for (Map.Entry<MediaPlayerSearchId, SoundboardPlayer> entry : players.entrySet()) {
+            SoundboardPlayer player = entry.getValue();
+            if (!entry.getKey().equals(excludedSearchId)
+                    && (player instanceof MixerVoice) == mixerVoice) {
+                candidates.add(new StealingCandidate(player, fadingOut,
+                        startSequences.getOrDefault(player, 0L)));
+            }
+        }
+    }
+
+    /**
+     * Returns the order in which players are stolen according to this policy - the player
+     * to be stolen first comes first.
+     */
+    private static Comparator<StealingCandidate> stealingOrder(VoiceStealingPolicy policy) {
+        Comparator<StealingCandidate> oldestFirst =
+                Comparator.comparingLong(c -> c.startSequence);
+
+        switch (policy) {
+            case OLDEST:
+                return oldestFirst;
+            case QUIETEST:
+                return Comparator.<StealingCandidate>comparingDouble(c -> c.player.getVolume())
+                        .thenComparing(oldestFirst);
+            case LOWEST_PRIORITY:
+                return Comparator.comparingInt(StealingCandidate::getPriority)
+                        .thenComparing(oldestFirst);
+            case FADING_OUT_FIRST:
+                return Comparator.<StealingCandidate, Boolean>comparing(c -> !c.fadingOut)
+                        .thenComparing(oldestFirst);
+            default:
+                throw new IllegalStateException("Unexpected policy: " + policy);
+        }
+    }
+
+    /**
+     * Returns a human-readable report, as shown in the service dump.
+     */
+    @NonNull
+    String toReport() {
+        return String.format(Locale.ROOT,
+                "Voice stealing\n" +
+                        "%-24s %8d%n",
+                "players stolen", stolenCount);
+    }
+
     /**
      * Puts this player into the active players map - also removing it from the
      * players currently fading out (if contained).
      */
     @UiThread
     void putActive(@Nullable Soundboard soundboard, Sound sound,
-                   SoundboardMediaPlayer mediaPlayer) {
+                   SoundboardPlayer mediaPlayer) {
         MediaPlayerSearchId searchId = new MediaPlayerSearchId(soundboard, sound);
 
         putActive(searchId, mediaPlayer);
@@ -476,9 +670,10 @@ class SoundboardMediaPlayers {
      * players currently fading out (if contained).
      */
     @UiThread
-    private void putActive(MediaPlayerSearchId searchId, SoundboardMediaPlayer mediaPlayer) {
+    private void putActive(MediaPlayerSearchId searchId, SoundboardPlayer mediaPlayer) {
         playersFadingOut.remove(searchId);
         activePlayers.put(searchId, mediaPlayer);
+        startSequences.put(mediaPlayer, nextStartSequence++);
     }
 
     /**
@@ -486,11 +681,38 @@ class SoundboardMediaPlayers {
      * active players (if contained).
      */
     @UiThread
-    private void putFadingOut(MediaPlayerSearchId searchId, SoundboardMediaPlayer mediaPlayer) {
+    private void putFadingOut(MediaPlayerSearchId searchId, SoundboardPlayer mediaPlayer) {
         activePlayers.remove(searchId);
         playersFadingOut.put(searchId, mediaPlayer);
     }
 
+    /**
+     * A player that might be stolen to make room for another player.
+     */
+    private static class StealingCandidate {
+        private final SoundboardPlayer player;
+        private final boolean fadingOut;
+        private final long startSequence;
+
+        StealingCandidate(SoundboardPlayer player, boolean fadingOut, long startSequence) {
+            this.player = player;
+            this.fadingOut = fadingOut;
+            this.startSequence = startSequence;
+        }
+
+        /**
+         * Returns the priority of the player: Players fading out have the lowest priority,
+         * loops (usually background sounds) the highest.
+         */
+        int getPriority() {
+            if (fadingOut) {
+                return 0;
+            }
+
+            return player.isGaplessLoop() ? 2 : 1;
+        }
+    }
+
     /**
      * {@link java.lang.Runnable} that does a single fade-out step for all players that
      * shall be faded out - and schedules itself for the next step, if necessary.
@@ -499,30 +721,42 @@ class SoundboardMediaPlayers {
         @Override
         @UiThread
         public void run() {
-            fadeOut();
-
-            if (!playersFadingOut.isEmpty()) {
+            if (fadeOut()) {
                 uiThreadHandler.postDelayed(fader, 40);
+            } else {
+                faderRunning = false;
             }
         }
 
+        /**
+         * Does a single fade-out step for all media players fading out.
+         *
+         * @return whether there are still media players fading out
+         */
         @UiThread
-        private void fadeOut() {
-            for (Iterator<SoundboardMediaPlayer> playerIt = playersFadingOut.values().iterator();
+        private boolean fadeOut() {
+            boolean res = false;
+            for (Iterator<SoundboardPlayer> playerIt = playersFadingOut.values().iterator();
                  playerIt.hasNext(); ) {
-                SoundboardMediaPlayer player = playerIt.next();
+                SoundboardPlayer player = playerIt.next();
+                if (player instanceof MixerVoice) {
+                    continue;
+                }
+
                 float oldVolume = player.getVolume();
 
                 float newVolume = oldVolume / 1.116f;
 
                 if (newVolume < 0.001) {
-                    player.stop();
-                    player.release();
+                    stopAndRelease(player);
                     playerIt.remove();
                 } else {
                     setVolume(player, newVolume);
+                    res = true;
                 }
             }
+
+            return res;
         }
     }
 }
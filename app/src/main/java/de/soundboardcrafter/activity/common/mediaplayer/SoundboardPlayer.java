@@ -0,0 +1,48 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Plays one sound (in one soundboard) and is registered in the {@link SoundboardMediaPlayers}:
+ * Either a {@link SoundboardMediaPlayer} or a {@link MixerVoice} of the {@link MixingEngine}.
+ */
+interface SoundboardPlayer {
+    /**
+     * Returns the name of the sound that's currently played - or the last sound played.
+     */
+    @Nullable
+    String getSoundName();
+
+    float getVolume();
+
+    void setVolume(float volume);
+
+    /**
+     * Sets whether the sound shall be played in a gapless loop. Can also be called while
+     * the sound is playing.
+     */
+    void setGaplessLoop(boolean loop);
+
+    boolean isGaplessLoop();
+
+    boolean isPlaying();
+
+    void setOnPlayingStopped(@Nullable SoundboardMediaPlayer.OnPlayingStopped onPlayingStopped);
+
+    /**
+     * Stops playing - and calls {@link #playingLogicallyStopped()}.
+     */
+    void stop();
+
+    /**
+     * Releases all resources. Stops playing, if necessary - without calling
+     * {@link #playingLogicallyStopped()}.
+     */
+    void release();
+
+    /**
+     * This is called / has to be called when playing has logically
+     * stopped.
+     */
+    void playingLogicallyStopped();
+}
@@ -0,0 +1,44 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Decides which player is stopped ("stolen") when a new sound shall be played,
+ * but the maximum number of players has been reached.
+ */
+public enum VoiceStealingPolicy {
+    /**
+     * Steals the player that has been started first.
+     */
+    OLDEST,
+    /**
+     * Steals the player with the lowest volume.
+     */
+    QUIETEST,
+    /**
+     * Steals players fading out first, then sounds that are played once, and
+     * looping sounds last - the oldest player first.
+     */
+    LOWEST_PRIORITY,
+    /**
+     * Steals players fading out first - then the oldest player.
+     */
+    FADING_OUT_FIRST;
+
+    public static final VoiceStealingPolicy DEFAULT = FADING_OUT_FIRST;
+
+    /**
+     * Returns the policy with this name - or the {@link #DEFAULT}, if there is none.
+     */
+    public static VoiceStealingPolicy fromName(@Nullable String name) {
+        if (name == null) {
+            return DEFAULT;
+        }
+
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT;
+        }
+    }
+}
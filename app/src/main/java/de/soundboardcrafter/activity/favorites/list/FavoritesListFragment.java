@@ -44,7 +44,7 @@ import de.soundboardcrafter.activity.sound.event.SoundEventListener;
 import de.soundboardcrafter.activity.soundboard.play.SoundboardPlayActivity;
 import de.soundboardcrafter.dao.FavoritesDao;
 import de.soundboardcrafter.dao.TutorialDao;
-import de.soundboardcrafter.model.FavoritesWithSoundboards;
+import de.soundboardcrafter.model.FavoritesSummary;
 
 /**
  * Shows favorites in a Grid
@@ -152,11 +152,11 @@ public class FavoritesListFragment extends Fragment
                 tapTargetViewListener);
     }
 
-    private void onClickFavorites(FavoritesWithSoundboards favoritesWithSoundboards) {
+    private void onClickFavorites(FavoritesSummary favoritesSummary) {
         Intent intent = new Intent(getContext(), SoundboardPlayActivity.class);
         intent.putExtra(
                 SoundboardPlayActivity.EXTRA_FAVORITES_ID,
-                favoritesWithSoundboards.getFavorites().getId().toString());
+                favoritesSummary.getFavorites().getId().toString());
 
         startActivityForResult(intent, SOUNDBOARD_PLAY_REQUEST_CODE);
     }
@@ -195,7 +195,7 @@ public class FavoritesListFragment extends Fragment
                 (AdapterView.AdapterContextMenuInfo) menuInfo;
         FavoritesListItemRow itemRow = (FavoritesListItemRow) adapterContextMenuInfo.targetView;
 
-        menu.setHeaderTitle(itemRow.getFavoritesWithSoundboards().getFavorites().getName());
+        menu.setHeaderTitle(itemRow.getFavoritesSummary().getFavorites().getName());
 
         @Nullable final Context context = getContext();
         if (context != null) {
@@ -215,16 +215,16 @@ public class FavoritesListFragment extends Fragment
         AdapterView.AdapterContextMenuInfo menuInfo =
                 (AdapterView.AdapterContextMenuInfo) item.getMenuInfo();
         FavoritesListItemRow itemRow = (FavoritesListItemRow) menuInfo.targetView;
-        FavoritesWithSoundboards favoritesWithSoundboards = itemRow.getFavoritesWithSoundboards();
+        FavoritesSummary favoritesSummary = itemRow.getFavoritesSummary();
         final int id = item.getItemId();
         if (id == 1) {
             Intent intent = FavoritesEditActivity
-                    .newIntent(requireActivity(), favoritesWithSoundboards.getFavorites());
+                    .newIntent(requireActivity(), favoritesSummary.getFavorites());
             startActivityForResult(intent, EDIT_FAVORITES_REQUEST_CODE);
             return true;
         } else if (id == 2) {
-            new DeleteFavoritesTask(requireActivity(), favoritesWithSoundboards).execute();
-            adapter.remove(favoritesWithSoundboards);
+            new DeleteFavoritesTask(requireActivity(), favoritesSummary).execute();
+            adapter.remove(favoritesSummary);
             return true;
         } else {
             return false;
@@ -276,8 +276,8 @@ public class FavoritesListFragment extends Fragment
     }
 
     @UiThread
-    private void initFavoritesItemAdapter(ImmutableList<FavoritesWithSoundboards> favorites) {
-        List<FavoritesWithSoundboards> list = Lists.newArrayList(favorites);
+    private void initFavoritesItemAdapter(ImmutableList<FavoritesSummary> favorites) {
+        List<FavoritesSummary> list = Lists.newArrayList(favorites);
         list.sort(Comparator.comparing(g -> g.getFavorites().getCollationKey()));
         adapter = new FavoritesListItemAdapter(list);
         listView.setAdapter(adapter);
@@ -295,10 +295,10 @@ public class FavoritesListFragment extends Fragment
         private final WeakReference<Context> appContextRef;
         private final UUID favoritesId;
 
-        DeleteFavoritesTask(Context context, FavoritesWithSoundboards favoritesWithSoundboards) {
+        DeleteFavoritesTask(Context context, FavoritesSummary favoritesSummary) {
             super();
             appContextRef = new WeakReference<>(context.getApplicationContext());
-            favoritesId = favoritesWithSoundboards.getFavorites().getId();
+            favoritesId = favoritesSummary.getFavorites().getId();
         }
 
         @Override
@@ -319,9 +319,10 @@ public class FavoritesListFragment extends Fragment
 
 
     /**
-     * A background task, used to retrieve favorites from the database.
+     * A background task, used to retrieve favorites (with their soundboard counts only)
+     * from the database.
      */
-    class FindFavoritesTask extends AsyncTask<Void, Void, ImmutableList<FavoritesWithSoundboards>> {
+    class FindFavoritesTask extends AsyncTask<Void, Void, ImmutableList<FavoritesSummary>> {
         private final String TAG = FindFavoritesTask.class.getName();
 
         private final WeakReference<Context> appContextRef;
@@ -333,7 +334,7 @@ public class FavoritesListFragment extends Fragment
 
         @Override
         @WorkerThread
-        protected ImmutableList<FavoritesWithSoundboards> doInBackground(Void... voids) {
+        protected ImmutableList<FavoritesSummary> doInBackground(Void... voids) {
             Context appContext = appContextRef.get();
             if (appContext == null) {
                 cancel(true);
@@ -344,8 +345,8 @@ public class FavoritesListFragment extends Fragment
 
             Log.d(TAG, "Loading favorites...");
 
-            ImmutableList<FavoritesWithSoundboards> res =
-                    favoritesDao.findAllFavoritesWithSoundboards();
+            ImmutableList<FavoritesSummary> res =
+                    favoritesDao.findAllSummaries();
 
             Log.d(TAG, "Favorites loaded.");
 
@@ -355,7 +356,7 @@ public class FavoritesListFragment extends Fragment
         @Override
         @UiThread
         protected void onPostExecute(
-                ImmutableList<FavoritesWithSoundboards> favoritesWithSoundboards) {
+                ImmutableList<FavoritesSummary> favoritesSummaries) {
             Context appContext = appContextRef.get();
 
             if (appContext == null) {
@@ -363,7 +364,7 @@ public class FavoritesListFragment extends Fragment
                 // will be of no use to anyone
                 return;
             }
-            initFavoritesItemAdapter(favoritesWithSoundboards);
+            initFavoritesItemAdapter(favoritesSummaries);
         }
     }
 }
@@ -9,21 +9,21 @@ import androidx.annotation.UiThread;
 
 import java.util.List;
 
-import de.soundboardcrafter.model.FavoritesWithSoundboards;
+import de.soundboardcrafter.model.FavoritesSummary;
 
 /**
  * Adapter for favorites.
  */
 class FavoritesListItemAdapter extends BaseAdapter {
-    private final List<FavoritesWithSoundboards> favoritesWithSoundboards;
+    private final List<FavoritesSummary> favoritesSummaries;
 
-    FavoritesListItemAdapter(List<FavoritesWithSoundboards> favoritesWithSoundboards) {
-        this.favoritesWithSoundboards = favoritesWithSoundboards;
+    FavoritesListItemAdapter(List<FavoritesSummary> favoritesSummaries) {
+        this.favoritesSummaries = favoritesSummaries;
     }
 
     @Override
     public int getCount() {
-        return favoritesWithSoundboards.size();
+        return favoritesSummaries.size();
     }
 
     @Override
@@ -32,8 +32,8 @@ class FavoritesListItemAdapter extends BaseAdapter {
     }
 
     @Override
-    public FavoritesWithSoundboards getItem(int position) {
-        return favoritesWithSoundboards.get(position);
+    public FavoritesSummary getItem(int position) {
+        return favoritesSummaries.get(position);
     }
 
     @Override
@@ -44,18 +44,18 @@ class FavoritesListItemAdapter extends BaseAdapter {
         }
         FavoritesListItemRow itemRow = (FavoritesListItemRow) convertView;
 
-        itemRow.setFavoritesWithSoundboards(favoritesWithSoundboards.get(position));
+        itemRow.setFavoritesSummary(favoritesSummaries.get(position));
 
         return convertView;
     }
 
-    public void remove(FavoritesWithSoundboards favoritesWithSoundboards) {
-        this.favoritesWithSoundboards.stream()
+    public void remove(FavoritesSummary favoritesSummary) {
+        this.favoritesSummaries.stream()
                 .filter(g -> g.getFavorites().getId()
-                        .equals(favoritesWithSoundboards.getFavorites().getId()))
+                        .equals(favoritesSummary.getFavorites().getId()))
                 .findFirst()
                 .ifPresent(obj -> {
-                    this.favoritesWithSoundboards.remove(obj);
+                    this.favoritesSummaries.remove(obj);
                     notifyDataSetChanged();
                 });
     }
@@ -11,7 +11,7 @@ import androidx.annotation.UiThread;
 import javax.annotation.Nonnull;
 
 import de.soundboardcrafter.R;
-import de.soundboardcrafter.model.FavoritesWithSoundboards;
+import de.soundboardcrafter.model.FavoritesSummary;
 
 /**
  * Tile for a favorites instance
@@ -23,7 +23,7 @@ class FavoritesListItemRow extends RelativeLayout {
     @Nonnull
     private final TextView soundboardCount;
 
-    private FavoritesWithSoundboards favoritesWithSoundboards;
+    private FavoritesSummary favoritesSummary;
 
     FavoritesListItemRow(Context context) {
         super(context);
@@ -39,21 +39,21 @@ class FavoritesListItemRow extends RelativeLayout {
      * Set the data for the view.
      */
     @UiThread
-    void setFavoritesWithSoundboards(FavoritesWithSoundboards favoritesWithSoundboards) {
-        this.favoritesWithSoundboards = favoritesWithSoundboards;
-        favoritesName.setText(favoritesWithSoundboards.getFavorites().getName());
+    void setFavoritesSummary(FavoritesSummary favoritesSummary) {
+        this.favoritesSummary = favoritesSummary;
+        favoritesName.setText(favoritesSummary.getFavorites().getName());
         soundboardCount.setText(getSoundboardCountText());
     }
 
     private String getSoundboardCountText() {
-        int count = favoritesWithSoundboards.getSoundboards().size();
+        int count = favoritesSummary.getSoundboardCount();
         return getResources().getQuantityString(
                 R.plurals.soundboard_count_text,
                 count, count);
 
     }
 
-    FavoritesWithSoundboards getFavoritesWithSoundboards() {
-        return favoritesWithSoundboards;
+    FavoritesSummary getFavoritesSummary() {
+        return favoritesSummary;
     }
 }
@@ -40,6 +40,7 @@ import de.soundboardcrafter.activity.settings.SettingsActivity;
 import de.soundboardcrafter.activity.sound.event.SoundEventListener;
 import de.soundboardcrafter.activity.soundboard.list.SoundboardListFragment;
 import de.soundboardcrafter.dao.TutorialDao;
+import de.soundboardcrafter.util.StartupTrace;
 
 /**
  * The activity with which the app is started, showing favorites (when enabled), soundboards, and
@@ -73,61 +74,66 @@ public class MainActivity extends AppCompatActivity
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_main);
-
-        pages = calcPages();
-
-        pager = findViewById(R.id.viewPagerMain);
-        pagerAdapter = new ScreenSlidePagerAdapter(this);
-
-        pageChangeCallback = new ViewPager2.OnPageChangeCallback() {
-            @Override
-            public void onPageSelected(int position) {
-                super.onPageSelected(position);
-
-                stopPlayingInAudioListFragment();
-
-                @Nullable Page newSelectedPage = pagerAdapter.getPage(position);
-                if (newSelectedPage != null) {
-                    setSelectedPage(newSelectedPage);
-
-                    if (selectedPage == Page.SOUNDS) {
-                        if (ContextCompat.checkSelfPermission(MainActivity.this,
-                                PermissionUtil.calcPermissionToReadAudioFiles())
-                                != PackageManager.PERMISSION_GRANTED) {
-                            requestReadExternalPermission();
+        try (StartupTrace.Section ignored = StartupTrace.begin("main_activity_create")) {
+            super.onCreate(savedInstanceState);
+            // Starts loading the tutorial state in the background, so that it's available
+            // when the first fragments need it
+            TutorialDao.getInstance(this);
+            setContentView(R.layout.activity_main);
+
+            pages = calcPages();
+
+            pager = findViewById(R.id.viewPagerMain);
+            pagerAdapter = new ScreenSlidePagerAdapter(this);
+
+            pageChangeCallback = new ViewPager2.OnPageChangeCallback() {
+                @Override
+                public void onPageSelected(int position) {
+                    super.onPageSelected(position);
+
+                    stopPlayingInAudioListFragment();
+
+                    @Nullable Page newSelectedPage = pagerAdapter.getPage(position);
+                    if (newSelectedPage != null) {
+                        setSelectedPage(newSelectedPage);
+
+                        if (selectedPage == Page.SOUNDS) {
+                            if (ContextCompat.checkSelfPermission(MainActivity.this,
+                                    PermissionUtil.calcPermissionToReadAudioFiles())
+                                    != PackageManager.PERMISSION_GRANTED) {
+                                requestReadExternalPermission();
+                            }
                         }
                     }
                 }
-            }
-        };
-        pager.registerOnPageChangeCallback(pageChangeCallback);
+            };
+            pager.registerOnPageChangeCallback(pageChangeCallback);
 
-        pager.setAdapter(pagerAdapter);
+            pager.setAdapter(pagerAdapter);
 
-        TabLayout tabLayout = findViewById(R.id.tabLayoutMain);
-        new TabLayoutMediator(tabLayout, pager,
-                (tab, position) -> tab.setText(getString(pages.get(position).title))).attach();
+            TabLayout tabLayout = findViewById(R.id.tabLayoutMain);
+            new TabLayoutMediator(tabLayout, pager,
+                    (tab, position) -> tab.setText(getString(pages.get(position).title))).attach();
 
-        backButtonLeadsToSoundboards();
+            backButtonLeadsToSoundboards();
 
-        if (savedInstanceState != null) {
-            @Nullable String savedSelectedPageString =
-                    savedInstanceState.getString(KEY_SELECTED_PAGE);
-            if (savedSelectedPageString != null) {
-                final Page selectedPage = Page.valueOf(savedSelectedPageString);
-                setSelectedPage(pages.contains(selectedPage) ? selectedPage : null);
-            } else {
-                setSelectedPage(null);
+            if (savedInstanceState != null) {
+                @Nullable String savedSelectedPageString =
+                        savedInstanceState.getString(KEY_SELECTED_PAGE);
+                if (savedSelectedPageString != null) {
+                    final Page selectedPage = Page.valueOf(savedSelectedPageString);
+                    setSelectedPage(pages.contains(selectedPage) ? selectedPage : null);
+                } else {
+                    setSelectedPage(null);
+                }
             }
-        }
 
-        if (selectedPage == null) {
-            setSelectedPage(Page.SOUNDBOARDS);
+            if (selectedPage == null) {
+                setSelectedPage(Page.SOUNDBOARDS);
+            }
+            int index = pagerAdapter.getIndexOf(selectedPage);
+            pager.setCurrentItem(index != -1 ? index : 0, false);
         }
-        int index = pagerAdapter.getIndexOf(selectedPage);
-        pager.setCurrentItem(index != -1 ? index : 0, false);
     }
 
     private void backButtonLeadsToSoundboards() {
@@ -1,14 +1,55 @@
 package de.soundboardcrafter.activity.settings;
 
+import android.graphics.Typeface;
 import android.os.Bundle;
+import android.widget.TextView;
 
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 
+import de.soundboardcrafter.BuildConfig;
 import de.soundboardcrafter.R;
+import de.soundboardcrafter.activity.common.ViewUtil;
+import de.soundboardcrafter.activity.common.mediaplayer.GaplessLoopStats;
+import de.soundboardcrafter.activity.common.mediaplayer.PlaybackLatencyStats;
 
 public class SettingsFragment extends PreferenceFragmentCompat {
+    private static final String KEY_PLAYBACK_LATENCY = "playbackLatency";
+
+    private static final int PLAYBACK_LATENCY_PADDING_DP = 16;
+
     @Override
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
         setPreferencesFromResource(R.xml.preferences, rootKey);
+
+        @Nullable Preference playbackLatency = findPreference(KEY_PLAYBACK_LATENCY);
+        if (playbackLatency != null && BuildConfig.DEBUG) {
+            playbackLatency.setVisible(true);
+            playbackLatency.setOnPreferenceClickListener(preference -> {
+                showPlaybackLatency();
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Shows the playback latency and gapless loop statistics (debug screen).
+     */
+    private void showPlaybackLatency() {
+        TextView textView = new TextView(requireContext());
+        textView.setTypeface(Typeface.MONOSPACE);
+        textView.setTextIsSelectable(true);
+        int padding = ViewUtil.dpToPx(requireContext(), PLAYBACK_LATENCY_PADDING_DP);
+        textView.setPadding(padding, padding, padding, padding);
+        textView.setText(PlaybackLatencyStats.getInstance().toReport() + "\n" +
+                GaplessLoopStats.getInstance().toReport());
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.setting_playback_latency_title)
+                .setView(textView)
+                .setPositiveButton(android.R.string.ok, null)
+                .show();
     }
 }
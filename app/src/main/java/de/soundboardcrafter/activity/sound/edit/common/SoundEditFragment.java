@@ -3,13 +3,10 @@ package de.soundboardcrafter.activity.sound.edit.common;
 import static java.util.Objects.requireNonNull;
 
 import android.app.Activity;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.ServiceConnection;
 import android.os.AsyncTask;
 import android.os.Bundle;
-import android.os.IBinder;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -30,6 +27,7 @@ import javax.annotation.Nonnull;
 import de.soundboardcrafter.R;
 import de.soundboardcrafter.activity.common.AbstractPermissionFragment;
 import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerService;
+import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerServiceConnection;
 import de.soundboardcrafter.activity.sound.edit.soundboard.play.SoundboardPlaySoundEditActivity;
 import de.soundboardcrafter.dao.SoundDao;
 import de.soundboardcrafter.model.AbstractAudioLocation;
@@ -39,7 +37,7 @@ import de.soundboardcrafter.model.SoundWithSelectableSoundboards;
 /**
  * Activity for editing a single sound (name, volume etc.).
  */
-public class SoundEditFragment extends AbstractPermissionFragment implements ServiceConnection {
+public class SoundEditFragment extends AbstractPermissionFragment {
     private static final String TAG = SoundEditFragment.class.getName();
 
     private static final String ARG_SOUND_ID = "soundId";
@@ -51,8 +49,7 @@ public class SoundEditFragment extends AbstractPermissionFragment implements Ser
 
     private final SoundEditChangeListener soundEditChangeListener = new SoundEditChangeListener();
 
-    @Nullable
-    private MediaPlayerService mediaPlayerService;
+    private MediaPlayerServiceConnection serviceConnection;
 
     static SoundEditFragment newInstance(UUID soundId) {
         Bundle args = new Bundle();
@@ -63,33 +60,6 @@ public class SoundEditFragment extends AbstractPermissionFragment implements Ser
         return fragment;
     }
 
-    @Override
-    @UiThread
-    public void onServiceConnected(ComponentName name, IBinder binder) {
-        MediaPlayerService.Binder b = (MediaPlayerService.Binder) binder;
-        mediaPlayerService = b.getService();
-        Log.d(TAG, "MediaPlayerService is connected");
-    }
-
-    @Override
-    @UiThread
-    public void onServiceDisconnected(ComponentName name) {
-        // TODO What to do on Service Disconnected?
-    }
-
-    @Override
-    @UiThread
-    public void onBindingDied(ComponentName name) {
-        // TODO What to do on Service Died?
-    }
-
-    @Override
-    @UiThread
-    public void onNullBinding(ComponentName name) {
-        // TODO What to do on Null Binding?
-    }
-
-
     @Override
     @UiThread
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -100,9 +70,7 @@ public class SoundEditFragment extends AbstractPermissionFragment implements Ser
         final UUID soundId = UUID.fromString(arguments.getString(ARG_SOUND_ID));
         new FindSoundTask(requireActivity(), soundId).execute();
 
-        startService();
-        // TODO Necessary?! Also done in onResume()
-        bindService();
+        serviceConnection = MediaPlayerServiceConnection.getInstance(requireContext());
 
         // The result will be the sound id, so that the calling
         // activity can update its GUI for this sound.
@@ -114,24 +82,6 @@ public class SoundEditFragment extends AbstractPermissionFragment implements Ser
                 intent);
     }
 
-    @Override
-    @UiThread
-    // Called especially when the SoundboardPlaySoundEditActivity returns.
-    public void onResume() {
-        super.onResume();
-        bindService();
-    }
-
-    private void startService() {
-        Intent intent = new Intent(getActivity(), MediaPlayerService.class);
-        requireActivity().startService(intent);
-    }
-
-    private void bindService() {
-        Intent intent = new Intent(getActivity(), MediaPlayerService.class);
-        requireActivity().bindService(intent, this, Context.BIND_AUTO_CREATE);
-    }
-
     @Override
     @UiThread
     public View onCreateView(@Nonnull LayoutInflater inflater, ViewGroup container,
@@ -243,10 +193,7 @@ public class SoundEditFragment extends AbstractPermissionFragment implements Ser
 
     @Nullable
     private MediaPlayerService getService() {
-        if (mediaPlayerService == null) {
-            bindService();
-        }
-        return mediaPlayerService;
+        return serviceConnection.getService();
     }
 
     @Override
@@ -257,8 +204,6 @@ public class SoundEditFragment extends AbstractPermissionFragment implements Ser
 
         stopPlaying();
 
-        requireActivity().unbindService(this);
-
         if (sound == null) {
             // Sound not yet loaded - or has been deleted from the database
             return;
@@ -5,14 +5,11 @@ import static java.util.stream.Collectors.toList;
 import static de.soundboardcrafter.activity.common.TutorialUtil.createClickTutorialListener;
 
 import android.app.Activity;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.ServiceConnection;
 import android.media.AudioManager;
 import android.os.AsyncTask;
 import android.os.Bundle;
-import android.os.IBinder;
 import android.util.Log;
 import android.util.Pair;
 import android.view.LayoutInflater;
@@ -45,6 +42,7 @@ import de.soundboardcrafter.activity.common.audiofile.list.AudioSubfolderRow;
 import de.soundboardcrafter.activity.common.audioloader.AssetsAudioLoader;
 import de.soundboardcrafter.activity.common.audioloader.AudioLoader;
 import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerService;
+import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerServiceConnection;
 import de.soundboardcrafter.activity.common.mediaplayer.SoundboardMediaPlayer;
 import de.soundboardcrafter.dao.SoundDao;
 import de.soundboardcrafter.dao.SoundboardDao;
@@ -68,8 +66,7 @@ import de.soundboardcrafter.model.audio.FullAudioModel;
 /**
  * Activity for editing a single soundboard (name, volume etc.).
  */
-public class SoundboardEditFragment extends AbstractPermissionFragment
-        implements ServiceConnection {
+public class SoundboardEditFragment extends AbstractPermissionFragment {
     private enum Mode {
         /**
          * The user is creating a new soundboard
@@ -101,7 +98,7 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
     private IAudioFileSelection selection;
     private AudioSelectionChanges audioSelectionChanges;
 
-    private MediaPlayerService mediaPlayerService;
+    private MediaPlayerServiceConnection serviceConnection;
     @Nullable
     private SoundboardMediaPlayer mediaPlayer;
 
@@ -130,11 +127,8 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
         return new SoundboardEditFragment();
     }
 
-    @Override
     @UiThread
-    public void onServiceConnected(ComponentName name, IBinder binder) {
-        MediaPlayerService.Binder b = (MediaPlayerService.Binder) binder;
-        mediaPlayerService = b.getService();
+    private void onServiceConnected(@NonNull MediaPlayerService service) {
         // As soon the media player service is connected, the play/playingStartedOrStopped icons
         // can be
         // set correctly
@@ -143,24 +137,6 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
         }
     }
 
-    @Override
-    @UiThread
-    public void onServiceDisconnected(ComponentName name) {
-        // TODO What to do on Service Disconnected?
-    }
-
-    @Override
-    @UiThread
-    public void onBindingDied(ComponentName name) {
-        // TODO What to do on Service Died?
-    }
-
-    @Override
-    @UiThread
-    public void onNullBinding(ComponentName name) {
-        // TODO What to do on Null Binding?
-    }
-
     @Override
     @UiThread
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -192,9 +168,7 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
             requireActivity().setResult(Activity.RESULT_CANCELED, intent);
         }
 
-        startService();
-        // TODO Necessary?! Also done in onResume()
-        bindService();
+        serviceConnection = MediaPlayerServiceConnection.getInstance(requireContext());
     }
 
     private void showTutorialHintForLocalAudio() {
@@ -206,11 +180,6 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
                 ));
     }
 
-    private void startService() {
-        Intent intent = new Intent(getActivity(), MediaPlayerService.class);
-        requireActivity().startService(intent);
-    }
-
     @Override
     @UiThread
     public void onResume() {
@@ -218,12 +187,7 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
 
         requireActivity().setVolumeControlStream(AudioManager.STREAM_MUSIC);
 
-        bindService();
-    }
-
-    private void bindService() {
-        Intent intent = new Intent(requireActivity(), MediaPlayerService.class);
-        requireActivity().bindService(intent, this, Context.BIND_AUTO_CREATE);
+        serviceConnection.run(this, this::onServiceConnected);
     }
 
     @Override
@@ -348,11 +312,17 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
 
     private void onClickAudioFile(@NonNull SoundboardEditSelectableAudioRow audioFileItemRow,
                                   int position) {
-        MediaPlayerService service = getService();
-        if (service == null) {
-            return;
-        }
+        // If the service is not connected yet, the audio is played as soon as it is.
+        serviceConnection.run(this, service -> {
+            if (isResumed()) {
+                onClickAudioFile(service, audioFileItemRow, position);
+            }
+        });
+    }
 
+    private void onClickAudioFile(@NonNull MediaPlayerService service,
+                                  @NonNull SoundboardEditSelectableAudioRow audioFileItemRow,
+                                  int position) {
         boolean positionWasPlaying = editView.isPlaying(position);
         stopPlaying();
 
@@ -390,14 +360,6 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
         mediaPlayer = null;
     }
 
-    private MediaPlayerService getService() {
-        if (mediaPlayerService == null) {
-            // TODO Necessary?! Also done in onResume()
-            bindService();
-        }
-        return mediaPlayerService;
-    }
-
 
     @UiThread
     private void startFindingAudioFilesIfPermitted() {
@@ -524,8 +486,6 @@ public class SoundboardEditFragment extends AbstractPermissionFragment
 
         stopPlaying();
 
-        requireActivity().unbindService(this);
-
         rememberAudioSelectionChanges();
 
         if (mode == Mode.EDIT && soundboard != null) {
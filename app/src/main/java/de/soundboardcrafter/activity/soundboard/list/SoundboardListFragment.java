@@ -40,6 +40,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -56,13 +58,18 @@ import de.soundboardcrafter.activity.soundboard.edit.SoundboardCreateActivity;
 import de.soundboardcrafter.activity.soundboard.edit.SoundboardEditOrCopyActivity;
 import de.soundboardcrafter.activity.soundboard.play.SoundboardPlayActivity;
 import de.soundboardcrafter.dao.DBHelper;
+import de.soundboardcrafter.dao.DaoChange;
+import de.soundboardcrafter.dao.DaoChangeBus;
+import de.soundboardcrafter.dao.SearchDao;
 import de.soundboardcrafter.dao.SoundDao;
 import de.soundboardcrafter.dao.SoundboardDao;
 import de.soundboardcrafter.dao.TutorialDao;
 import de.soundboardcrafter.model.Sound;
 import de.soundboardcrafter.model.Soundboard;
+import de.soundboardcrafter.model.SoundboardSummary;
 import de.soundboardcrafter.model.SoundboardWithSounds;
 import de.soundboardcrafter.model.audio.BasicAudioModel;
+import de.soundboardcrafter.util.StartupTrace;
 
 /**
  * Shows Soundboards in a list
@@ -101,6 +108,20 @@ public class SoundboardListFragment extends Fragment
     private ProgressBar loadingProgressBar;
     private SoundboardListItemAdapter adapter;
 
+    /**
+     * Whether a {@link FindSoundboardsTask} is running - changes in the database are then
+     * collected and applied after loading.
+     */
+    private boolean findingSoundboards;
+
+    /**
+     * Changes from the {@link DaoChangeBus} that arrived while a {@link FindSoundboardsTask}
+     * was running
+     */
+    private final List<DaoChange> daoChangesWhileFinding = new ArrayList<>();
+
+    private final DaoChangeBus.Listener daoChangeListener = this::onDaoChanges;
+
     /**
      * Creates a <code>SoundboardListFragment</code>.
      */
@@ -108,6 +129,20 @@ public class SoundboardListFragment extends Fragment
         return new SoundboardListFragment();
     }
 
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        DaoChangeBus.getInstance().subscribe(daoChangeListener);
+    }
+
+    @Override
+    public void onDestroy() {
+        DaoChangeBus.getInstance().unsubscribe(daoChangeListener);
+
+        super.onDestroy();
+    }
+
     @Override
     @UiThread
     public View onCreateView(@Nonnull LayoutInflater inflater, ViewGroup container,
@@ -146,7 +181,7 @@ public class SoundboardListFragment extends Fragment
                 return;
             }
 
-            SoundboardWithSounds soundboard = adapter.getItem(position);
+            SoundboardSummary soundboard = adapter.getItem(position);
 
             Intent intent = new Intent(getContext(), SoundboardPlayActivity.class);
             intent.putExtra(EXTRA_SOUNDBOARD_ID, soundboard.getId().toString());
@@ -289,22 +324,22 @@ public class SoundboardListFragment extends Fragment
         AdapterView.AdapterContextMenuInfo menuInfo =
                 (AdapterView.AdapterContextMenuInfo) item.getMenuInfo();
         SoundboardListItemRow itemRow = (SoundboardListItemRow) menuInfo.targetView;
-        SoundboardWithSounds soundboardWithSounds =
-                requireNonNull(itemRow.getSoundboardWithSounds());
+        SoundboardSummary soundboardSummary =
+                requireNonNull(itemRow.getSoundboardSummary());
         final int id = item.getItemId();
         if (id == CONTEXT_MENU_EDIT_ITEM_ID) {
             Intent intent = SoundboardEditOrCopyActivity
-                    .newIntent(getActivity(), soundboardWithSounds.getSoundboard(), false);
+                    .newIntent(getActivity(), soundboardSummary.getSoundboard(), false);
             startActivityForResult(intent, EDIT_SOUNDBOARD_REQUEST_CODE);
             return true;
         } else if (id == CONTEXT_MENU_COPY_ITEM_ID) {
             Intent intent = SoundboardEditOrCopyActivity
-                    .newIntent(getActivity(), soundboardWithSounds.getSoundboard(), true);
+                    .newIntent(getActivity(), soundboardSummary.getSoundboard(), true);
             startActivityForResult(intent, NEW_SOUNDBOARD_REQUEST_CODE);
             return true;
         } else if (id == CONTEXT_MENU_DELETE_ITEM_ID) {
-            new DeleteSoundboardTask(requireActivity(), soundboardWithSounds).execute();
-            adapter.remove(soundboardWithSounds);
+            new DeleteSoundboardTask(requireActivity(), soundboardSummary).execute();
+            adapter.remove(soundboardSummary);
             fireSomethingMightHaveChanged();
             return true;
         } else {
@@ -331,15 +366,62 @@ public class SoundboardListFragment extends Fragment
                 break;
             case NEW_SOUNDBOARD_REQUEST_CODE:
                 Log.d(TAG, "created new soundboard " + this);
-                new SoundboardListFragment.FindSoundboardsTask(requireContext()).execute();
+                // The new soundboard reaches the list via the DaoChangeBus.
                 break;
             case EDIT_SOUNDBOARD_REQUEST_CODE:
                 Log.d(TAG, "updated soundboard " + this);
-                new SoundboardListFragment.FindSoundboardsTask(requireContext()).execute();
+                // The changes reach the list via the DaoChangeBus.
                 break;
         }
     }
 
+    /**
+     * Reacts to changes in the database by reloading only the soundboards concerned.
+     */
+    @UiThread
+    private void onDaoChanges(ImmutableList<DaoChange> changes) {
+        if (adapter == null) {
+            return;
+        }
+
+        if (findingSoundboards) {
+            daoChangesWhileFinding.addAll(changes);
+            return;
+        }
+
+        Set<UUID> soundboardIdsToReload = new HashSet<>();
+
+        for (DaoChange change : changes) {
+            switch (change.getType()) {
+                case ALL_CHANGED:
+                    somethingMightHaveChanged();
+                    return;
+                case SOUNDBOARD_DELETED:
+                    UUID soundboardId = requireNonNull(change.getSoundboardId());
+                    adapter.remove(soundboardId);
+                    soundboardIdsToReload.remove(soundboardId);
+                    break;
+                case SOUNDBOARD_INSERTED:
+                case SOUNDBOARD_UPDATED:
+                case LINK_ADDED:
+                case LINK_REMOVED:
+                    soundboardIdsToReload.add(requireNonNull(change.getSoundboardId()));
+                    break;
+                case SOUND_DELETED:
+                    // The sound count changes reach the list as LINK_REMOVED
+                    break;
+                default:
+                    // The list does not show sound details, order of sounds or favorites
+                    break;
+            }
+        }
+
+        @Nullable Context context = getContext();
+        if (context != null && !soundboardIdsToReload.isEmpty()) {
+            new ReloadSoundboardsTask(context, soundboardIdsToReload).execute();
+        }
+    }
+
     @Override
     public void somethingMightHaveChanged() {
         @Nullable Context context = getContext();
@@ -355,17 +437,13 @@ public class SoundboardListFragment extends Fragment
             listView.removeFooterView(loadingFooterView);
         }
 
+        findingSoundboards = true;
         new SoundboardListFragment.FindSoundboardsTask(requireContext()).execute();
     }
 
     @Override
     public void soundChanged(UUID soundId) {
-        @Nullable Context context = getContext();
-        if (context == null) {
-            return;
-        }
-
-        new SoundboardListFragment.FindSoundboardsTask(requireContext()).execute();
+        // Changes to sounds reach the list via the DaoChangeBus.
     }
 
     @UiThread
@@ -379,13 +457,33 @@ public class SoundboardListFragment extends Fragment
         loadingProgressBar.setProgress(percent);
     }
 
+    /**
+     * Shows the soundboards loaded and applies the changes that arrived while loading.
+     *
+     * @param changedByLoad whether loading has changed the database itself (the soundboards
+     *                      loaded already contain these changes)
+     */
     @UiThread
-    private void setSoundboards(ImmutableList<SoundboardWithSounds> soundboards) {
+    private void setSoundboards(ImmutableList<SoundboardSummary> soundboards,
+                                boolean changedByLoad) {
+        findingSoundboards = false;
         loadingProgressBar.setProgress(100);
         listView.removeFooterView(loadingFooterView);
-        List<SoundboardWithSounds> list = Lists.newArrayList(soundboards);
-        list.sort(SoundboardWithSounds.PROVIDED_LAST_THEN_BY_COLLATION_KEY);
+        List<SoundboardSummary> list = Lists.newArrayList(soundboards);
+        list.sort(SoundboardSummary.PROVIDED_LAST_THEN_BY_COLLATION_KEY);
         adapter.setSoundboards(list);
+
+        StartupTrace.firstSoundboardsShown(listView);
+
+        ImmutableList<DaoChange> changes = daoChangesWhileFinding.stream()
+                .filter(change -> !changedByLoad
+                        || change.getType() != DaoChange.Type.ALL_CHANGED)
+                .collect(ImmutableList.toImmutableList());
+        daoChangesWhileFinding.clear();
+
+        if (!changes.isEmpty()) {
+            onDaoChanges(changes);
+        }
     }
 
     @UiThread
@@ -412,7 +510,7 @@ public class SoundboardListFragment extends Fragment
         private final WeakReference<Context> appContextRef;
         private final UUID soundboardId;
 
-        DeleteSoundboardTask(Context context, SoundboardWithSounds soundboard) {
+        DeleteSoundboardTask(Context context, SoundboardSummary soundboard) {
             super();
             appContextRef = new WeakReference<>(context.getApplicationContext());
             soundboardId = soundboard.getId();
@@ -434,14 +532,70 @@ public class SoundboardListFragment extends Fragment
     }
 
     /**
-     * A background task, used to retrieve soundboards from the database.
+     * A background task, used to reload some soundboards from the database.
+     */
+    class ReloadSoundboardsTask
+            extends AsyncTask<Void, Void, ImmutableList<SoundboardSummary>> {
+        private final String TAG = ReloadSoundboardsTask.class.getName();
+
+        private final WeakReference<Context> appContextRef;
+
+        private final ImmutableSet<UUID> soundboardIds;
+
+        ReloadSoundboardsTask(Context context, Set<UUID> soundboardIds) {
+            super();
+            appContextRef = new WeakReference<>(context.getApplicationContext());
+            this.soundboardIds = ImmutableSet.copyOf(soundboardIds);
+        }
+
+        @Override
+        @WorkerThread
+        protected ImmutableList<SoundboardSummary> doInBackground(Void... voids) {
+            Context appContext = appContextRef.get();
+            if (appContext == null) {
+                cancel(true);
+                return null;
+            }
+
+            Log.d(TAG, "Reloading soundboards " + soundboardIds);
+
+            SoundboardDao soundboardDao = SoundboardDao.getInstance(appContext);
+
+            ImmutableList.Builder<SoundboardSummary> res = ImmutableList.builder();
+            for (UUID soundboardId : soundboardIds) {
+                res.add(soundboardDao.findSummary(soundboardId));
+            }
+
+            return res.build();
+        }
+
+        @Override
+        @UiThread
+        protected void onPostExecute(ImmutableList<SoundboardSummary> soundboards) {
+            if (!isAdded()) {
+                // fragment is no longer linked to an activity
+                return;
+            }
+
+            adapter.updateSoundboards(soundboards);
+        }
+    }
+
+    /**
+     * A background task, used to retrieve soundboards (with their sound counts only)
+     * from the database.
      */
     class FindSoundboardsTask
-            extends AsyncTask<Void, Integer, ImmutableList<SoundboardWithSounds>> {
+            extends AsyncTask<Void, Integer, ImmutableList<SoundboardSummary>> {
         private final String TAG = SoundboardListFragment.FindSoundboardsTask.class.getName();
 
         private final WeakReference<Context> appContextRef;
 
+        /**
+         * Whether the task has generated or updated the provided soundboards
+         */
+        private boolean changedDatabase;
+
         FindSoundboardsTask(Context context) {
             super();
             appContextRef = new WeakReference<>(context.getApplicationContext());
@@ -449,19 +603,24 @@ public class SoundboardListFragment extends Fragment
 
         @Override
         @WorkerThread
-        protected ImmutableList<SoundboardWithSounds> doInBackground(Void... voids) {
+        protected ImmutableList<SoundboardSummary> doInBackground(Void... voids) {
             Context appContext = appContextRef.get();
             if (appContext == null) {
                 cancel(true);
                 return null;
             }
 
-            updateSoundboardsIfNecessary(appContext);
+            try (StartupTrace.Section ignored =
+                         StartupTrace.begin("provided_soundboards_sync")) {
+                changedDatabase = updateSoundboardsIfNecessary(appContext);
+            }
 
             Log.d(TAG, "Loading soundboards...");
 
-            ImmutableList<SoundboardWithSounds> res =
-                    SoundboardDao.getInstance(appContext).findAllWithSounds();
+            ImmutableList<SoundboardSummary> res;
+            try (StartupTrace.Section ignored = StartupTrace.begin("find_all_summaries")) {
+                res = SoundboardDao.getInstance(appContext).findAllSummaries();
+            }
 
             Log.d(TAG, "Soundboards loaded.");
 
@@ -471,15 +630,42 @@ public class SoundboardListFragment extends Fragment
         /**
          * If necessary, generates the provided soundboards (from the assets) or updates
          * the existing provided soundboards and sounds (based on the asset sounds).
+         *
+         * @return whether anything has been generated or updated
          */
-        private void updateSoundboardsIfNecessary(Context appContext) {
+        private boolean updateSoundboardsIfNecessary(Context appContext) {
+            boolean res = false;
             if (noSoundboards(appContext)) {
-                generateProvidedSoundboards(appContext);
+                DaoChangeBus.getInstance().beginBulkChange();
+                try {
+                    generateProvidedSoundboards(appContext);
+                } finally {
+                    DaoChangeBus.getInstance().endBulkChange();
+                }
+                indexProvidedAudiosForSearch(appContext);
+                res = true;
             } else if (providedSoundboardsNeedToBeUpdated(appContext)) {
-                updateProvidedSoundboardsAndSounds(appContext);
+                DaoChangeBus.getInstance().beginBulkChange();
+                try {
+                    updateProvidedSoundboardsAndSounds(appContext);
+                } finally {
+                    DaoChangeBus.getInstance().endBulkChange();
+                }
+                indexProvidedAudiosForSearch(appContext);
+                res = true;
             }
 
             DBHelper.setProvidedSoundboardsNeedToBeChecked(appContext, false);
+            return res;
+        }
+
+        /**
+         * (Re-)indexes the audio files from the assets for the full-text search - including
+         * their names in all languages.
+         */
+        private void indexProvidedAudiosForSearch(Context appContext) {
+            SearchDao.getInstance(appContext).replaceAssetAudios(
+                    new AudioLoader().getAllAudiosFromAssetsWithAllNames(appContext));
         }
 
         /**
@@ -495,30 +681,39 @@ public class SoundboardListFragment extends Fragment
 
             publishProgress(20);
 
-            AudioLoader audioLoader = new AudioLoader();
             Map<String, List<BasicAudioModel>> audioModelsByTopFolderName =
-                    audioLoader.getAllAudiosFromAssetsByTopFolderName(appContext);
+                    scanAssets(appContext);
 
-            int numSoundboards = audioModelsByTopFolderName.size();
-            int i = 0;
+            publishProgress(40);
 
+            ImmutableList.Builder<SoundboardWithSounds> soundboards = ImmutableList.builder();
             for (Map.Entry<String, List<BasicAudioModel>> entry :
                     audioModelsByTopFolderName.entrySet()) {
-                generateProvidedSoundboard(appContext, entry.getKey(), entry.getValue());
-                publishProgress(20 + 70 * i / numSoundboards);
-
-                i++;
+                soundboards.add(toProvidedSoundboard(entry.getKey(), entry.getValue()));
             }
 
+            SoundboardDao.getInstance(appContext)
+                    .insertSoundboardsAndInsertAllSounds(soundboards.build());
+
             publishProgress(90);
             Log.d(TAG, "Soundboards generated.");
         }
 
         /**
-         * Generates a provided soundboard.
+         * Finds all audio files in the assets, mapped on the name of their top folder.
+         * Uses the sounds index generated at build time, if available.
+         */
+        private Map<String, List<BasicAudioModel>> scanAssets(Context appContext) {
+            try (StartupTrace.Section ignored = StartupTrace.begin("asset_scan")) {
+                return new AudioLoader().getAllAudiosFromAssetsByTopFolderName(appContext);
+            }
+        }
+
+        /**
+         * Creates a provided soundboard with these audio files as sounds.
          */
-        private void generateProvidedSoundboard(Context appContext, String name,
-                                                List<BasicAudioModel> audioModels) {
+        private SoundboardWithSounds toProvidedSoundboard(String name,
+                                                          List<BasicAudioModel> audioModels) {
             Soundboard soundboard = new Soundboard(name, true);
 
             ImmutableList.Builder<Sound> sounds = ImmutableList.builder();
@@ -526,11 +721,7 @@ public class SoundboardListFragment extends Fragment
                 sounds.add(toSound(audioModel));
             }
 
-            SoundboardWithSounds soundboardWithSounds =
-                    new SoundboardWithSounds(soundboard, sounds.build());
-
-            SoundboardDao.getInstance(appContext)
-                    .insertSoundboardAndInsertAllSounds(soundboardWithSounds);
+            return new SoundboardWithSounds(soundboard, sounds.build());
         }
 
         /**
@@ -541,9 +732,8 @@ public class SoundboardListFragment extends Fragment
             Log.d(TAG, "Updating soundboards from included audio files...");
             publishProgress(10);
 
-            AudioLoader audioLoader = new AudioLoader();
             Map<String, List<BasicAudioModel>> audioModelsByTopFolderName =
-                    audioLoader.getAllAudiosFromAssetsByTopFolderName(appContext);
+                    scanAssets(appContext);
 
             final ImmutableList<Soundboard> oldSoundboards =
                     SoundboardDao.getInstance(appContext).findAllProvided();
@@ -624,8 +814,11 @@ public class SoundboardListFragment extends Fragment
          * </ul>
          */
         private void updateProvidedSounds(Context appContext) {
-            ImmutableMap<String, String> allAssetsAudioNamesByPath =
-                    new AssetsAudioLoader().getAllAudioNamesByPath(appContext);
+            ImmutableMap<String, String> allAssetsAudioNamesByPath;
+            try (StartupTrace.Section ignored = StartupTrace.begin("asset_scan")) {
+                allAssetsAudioNamesByPath =
+                        new AssetsAudioLoader().getAllAudioNamesByPath(appContext);
+            }
 
             SoundDao soundDao = SoundDao.getInstance(appContext);
 
@@ -692,15 +885,16 @@ public class SoundboardListFragment extends Fragment
 
         @Override
         @UiThread
-        protected void onPostExecute(ImmutableList<SoundboardWithSounds> soundboards) {
+        protected void onPostExecute(ImmutableList<SoundboardSummary> soundboards) {
             Context appContext = appContextRef.get();
 
             if (appContext == null) {
                 // application context no longer available, I guess that result
                 // will be of no use to anyone
+                findingSoundboards = false;
                 return;
             }
-            setSoundboards(soundboards);
+            setSoundboards(soundboards, changedDatabase);
         }
     }
 }
@@ -10,21 +10,22 @@ import androidx.annotation.UiThread;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
-import de.soundboardcrafter.model.SoundboardWithSounds;
+import de.soundboardcrafter.model.SoundboardSummary;
 
 /**
  * Adapter for a SoundBoardItem. Display a Button with text and icon.
  */
 class SoundboardListItemAdapter extends BaseAdapter {
-    private final List<SoundboardWithSounds> soundboards;
+    private final List<SoundboardSummary> soundboards;
 
     SoundboardListItemAdapter() {
         soundboards = new ArrayList<>();
     }
 
     boolean areAllSoundboardsProvided() {
-        for (SoundboardWithSounds soundboard : soundboards) {
+        for (SoundboardSummary soundboard : soundboards) {
             if (!soundboard.isProvided()) {
                 return false;
             }
@@ -33,16 +34,33 @@ class SoundboardListItemAdapter extends BaseAdapter {
         return true;
     }
 
-    public void setSoundboards(Collection<SoundboardWithSounds> soundboards) {
+    public void setSoundboards(Collection<SoundboardSummary> soundboards) {
         this.soundboards.clear();
         this.soundboards.addAll(soundboards);
 
         notifyDataSetChanged();
     }
 
-    void remove(SoundboardWithSounds soundboard) {
+    /**
+     * Replaces the soundboards with the same IDs - or adds them, if they are not contained, yet.
+     */
+    void updateSoundboards(Collection<SoundboardSummary> updates) {
+        for (SoundboardSummary update : updates) {
+            soundboards.removeIf(s -> s.getId().equals(update.getId()));
+            soundboards.add(update);
+        }
+        soundboards.sort(SoundboardSummary.PROVIDED_LAST_THEN_BY_COLLATION_KEY);
+
+        notifyDataSetChanged();
+    }
+
+    void remove(SoundboardSummary soundboard) {
+        remove(soundboard.getId());
+    }
+
+    void remove(UUID soundboardId) {
         soundboards.stream()
-                .filter(s -> s.getSoundboard().getId().equals(soundboard.getId()))
+                .filter(s -> s.getSoundboard().getId().equals(soundboardId))
                 .findFirst()
                 .ifPresent(obj -> {
                     soundboards.remove(obj);
@@ -61,7 +79,7 @@ class SoundboardListItemAdapter extends BaseAdapter {
     }
 
     @Override
-    public SoundboardWithSounds getItem(int position) {
+    public SoundboardSummary getItem(int position) {
         return soundboards.get(position);
     }
 
@@ -15,7 +15,7 @@ import javax.annotation.Nullable;
 
 import de.soundboardcrafter.R;
 import de.soundboardcrafter.model.Soundboard;
-import de.soundboardcrafter.model.SoundboardWithSounds;
+import de.soundboardcrafter.model.SoundboardSummary;
 
 /**
  * Tile for a single sound in a soundboard, allows the sound to be played and stopped again.
@@ -26,7 +26,7 @@ class SoundboardListItemRow extends RelativeLayout {
     @Nonnull
     private final TextView soundCount;
 
-    private SoundboardWithSounds soundboard;
+    private SoundboardSummary soundboard;
 
     SoundboardListItemRow(Context context) {
         super(context);
@@ -39,12 +39,12 @@ class SoundboardListItemRow extends RelativeLayout {
 
     @Nullable
     Soundboard getSoundboard() {
-        return Optional.ofNullable(getSoundboardWithSounds())
-                .map(SoundboardWithSounds::getSoundboard).orElse(null);
+        return Optional.ofNullable(getSoundboardSummary())
+                .map(SoundboardSummary::getSoundboard).orElse(null);
     }
 
     @Nullable
-    SoundboardWithSounds getSoundboardWithSounds() {
+    SoundboardSummary getSoundboardSummary() {
         return soundboard;
     }
 
@@ -52,14 +52,14 @@ class SoundboardListItemRow extends RelativeLayout {
      * Set the data for the view.
      */
     @UiThread
-    void setSoundboard(SoundboardWithSounds soundboard) {
+    void setSoundboard(SoundboardSummary soundboard) {
         this.soundboard = soundboard;
         soundboardName.setText(this.soundboard.getSoundboard().getDisplayName());
         soundCount.setText(getSoundCountText());
     }
 
     private String getSoundCountText() {
-        int count = soundboard.getSounds().size();
+        int count = soundboard.getSoundCount();
         return getResources().getQuantityString(
                 R.plurals.sound_count_text,
                 count, count);
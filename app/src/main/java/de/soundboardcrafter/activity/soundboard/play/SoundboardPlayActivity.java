@@ -1,17 +1,15 @@
 package de.soundboardcrafter.activity.soundboard.play;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.Objects.requireNonNull;
 
 import android.app.Activity;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.ServiceConnection;
 import android.content.SharedPreferences;
 import android.media.AudioManager;
 import android.os.AsyncTask;
 import android.os.Bundle;
-import android.os.IBinder;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -28,6 +26,7 @@ import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
+import androidx.lifecycle.Lifecycle;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager2.adapter.FragmentStateAdapter;
 import androidx.viewpager2.widget.ViewPager2;
@@ -35,23 +34,34 @@ import androidx.viewpager2.widget.ViewPager2;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import de.soundboardcrafter.R;
-import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerService;
+import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerServiceConnection;
 import de.soundboardcrafter.activity.main.MainActivity;
 import de.soundboardcrafter.activity.soundboard.play.common.ISoundboardPlayActivity;
+import de.soundboardcrafter.activity.soundboard.play.common.SoundboardStore;
 import de.soundboardcrafter.activity.soundboard.play.playing.PlayingFragment;
 import de.soundboardcrafter.activity.soundboard.play.soundboard.SoundboardFragment;
+import de.soundboardcrafter.activity.soundboard.play.soundboard.SoundboardItemLayouts;
+import de.soundboardcrafter.activity.soundboard.play.soundboard.SoundboardItemPool;
+import de.soundboardcrafter.dao.DaoChange;
+import de.soundboardcrafter.dao.DaoChangeBus;
 import de.soundboardcrafter.dao.FavoritesDao;
 import de.soundboardcrafter.dao.SoundboardDao;
+import de.soundboardcrafter.model.Sound;
+import de.soundboardcrafter.model.Soundboard;
 import de.soundboardcrafter.model.SoundboardWithSounds;
+import de.soundboardcrafter.util.StartupTrace;
 import de.soundboardcrafter.util.UuidUtil;
 
 /**
@@ -59,7 +69,7 @@ import de.soundboardcrafter.util.UuidUtil;
  * can play sounds.
  */
 public class SoundboardPlayActivity extends AppCompatActivity
-        implements ServiceConnection, ResetAllDialogFragment.OnOkCallback,
+        implements ResetAllDialogFragment.OnOkCallback,
         ISoundboardPlayActivity {
     private static final String TAG = SoundboardPlayActivity.class.getName();
     private static final String KEY_TAB_UUID = "tabUuid";
@@ -78,11 +88,16 @@ public class SoundboardPlayActivity extends AppCompatActivity
     private static final UUID PLAYING_TAB_UUID =
             UUID.fromString("a4a4d6b4-13ec-45ff-b505-6f7840d14c04");
 
-    @Nullable
-    private MediaPlayerService mediaPlayerService;
+    private MediaPlayerServiceConnection serviceConnection;
     private ViewPager2 pager;
     private TabLayout tabLayout;
     private ViewPager2.OnPageChangeCallback pageChangeCallback;
+
+    /**
+     * The sound tiles are shared by all soundboard pages, so that switching to another
+     * soundboard reuses the tiles instead of creating new ones.
+     */
+    private final SoundboardItemPool soundboardItemPool = new SoundboardItemPool();
     private final View.OnTouchListener emptyOnTouchListener = (v, event) -> true;
 
     /**
@@ -96,51 +111,36 @@ public class SoundboardPlayActivity extends AppCompatActivity
 
     private final boolean changingSoundboardEnabled = true;
 
-    @Override
-    @UiThread
-    public void onServiceConnected(ComponentName name, IBinder binder) {
-        MediaPlayerService.Binder b = (MediaPlayerService.Binder) binder;
-        mediaPlayerService = b.getService();
-
-        Log.d(TAG, "MediaPlayerService is connected");
-    }
-
-    @Override
-    @UiThread
-    public void onServiceDisconnected(ComponentName name) {
-        Log.d(TAG, "MediaPlayerService is disconnected");
-
-        // TODO What to do on Service Disconnected?
-    }
-
-    @Override
-    @UiThread
-    public void onBindingDied(ComponentName name) {
-        Log.d(TAG, "MediaPlayerService binding has died");
-
-        // TODO What to do on Service Died?
-    }
+    /**
+     * Whether the soundboards have to be loaded completely (again) - right away, if the
+     * activity is started, otherwise the next time it's started. Smaller changes are patched
+     * in via the {@link DaoChangeBus}.
+     */
+    private boolean reloadNecessary = true;
 
-    @Override
-    @UiThread
-    public void onNullBinding(ComponentName name) {
-        Log.d(TAG, "MediaPlayerService has null binding");
+    /**
+     * Whether all soundboards are being loaded (or reset) right now
+     */
+    private boolean loading;
 
-        // TODO What to do on Null Binding?
-    }
+    /**
+     * Changes from the {@link DaoChangeBus} that arrived while loading - they are applied
+     * when loading has finished.
+     */
+    private final List<DaoChange> daoChangesWhileLoading = new ArrayList<>();
 
+    private final DaoChangeBus.Listener daoChangeListener = this::onDaoChanges;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_soundboards);
 
-        Intent intent = new Intent(this, MediaPlayerService.class);
-        startService(intent);
-        // TODO Necessary?! Also done in onResume()
-        bindService();
+        serviceConnection = MediaPlayerServiceConnection.getInstance(this);
 
         pager = findViewById(R.id.viewPager);
+        // Lay out the neighbouring pages in advance, so swiping does not have to wait for them
+        pager.setOffscreenPageLimit(1);
         pagerAdapter = new ScreenSlidePagerAdapter(this);
 
         pageChangeCallback = new ViewPager2.OnPageChangeCallback() {
@@ -156,6 +156,8 @@ public class SoundboardPlayActivity extends AppCompatActivity
         };
         pager.registerOnPageChangeCallback(pageChangeCallback);
 
+        DaoChangeBus.getInstance().subscribe(daoChangeListener);
+
         pager.setAdapter(pagerAdapter);
 
         tabLayout = findViewById(R.id.tabLayout);
@@ -250,30 +252,115 @@ public class SoundboardPlayActivity extends AppCompatActivity
         return idString != null ? UUID.fromString(idString) : null;
     }
 
-    private void bindService() {
-        Intent intent = new Intent(this, MediaPlayerService.class);
-        bindService(intent, this, Context.BIND_AUTO_CREATE);
-    }
-
     @Override
     protected void onStart() {
         super.onStart();
 
-        pagerAdapter.clearForReset(false);
-        new FindSoundboardsTask(this, favoritesId).execute();
+        reloadIfNecessary();
     }
 
-    @Override
-    public void soundsDeleted() {
+    /**
+     * Loads all soundboards again, if necessary - but only while the activity is started
+     * and no loading is in progress.
+     */
+    @UiThread
+    private void reloadIfNecessary() {
+        if (!reloadNecessary || loading
+                || !getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
+            return;
+        }
+
+        reloadNecessary = false;
+        loading = true;
         pagerAdapter.clearForReset(false);
         new FindSoundboardsTask(this, favoritesId).execute();
     }
 
+    /**
+     * Called when loading (or resetting) all soundboards has finished: Applies the changes
+     * that arrived in the meantime.
+     *
+     * @param changedByLoad whether the loading task has changed the database itself (the
+     *                      soundboards loaded already contain these changes)
+     */
+    @UiThread
+    private void onLoadingFinished(boolean changedByLoad) {
+        loading = false;
+
+        ImmutableList<DaoChange> changes = daoChangesWhileLoading.stream()
+                .filter(change -> !changedByLoad
+                        || change.getType() != DaoChange.Type.ALL_CHANGED)
+                .collect(ImmutableList.toImmutableList());
+        daoChangesWhileLoading.clear();
+
+        if (!changes.isEmpty()) {
+            onDaoChanges(changes);
+        }
+
+        reloadIfNecessary();
+    }
+
+    /**
+     * Reacts to changes in the database: Sound changes and sounds added to or removed from
+     * a soundboard are patched in by reloading only the soundboards concerned. For
+     * anything else, everything is reloaded (right away, if the activity is started).
+     * Changes arriving while all soundboards are loaded are applied afterwards.
+     */
+    @UiThread
+    private void onDaoChanges(ImmutableList<DaoChange> changes) {
+        if (loading) {
+            daoChangesWhileLoading.addAll(changes);
+            return;
+        }
+
+        Set<UUID> soundboardIdsToUpdate = new HashSet<>();
+
+        for (DaoChange change : changes) {
+            switch (change.getType()) {
+                case SOUND_UPDATED:
+                case SOUND_DELETED:
+                    soundboardIdsToUpdate.addAll(
+                            pagerAdapter.findSoundboardIdsContaining(
+                                    requireNonNull(change.getSoundId())));
+                    break;
+                case LINK_ADDED:
+                case LINK_REMOVED:
+                    if (pagerAdapter.getIndex(requireNonNull(change.getSoundboardId())) != null) {
+                        soundboardIdsToUpdate.add(change.getSoundboardId());
+                    }
+                    break;
+                case SOUND_INSERTED:
+                case LINK_MOVED:
+                case LINKS_REORDERED:
+                    // Sounds are only shown when linked - and moving or reordering
+                    // sounds is already done in the SoundboardFragment itself.
+                    break;
+                case FAVORITES_CHANGED:
+                case FAVORITES_DELETED:
+                    if (favoritesId != null && favoritesId.equals(change.getFavoritesId())) {
+                        reloadNecessary = true;
+                    }
+                    break;
+                default:
+                    reloadNecessary = true;
+            }
+        }
+
+        if (reloadNecessary) {
+            reloadIfNecessary();
+        } else if (!soundboardIdsToUpdate.isEmpty()) {
+            new UpdateSoundboardsTask(this, soundboardIdsToUpdate).execute();
+        }
+    }
+
     @Override
     @UiThread
     public void doResetAll() {
         Log.i(TAG, "Resetting all data");
         pagerAdapter.clearForReset(true);
+        // Resetting loads all soundboards anyway
+        reloadNecessary = false;
+        loading = true;
         new ResetAllTask(this).execute();
     }
 
@@ -345,7 +432,8 @@ public class SoundboardPlayActivity extends AppCompatActivity
                 return PlayingFragment.newInstance();
             }
 
-            return SoundboardFragment.newInstance(soundboardList.get(position - 1));
+            return SoundboardFragment.newInstance(
+                    soundboardList.get(position - 1).getSoundboard());
         }
 
         // https://developer.android.com/training/animation/vp2-migration :
@@ -387,6 +475,7 @@ public class SoundboardPlayActivity extends AppCompatActivity
          * view
          */
         void addSoundboards(Collection<SoundboardWithSounds> soundboards) {
+            SoundboardStore.getInstance().putAll(soundboards);
             soundboardList.addAll(soundboards);
             soundboardList.sort(SoundboardWithSounds.PROVIDED_LAST_THEN_BY_COLLATION_KEY);
 
@@ -406,6 +495,39 @@ public class SoundboardPlayActivity extends AppCompatActivity
             return soundboardList.get(position - 1).getSoundboard().getDisplayName();
         }
 
+        /**
+         * Replaces the soundboards with the same IDs and refreshes the view.
+         */
+        void updateSoundboards(Collection<SoundboardWithSounds> soundboards) {
+            SoundboardStore.getInstance().putAll(soundboards);
+            for (SoundboardWithSounds soundboard : soundboards) {
+                for (int i = 0; i < soundboardList.size(); i++) {
+                    if (soundboardList.get(i).getId().equals(soundboard.getId())) {
+                        soundboardList.set(i, soundboard);
+                    }
+                }
+            }
+
+            notifySoundsChanged(soundboards);
+        }
+
+        /**
+         * Returns the IDs of all soundboards that contain the sound with this ID.
+         */
+        ImmutableSet<UUID> findSoundboardIdsContaining(UUID soundId) {
+            ImmutableSet.Builder<UUID> res = ImmutableSet.builder();
+            for (SoundboardWithSounds soundboard : soundboardList) {
+                for (Sound sound : soundboard.getSounds()) {
+                    if (sound.getId().equals(soundId)) {
+                        res.add(soundboard.getId());
+                        break;
+                    }
+                }
+            }
+
+            return res.build();
+        }
+
         /**
          * Returns the tab index for this UUID - or <code>null</code>, if no tab with this UUID
          * exists.
@@ -465,6 +587,7 @@ public class SoundboardPlayActivity extends AppCompatActivity
             isInitializing = true;
 
             soundboardList.clear();
+            SoundboardStore.getInstance().clear();
 
             notifyDataSetChanged();
 
@@ -475,14 +598,11 @@ public class SoundboardPlayActivity extends AppCompatActivity
          * Stops playback for all soundboards.
          */
         private void stopPlayingAllSoundboards() {
-            @Nullable MediaPlayerService service = getService();
-            if (service == null) {
-                return;
-            }
-            service.stopPlaying(soundboardList.stream()
-                            .map(SoundboardWithSounds::getSoundboard)
-                            .collect(Collectors.toList()),
-                    false);
+            List<Soundboard> soundboards = soundboardList.stream()
+                    .map(SoundboardWithSounds::getSoundboard)
+                    .collect(Collectors.toList());
+            serviceConnection.run(SoundboardPlayActivity.this,
+                    service -> service.stopPlaying(soundboards, false));
         }
     }
 
@@ -508,29 +628,18 @@ public class SoundboardPlayActivity extends AppCompatActivity
         }
     }
 
-    @Override
-    protected void onPause() {
-        super.onPause();
-        unbindService(this);
-    }
-
     @Override
     @UiThread
     public void onResume() {
         super.onResume();
 
         setVolumeControlStream(AudioManager.STREAM_MUSIC);
-
-        bindService();
     }
 
-    @Nullable
-    private MediaPlayerService getService() {
-        if (mediaPlayerService == null) {
-            // TODO Necessary?! Also done in onResume()
-            bindService();
-        }
-        return mediaPlayerService;
+    @Override
+    @NonNull
+    public SoundboardItemPool getSoundboardItemPool() {
+        return soundboardItemPool;
     }
 
     @Override
@@ -542,6 +651,15 @@ public class SoundboardPlayActivity extends AppCompatActivity
             pager.unregisterOnPageChangeCallback(pageChangeCallback);
         }
 
+        DaoChangeBus.getInstance().unsubscribe(daoChangeListener);
+
+        soundboardItemPool.clear();
+
+        if (isFinishing()) {
+            // Keep the soundboards for the fragments when the activity is only recreated
+            SoundboardStore.getInstance().clear();
+        }
+
         super.onDestroy();
     }
 
@@ -604,10 +722,15 @@ public class SoundboardPlayActivity extends AppCompatActivity
 
             Log.d(TAG, "Loading soundboards...");
 
-            ImmutableList<SoundboardWithSounds> res = soundboardDao.findAllWithSounds(favoritesId);
+            ImmutableList<SoundboardWithSounds> res;
+            try (StartupTrace.Section ignored = StartupTrace.begin("find_all_with_sounds")) {
+                res = soundboardDao.findAllWithSounds(favoritesId);
+            }
 
             Log.d(TAG, "Soundboards loaded.");
 
+            SoundboardItemLayouts.precompute(res);
+
             return new SoundboardPlayData(favoritesName, res);
         }
 
@@ -619,6 +742,7 @@ public class SoundboardPlayActivity extends AppCompatActivity
             if (appContext == null) {
                 // application context no longer available, I guess that result
                 // will be of no use to anyone
+                onLoadingFinished(false);
                 return;
             }
             setToolbarTitle(data.getFavoritesName());
@@ -632,6 +756,69 @@ public class SoundboardPlayActivity extends AppCompatActivity
             }
 
             pager.setCurrentItem(index != null ? index : 0, false);
+
+            onLoadingFinished(false);
+        }
+
+        @Override
+        @UiThread
+        protected void onCancelled() {
+            onLoadingFinished(false);
+        }
+    }
+
+    /**
+     * A background task, used to reload some soundboards from the database.
+     */
+    class UpdateSoundboardsTask
+            extends AsyncTask<Void, Void, ImmutableList<SoundboardWithSounds>> {
+        private final String TAG = UpdateSoundboardsTask.class.getName();
+
+        private final WeakReference<Context> appContextRef;
+
+        private final ImmutableSet<UUID> soundboardIds;
+
+        UpdateSoundboardsTask(Context context, Collection<UUID> soundboardIds) {
+            super();
+            appContextRef = new WeakReference<>(context.getApplicationContext());
+            this.soundboardIds = ImmutableSet.copyOf(soundboardIds);
+        }
+
+        @Override
+        @WorkerThread
+        protected ImmutableList<SoundboardWithSounds> doInBackground(Void... voids) {
+            Context appContext = appContextRef.get();
+            if (appContext == null) {
+                cancel(true);
+                return null;
+            }
+
+            SoundboardDao soundboardDao = SoundboardDao.getInstance(appContext);
+
+            Log.d(TAG, "Reloading soundboards " + soundboardIds);
+
+            ImmutableList.Builder<SoundboardWithSounds> res = ImmutableList.builder();
+            for (UUID soundboardId : soundboardIds) {
+                res.add(soundboardDao.findWithSounds(soundboardId));
+            }
+
+            ImmutableList<SoundboardWithSounds> soundboards = res.build();
+            SoundboardItemLayouts.precompute(soundboards);
+            return soundboards;
+        }
+
+        @Override
+        @UiThread
+        protected void onPostExecute(ImmutableList<SoundboardWithSounds> soundboards) {
+            Context appContext = appContextRef.get();
+
+            if (appContext == null) {
+                // application context no longer available, I guess that result
+                // will be of no use to anyone
+                return;
+            }
+
+            pagerAdapter.updateSoundboards(soundboards);
         }
     }
 
@@ -671,6 +858,8 @@ public class SoundboardPlayActivity extends AppCompatActivity
 
             Log.d(TAG, "Soundboards loaded.");
 
+            SoundboardItemLayouts.precompute(res);
+
             return res;
         }
 
@@ -682,6 +871,7 @@ public class SoundboardPlayActivity extends AppCompatActivity
             if (appContext == null) {
                 // application context no longer available, I guess that result
                 // will be of no use to anyone
+                onLoadingFinished(true);
                 return;
             }
 
@@ -693,6 +883,14 @@ public class SoundboardPlayActivity extends AppCompatActivity
             }
 
             pager.setCurrentItem(index != null ? index : 0, false);
+
+            onLoadingFinished(true);
+        }
+
+        @Override
+        @UiThread
+        protected void onCancelled() {
+            onLoadingFinished(true);
         }
     }
 }
\ No newline at end of file
@@ -1,7 +1,15 @@
 package de.soundboardcrafter.activity.soundboard.play.common;
 
-public interface ISoundboardPlayActivity {
-    void soundsDeleted();
+import androidx.annotation.NonNull;
+
+import de.soundboardcrafter.activity.soundboard.play.soundboard.SoundboardItemPool;
 
+public interface ISoundboardPlayActivity {
     void setChangingSoundboardEnabled(boolean changingSoundboardEnabled);
+
+    /**
+     * Returns the pool of sound tiles shared by all soundboard pages.
+     */
+    @NonNull
+    SoundboardItemPool getSoundboardItemPool();
 }
@@ -0,0 +1,61 @@
+package de.soundboardcrafter.activity.soundboard.play.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import de.soundboardcrafter.model.SoundboardWithSounds;
+
+/**
+ * Process-wide in-memory store of the soundboards (with their sounds) that are currently
+ * shown for playing. Fragments are only passed the soundboard ID and resolve the soundboard
+ * from this store - so all of them share the same instances, and nothing big has to
+ * be serialized into their arguments.
+ * <p>
+ * The store is filled (and kept up-to-date) by the activity. After the process has been
+ * killed, the store is empty until the activity has loaded the soundboards again.
+ */
+@UiThread
+public class SoundboardStore {
+    private static SoundboardStore instance;
+
+    private final Map<UUID, SoundboardWithSounds> soundboards = new HashMap<>();
+
+    public static SoundboardStore getInstance() {
+        if (instance == null) {
+            instance = new SoundboardStore();
+        }
+
+        return instance;
+    }
+
+    private SoundboardStore() {
+    }
+
+    /**
+     * Returns the soundboard with this ID - or <code>null</code>, if the soundboard
+     * is not (yet) in the store.
+     */
+    @Nullable
+    public SoundboardWithSounds get(@NonNull UUID soundboardId) {
+        return soundboards.get(soundboardId);
+    }
+
+    /**
+     * Adds these soundboards to the store, replacing soundboards with the same IDs.
+     */
+    public void putAll(@NonNull Collection<SoundboardWithSounds> newSoundboards) {
+        for (SoundboardWithSounds soundboard : newSoundboards) {
+            soundboards.put(soundboard.getId(), soundboard);
+        }
+    }
+
+    public void clear() {
+        soundboards.clear();
+    }
+}
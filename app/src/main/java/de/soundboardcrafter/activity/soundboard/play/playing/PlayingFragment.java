@@ -1,14 +1,11 @@
 package de.soundboardcrafter.activity.soundboard.play.playing;
 
 import android.app.Activity;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.ServiceConnection;
 import android.media.AudioManager;
 import android.os.AsyncTask;
 import android.os.Bundle;
-import android.os.IBinder;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -35,8 +32,8 @@ import de.soundboardcrafter.R;
 import de.soundboardcrafter.activity.common.audiofile.list.AudioItem;
 import de.soundboardcrafter.activity.common.audioloader.AudioLoader;
 import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerService;
+import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerServiceConnection;
 import de.soundboardcrafter.activity.sound.edit.audiofile.list.AudiofileListSoundEditActivity;
-import de.soundboardcrafter.activity.sound.edit.common.SoundEditFragment;
 import de.soundboardcrafter.activity.soundboard.play.common.ISoundboardPlayActivity;
 import de.soundboardcrafter.dao.SoundDao;
 import de.soundboardcrafter.model.Sound;
@@ -48,7 +45,7 @@ import de.soundboardcrafter.model.audio.FullAudioModel;
  * {@link de.soundboardcrafter.activity.soundboard.play.soundboard.SoundboardFragment}s.
  */
 public class PlayingFragment extends Fragment implements
-        ServiceConnection, MediaPlayerService.OnAnyPlayingStartedOrStopped,
+        MediaPlayerService.OnAnyPlayingStartedOrStopped,
         AudioItem.Callback {
     /**
      * Request code used whenever this activity starts a sound edit
@@ -60,8 +57,7 @@ public class PlayingFragment extends Fragment implements
     private ListView listView;
 
     private PlayingListItemAdapter adapter;
-    @Nullable
-    private MediaPlayerService mediaPlayerService;
+    private MediaPlayerServiceConnection serviceConnection;
 
     @Nullable
     private ISoundboardPlayActivity hostingActivity;
@@ -75,45 +71,24 @@ public class PlayingFragment extends Fragment implements
         return new PlayingFragment();
     }
 
-    @Override
     @UiThread
-    public void onServiceConnected(ComponentName name, IBinder binder) {
+    private void onServiceConnected(@NonNull MediaPlayerService service) {
         Log.v(TAG, "PlayingFragment#onServiceConnected");
 
-        MediaPlayerService.Binder b = (MediaPlayerService.Binder) binder;
-        mediaPlayerService = b.getService();
         // As soon the media player service is connected, the sounds currently playing can
         // be shown
 
-        mediaPlayerService.setOnAnyPlayingStartedOrStopped(this);
+        service.setOnAnyPlayingStartedOrStopped(this);
         loadSoundsCurrentlyPlaying();
     }
 
-    @Override
-    @UiThread
-    public void onServiceDisconnected(ComponentName name) {
-        Log.v(TAG, "PlayingFragment#onServiceDisconnected");
-        adapter.setAudiosPlaying(ImmutableList.of());
-        updateUI();
-    }
-
-    @Override
-    @UiThread
-    public void onBindingDied(ComponentName name) {
-        adapter.setAudiosPlaying(ImmutableList.of());
-        updateUI();
-    }
-
-    @Override
     @UiThread
-    public void onNullBinding(ComponentName name) {
-        adapter.setAudiosPlaying(ImmutableList.of());
-        updateUI();
-    }
-
-    private void bindService() {
-        Intent intent = new Intent(requireActivity(), MediaPlayerService.class);
-        requireActivity().bindService(intent, this, Context.BIND_AUTO_CREATE);
+    private void onServiceChanged(@Nullable MediaPlayerService service) {
+        if (service == null) {
+            Log.v(TAG, "PlayingFragment#onServiceDisconnected");
+            adapter.setAudiosPlaying(ImmutableList.of());
+            updateUI();
+        }
     }
 
     @Override
@@ -121,19 +96,8 @@ public class PlayingFragment extends Fragment implements
         Log.v(TAG, "PlayingFragment#onCreate()");
         super.onCreate(savedInstanceState);
 
-        Intent intent = new Intent(getActivity(), MediaPlayerService.class);
-        requireActivity().startService(intent);
-
-        // TODO Necessary?! Also done in onResume()
-        bindService();
-    }
-
-    @Override
-    @UiThread
-    public void onPause() {
-        super.onPause();
-
-        requireActivity().unbindService(this);
+        serviceConnection = MediaPlayerServiceConnection.getInstance(requireContext());
+        serviceConnection.observe(this, this::onServiceChanged);
     }
 
     @Override
@@ -203,11 +167,7 @@ public class PlayingFragment extends Fragment implements
 
     @Nullable
     private MediaPlayerService getService() {
-        if (mediaPlayerService == null) {
-            // TODO Necessary?! Also done in onResume()
-            bindService();
-        }
-        return mediaPlayerService;
+        return serviceConnection.getService();
     }
 
     @Override
@@ -234,25 +194,21 @@ public class PlayingFragment extends Fragment implements
 
         switch (requestCode) {
             case EDIT_SOUND_REQUEST_CODE:
-                @Nullable String soundIdString =
-                        data != null ?
-                                data.getStringExtra(SoundEditFragment.EXTRA_SOUND_ID) : null;
-                if (soundIdString != null) {
-                    // Sound has been changed
-                    loadSoundsCurrentlyPlaying();
-                } else {
-                    // Sound file has been deleted
-                    if (hostingActivity != null) {
-                        hostingActivity.soundsDeleted();
-                    }
-                }
+                // Sound has been changed or deleted (the soundboards get these
+                // changes via the DaoChangeBus)
+                loadSoundsCurrentlyPlaying();
                 break;
         }
     }
 
     private void loadSoundsCurrentlyPlaying() {
         Log.v(TAG, "PlayingFragment#loadSoundsCurrentlyPlaying()");
-        Collection<UUID> soundIds = mediaPlayerService.getSoundIdsActivelyPlaying();
+        @Nullable MediaPlayerService service = getService();
+        if (service == null) {
+            return;
+        }
+
+        Collection<UUID> soundIds = service.getSoundIdsActivelyPlaying();
         new LoadSoundsCurrentlyPlayingTask(this, soundIds).execute();
     }
 
@@ -276,7 +232,7 @@ public class PlayingFragment extends Fragment implements
 
         requireActivity().setVolumeControlStream(AudioManager.STREAM_MUSIC);
 
-        bindService();
+        serviceConnection.run(this, this::onServiceConnected);
     }
 
 
@@ -2,17 +2,16 @@ package de.soundboardcrafter.activity.soundboard.play.soundboard;
 
 import static de.soundboardcrafter.activity.common.TutorialUtil.createClickTutorialListener;
 import static de.soundboardcrafter.activity.common.TutorialUtil.createLongClickTutorialListener;
+import static java.util.Objects.requireNonNull;
 import static de.soundboardcrafter.activity.common.ViewUtil.dpToPx;
 
 import android.app.Activity;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.ServiceConnection;
 import android.graphics.Canvas;
 import android.os.AsyncTask;
 import android.os.Bundle;
-import android.os.IBinder;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.ContextMenu;
 import android.view.LayoutInflater;
@@ -21,11 +20,13 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.SeekBar;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.view.ActionMode;
 import androidx.recyclerview.widget.ItemTouchHelper;
@@ -33,6 +34,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.getkeepsafe.taptargetview.TapTargetView;
 import com.google.android.material.snackbar.Snackbar;
+import com.google.common.collect.ImmutableList;
 
 import org.jetbrains.annotations.Contract;
 
@@ -41,10 +43,7 @@ import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.IntSummaryStatistics;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
@@ -54,30 +53,32 @@ import de.soundboardcrafter.R;
 import de.soundboardcrafter.activity.common.AbstractPermissionFragment;
 import de.soundboardcrafter.activity.common.TutorialUtil;
 import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerService;
-import de.soundboardcrafter.activity.common.mediaplayer.SoundboardMediaPlayer;
-import de.soundboardcrafter.activity.sound.edit.common.SoundEditFragment;
+import de.soundboardcrafter.activity.common.mediaplayer.MediaPlayerServiceConnection;
+import de.soundboardcrafter.activity.common.mediaplayer.PlayingState;
 import de.soundboardcrafter.activity.sound.edit.soundboard.play.SoundboardPlaySoundEditActivity;
 import de.soundboardcrafter.activity.soundboard.play.common.ISoundboardPlayActivity;
+import de.soundboardcrafter.activity.soundboard.play.common.SoundboardStore;
 import de.soundboardcrafter.dao.SoundDao;
 import de.soundboardcrafter.dao.SoundboardDao;
 import de.soundboardcrafter.dao.TutorialDao;
 import de.soundboardcrafter.de.soundboardcrafter.widget.GridAutofitLayoutManager;
 import de.soundboardcrafter.model.AbstractAudioLocation;
 import de.soundboardcrafter.model.AssetFolderAudioLocation;
-import de.soundboardcrafter.model.SelectableModel;
 import de.soundboardcrafter.model.Sound;
-import de.soundboardcrafter.model.SoundWithSelectableSoundboards;
 import de.soundboardcrafter.model.Soundboard;
 import de.soundboardcrafter.model.SoundboardWithSounds;
 
 /**
  * Fragment for a single Soundboard - shows several sounds in a grid, so they can be played.
  */
-public class SoundboardFragment extends AbstractPermissionFragment implements ServiceConnection {
+public class SoundboardFragment extends AbstractPermissionFragment
+        implements MediaPlayerService.OnPlayingStateChanged {
 
     private static final String TAG = SoundboardFragment.class.getName();
 
-    private static final String ARG_SOUNDBOARD = "Soundboard";
+    private static final String ARG_SOUNDBOARD_ID = "SoundboardId";
+    private static final String ARG_SOUNDBOARD_NAME = "SoundboardName";
+    private static final String ARG_SOUNDBOARD_PROVIDED = "SoundboardProvided";
 
     private static final int EDIT_SOUND_REQUEST_CODE = 1;
 
@@ -120,6 +121,43 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
         }
     };
 
+    private final ActionMode.Callback selectionActionModeCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(@NonNull ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.fragment_soundboard_play_selection, menu);
+            soundboardItemAdapter.startSelection();
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            // Sounds can only be removed, moved or deleted in the user's own soundboards
+            boolean custom = !soundboard.isProvided();
+            menu.findItem(R.id.selection_menu_remove).setVisible(custom);
+            menu.findItem(R.id.selection_menu_move).setVisible(custom);
+            menu.findItem(R.id.selection_menu_delete).setVisible(custom);
+
+            ImmutableList<Sound> selected = soundboardItemAdapter.getSelectedSounds();
+            menu.findItem(R.id.selection_menu_loop)
+                    .setChecked(!selected.isEmpty() && selected.stream().allMatch(Sound::isLoop));
+            return true;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            return onSelectionActionItemClicked(item);
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            actionMode = null;
+            soundboardItemAdapter.stopSelection();
+            if (hostingActivity != null) {
+                hostingActivity.setChangingSoundboardEnabled(true);
+            }
+        }
+    };
+
     private enum SortOrder {
         BY_NAME(Comparator.comparing(Sound::getCollationKey));
         // TODO Have other sort orders?
@@ -134,8 +172,8 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
 
     private RecyclerView recyclerView;
     private SoundboardItemAdapter soundboardItemAdapter;
-    @Nullable
-    private MediaPlayerService mediaPlayerService;
+    private SoundboardSwipeAndDragCallback swipeAndDragCallback;
+    private MediaPlayerServiceConnection serviceConnection;
     private SoundboardWithSounds soundboard;
     private static final String ARG_SORT_ORDER = "sortOrder";
     private SortOrder sortOrder;
@@ -149,25 +187,40 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
     private ISoundboardPlayActivity hostingActivity;
 
     /**
-     * Creates a <code>SoundboardFragment</code> for this soundboard.
+     * Creates a <code>SoundboardFragment</code> for this soundboard. Only the soundboard itself
+     * (not its sounds) is put into the arguments - the fragment takes the sounds from
+     * the {@link SoundboardStore}.
      */
     @NonNull
-    public static SoundboardFragment newInstance(SoundboardWithSounds soundboard) {
+    public static SoundboardFragment newInstance(Soundboard soundboard) {
         Bundle args = new Bundle();
-        args.putSerializable(ARG_SOUNDBOARD, soundboard);
+        args.putString(ARG_SOUNDBOARD_ID, soundboard.getId().toString());
+        args.putString(ARG_SOUNDBOARD_NAME, soundboard.getFullName());
+        args.putBoolean(ARG_SOUNDBOARD_PROVIDED, soundboard.isProvided());
         SoundboardFragment fragment = new SoundboardFragment();
         fragment.setArguments(args);
         return fragment;
     }
 
-    @Override
     @UiThread
-    public void onServiceConnected(ComponentName name, IBinder binder) {
-        MediaPlayerService.Binder b = (MediaPlayerService.Binder) binder;
-        mediaPlayerService = b.getService();
+    private void onServiceConnected(@NonNull MediaPlayerService service) {
+        if (!isResumed()) {
+            // Connected after onPause()
+            return;
+        }
+
+        service.addOnPlayingStateChanged(this);
         //as soon the media player service is connected, the play/stop icons
         // can be set correctly
-        updateUI();
+        playingStateChanged(service.getPlayingState());
+    }
+
+    @Override
+    @UiThread
+    public void playingStateChanged(@NonNull PlayingState playingState) {
+        if (soundboardItemAdapter != null) {
+            soundboardItemAdapter.setPlayingState(playingState);
+        }
     }
 
     @UiThread
@@ -257,24 +310,6 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
                 tapTargetViewListener);
     }
 
-    @Override
-    @UiThread
-    public void onServiceDisconnected(ComponentName name) {
-        // TODO What to do on Service Disconnected?
-    }
-
-    @Override
-    @UiThread
-    public void onBindingDied(ComponentName name) {
-        // TODO What to do on Service Died?
-    }
-
-    @Override
-    @UiThread
-    public void onNullBinding(ComponentName name) {
-        // TODO What to do on Null Binding?
-    }
-
     @Override
     @UiThread
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -284,17 +319,30 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
         if (arguments == null) {
             throw new IllegalStateException("SoundboardFragment without arguments");
         }
-        soundboard = (SoundboardWithSounds) arguments.getSerializable(ARG_SOUNDBOARD);
+        soundboard = resolveSoundboard(arguments);
 
-        Intent intent = new Intent(getActivity(), MediaPlayerService.class);
-        requireActivity().startService(intent);
-        // TODO Necessary?! Also done in onResume()
-        bindService();
+        serviceConnection = MediaPlayerServiceConnection.getInstance(requireContext());
     }
 
-    private void bindService() {
-        Intent intent = new Intent(getActivity(), MediaPlayerService.class);
-        requireActivity().bindService(intent, this, Context.BIND_AUTO_CREATE);
+    /**
+     * Resolves the soundboard from the {@link SoundboardStore}. If it's not there (because
+     * the process has been killed), we start with an empty soundboard - the hosting
+     * activity will provide the sounds after loading.
+     */
+    @NonNull
+    private static SoundboardWithSounds resolveSoundboard(Bundle arguments) {
+        UUID soundboardId = UUID.fromString(arguments.getString(ARG_SOUNDBOARD_ID));
+
+        @Nullable SoundboardWithSounds res = SoundboardStore.getInstance().get(soundboardId);
+        if (res != null) {
+            return res;
+        }
+
+        return new SoundboardWithSounds(
+                new Soundboard(soundboardId,
+                        requireNonNull(arguments.getString(ARG_SOUNDBOARD_NAME)),
+                        arguments.getBoolean(ARG_SOUNDBOARD_PROVIDED)),
+                ImmutableList.of());
     }
 
     @Override
@@ -302,7 +350,15 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
     public void onPause() {
         super.onPause();
 
-        requireActivity().unbindService(this);
+        if (swipeAndDragCallback != null) {
+            // Don't lose a move if the user leaves while dragging
+            swipeAndDragCallback.flushPendingMove();
+        }
+
+        @Nullable MediaPlayerService service = getService();
+        if (service != null) {
+            service.removeOnPlayingStateChanged(this);
+        }
     }
 
     @Override
@@ -325,30 +381,53 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
         // Changes in content do not change the layout size of the RecyclerView
         recyclerView.setHasFixedSize(true);
 
+        int verticalSpacing = dpToPx(requireContext(), 24);
         int horizontalSpacing = dpToPx(requireContext(), 10);
         recyclerView.addItemDecoration(
-                new SoundboardItemDecoration(dpToPx(requireContext(), 24), horizontalSpacing,
+                new SoundboardItemDecoration(verticalSpacing, horizontalSpacing,
                         true));
 
         GridAutofitLayoutManager layoutManager =
                 new GridAutofitLayoutManager(requireContext().getApplicationContext(),
                         dpToPx(requireContext(), 100), horizontalSpacing);
+        // Give the tiles back to the shared pool when the page is left
+        layoutManager.setRecycleChildrenOnDetach(true);
 
         recyclerView.setLayoutManager(layoutManager);
 
+        @Nullable SoundboardItemPool pool =
+                hostingActivity != null ? hostingActivity.getSoundboardItemPool() : null;
+        if (pool != null) {
+            recyclerView.setRecycledViewPool(pool);
+            int rowHeight = getResources().getDimensionPixelSize(R.dimen.soundboard_item_height)
+                    + verticalSpacing;
+            layoutManager.setOnSpanCountChosenListener((spanCount, width, height) ->
+                    pool.sizeToGrid(spanCount, (height + rowHeight - 1) / rowHeight));
+        }
+
         initAdapter();
         registerForContextMenu(recyclerView);
 
+        if (pool != null) {
+            pool.preCreateWhenIdle(recyclerView);
+        }
+
         return rootView;
     }
 
     @UiThread
     private void onClickSoundboard(int position, SoundboardItem soundboardItem, Sound sound) {
-        @Nullable MediaPlayerService service = getService();
-        if (service == null) {
-            return;
-        }
+        final long clickRealtimeNanos = SystemClock.elapsedRealtimeNanos();
 
+        // If the service is not connected yet, the sound is played as soon as it is.
+        serviceConnection.run(this, service ->
+                onClickSoundboard(service, position, soundboardItem, sound, clickRealtimeNanos));
+    }
+
+    @UiThread
+    private void onClickSoundboard(@NonNull MediaPlayerService service, int position,
+                                   SoundboardItem soundboardItem, Sound sound,
+                                   long clickRealtimeNanos) {
         if (isInActionMode()) {
             return;
         }
@@ -362,7 +441,7 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
                 soundboardItem.setImage(R.drawable.ic_stop);
                 try {
                     service.play(soundboard.getSoundboard(), sound,
-                            soundboardItemAdapter::notifyDataSetChanged);
+                            null, clickRealtimeNanos);
                     soundStarted = true;
                 } catch (IOException e) {
                     soundboardItem.setImage(R.drawable.ic_play);
@@ -412,6 +491,188 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
         new DeleteSoundsTask(requireActivity()).execute(sound.getId());
     }
 
+    /**
+     * Called when the user has chosen an action for the sounds selected.
+     */
+    @UiThread
+    private boolean onSelectionActionItemClicked(@NonNull MenuItem item) {
+        ImmutableList<Sound> selected = soundboardItemAdapter.getSelectedSounds();
+        if (selected.isEmpty()) {
+            return true;
+        }
+
+        final int id = item.getItemId();
+        if (id == R.id.selection_menu_remove) {
+            removeSelectedSounds();
+            return true;
+        } else if (id == R.id.selection_menu_move) {
+            new FindSoundboardsToMoveToTask(requireActivity()).execute();
+            return true;
+        } else if (id == R.id.selection_menu_delete) {
+            new AlertDialog.Builder(requireActivity())
+                    .setTitle(R.string.selection_delete_title)
+                    .setMessage(R.string.selection_delete_message)
+                    .setPositiveButton(android.R.string.ok,
+                            (dialog, which) -> deleteSelectedSounds())
+                    .setNegativeButton(android.R.string.cancel, null)
+                    .show();
+            return true;
+        } else if (id == R.id.selection_menu_volume) {
+            showVolumeDialog(selected);
+            return true;
+        } else if (id == R.id.selection_menu_loop) {
+            updateSelectedSounds(null, !item.isChecked());
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @UiThread
+    private void removeSelectedSounds() {
+        ImmutableList<Sound> removed = soundboardItemAdapter.removeSelected();
+        Log.d(TAG, "Removing " + removed.size() + " sounds");
+
+        new RemoveSoundsTask(requireActivity(), soundboard.getId()).execute(toIds(removed));
+        finishActionMode();
+    }
+
+    @UiThread
+    private void deleteSelectedSounds() {
+        if (!isAdded()) {
+            return;
+        }
+
+        ImmutableList<Sound> deleted = soundboardItemAdapter.removeSelected();
+        Log.d(TAG, "Deleting " + deleted.size() + " sounds");
+
+        new DeleteSoundsTask(requireActivity()).execute(toIds(deleted));
+        finishActionMode();
+    }
+
+    /**
+     * Lets the user choose the soundboard to move the sounds selected to.
+     */
+    @UiThread
+    private void showMoveDialog(@NonNull ImmutableList<Soundboard> soundboards) {
+        if (soundboards.isEmpty()) {
+            Snackbar.make(recyclerView, R.string.selection_move_no_soundboard,
+                    Snackbar.LENGTH_LONG).show();
+            return;
+        }
+
+        String[] names = soundboards.stream()
+                .map(Soundboard::getDisplayName)
+                .toArray(String[]::new);
+
+        new AlertDialog.Builder(requireActivity())
+                .setTitle(R.string.selection_menu_move)
+                .setItems(names, (dialog, which) -> moveSelectedSounds(soundboards.get(which)))
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    @UiThread
+    private void moveSelectedSounds(@NonNull Soundboard target) {
+        if (!isAdded()) {
+            return;
+        }
+
+        ImmutableList<Sound> moved = soundboardItemAdapter.removeSelected();
+        Log.d(TAG, "Moving " + moved.size() + " sounds to soundboard " + target.getDisplayName());
+
+        new MoveSoundsTask(requireActivity(), soundboard.getId(),
+                ImmutableList.copyOf(toIds(moved)), target.getId()).execute();
+        finishActionMode();
+    }
+
+    /**
+     * Lets the user choose the volume for the sounds selected. If all of them have the same
+     * volume, the dialog starts from this volume - otherwise from the average volume, and
+     * the user is told so.
+     */
+    @UiThread
+    private void showVolumeDialog(@NonNull ImmutableList<Sound> selected) {
+        IntSummaryStatistics volumes = selected.stream()
+                .mapToInt(Sound::getVolumePercentage)
+                .summaryStatistics();
+        boolean mixed = volumes.getMin() != volumes.getMax();
+
+        SeekBar seekBar = new SeekBar(requireContext());
+        seekBar.setMax(100);
+        seekBar.setProgress((int) Math.round(volumes.getAverage()));
+        int padding = dpToPx(requireContext(), 24);
+        seekBar.setPadding(padding, padding, padding, padding);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireActivity())
+                .setTitle(R.string.selection_menu_volume)
+                .setView(seekBar)
+                .setPositiveButton(android.R.string.ok,
+                        (dialog, which) -> updateSelectedSounds(seekBar.getProgress(), null))
+                .setNegativeButton(android.R.string.cancel, null);
+        if (mixed) {
+            builder.setMessage(R.string.selection_volume_mixed);
+        }
+        builder.show();
+    }
+
+    /**
+     * Sets the volume and / or the loop flag of the sounds selected - also for the sounds
+     * currently playing. The soundboard is updated via the
+     * {@link de.soundboardcrafter.dao.DaoChangeBus}.
+     */
+    @UiThread
+    private void updateSelectedSounds(@Nullable Integer volumePercentage,
+                                      @Nullable Boolean loop) {
+        if (!isAdded()) {
+            return;
+        }
+
+        ImmutableList<Sound> selected = soundboardItemAdapter.getSelectedSounds();
+
+        @Nullable MediaPlayerService service = getService();
+        if (service != null) {
+            for (Sound sound : selected) {
+                if (volumePercentage != null) {
+                    service.setVolumePercentage(sound.getId(), volumePercentage);
+                }
+                if (loop != null) {
+                    service.setLoop(sound.getId(), loop);
+                }
+            }
+        }
+
+        new UpdateVolumeAndLoopTask(requireActivity(), ImmutableList.copyOf(toIds(selected)),
+                volumePercentage, loop).execute();
+        finishActionMode();
+    }
+
+    @NonNull
+    private static UUID[] toIds(@NonNull Collection<Sound> sounds) {
+        return sounds.stream()
+                .map(Sound::getId)
+                .toArray(UUID[]::new);
+    }
+
+    @UiThread
+    private void updateSelectionTitle() {
+        if (actionMode == null) {
+            return;
+        }
+
+        int count = soundboardItemAdapter.getSelectedSounds().size();
+        actionMode.setTitle(getResources().getQuantityString(
+                R.plurals.soundboards_play_selection_title, count, count));
+        actionMode.invalidate();
+    }
+
+    @UiThread
+    private void finishActionMode() {
+        if (actionMode != null) {
+            actionMode.finish();
+        }
+    }
+
     public void updateSoundboard(Collection<SoundboardWithSounds> soundboards) {
         for (SoundboardWithSounds newSoundboard : soundboards) {
             if (newSoundboard.getSoundboard().getId()
@@ -434,26 +695,46 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
                     .execute();
             return true;
         } else if (id == R.id.toolbar_menu_sound_sort_manually) {
-            if (hostingActivity != null) {
-                hostingActivity.setChangingSoundboardEnabled(false);
+            if (!startActionMode(manualSortingActionModeCallback)) {
+                return false;
             }
 
-            actionMode = requireAppCompatActivity()
-                    .startSupportActionMode(manualSortingActionModeCallback);
-            if (!isInActionMode()) {
-                if (hostingActivity != null) {
-                    hostingActivity.setChangingSoundboardEnabled(true);
-                }
+            actionMode.setTitle(R.string.soundboards_play_sort_manually_title);
+            return true;
+        } else if (id == R.id.toolbar_menu_sound_select) {
+            if (!startActionMode(selectionActionModeCallback)) {
                 return false;
             }
 
-            actionMode.setTitle(R.string.soundboards_play_sort_manually_title);
+            updateSelectionTitle();
             return true;
         } else {
             return super.onOptionsItemSelected(item);
         }
     }
 
+    /**
+     * Starts this action mode - while in action mode, the user cannot change the soundboard.
+     *
+     * @return whether the action mode has been started
+     */
+    @UiThread
+    private boolean startActionMode(@NonNull ActionMode.Callback callback) {
+        if (hostingActivity != null) {
+            hostingActivity.setChangingSoundboardEnabled(false);
+        }
+
+        actionMode = requireAppCompatActivity().startSupportActionMode(callback);
+        if (!isInActionMode()) {
+            if (hostingActivity != null) {
+                hostingActivity.setChangingSoundboardEnabled(true);
+            }
+            return false;
+        }
+
+        return true;
+    }
+
     @NonNull
     private AppCompatActivity requireAppCompatActivity() {
         return (AppCompatActivity) requireActivity();
@@ -463,29 +744,6 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
     @Contract(" -> new")
     private SoundboardItem.MediaPlayerServiceCallback newMediaPlayerServiceCallback() {
         return new SoundboardItem.MediaPlayerServiceCallback() {
-            @Override
-            public boolean isConnected() {
-                return getService() != null;
-            }
-
-            @Override
-            public boolean isActivelyPlaying(Soundboard soundboard, Sound sound) {
-                @Nullable MediaPlayerService service = getService();
-                if (service == null) {
-                    return false;
-                }
-                return service.isActivelyPlaying(soundboard, sound);
-            }
-
-            @Override
-            public void setOnPlayingStopped(Soundboard soundboard, Sound sound,
-                                            SoundboardMediaPlayer.OnPlayingStopped onPlayingStopped) {
-                @Nullable MediaPlayerService service = getService();
-                if (service != null) {
-                    service.setOnPlayingStopped(soundboard, sound, onPlayingStopped);
-                }
-            }
-
             @Override
             public void stopPlaying(Soundboard soundboard, Sound sound, boolean fadeOut) {
                 @Nullable MediaPlayerService service = getService();
@@ -520,7 +778,7 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
             showTutorialHintAsNecessary();
         }
 
-        bindService();
+        serviceConnection.run(this, this::onServiceConnected);
     }
 
     @UiThread
@@ -536,6 +794,12 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
                     return;
                 }
 
+                if (soundboardItemAdapter.isSelecting()) {
+                    soundboardItemAdapter.toggleSelection(position);
+                    updateSelectionTitle();
+                    return;
+                }
+
                 if (isInActionMode()) {
                     return;
                 }
@@ -555,8 +819,7 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
             }
         });
 
-        SoundboardSwipeAndDragCallback swipeAndDragCallback =
-                new SoundboardSwipeAndDragCallback();
+        swipeAndDragCallback = new SoundboardSwipeAndDragCallback();
         ItemTouchHelper itemTouchHelper = new ItemTouchHelper(swipeAndDragCallback);
 
         recyclerView.setAdapter(soundboardItemAdapter);
@@ -649,8 +912,9 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
             }
 
             Log.d(TAG, "Removing sound " + position);
+            Sound sound = soundboardItemAdapter.getItem(position);
             soundboardItemAdapter.remove(position);
-            new RemoveSoundsTask(requireActivity()).execute(position);
+            new RemoveSoundsTask(requireActivity(), soundboard.getId()).execute(sound.getId());
             return true;
         } else {
             return false;
@@ -673,29 +937,15 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
             case EDIT_SOUND_REQUEST_CODE:
                 Log.d(TAG, "Editing sound " + this + ": Returned from sound edit fragment with OK");
 
-                @Nullable String soundIdString =
-                        data.getStringExtra(SoundEditFragment.EXTRA_SOUND_ID);
-                if (soundIdString != null) {
-                    final UUID soundId = UUID.fromString(soundIdString);
-                    new UpdateSoundsTask(requireActivity()).execute(soundId);
-                    // Sound has been changed
-                } else {
-                    // Sound file has been deleted
-                    if (hostingActivity != null) {
-                        hostingActivity.soundsDeleted();
-                    }
-                }
+                // The changes (or the deletion) of the sound reach the GUI
+                // via the DaoChangeBus.
                 break;
         }
     }
 
     @Nullable
     private MediaPlayerService getService() {
-        if (mediaPlayerService == null) {
-            // TODO Necessary?! Also done in onResume()
-            bindService();
-        }
-        return mediaPlayerService;
+        return serviceConnection.getService();
     }
 
     private boolean isInActionMode() {
@@ -706,6 +956,17 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
     // .com/2017/10/24/android-recyclerview-drag-and-drop-and-swipe-to-dismiss/ .
     @ParametersAreNonnullByDefault
     class SoundboardSwipeAndDragCallback extends ItemTouchHelper.Callback {
+        /**
+         * Position where the sound currently dragged has been before the drag - or
+         * {@link RecyclerView#NO_POSITION}, if no move is pending
+         */
+        private int pendingMoveFrom = RecyclerView.NO_POSITION;
+
+        /**
+         * Position the sound currently dragged has been moved to
+         */
+        private int pendingMoveTo = RecyclerView.NO_POSITION;
+
         @Override
         public int getMovementFlags(@NonNull RecyclerView recyclerView,
                                     @NonNull RecyclerView.ViewHolder viewHolder) {
@@ -726,11 +987,36 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
 
             soundboardItemAdapter.move(from, to);
 
-            new SoundboardFragment.MoveSoundTask(requireActivity(), from, to)
-                    .execute();
+            // The database is only updated when the drag ends - with one net move
+            if (pendingMoveFrom == RecyclerView.NO_POSITION) {
+                pendingMoveFrom = from;
+            }
+            pendingMoveTo = to;
             return true;
         }
 
+        @Override
+        public void clearView(RecyclerView recyclerView, RecyclerView.ViewHolder viewHolder) {
+            super.clearView(recyclerView, viewHolder);
+
+            flushPendingMove();
+        }
+
+        /**
+         * Stores the net move of the current drag (if any) in the database.
+         */
+        @UiThread
+        void flushPendingMove() {
+            if (pendingMoveFrom != RecyclerView.NO_POSITION && pendingMoveFrom != pendingMoveTo) {
+                new SoundboardFragment.MoveSoundTask(requireActivity(),
+                        pendingMoveFrom, pendingMoveTo)
+                        .execute();
+            }
+
+            pendingMoveFrom = RecyclerView.NO_POSITION;
+            pendingMoveTo = RecyclerView.NO_POSITION;
+        }
+
         @Override
         public void onSwiped(RecyclerView.ViewHolder viewHolder, int direction) {
             // swiping not supported - might be a problem in a grid view
@@ -738,7 +1024,8 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
 
         @Override
         public boolean isLongPressDragEnabled() {
-            return isInActionMode();
+            // Sorting manually
+            return isInActionMode() && !soundboardItemAdapter.isSelecting();
         }
 
         @Override
@@ -764,7 +1051,7 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
 
     @ParametersAreNonnullByDefault
     class SoundSortInSoundboardTask extends AsyncTask<Void, Void, SoundboardWithSounds> {
-        private final String TAG = UpdateSoundsTask.class.getName();
+        private final String TAG = SoundSortInSoundboardTask.class.getName();
 
         private final WeakReference<Context> appContextRef;
         private final SoundboardWithSounds soundboardWithSounds;
@@ -816,206 +1103,238 @@ public class SoundboardFragment extends AbstractPermissionFragment implements Se
     }
 
     /**
-     * A background task, used to retrieve some sounds from the database and update the GUI.
+     * A background task, used to move a sound inside the soundboard
      */
     @ParametersAreNonnullByDefault
-    class UpdateSoundsTask extends AsyncTask<UUID, Void, Map<Sound, Boolean>> {
-        private final String TAG = UpdateSoundsTask.class.getName();
+    class MoveSoundTask extends AsyncTask<Void, Void, Void> {
+        private final String TAG = MoveSoundTask.class.getName();
 
         private final WeakReference<Context> appContextRef;
+        private final int oldPosition;
+        private final int newPosition;
 
-        UpdateSoundsTask(Context context) {
+        MoveSoundTask(Context context, int oldPosition, int newPosition) {
             super();
             appContextRef = new WeakReference<>(context.getApplicationContext());
+            this.oldPosition = oldPosition;
+            this.newPosition = newPosition;
         }
 
         @Override
         @WorkerThread
-        protected Map<Sound, Boolean> doInBackground(UUID... soundIds) {
+        protected Void doInBackground(Void... voids) {
             Context appContext = appContextRef.get();
             if (appContext == null) {
                 cancel(true);
                 return null;
             }
 
-            Log.d(TAG, "Loading sounds: " + Arrays.toString(soundIds));
-            Map<Sound, Boolean> sounds = new HashMap<>();
-            for (UUID soundId : soundIds) {
-                SoundWithSelectableSoundboards soundWithSelectableSoundboards =
-                        SoundDao.getInstance(appContext)
-                                .findSoundWithSelectableSoundboards(soundId);
-                List<SelectableModel<Soundboard>> soundboards =
-                        soundWithSelectableSoundboards.getSoundboards();
-                Optional<SelectableModel<Soundboard>> foundSoundboard =
-                        soundboards.stream()
-                                .filter(s -> s.getModel().getId().equals(soundboard.getId()))
-                                .findFirst();
-                if (foundSoundboard.isPresent()) {
-                    if (!foundSoundboard.get().isSelected()) {
-                        sounds.put(soundWithSelectableSoundboards.getSound(), false);
-                    } else {
-                        sounds.put(soundWithSelectableSoundboards.getSound(), true);
-                    }
-                }
-            }
+            SoundboardDao soundboardDao = SoundboardDao.getInstance(appContext);
+            Log.d(TAG,
+                    "Moving sound from position " + oldPosition +
+                            " to position " + newPosition);
+
+            soundboardDao.moveSound(
+                    soundboardItemAdapter.getSoundboard().getSoundboard().getId(),
+                    oldPosition, newPosition);
 
-            return sounds;
+            return null;
+        }
+    }
+
+    /**
+     * A background task, used to remove sounds from the soundboard
+     */
+    @ParametersAreNonnullByDefault
+    class RemoveSoundsTask extends AsyncTask<UUID, Void, Void> {
+        private final String TAG = RemoveSoundsTask.class.getName();
+
+        private final WeakReference<Context> appContextRef;
+        private final UUID soundboardId;
+
+        RemoveSoundsTask(Context context, UUID soundboardId) {
+            super();
+            appContextRef = new WeakReference<>(context.getApplicationContext());
+            this.soundboardId = soundboardId;
         }
 
         @Override
-        @UiThread
-        protected void onPostExecute(Map<Sound, Boolean> sounds) {
-            stopSoundsNotInSoundboard(sounds);
-            if (!isAdded()) {
-                // fragment is no longer linked to an activity
-                return;
-            }
+        @WorkerThread
+        protected Void doInBackground(UUID... soundIds) {
             Context appContext = appContextRef.get();
-
             if (appContext == null) {
-                // application context no longer available, I guess that result
-                // will be of no use to anyone
-                return;
+                cancel(true);
+                return null;
             }
 
+            Log.d(TAG, "Removing " + soundIds.length + " sounds from soundboard");
 
-            soundboardItemAdapter.updateSounds(sounds);
-        }
+            SoundboardDao.getInstance(appContext)
+                    .unlinkSounds(soundboardId, Arrays.asList(soundIds));
 
-        private void stopSoundsNotInSoundboard(Map<Sound, Boolean> sounds) {
-            for (Map.Entry<Sound, Boolean> soundEntry : sounds.entrySet()) {
-                if (!soundEntry.getValue()) {
-                    mediaPlayerService
-                            .stopPlaying(soundboard.getSoundboard(), soundEntry.getKey(), true);
-                }
-            }
+            return null;
         }
     }
 
     /**
-     * A background task, used to move a sound inside the soundboard
+     * A background task, used to purge sounds (from the database, from all soundboards etc.)
      */
     @ParametersAreNonnullByDefault
-    class MoveSoundTask extends AsyncTask<Void, Void, Void> {
-        private final String TAG = MoveSoundTask.class.getName();
+    class DeleteSoundsTask extends AsyncTask<UUID, Void, Void> {
+        private final String TAG = DeleteSoundsTask.class.getName();
 
         private final WeakReference<Context> appContextRef;
-        private final int oldPosition;
-        private final int newPosition;
 
-        MoveSoundTask(Context context, int oldPosition, int newPosition) {
+        DeleteSoundsTask(Context context) {
             super();
             appContextRef = new WeakReference<>(context.getApplicationContext());
-            this.oldPosition = oldPosition;
-            this.newPosition = newPosition;
         }
 
         @Override
         @WorkerThread
-        protected Void doInBackground(Void... voids) {
+        protected Void doInBackground(UUID... soundIds) {
             Context appContext = appContextRef.get();
             if (appContext == null) {
                 cancel(true);
                 return null;
             }
 
-            SoundboardDao soundboardDao = SoundboardDao.getInstance(appContext);
-            Log.d(TAG,
-                    "Moving sound from position " + oldPosition +
-                            " to position " + newPosition);
+            Log.d(TAG, "Deleting " + soundIds.length + " sounds");
 
-            soundboardDao.moveSound(
-                    soundboardItemAdapter.getSoundboard().getSoundboard().getId(),
-                    oldPosition, newPosition);
+            SoundDao.getInstance(appContext).delete(Arrays.asList(soundIds));
 
             return null;
         }
+
     }
 
     /**
-     * A background task, used to remove sounds with the given indexes from the soundboard
+     * A background task, used to move sounds to another soundboard
      */
     @ParametersAreNonnullByDefault
-    class RemoveSoundsTask extends AsyncTask<Integer, Void, Void> {
-        private final String TAG = RemoveSoundsTask.class.getName();
+    class MoveSoundsTask extends AsyncTask<Void, Void, Void> {
+        private final String TAG = MoveSoundsTask.class.getName();
 
         private final WeakReference<Context> appContextRef;
+        private final UUID fromSoundboardId;
+        private final ImmutableList<UUID> soundIds;
+        private final UUID toSoundboardId;
 
-        RemoveSoundsTask(Context context) {
+        MoveSoundsTask(Context context, UUID fromSoundboardId, ImmutableList<UUID> soundIds,
+                       UUID toSoundboardId) {
             super();
             appContextRef = new WeakReference<>(context.getApplicationContext());
+            this.fromSoundboardId = fromSoundboardId;
+            this.soundIds = soundIds;
+            this.toSoundboardId = toSoundboardId;
         }
 
         @Override
         @WorkerThread
-        protected Void doInBackground(Integer... indexes) {
+        protected Void doInBackground(Void... voids) {
             Context appContext = appContextRef.get();
             if (appContext == null) {
                 cancel(true);
                 return null;
             }
 
-            SoundboardDao soundboardDao = SoundboardDao.getInstance(appContext);
+            Log.d(TAG, "Moving " + soundIds.size() + " sounds to soundboard " +
+                    toSoundboardId);
 
-            for (int index : indexes) {
-                Log.d(TAG, "Removing sound + " + index + " from soundboard");
-
-                soundboardDao.unlinkSound(
-                        soundboardItemAdapter.getSoundboard().getSoundboard().getId(), index);
-            }
+            SoundboardDao.getInstance(appContext)
+                    .moveSounds(fromSoundboardId, soundIds, toSoundboardId);
 
             return null;
         }
     }
 
     /**
-     * A background task, used to purge sounds (from the database, from all soundboards etc.)
+     * A background task, used to set the volume and / or the loop flag of some sounds
      */
     @ParametersAreNonnullByDefault
-    class DeleteSoundsTask extends AsyncTask<UUID, Void, Void> {
-        private final String TAG = DeleteSoundsTask.class.getName();
+    class UpdateVolumeAndLoopTask extends AsyncTask<Void, Void, Void> {
+        private final String TAG = UpdateVolumeAndLoopTask.class.getName();
 
         private final WeakReference<Context> appContextRef;
-
-        DeleteSoundsTask(Context context) {
+        private final ImmutableList<UUID> soundIds;
+        @Nullable
+        private final Integer volumePercentage;
+        @Nullable
+        private final Boolean loop;
+
+        UpdateVolumeAndLoopTask(Context context, ImmutableList<UUID> soundIds,
+                                @Nullable Integer volumePercentage, @Nullable Boolean loop) {
             super();
             appContextRef = new WeakReference<>(context.getApplicationContext());
+            this.soundIds = soundIds;
+            this.volumePercentage = volumePercentage;
+            this.loop = loop;
         }
 
         @Override
         @WorkerThread
-        protected Void doInBackground(UUID... soundIds) {
+        protected Void doInBackground(Void... voids) {
             Context appContext = appContextRef.get();
             if (appContext == null) {
                 cancel(true);
                 return null;
             }
 
-            SoundDao soundDao = SoundDao.getInstance(appContext);
+            Log.d(TAG, "Updating " + soundIds.size() + " sounds: volume " +
+                    volumePercentage + ", loop " + loop);
 
-            for (UUID soundId : soundIds) {
-                Log.d(TAG, "Deleting sound + " + soundId);
-
-                soundDao.delete(soundId);
-            }
+            SoundDao.getInstance(appContext)
+                    .updateVolumeAndLoop(soundIds, volumePercentage, loop);
 
             return null;
         }
+    }
+
+    /**
+     * A background task, used to find the soundboards the sounds selected can be moved to -
+     * the user's own soundboards, except for this one
+     */
+    @ParametersAreNonnullByDefault
+    class FindSoundboardsToMoveToTask
+            extends AsyncTask<Void, Void, ImmutableList<Soundboard>> {
+        private final String TAG = FindSoundboardsToMoveToTask.class.getName();
+
+        private final WeakReference<Context> appContextRef;
+        private final UUID soundboardId;
+
+        FindSoundboardsToMoveToTask(Context context) {
+            super();
+            appContextRef = new WeakReference<>(context.getApplicationContext());
+            soundboardId = soundboard.getId();
+        }
 
         @Override
-        @UiThread
-        protected void onPostExecute(Void nothing) {
+        @WorkerThread
+        protected ImmutableList<Soundboard> doInBackground(Void... voids) {
             Context appContext = appContextRef.get();
-
             if (appContext == null) {
-                // application context no longer available, I guess that result
-                // will be of no use to anyone
-                return;
+                cancel(true);
+                return null;
             }
 
-            if (hostingActivity != null) {
-                hostingActivity.soundsDeleted();
+            Log.d(TAG, "Loading soundboards...");
+
+            return SoundboardDao.getInstance(appContext).findAll().stream()
+                    .filter(s -> !s.isProvided() && !s.getId().equals(soundboardId))
+                    .sorted(Soundboard.PROVIDED_LAST_THEN_BY_COLLATION_KEY)
+                    .collect(ImmutableList.toImmutableList());
+        }
+
+        @Override
+        @UiThread
+        protected void onPostExecute(ImmutableList<Soundboard> soundboards) {
+            if (!isAdded() || !soundboardItemAdapter.isSelecting()) {
+                // fragment is no longer linked to an activity - or the user
+                // has stopped selecting
+                return;
             }
+
+            showMoveDialog(soundboards);
         }
     }
 }
@@ -1,70 +1,72 @@
 package de.soundboardcrafter.activity.soundboard.play.soundboard;
 
 import android.content.Context;
-import android.view.LayoutInflater;
-import android.view.ViewTreeObserver;
-import android.widget.RelativeLayout;
-import android.widget.TextView;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.text.StaticLayout;
+import android.view.View;
 
+import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
-
-import com.google.common.base.Strings;
+import androidx.appcompat.content.res.AppCompatResources;
+import androidx.core.content.ContextCompat;
 
 import de.soundboardcrafter.R;
-import de.soundboardcrafter.activity.common.mediaplayer.SoundboardMediaPlayer;
 import de.soundboardcrafter.model.Sound;
 import de.soundboardcrafter.model.Soundboard;
 
 /**
  * Tile for a single sound in a soundboard, allows the sound to be played and stopped again.
+ * <p>
+ * The tile draws its play / stop icon and the sound name itself - there is no layout
+ * to inflate and no child view to measure. The name is ellipsized to the lines that fit
+ * into the tile, the text layouts are cached (see {@link SoundboardItemLayouts}).
+ * <p>
+ * When the tile is activated (see {@link #setActivated(boolean)}), the sound is shown
+ * as selected.
  */
-class SoundboardItem extends RelativeLayout {
+class SoundboardItem extends View {
+    /**
+     * Alpha of the selection highlight
+     */
+    private static final int SELECTION_ALPHA = 0x40;
+
+    @NonNull
+    private final SoundboardItemLayouts layouts;
+
+    private final int tileHeight;
+
     @NonNull
-    private final TextView soundItem;
+    private final Paint selectionPaint = new Paint();
+
+    @NonNull
+    private String name = "";
+
+    @DrawableRes
+    private int imageId;
+
+    @Nullable
+    private Drawable image;
+
+    /**
+     * The layout of the name for the current size - <code>null</code> if not yet determined.
+     */
+    @Nullable
+    private StaticLayout textLayout;
 
     SoundboardItem(Context context) {
         super(context);
-        LayoutInflater inflater = LayoutInflater.from(context);
-        // Inflate the view into this object
-        inflater.inflate(R.layout.soundboard_item, this, true);
-        soundItem = findViewById(R.id.sound_item);
-
-        // This is work-around: Without setting max lines set
-        // (and to which value?), texts that are too long
-        // will only be truncated, not ellipsized.
-        // See https://stackoverflow.com/questions/14173776/ellipsize-not-working-properly-for-a
-        // -multiline-textview-with-an-arbitrary-maximu .
-        ViewTreeObserver observer = soundItem.getViewTreeObserver();
-        observer.addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-            @Override
-            public void onGlobalLayout() {
-                int maxLines = (int) soundItem.getHeight() / soundItem.getLineHeight();
-                final String text = soundItem.getText().toString();
-                if (!Strings.isNullOrEmpty(text)) {
-                    // Seems to be necessary in case of orientation changes.
-                    soundItem.setText(text);
-                }
-
-                soundItem.setMaxLines(maxLines);
-
-                soundItem.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-            }
-        });
+        layouts = SoundboardItemLayouts.getInstance(context);
+        tileHeight = getResources().getDimensionPixelSize(R.dimen.soundboard_item_height);
+        selectionPaint.setColor(ContextCompat.getColor(context, R.color.colorAccent));
+        selectionPaint.setAlpha(SELECTION_ALPHA);
+        setImage(R.drawable.ic_play);
     }
 
     public interface MediaPlayerServiceCallback {
-        boolean isConnected();
-
-        /**
-         * Returns whether this sound is <i>actively playing</i> in this soundboard, that is,
-         * it is playing <i>and not fading out</i>.
-         */
-        boolean isActivelyPlaying(Soundboard soundboard, Sound sound);
-
-        void setOnPlayingStopped(Soundboard soundboard, Sound sound,
-                                 SoundboardMediaPlayer.OnPlayingStopped onPlayingStopped);
-
         /**
          * Stops the sound when it is played in this soundboard.
          *
@@ -75,22 +77,114 @@ class SoundboardItem extends RelativeLayout {
 
     /**
      * Set the data for the view.
+     *
+     * @param activelyPlaying whether the sound is <i>actively playing</i> in the
+     *                        soundboard, that is, it is playing <i>and not fading out</i>.
      */
     @UiThread
-    void setSound(Soundboard soundboard, Sound sound,
-                  MediaPlayerServiceCallback mediaPlayerServiceCallback) {
-        if (!mediaPlayerServiceCallback.isConnected()) {
-            return;
+    void setSound(Sound sound, boolean activelyPlaying) {
+        if (!name.equals(sound.getName())) {
+            name = sound.getName();
+            setContentDescription(name);
+            textLayout = null;
+            invalidate();
         }
 
-        soundItem.setText(sound.getName());
+        setPlaying(activelyPlaying);
+    }
 
-        setImage(mediaPlayerServiceCallback.isActivelyPlaying(soundboard, sound) ?
-                R.drawable.ic_stop : R.drawable.ic_play);
+    /**
+     * Only sets the play / stop icon.
+     */
+    @UiThread
+    void setPlaying(boolean activelyPlaying) {
+        setImage(activelyPlaying ? R.drawable.ic_stop : R.drawable.ic_play);
     }
 
     @UiThread
-    void setImage(int p) {
-        soundItem.setCompoundDrawablesWithIntrinsicBounds(p, 0, 0, 0);
+    void setImage(@DrawableRes int p) {
+        if (p == imageId) {
+            return;
+        }
+
+        imageId = p;
+        image = AppCompatResources.getDrawable(getContext(), p);
+        textLayout = null;
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int desiredWidth = getPaddingLeft() + getImageWidth()
+                + (int) Math.ceil(layouts.getDesiredWidth(name)) + getPaddingRight();
+
+        setMeasuredDimension(resolveSize(desiredWidth, widthMeasureSpec),
+                resolveSize(tileHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        textLayout = null;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        if (isActivated()) {
+            canvas.drawRect(0, 0, getWidth(), getHeight(), selectionPaint);
+        }
+
+        boolean rtl = getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+        int imageWidth = getImageWidth();
+        int contentHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+
+        if (image != null) {
+            int imageLeft = rtl ? getWidth() - getPaddingRight() - imageWidth : getPaddingLeft();
+            int imageTop = getPaddingTop() + (contentHeight - image.getIntrinsicHeight()) / 2;
+            image.setBounds(imageLeft, imageTop,
+                    imageLeft + imageWidth, imageTop + image.getIntrinsicHeight());
+            image.draw(canvas);
+        }
+
+        @Nullable StaticLayout layout = getTextLayout();
+        if (layout == null) {
+            return;
+        }
+
+        int textLeft = rtl ?
+                getWidth() - getPaddingRight() - imageWidth - layout.getWidth() :
+                getPaddingLeft() + imageWidth;
+        int textTop = getPaddingTop() + (contentHeight - layout.getHeight()) / 2;
+
+        canvas.save();
+        canvas.translate(textLeft, textTop);
+        layout.draw(canvas);
+        canvas.restore();
+    }
+
+    /**
+     * Returns the layout of the name for the current size - or <code>null</code>, if there
+     * is no space for the name.
+     */
+    @Nullable
+    private StaticLayout getTextLayout() {
+        if (textLayout != null) {
+            return textLayout;
+        }
+
+        int maxWidth = getWidth() - getPaddingLeft() - getImageWidth() - getPaddingRight();
+        int maxHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (name.isEmpty() || maxWidth <= 0 || maxHeight <= 0) {
+            return null;
+        }
+
+        textLayout = layouts.get(name, maxWidth, maxHeight);
+        return textLayout;
+    }
+
+    private int getImageWidth() {
+        return image != null ? image.getIntrinsicWidth() : 0;
     }
 }
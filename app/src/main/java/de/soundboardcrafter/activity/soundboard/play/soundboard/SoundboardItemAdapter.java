@@ -11,10 +11,16 @@ import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
+import de.soundboardcrafter.activity.common.mediaplayer.PlayingState;
 import de.soundboardcrafter.model.AbstractEntity;
 import de.soundboardcrafter.model.Sound;
 import de.soundboardcrafter.model.SoundboardWithSounds;
@@ -24,9 +30,24 @@ import de.soundboardcrafter.model.SoundboardWithSounds;
  */
 public class SoundboardItemAdapter
         extends RecyclerView.Adapter<SoundboardItemAdapter.ViewHolder> {
+    /**
+     * Payload for {@link #notifyItemChanged(int, Object)}: Only the play / stop icon
+     * has to be updated.
+     */
+    private static final Object PAYLOAD_PLAYING_STATE = new Object();
+
+    /**
+     * Payload for {@link #notifyItemChanged(int, Object)}: Only the selection
+     * has to be updated.
+     */
+    private static final Object PAYLOAD_SELECTION = new Object();
+
     private final SoundboardItem.MediaPlayerServiceCallback mediaPlayerServiceCallback;
     private SoundboardWithSounds soundboard;
 
+    @NonNull
+    private PlayingState playingState = PlayingState.EMPTY;
+
     private ActionListener actionListener;
 
     @Nullable
@@ -34,6 +55,13 @@ public class SoundboardItemAdapter
 
     private int contextMenuPosition = -1;
 
+    /**
+     * The IDs of the sounds selected - or <code>null</code>, if the user is not
+     * selecting sounds.
+     */
+    @Nullable
+    private Set<UUID> selectedSoundIds;
+
     public interface ActionListener {
         @UiThread
         void onItemClick(int position, View v);
@@ -77,6 +105,32 @@ public class SoundboardItemAdapter
        notifyDataSetChanged();
     }
 
+    /**
+     * Sets the latest snapshot of the sounds playing and rebinds the items whose
+     * play / stop icon has changed.
+     */
+    @UiThread
+    void setPlayingState(@NonNull PlayingState newPlayingState) {
+        if (newPlayingState.getVersion() == playingState.getVersion()) {
+            return;
+        }
+
+        ImmutableSet<UUID> changedSoundIds =
+                newPlayingState.getSoundIdsChangedSince(playingState, soundboard.getId());
+        playingState = newPlayingState;
+
+        if (changedSoundIds.isEmpty()) {
+            return;
+        }
+
+        List<Sound> sounds = soundboard.getSounds();
+        for (int position = 0; position < sounds.size(); position++) {
+            if (changedSoundIds.contains(sounds.get(position).getId())) {
+                notifyItemChanged(position, PAYLOAD_PLAYING_STATE);
+            }
+        }
+    }
+
     private void stopAllSoundsExceptFor(List<Sound> exceptions) {
         for (Sound sound : this.soundboard.getSounds()) {
              if (exceptions.stream()
@@ -115,15 +169,26 @@ public class SoundboardItemAdapter
         super.onViewRecycled(holder);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty()
+                && payloads.stream().allMatch(p -> p == PAYLOAD_PLAYING_STATE
+                || p == PAYLOAD_SELECTION)) {
+            holder.getSoundboardItem().setPlaying(isActivelyPlaying(position));
+            holder.getSoundboardItem().setActivated(isSelected(position));
+            return;
+        }
+
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull SoundboardItemAdapter.ViewHolder holder, int position) {
         Sound sound = soundboard.getSounds().get(position);
 
-        mediaPlayerServiceCallback.setOnPlayingStopped(soundboard.getSoundboard(), sound,
-                this::notifyDataSetChanged);
-
-        holder.getSoundboardItem()
-                .setSound(soundboard.getSoundboard(), sound, mediaPlayerServiceCallback);
+        holder.getSoundboardItem().setSound(sound, isActivelyPlaying(position));
+        holder.getSoundboardItem().setActivated(isSelected(position));
 
         holder.getSoundboardItem().setOnClickListener(
                 v -> actionListener.onItemClick(holder.getAdapterPosition(), v)
@@ -137,19 +202,92 @@ public class SoundboardItemAdapter
         );
     }
 
+    private boolean isActivelyPlaying(int position) {
+        return playingState.isActivelyPlaying(soundboard.getId(),
+                soundboard.getSounds().get(position).getId());
+    }
+
     /**
-     * If there are already sounds in the soundboard with one of these IDs, replace
-     * them with the respective updates.
-     * playingStartedOrStopped sound if not in soundboard anymore
+     * Starts selecting sounds - with no sound selected.
      */
-    void updateSounds(@NonNull Map<Sound, Boolean> sounds) {
-        for (Map.Entry<Sound, Boolean> soundEntry : sounds.entrySet()) {
-            updateSound(soundEntry.getKey());
-            if (!soundEntry.getValue()) {
-                mediaPlayerServiceCallback
-                        .stopPlaying(soundboard.getSoundboard(), soundEntry.getKey(), true);
+    @UiThread
+    void startSelection() {
+        selectedSoundIds = new HashSet<>();
+    }
+
+    /**
+     * Stops selecting sounds and unselects all sounds.
+     */
+    @UiThread
+    void stopSelection() {
+        if (selectedSoundIds == null) {
+            return;
+        }
+
+        selectedSoundIds = null;
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+    }
+
+    boolean isSelecting() {
+        return selectedSoundIds != null;
+    }
+
+    /**
+     * Selects the sound at this position - or unselects it, if it's already selected.
+     */
+    @UiThread
+    void toggleSelection(int position) {
+        if (selectedSoundIds == null || position < 0 || position >= getItemCount()) {
+            return;
+        }
+
+        UUID soundId = getItem(position).getId();
+        if (!selectedSoundIds.remove(soundId)) {
+            selectedSoundIds.add(soundId);
+        }
+
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+    }
+
+    /**
+     * Returns the sounds selected - in the order of the soundboard.
+     */
+    @NonNull
+    ImmutableList<Sound> getSelectedSounds() {
+        if (selectedSoundIds == null) {
+            return ImmutableList.of();
+        }
+
+        return soundboard.getSounds().stream()
+                .filter(sound -> selectedSoundIds.contains(sound.getId()))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private boolean isSelected(int position) {
+        return selectedSoundIds != null
+                && selectedSoundIds.contains(soundboard.getSounds().get(position).getId());
+    }
+
+    /**
+     * Removes the sounds selected from the adapter (stopping them, if they are playing) and
+     * returns them.
+     */
+    @UiThread
+    @NonNull
+    ImmutableList<Sound> removeSelected() {
+        ImmutableList<Sound> res = getSelectedSounds();
+
+        for (int position = getItemCount() - 1; position >= 0; position--) {
+            if (isSelected(position)) {
+                remove(position);
             }
         }
+
+        if (selectedSoundIds != null) {
+            selectedSoundIds.clear();
+        }
+
+        return res;
     }
 
     void updateSounds(@NonNull Collection<Sound> sounds) {
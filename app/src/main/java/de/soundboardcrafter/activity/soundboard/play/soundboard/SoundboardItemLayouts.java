@@ -0,0 +1,238 @@
+package de.soundboardcrafter.activity.soundboard.play.soundboard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.Objects;
+
+import de.soundboardcrafter.model.Sound;
+import de.soundboardcrafter.model.SoundboardWithSounds;
+
+/**
+ * Process-wide cache of the text layouts drawn by the {@link SoundboardItem}s - keyed by
+ * sound name and available size. So when a tile is bound again (after scrolling or when
+ * swiping to another soundboard), its text does not have to be measured, broken into
+ * lines and ellipsized again. <code>SoundboardItemLayouts</code> are thread-safe.
+ * <p>
+ * When soundboards are loaded in the background, the layouts for their sound names can be
+ * computed right there (see {@link #precompute(Iterable)}), so that binding a tile only
+ * hands over a ready layout.
+ */
+public class SoundboardItemLayouts {
+    /**
+     * Maximum number of layouts cached
+     */
+    private static final int MAX_SIZE = 1024;
+
+    private static SoundboardItemLayouts instance;
+
+    /**
+     * The paint all layouts are drawn with. Never changed after construction.
+     */
+    @NonNull
+    private final TextPaint paint;
+
+    private final int lineHeight;
+
+    private final LruCache<Key, StaticLayout> cache = new LruCache<>(MAX_SIZE);
+
+    private final LruCache<String, Float> desiredWidths = new LruCache<>(MAX_SIZE);
+
+    /**
+     * The space last available for a text - all tiles have the same size, so this is
+     * the space the layouts are precomputed for. 0, if no layout has been requested yet.
+     */
+    private volatile int lastMaxWidth;
+    private volatile int lastMaxHeight;
+
+    /**
+     * Returns the layouts for the text appearance of this context - a new (empty) cache,
+     * if the text appearance has changed (e.g. the font scale).
+     */
+    @NonNull
+    static synchronized SoundboardItemLayouts getInstance(@NonNull Context context) {
+        TextPaint paint = createPaint(context);
+        if (instance == null || !instance.hasSameAppearance(paint)) {
+            instance = new SoundboardItemLayouts(paint);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Creates the paint for the small text appearance of the theme - the appearance
+     * a text view has by default.
+     */
+    @NonNull
+    private static TextPaint createPaint(@NonNull Context context) {
+        TextPaint res = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+        res.density = context.getResources().getDisplayMetrics().density;
+
+        TypedArray appearance = context.obtainStyledAttributes(null,
+                new int[]{android.R.attr.textSize, android.R.attr.textColor},
+                android.R.attr.textAppearanceSmall, 0);
+        try {
+            res.setTextSize(appearance.getDimension(0, 14 * res.density));
+            res.setColor(appearance.getColor(1, Color.BLACK));
+        } finally {
+            appearance.recycle();
+        }
+
+        return res;
+    }
+
+    /**
+     * Computes the layouts of the names of all sounds in these soundboards, as far as
+     * they are not cached yet - for the size the tiles had the last time. Does nothing,
+     * if no tile has been drawn yet.
+     */
+    @WorkerThread
+    public static void precompute(@NonNull Iterable<SoundboardWithSounds> soundboards) {
+        checkNotNull(soundboards, "soundboards is null");
+
+        @Nullable SoundboardItemLayouts layouts;
+        synchronized (SoundboardItemLayouts.class) {
+            layouts = instance;
+        }
+
+        if (layouts != null) {
+            layouts.precomputeLayouts(soundboards);
+        }
+    }
+
+    @WorkerThread
+    private void precomputeLayouts(@NonNull Iterable<SoundboardWithSounds> soundboards) {
+        int maxWidth = lastMaxWidth;
+        int maxHeight = lastMaxHeight;
+        if (maxWidth <= 0) {
+            return;
+        }
+
+        // The UI thread might draw with the paint in the meantime
+        TextPaint workerPaint = new TextPaint(paint);
+
+        // Don't evict layouts the UI thread is still using
+        int remaining = MAX_SIZE / 2;
+        for (SoundboardWithSounds soundboard : soundboards) {
+            for (Sound sound : soundboard.getSounds()) {
+                if (remaining-- <= 0) {
+                    return;
+                }
+
+                if (!sound.getName().isEmpty()) {
+                    get(sound.getName(), maxWidth, maxHeight, workerPaint);
+                }
+            }
+        }
+    }
+
+    private SoundboardItemLayouts(@NonNull TextPaint paint) {
+        this.paint = paint;
+        lineHeight = paint.getFontMetricsInt(null);
+    }
+
+    private boolean hasSameAppearance(@NonNull TextPaint other) {
+        return paint.getTextSize() == other.getTextSize()
+                && paint.getColor() == other.getColor()
+                && paint.density == other.density;
+    }
+
+    /**
+     * Returns the width the text needs when it's not broken into lines.
+     */
+    float getDesiredWidth(@NonNull String text) {
+        return getDesiredWidth(text, paint);
+    }
+
+    private float getDesiredWidth(@NonNull String text, @NonNull TextPaint textPaint) {
+        @Nullable Float res = desiredWidths.get(text);
+        if (res == null) {
+            res = Layout.getDesiredWidth(text, textPaint);
+            desiredWidths.put(text, res);
+        }
+
+        return res;
+    }
+
+    /**
+     * Returns the layout for this text in this space - ellipsized at the end, if the text does
+     * not fit. The layout is (at most) as wide as the text needs, its lines are centered.
+     *
+     * @param maxWidth  the available width, must be positive
+     * @param maxHeight the available height
+     */
+    @NonNull
+    StaticLayout get(@NonNull String text, int maxWidth, int maxHeight) {
+        checkNotNull(text, "text is null");
+
+        lastMaxWidth = maxWidth;
+        lastMaxHeight = maxHeight;
+
+        return get(text, maxWidth, maxHeight, paint);
+    }
+
+    @NonNull
+    private StaticLayout get(@NonNull String text, int maxWidth, int maxHeight,
+                             @NonNull TextPaint textPaint) {
+        int width = Math.max(1,
+                Math.min(maxWidth, (int) Math.ceil(getDesiredWidth(text, textPaint))));
+        int maxLines = Math.max(1, maxHeight / lineHeight);
+
+        Key key = new Key(text, width, maxLines);
+        StaticLayout res = cache.get(key);
+        if (res == null) {
+            res = StaticLayout.Builder.obtain(text, 0, text.length(), textPaint, width)
+                    .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                    .setEllipsize(TextUtils.TruncateAt.END)
+                    .setMaxLines(maxLines)
+                    .build();
+            cache.put(key, res);
+        }
+
+        return res;
+    }
+
+    private static class Key {
+        @NonNull
+        private final String text;
+        private final int width;
+        private final int maxLines;
+
+        Key(@NonNull String text, int width, int maxLines) {
+            this.text = text;
+            this.width = width;
+            this.maxLines = maxLines;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return width == key.width &&
+                    maxLines == key.maxLines &&
+                    text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, width, maxLines);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package de.soundboardcrafter.activity.soundboard.play.soundboard;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Pool of {@link SoundboardItem} tiles shared by all soundboard pages of an activity - so
+ * when the user swipes to another soundboard, the tiles of the page left behind are reused
+ * instead of creating new ones.
+ * <p>
+ * The pool is sized to the grid (see {@link #sizeToGrid(int, int)}) and filled with
+ * tiles created while the UI thread is idle (see {@link #preCreateWhenIdle(RecyclerView)}).
+ */
+@UiThread
+public class SoundboardItemPool extends RecyclerView.RecycledViewPool {
+    /**
+     * The view type of the tiles - the {@link SoundboardItemAdapter} has only one
+     */
+    private static final int VIEW_TYPE = 0;
+
+    /**
+     * Maximum number of tiles kept in the pool
+     */
+    private int capacity = 5;
+
+    /**
+     * The recycler view the tiles are created for while the UI thread is idle - or
+     * <code>null</code>, if no tiles are being created.
+     */
+    @Nullable
+    private WeakReference<RecyclerView> preCreateParentRef;
+
+    private final MessageQueue.IdleHandler preCreateIdleHandler = this::preCreateOne;
+
+    /**
+     * Makes sure the pool can keep all tiles of two screens of this grid - that's what
+     * is needed when swiping from one soundboard to another.
+     *
+     * @param spanCount   the number of columns
+     * @param visibleRows the number of rows (partly) visible
+     */
+    public void sizeToGrid(int spanCount, int visibleRows) {
+        int newCapacity = 2 * spanCount * (visibleRows + 1);
+        if (newCapacity <= capacity) {
+            return;
+        }
+
+        capacity = newCapacity;
+        setMaxRecycledViews(VIEW_TYPE, capacity);
+    }
+
+    /**
+     * Creates tiles for the pool whenever the UI thread is idle - one at a time, until the
+     * pool holds enough tiles for one screen more.
+     *
+     * @param parent a recycler view with an adapter that creates the tiles
+     */
+    public void preCreateWhenIdle(@NonNull RecyclerView parent) {
+        boolean running = preCreateParentRef != null;
+        preCreateParentRef = new WeakReference<>(parent);
+
+        if (!running) {
+            Looper.myQueue().addIdleHandler(preCreateIdleHandler);
+        }
+    }
+
+    /**
+     * Creates one tile for the pool.
+     *
+     * @return whether more tiles shall be created
+     */
+    private boolean preCreateOne() {
+        @Nullable RecyclerView parent = preCreateParentRef != null ?
+                preCreateParentRef.get() : null;
+        @Nullable RecyclerView.Adapter<?> adapter = parent != null ? parent.getAdapter() : null;
+        if (adapter == null || getRecycledViewCount(VIEW_TYPE) >= capacity / 2) {
+            preCreateParentRef = null;
+            return false;
+        }
+
+        putRecycledView(adapter.createViewHolder(parent, VIEW_TYPE));
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (preCreateParentRef != null) {
+            Looper.myQueue().removeIdleHandler(preCreateIdleHandler);
+            preCreateParentRef = null;
+        }
+
+        super.clear();
+    }
+}
@@ -5,24 +5,47 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
 import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 
+import de.soundboardcrafter.util.StartupTrace;
+
 /**
- * Abstract superclass for data access objects.
+ * Abstract superclass for data access objects. All DAOs share one database connection - so
+ * a transaction of one DAO also contains the writes of other DAOs on the same thread.
  */
 abstract class AbstractDao {
+    /**
+     * Maximum number of IDs bound to one statement - SQLite supports at least 999 arguments
+     * per statement, some are left for other arguments.
+     */
+    static final int MAX_IDS_PER_STATEMENT = 900;
+
+    private static SQLiteDatabase sharedDatabase;
+
     private final SQLiteDatabase database;
 
     AbstractDao(@Nonnull Context context) {
-        Context appContext = context.getApplicationContext();
-        // "If you’re using Sqlite on Android, you do not need to close your db connection.  You
-        // *can*, but managing that will be difficult for you for a number of reasons.  You
-        // *should* simply create a singleton instance of SQLiteOpenHelper, or some derivative,
-        // and reuse that as needed."
-        // (https://kpgalligan.tumblr.com/post/109546839958/single-database-connection )
-        database = new DBHelper(appContext).getWritableDatabase();
+        database = getSharedDatabase(context.getApplicationContext());
+    }
+
+    private static synchronized SQLiteDatabase getSharedDatabase(@Nonnull Context appContext) {
+        if (sharedDatabase == null) {
+            // "If you’re using Sqlite on Android, you do not need to close your db connection.
+            // You *can*, but managing that will be difficult for you for a number of reasons.
+            // You *should* simply create a singleton instance of SQLiteOpenHelper, or some
+            // derivative, and reuse that as needed."
+            // (https://kpgalligan.tumblr.com/post/109546839958/single-database-connection )
+            try (StartupTrace.Section ignored = StartupTrace.begin("db_open")) {
+                sharedDatabase = new DBHelper(appContext).getWritableDatabase();
+            }
+        }
+
+        return sharedDatabase;
     }
 
     SQLiteDatabase getDatabase() {
@@ -44,6 +67,21 @@ abstract class AbstractDao {
         return cursor;
     }
 
+    /**
+     * Returns a condition <code>column IN (?, ?, ...)</code> with this number of arguments.
+     */
+    static String in(String column, int numArgs) {
+        return column + " IN (" + String.join(", ", Collections.nCopies(numArgs, "?")) + ")";
+    }
+
+    /**
+     * Returns these IDs as statement arguments - following the other arguments.
+     */
+    static String[] toArgs(Collection<UUID> ids, String... otherArgs) {
+        return Stream.concat(Stream.of(otherArgs), ids.stream().map(UUID::toString))
+                .toArray(String[]::new);
+    }
+
     /**
      * Inserts these values as a new entry into this table.
      *
@@ -55,4 +93,38 @@ abstract class AbstractDao {
             throw new IllegalStateException("Could not insert into database: " + values);
         }
     }
+
+    /**
+     * Runs this action in one database transaction (on the shared connection, so writes of
+     * other DAOs on this thread are included). The transaction is rolled back if the action
+     * throws an exception.
+     * <p>
+     * {@link DaoChange}s published during the action are only delivered after the
+     * transaction has been committed.
+     */
+    void runInTransaction(final Runnable action) {
+        DaoChangeBus.getInstance().beginTransaction();
+        boolean committed = false;
+        try {
+            database.beginTransaction();
+            boolean successful = false;
+            try {
+                action.run();
+                database.setTransactionSuccessful();
+                successful = true;
+            } finally {
+                database.endTransaction();
+            }
+            committed = successful;
+        } finally {
+            DaoChangeBus.getInstance().endTransaction(committed);
+        }
+    }
+
+    /**
+     * Publishes this change on the {@link DaoChangeBus}.
+     */
+    void publish(final DaoChange change) {
+        DaoChangeBus.getInstance().publish(change);
+    }
 }
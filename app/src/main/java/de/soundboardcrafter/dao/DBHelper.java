@@ -13,11 +13,13 @@ import javax.annotation.ParametersAreNonnullByDefault;
 import de.soundboardcrafter.R;
 import de.soundboardcrafter.dao.DBSchema.FavoritesTable;
 import de.soundboardcrafter.dao.DBSchema.GamesTable;
+import de.soundboardcrafter.dao.DBSchema.SearchIndexTable;
 import de.soundboardcrafter.dao.DBSchema.SoundTable;
 import de.soundboardcrafter.dao.DBSchema.SoundboardFavoritesTable;
 import de.soundboardcrafter.dao.DBSchema.SoundboardGamesTable;
 import de.soundboardcrafter.dao.DBSchema.SoundboardSoundTable;
 import de.soundboardcrafter.dao.DBSchema.SoundboardTable;
+import de.soundboardcrafter.util.StartupTrace;
 
 /**
  * Helper class for SQL database access
@@ -28,7 +30,7 @@ public class DBHelper extends SQLiteOpenHelper {
      * Database version. Also update this version when there are
      * changes in the sound assets!
      */
-    private static final int VERSION = 46;
+    private static final int VERSION = 48;
 
     public static final String DB_SHARED_PREFERENCES = "DBHelper_Prefs";
 
@@ -95,6 +97,23 @@ public class DBHelper extends SQLiteOpenHelper {
     private static final String DROP_TABLE_SOUNDBOARD_SOUND = //
             "DROP TABLE IF EXISTS " + SoundboardSoundTable.NAME + ";";
 
+    private static final String CREATE_TABLE_SEARCH_INDEX = //
+            "CREATE VIRTUAL TABLE " + SearchIndexTable.NAME + " USING fts4(" + //
+                    SearchIndexTable.Cols.ENTRY_TYPE + ", " + //
+                    SearchIndexTable.Cols.ENTRY_KEY + ", " + //
+                    SearchIndexTable.Cols.NAME + ", " + //
+                    SearchIndexTable.Cols.EXTRA + ", " + //
+                    SearchIndexTable.Cols.DATE_ADDED + ", " + //
+                    SearchIndexTable.Cols.DURATION_SECS + ", " + //
+                    "notindexed=" + SearchIndexTable.Cols.ENTRY_TYPE + ", " + //
+                    "notindexed=" + SearchIndexTable.Cols.ENTRY_KEY + ", " + //
+                    "notindexed=" + SearchIndexTable.Cols.DATE_ADDED + ", " + //
+                    "notindexed=" + SearchIndexTable.Cols.DURATION_SECS + ", " + //
+                    "tokenize=unicode61 \"remove_diacritics=1\");";
+
+    private static final String DROP_TABLE_SEARCH_INDEX = //
+            "DROP TABLE IF EXISTS " + SearchIndexTable.NAME + ";";
+
     private static final String TAG = DBHelper.class.getName();
 
     private final Context appContext;
@@ -127,12 +146,18 @@ public class DBHelper extends SQLiteOpenHelper {
         Log.e(TAG,
                 "Upgrading database from version " + oldVersion + " to version " + newVersion);
 
-        if (oldVersion < 21) {
-            dropTables(db);
-            createInitialTables(db);
-        }
+        try (StartupTrace.Section ignored = StartupTrace.begin("db_upgrade")) {
+            if (oldVersion < 21) {
+                dropTables(db);
+                createInitialTables(db);
+            }
+
+            if (oldVersion < 48) {
+                createSearchIndex(db);
+            }
 
-        providedSoundboardsNeedToBeChecked();
+            providedSoundboardsNeedToBeChecked();
+        }
     }
 
     private void providedSoundboardsNeedToBeChecked() {
@@ -160,6 +185,70 @@ public class DBHelper extends SQLiteOpenHelper {
         // TODO extra index on primary keys necessary / useful?
     }
 
+    /**
+     * Creates the search index for the sounds and soundboards (including the triggers
+     * that keep it in sync) and fills it with the existing sounds and soundboards.
+     */
+    private void createSearchIndex(SQLiteDatabase db) {
+        db.execSQL(DROP_TABLE_SEARCH_INDEX);
+        db.execSQL(CREATE_TABLE_SEARCH_INDEX);
+
+        createSearchIndexTriggers(db, SoundTable.NAME, SoundTable.Cols.ID,
+                SoundTable.Cols.NAME, SearchIndexTable.EntryType.SOUND);
+        createSearchIndexTriggers(db, SoundboardTable.NAME, SoundboardTable.Cols.ID,
+                SoundboardTable.Cols.NAME, SearchIndexTable.EntryType.SOUNDBOARD);
+    }
+
+    /**
+     * Creates the triggers that keep the search index in sync with this table. The index
+     * entries are found by their (not indexed) entry key - the TEXT primary key of the
+     * table. The <code>rowid</code> is not used, as it may change on <code>VACUUM</code>.
+     */
+    private static void createSearchIndexTriggers(SQLiteDatabase db, String table,
+                                                  String idCol, String nameCol,
+                                                  SearchIndexTable.EntryType entryType) {
+        db.execSQL("DROP TRIGGER IF EXISTS " + table + "_search_insert;");
+        db.execSQL("CREATE TRIGGER " + table + "_search_insert " + //
+                "AFTER INSERT ON " + table + " BEGIN " + //
+                "INSERT INTO " + SearchIndexTable.NAME + " (" + //
+                SearchIndexTable.Cols.ENTRY_TYPE + ", " + //
+                SearchIndexTable.Cols.ENTRY_KEY + ", " + //
+                SearchIndexTable.Cols.NAME + ") " + //
+                "VALUES ('" + entryType.name() + "', " + //
+                "NEW." + idCol + ", NEW." + nameCol + "); END;");
+
+        db.execSQL("DROP TRIGGER IF EXISTS " + table + "_search_update;");
+        db.execSQL("CREATE TRIGGER " + table + "_search_update " + //
+                "AFTER UPDATE OF " + idCol + ", " + nameCol + " ON " + table + " BEGIN " + //
+                "UPDATE " + SearchIndexTable.NAME + " " + //
+                "SET " + SearchIndexTable.Cols.ENTRY_KEY + " = NEW." + idCol + ", " + //
+                SearchIndexTable.Cols.NAME + " = NEW." + nameCol + " " + //
+                "WHERE " + entryKeyCondition("OLD", idCol, entryType) + "; END;");
+
+        db.execSQL("DROP TRIGGER IF EXISTS " + table + "_search_delete;");
+        db.execSQL("CREATE TRIGGER " + table + "_search_delete " + //
+                "AFTER DELETE ON " + table + " BEGIN " + //
+                "DELETE FROM " + SearchIndexTable.NAME + " " + //
+                "WHERE " + entryKeyCondition("OLD", idCol, entryType) + "; END;");
+
+        // Index the existing entries
+        db.execSQL("INSERT INTO " + SearchIndexTable.NAME + " (" + //
+                SearchIndexTable.Cols.ENTRY_TYPE + ", " + //
+                SearchIndexTable.Cols.ENTRY_KEY + ", " + //
+                SearchIndexTable.Cols.NAME + ") " + //
+                "SELECT '" + entryType.name() + "', " + idCol + ", " + nameCol + " " + //
+                "FROM " + table + ";");
+    }
+
+    /**
+     * Returns the SQL condition for the search index entry of this row.
+     */
+    private static String entryKeyCondition(String rowAlias, String idCol,
+                                            SearchIndexTable.EntryType entryType) {
+        return SearchIndexTable.Cols.ENTRY_TYPE + " = '" + entryType.name() + "' AND " + //
+                SearchIndexTable.Cols.ENTRY_KEY + " = " + rowAlias + "." + idCol;
+    }
+
     private void dropTables(SQLiteDatabase db) {
         db.execSQL(DROP_TABLE_GAMES);
 
@@ -171,5 +260,7 @@ public class DBHelper extends SQLiteOpenHelper {
 
         db.execSQL(DROP_TABLE_SOUND);
         db.execSQL(DROP_TABLE_SOUNDBOARD_SOUND);
+
+        db.execSQL(DROP_TABLE_SEARCH_INDEX);
     }
 }
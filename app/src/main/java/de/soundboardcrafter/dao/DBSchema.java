@@ -142,4 +142,66 @@ class DBSchema {
             static final String POS_INDEX = "pos_index";
         }
     }
+
+    /**
+     * Full-text search index (FTS4) over the names of the sounds, the soundboards and the
+     * audio files (from the assets or on the device). The entries for sounds and soundboards
+     * are kept in sync by triggers, the entries for the audio files are replaced
+     * when the audio files are loaded.
+     */
+    static final class SearchIndexTable {
+        static final String NAME = "search_index";
+
+        enum EntryType {
+            SOUND,
+            SOUNDBOARD,
+            /**
+             * An audio file provided in the assets
+             */
+            ASSET_AUDIO,
+            /**
+             * An audio file on the device
+             */
+            DEVICE_AUDIO
+        }
+
+        static final class Cols {
+            /**
+             * The FTS document ID - assigned by SQLite. Sounds and soundboards are
+             * identified by their {@link #ENTRY_KEY} instead, which is stable.
+             */
+            static final String DOC_ID = "docid";
+            static final String ENTRY_TYPE = "entry_type";
+            /**
+             * The ID of the sound or soundboard - or the path of the audio file
+             */
+            static final String ENTRY_KEY = "entry_key";
+            static final String NAME = "name";
+            /**
+             * Further text to search: The names of an asset audio file in all languages
+             * or the artist of an audio file on the device
+             */
+            static final String EXTRA = "extra";
+            /**
+             * For audio files on the device: The date the file has been added (in millis)
+             */
+            static final String DATE_ADDED = "date_added";
+            /**
+             * For audio files on the device: The duration in seconds
+             */
+            static final String DURATION_SECS = "duration_secs";
+        }
+
+        /**
+         * Index of the {@link Cols#NAME} column, as used by the FTS <code>offsets()</code>
+         * function
+         */
+        static final int NAME_COLUMN_INDEX = 2;
+
+        /**
+         * Index of the {@link Cols#EXTRA} column, as used by the FTS <code>offsets()</code>
+         * function
+         */
+        static final int EXTRA_COLUMN_INDEX = 3;
+    }
 }
@@ -0,0 +1,140 @@
+package de.soundboardcrafter.dao;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A single change that a DAO has written to the database. Published on the
+ * {@link DaoChangeBus}, so that the UI can patch what it shows instead of reloading
+ * everything.
+ */
+public class DaoChange {
+    public enum Type {
+        SOUND_INSERTED,
+        SOUND_UPDATED,
+        SOUND_DELETED,
+        /**
+         * A sound has been added to a soundboard.
+         */
+        LINK_ADDED,
+        /**
+         * A sound has been removed from a soundboard (the sound itself still exists).
+         */
+        LINK_REMOVED,
+        /**
+         * A sound has been moved to another position inside the soundboard.
+         */
+        LINK_MOVED,
+        /**
+         * All sounds of the soundboard might have got new positions.
+         */
+        LINKS_REORDERED,
+        SOUNDBOARD_INSERTED,
+        /**
+         * The soundboard itself (its name, e.g.) has been changed.
+         */
+        SOUNDBOARD_UPDATED,
+        SOUNDBOARD_DELETED,
+        FAVORITES_CHANGED,
+        FAVORITES_DELETED,
+        /**
+         * Too much has changed to describe it in detail - reload everything.
+         */
+        ALL_CHANGED
+    }
+
+    @NonNull
+    private final Type type;
+
+    @Nullable
+    private final UUID soundboardId;
+
+    @Nullable
+    private final UUID soundId;
+
+    @Nullable
+    private final UUID favoritesId;
+
+    static DaoChange sound(@NonNull Type type, @NonNull UUID soundId) {
+        return new DaoChange(type, null, soundId, null);
+    }
+
+    static DaoChange link(@NonNull Type type, @NonNull UUID soundboardId,
+                          @NonNull UUID soundId) {
+        return new DaoChange(type, soundboardId, soundId, null);
+    }
+
+    static DaoChange soundboard(@NonNull Type type, @NonNull UUID soundboardId) {
+        return new DaoChange(type, soundboardId, null, null);
+    }
+
+    static DaoChange favorites(@NonNull Type type, @NonNull UUID favoritesId) {
+        return new DaoChange(type, null, null, favoritesId);
+    }
+
+    static DaoChange allChanged() {
+        return new DaoChange(Type.ALL_CHANGED, null, null, null);
+    }
+
+    private DaoChange(@NonNull Type type, @Nullable UUID soundboardId, @Nullable UUID soundId,
+                      @Nullable UUID favoritesId) {
+        this.type = type;
+        this.soundboardId = soundboardId;
+        this.soundId = soundId;
+        this.favoritesId = favoritesId;
+    }
+
+    @NonNull
+    public Type getType() {
+        return type;
+    }
+
+    @Nullable
+    public UUID getSoundboardId() {
+        return soundboardId;
+    }
+
+    @Nullable
+    public UUID getSoundId() {
+        return soundId;
+    }
+
+    @Nullable
+    public UUID getFavoritesId() {
+        return favoritesId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        DaoChange that = (DaoChange) o;
+        return type == that.type &&
+                Objects.equals(soundboardId, that.soundboardId) &&
+                Objects.equals(soundId, that.soundId) &&
+                Objects.equals(favoritesId, that.favoritesId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, soundboardId, soundId, favoritesId);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "DaoChange{" +
+                "type=" + type +
+                (soundboardId != null ? ", soundboardId=" + soundboardId : "") +
+                (soundId != null ? ", soundId=" + soundId : "") +
+                (favoritesId != null ? ", favoritesId=" + favoritesId : "") +
+                '}';
+    }
+}
@@ -0,0 +1,202 @@
+package de.soundboardcrafter.dao;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process bus for the {@link DaoChange}s the DAOs write. Changes are
+ * published from worker threads and delivered to the listeners on the main thread,
+ * collected into batches: All changes published before the main thread gets around to
+ * delivering them are delivered together (duplicates removed).
+ * <p>
+ * Bulk operations (like generating the provided soundboards) can be wrapped in
+ * {@link #beginBulkChange()} / {@link #endBulkChange()}: The single changes are then
+ * dropped and one {@link DaoChange.Type#ALL_CHANGED} is published at the end.
+ * <p>
+ * Changes published while a database transaction is open on the current thread (see
+ * {@link #beginTransaction()}) are held back until the outermost transaction has been
+ * committed - and dropped, if it is rolled back.
+ */
+@AnyThread
+public class DaoChangeBus {
+    /**
+     * Listener for changes in the database
+     */
+    public interface Listener {
+        /**
+         * Called on the main thread with all changes since the last call.
+         */
+        @UiThread
+        void onDaoChanges(@NonNull ImmutableList<DaoChange> changes);
+    }
+
+    private static DaoChangeBus instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Changes not yet delivered, guarded by <code>this</code>.
+     */
+    private final Set<DaoChange> pending = new LinkedHashSet<>();
+
+    private final ThreadLocal<Integer> bulkChangeDepth = new ThreadLocal<>();
+
+    /**
+     * The transaction open on the current thread (if any)
+     */
+    private final ThreadLocal<Transaction> transaction = new ThreadLocal<>();
+
+    public static synchronized DaoChangeBus getInstance() {
+        if (instance == null) {
+            instance = new DaoChangeBus();
+        }
+
+        return instance;
+    }
+
+    private DaoChangeBus() {
+    }
+
+    public void subscribe(@NonNull Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void unsubscribe(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts a bulk change on the current thread. Must be followed by
+     * {@link #endBulkChange()} (use <code>try ... finally</code>). Bulk changes may be nested.
+     */
+    public void beginBulkChange() {
+        bulkChangeDepth.set(getBulkChangeDepth() + 1);
+    }
+
+    /**
+     * Ends a bulk change on the current thread. When the outermost bulk change ends,
+     * an {@link DaoChange.Type#ALL_CHANGED} is published.
+     */
+    public void endBulkChange() {
+        int depth = getBulkChangeDepth();
+        if (depth <= 0) {
+            throw new IllegalStateException("No bulk change to end");
+        }
+
+        if (depth == 1) {
+            bulkChangeDepth.remove();
+            publish(DaoChange.allChanged());
+        } else {
+            bulkChangeDepth.set(depth - 1);
+        }
+    }
+
+    private int getBulkChangeDepth() {
+        Integer depth = bulkChangeDepth.get();
+        return depth != null ? depth : 0;
+    }
+
+    /**
+     * Starts a database transaction on the current thread - changes are held back until
+     * it has been committed. Must be followed by {@link #endTransaction(boolean)}.
+     * Transactions may be nested.
+     */
+    void beginTransaction() {
+        @Nullable Transaction current = transaction.get();
+        if (current == null) {
+            current = new Transaction();
+            transaction.set(current);
+        }
+
+        current.depth++;
+    }
+
+    /**
+     * Ends a database transaction on the current thread. When the outermost transaction
+     * has been committed, the changes held back are published - if any of the nested
+     * transactions has not been committed, the changes are dropped.
+     *
+     * @param committed whether the transaction has been committed successfully
+     */
+    void endTransaction(boolean committed) {
+        @Nullable Transaction current = transaction.get();
+        if (current == null) {
+            throw new IllegalStateException("No transaction to end");
+        }
+
+        if (!committed) {
+            current.failed = true;
+        }
+
+        current.depth--;
+        if (current.depth > 0) {
+            return;
+        }
+
+        transaction.remove();
+        if (!current.failed) {
+            current.changes.forEach(this::publish);
+        }
+    }
+
+    void publish(@NonNull DaoChange change) {
+        if (getBulkChangeDepth() > 0 || listeners.isEmpty()) {
+            return;
+        }
+
+        @Nullable Transaction current = transaction.get();
+        if (current != null) {
+            current.changes.add(change);
+            return;
+        }
+
+        boolean deliveryScheduled;
+        synchronized (this) {
+            deliveryScheduled = !pending.isEmpty();
+            pending.add(change);
+        }
+
+        if (!deliveryScheduled) {
+            mainHandler.post(this::deliver);
+        }
+    }
+
+    @UiThread
+    private void deliver() {
+        ImmutableList<DaoChange> changes;
+        synchronized (this) {
+            changes = ImmutableList.copyOf(pending);
+            pending.clear();
+        }
+
+        if (changes.contains(DaoChange.allChanged())) {
+            changes = ImmutableList.of(DaoChange.allChanged());
+        }
+
+        for (Listener listener : listeners) {
+            listener.onDaoChanges(changes);
+        }
+    }
+
+    /**
+     * A database transaction open on one thread, with the changes held back
+     */
+    private static class Transaction {
+        private int depth;
+        private boolean failed;
+        private final Set<DaoChange> changes = new LinkedHashSet<>();
+    }
+}
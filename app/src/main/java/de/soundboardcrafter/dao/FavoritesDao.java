@@ -14,6 +14,7 @@ import javax.annotation.Nonnull;
 
 import de.soundboardcrafter.dao.DBSchema.SoundboardFavoritesTable;
 import de.soundboardcrafter.model.Favorites;
+import de.soundboardcrafter.model.FavoritesSummary;
 import de.soundboardcrafter.model.FavoritesWithSoundboards;
 import de.soundboardcrafter.model.Soundboard;
 
@@ -49,6 +50,9 @@ public class FavoritesDao extends AbstractDao {
                 SoundboardFavoritesTable.Cols.FAVORITES_ID + " = ?",
                 new String[]{favoritesWithSoundboards.getFavorites().getId().toString()});
         linkSoundboardsToFavorites(favoritesWithSoundboards);
+
+        publish(DaoChange.favorites(DaoChange.Type.FAVORITES_CHANGED,
+                favoritesWithSoundboards.getFavorites().getId()));
     }
 
     /**
@@ -69,6 +73,9 @@ public class FavoritesDao extends AbstractDao {
     public void insertWithSoundboards(@NonNull FavoritesWithSoundboards favoritesWithSoundboards) {
         insert(favoritesWithSoundboards.getFavorites());
         linkSoundboardsToFavorites(favoritesWithSoundboards);
+
+        publish(DaoChange.favorites(DaoChange.Type.FAVORITES_CHANGED,
+                favoritesWithSoundboards.getFavorites().getId()));
     }
 
 
@@ -141,6 +148,21 @@ public class FavoritesDao extends AbstractDao {
 
     }
 
+    /**
+     * Retrieves all favorites with the number of their soundboards - without loading the
+     * soundboards themselves.
+     */
+    public ImmutableList<FavoritesSummary> findAllSummaries() {
+        try (FavoritesSummaryCursorWrapper cursor = new FavoritesSummaryCursorWrapper(
+                rawQueryOrThrow(FavoritesSummaryCursorWrapper.queryString()))) {
+            ImmutableList.Builder<FavoritesSummary> res = ImmutableList.builder();
+            while (cursor.moveToNext()) {
+                res.add(cursor.getFavoritesSummary());
+            }
+            return res.build();
+        }
+    }
+
     private ImmutableList<FavoritesWithSoundboards> findFavoritesWithSoundboards(
             @NonNull FavoritesCursorWrapper cursor) {
         ImmutableList.Builder<FavoritesWithSoundboards> res = ImmutableList.builder();
@@ -169,6 +191,7 @@ public class FavoritesDao extends AbstractDao {
         getDatabase().delete(DBSchema.FavoritesTable.NAME, DBSchema.FavoritesTable.Cols.ID + " = ?",
                 new String[]{favoritesId.toString()});
 
+        publish(DaoChange.favorites(DaoChange.Type.FAVORITES_DELETED, favoritesId));
     }
 
     private void unlinkAllSoundboards(@NonNull UUID favoritesId) {
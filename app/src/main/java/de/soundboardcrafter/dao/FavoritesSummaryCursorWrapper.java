@@ -0,0 +1,43 @@
+package de.soundboardcrafter.dao;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.util.UUID;
+
+import de.soundboardcrafter.dao.DBSchema.FavoritesTable;
+import de.soundboardcrafter.dao.DBSchema.SoundboardFavoritesTable;
+import de.soundboardcrafter.model.Favorites;
+import de.soundboardcrafter.model.FavoritesSummary;
+
+/**
+ * Essentially a cursor over favorites, each with the number of their soundboards.
+ */
+@WorkerThread
+class FavoritesSummaryCursorWrapper extends CursorWrapper {
+    static String queryString() {
+        return "SELECT f." + FavoritesTable.Cols.ID
+                + ", f." + FavoritesTable.Cols.NAME
+                + ", COUNT(sbf." + SoundboardFavoritesTable.Cols.SOUNDBOARD_ID + ")"
+                + " " //
+                + "FROM " + FavoritesTable.NAME + " f "
+                + "LEFT JOIN " + SoundboardFavoritesTable.NAME + " sbf "
+                + "ON sbf." + SoundboardFavoritesTable.Cols.FAVORITES_ID + " = f."
+                + FavoritesTable.Cols.ID + " "
+                + "GROUP BY f." + FavoritesTable.Cols.ID;
+    }
+
+    FavoritesSummaryCursorWrapper(Cursor cursor) {
+        super(cursor);
+    }
+
+    @NonNull
+    FavoritesSummary getFavoritesSummary() {
+        Favorites favorites = new Favorites(UUID.fromString(getString(0)), getString(1));
+
+        return new FavoritesSummary(favorites, getInt(2));
+    }
+}
@@ -0,0 +1,380 @@
+package de.soundboardcrafter.dao;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nonnull;
+
+import de.soundboardcrafter.dao.DBSchema.SearchIndexTable;
+import de.soundboardcrafter.dao.DBSchema.SearchIndexTable.EntryType;
+import de.soundboardcrafter.dao.DBSchema.SoundTable;
+import de.soundboardcrafter.dao.DBSchema.SoundboardTable;
+import de.soundboardcrafter.model.AbstractAudioLocation;
+import de.soundboardcrafter.model.AssetFolderAudioLocation;
+import de.soundboardcrafter.model.FileSystemFolderAudioLocation;
+import de.soundboardcrafter.model.IAudioFileSelection;
+import de.soundboardcrafter.model.SearchResult;
+import de.soundboardcrafter.model.Sound;
+import de.soundboardcrafter.model.Soundboard;
+import de.soundboardcrafter.model.audio.AudioModelAndSound;
+import de.soundboardcrafter.model.audio.BasicAudioModel;
+import de.soundboardcrafter.model.audio.FullAudioModel;
+
+/**
+ * Database Access Object for the full-text search over sounds, soundboards and
+ * audio files.
+ * <p>
+ * Sounds and soundboards are kept in sync with the search index by database triggers,
+ * the audio files have to be (re-)indexed when they are loaded.
+ */
+@WorkerThread
+public class SearchDao extends AbstractDao {
+    /**
+     * Score of a search term found in the name
+     */
+    private static final int SCORE_NAME = 10;
+
+    /**
+     * Additional score of a search term found at the start of the name
+     */
+    private static final int SCORE_NAME_START = 5;
+
+    /**
+     * Score of a search term found in the extra text (translations or artist)
+     */
+    private static final int SCORE_EXTRA = 3;
+
+    private static SearchDao instance;
+
+    private final Context appContext;
+
+    /**
+     * Fingerprint of the audio files on the device that have last been indexed
+     * (in this process)
+     */
+    @Nullable
+    private Integer deviceAudiosFingerprint;
+
+    public static SearchDao getInstance(final Context context) {
+        if (instance == null) {
+            instance = new SearchDao(context);
+        }
+
+        return instance;
+    }
+
+    private SearchDao(@Nonnull Context context) {
+        super(context.getApplicationContext());
+        appContext = context.getApplicationContext();
+    }
+
+    /**
+     * Searches for sounds, soundboards and audio files, where each word in the
+     * <code>query</code> is (the prefix of) a word in the name (or the translated name or
+     * the artist). The results are ranked - the best results come first.
+     *
+     * @param limit the maximum number of results
+     */
+    public ImmutableList<SearchResult> search(@NonNull String query, int limit) {
+        @Nullable String matchExpression = toMatchExpression(query);
+        if (matchExpression == null) {
+            return ImmutableList.of();
+        }
+
+        List<Hit> hits = findHits(matchExpression);
+        hits.sort(Hit.BEST_FIRST);
+
+        return toSearchResults(hits.subList(0, Math.min(limit, hits.size())));
+    }
+
+    /**
+     * Converts the user's query into an FTS match expression, where each word is a prefix -
+     * or returns <code>null</code>, if the query does not contain any words.
+     */
+    @Nullable
+    private static String toMatchExpression(@NonNull String query) {
+        List<String> terms = new ArrayList<>();
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                terms.add("\"" + word + "\"*");
+            }
+        }
+
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        return Joiner.on(' ').join(terms);
+    }
+
+    /**
+     * Finds all hits (without their details) and scores them.
+     */
+    private List<Hit> findHits(String matchExpression) {
+        List<Hit> res = new ArrayList<>();
+
+        try (Cursor cursor = rawQueryOrThrow(
+                "SELECT " + SearchIndexTable.Cols.DOC_ID + ", " + //
+                        SearchIndexTable.Cols.ENTRY_TYPE + ", " + //
+                        "length(" + SearchIndexTable.Cols.NAME + "), " + //
+                        "offsets(" + SearchIndexTable.NAME + ") " + //
+                        "FROM " + SearchIndexTable.NAME + " " + //
+                        "WHERE " + SearchIndexTable.NAME + " MATCH ?",
+                matchExpression)) {
+            while (cursor.moveToNext()) {
+                res.add(new Hit(cursor.getLong(0),
+                        EntryType.valueOf(cursor.getString(1)),
+                        cursor.getInt(2),
+                        score(cursor.getString(3))));
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Scores a hit, based on the result of the FTS <code>offsets()</code> function:
+     * Groups of four integers - column, term, byte offset and size.
+     */
+    private static int score(String offsets) {
+        String[] parts = offsets.split(" ");
+
+        int res = 0;
+        for (int i = 0; i + 3 < parts.length; i += 4) {
+            int column = Integer.parseInt(parts[i]);
+            if (column == SearchIndexTable.NAME_COLUMN_INDEX) {
+                res += SCORE_NAME;
+                if (Integer.parseInt(parts[i + 2]) == 0) {
+                    res += SCORE_NAME_START;
+                }
+            } else if (column == SearchIndexTable.EXTRA_COLUMN_INDEX) {
+                res += SCORE_EXTRA;
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Loads the details for these hits and converts them to search results - keeping
+     * the order.
+     */
+    private ImmutableList<SearchResult> toSearchResults(List<Hit> hits) {
+        if (hits.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        Map<Long, SearchResult> resultsByDocId = new HashMap<>();
+        Map<String, Long> soundDocIds = new HashMap<>();
+        Map<String, Long> soundboardDocIds = new HashMap<>();
+        List<Pair<Long, FullAudioModel>> audios = new ArrayList<>();
+
+        try (Cursor cursor = rawQueryOrThrow(
+                "SELECT " + SearchIndexTable.Cols.DOC_ID + ", " + //
+                        SearchIndexTable.Cols.ENTRY_TYPE + ", " + //
+                        SearchIndexTable.Cols.ENTRY_KEY + ", " + //
+                        SearchIndexTable.Cols.NAME + ", " + //
+                        SearchIndexTable.Cols.EXTRA + ", " + //
+                        SearchIndexTable.Cols.DATE_ADDED + ", " + //
+                        SearchIndexTable.Cols.DURATION_SECS + " " + //
+                        "FROM " + SearchIndexTable.NAME + " " + //
+                        "WHERE " + SearchIndexTable.Cols.DOC_ID + " IN (" + //
+                        Joiner.on(", ").join(hits.stream().map(h -> h.docId).iterator()) + ")")) {
+            while (cursor.moveToNext()) {
+                long docId = cursor.getLong(0);
+                EntryType entryType = EntryType.valueOf(cursor.getString(1));
+                String entryKey = cursor.getString(2);
+                switch (entryType) {
+                    case SOUND:
+                        soundDocIds.put(entryKey, docId);
+                        break;
+                    case SOUNDBOARD:
+                        soundboardDocIds.put(entryKey, docId);
+                        break;
+                    case ASSET_AUDIO:
+                        audios.add(Pair.create(docId, new FullAudioModel(
+                                new AssetFolderAudioLocation(entryKey),
+                                cursor.getString(3), null, 0)));
+                        break;
+                    case DEVICE_AUDIO:
+                        audios.add(Pair.create(docId, new FullAudioModel(
+                                new FileSystemFolderAudioLocation(entryKey),
+                                cursor.getString(3), cursor.getString(4),
+                                cursor.isNull(5) ? null : new Date(cursor.getLong(5)),
+                                cursor.getLong(6))));
+                        break;
+                    default:
+                        throw new IllegalStateException("Unexpected entry type " + entryType);
+                }
+            }
+        }
+
+        if (!soundDocIds.isEmpty()) {
+            try (SoundCursorWrapper cursor = new SoundCursorWrapper(
+                    queryByIds(SoundTable.NAME, SoundTable.Cols.ID, soundDocIds.keySet()))) {
+                while (cursor.moveToNext()) {
+                    Sound sound = cursor.getSound();
+                    resultsByDocId.put(soundDocIds.get(sound.getId().toString()),
+                            SearchResult.of(sound));
+                }
+            }
+        }
+
+        if (!soundboardDocIds.isEmpty()) {
+            try (SoundboardCursorWrapper cursor = new SoundboardCursorWrapper(
+                    queryByIds(SoundboardTable.NAME, SoundboardTable.Cols.ID,
+                            soundboardDocIds.keySet()))) {
+                while (cursor.moveToNext()) {
+                    Soundboard soundboard = cursor.getSoundboard();
+                    resultsByDocId.put(soundboardDocIds.get(soundboard.getId().toString()),
+                            SearchResult.of(soundboard));
+                }
+            }
+        }
+
+        if (!audios.isEmpty()) {
+            Map<IAudioFileSelection, Sound> soundMap =
+                    SoundDao.getInstance(appContext).findAllByAudioLocation();
+            for (Pair<Long, FullAudioModel> docIdAndAudio : audios) {
+                FullAudioModel audio = docIdAndAudio.second;
+                resultsByDocId.put(docIdAndAudio.first, SearchResult.of(
+                        new AudioModelAndSound(audio, soundMap.get(audio.getAudioLocation()))));
+            }
+        }
+
+        ImmutableList.Builder<SearchResult> res = ImmutableList.builder();
+        for (Hit hit : hits) {
+            @Nullable SearchResult result = resultsByDocId.get(hit.docId);
+            if (result != null) {
+                res.add(result);
+            }
+        }
+        return res.build();
+    }
+
+    private Cursor queryByIds(String table, String idCol, Collection<String> ids) {
+        return getDatabase().query(table,
+                null, // all columns
+                idCol + " IN (" + Joiner.on(", ").join(Collections.nCopies(ids.size(), "?"))
+                        + ")",
+                ids.toArray(new String[0]),
+                null, null, null);
+    }
+
+    /**
+     * Replaces the indexed audio files from the assets.
+     *
+     * @param audiosWithAllNames the audio files (with their localized names) - each with
+     *                           all names it has in any language
+     */
+    public void replaceAssetAudios(
+            @NonNull Collection<Pair<BasicAudioModel, ImmutableSet<String>>> audiosWithAllNames) {
+        runInTransaction(() -> {
+            deleteAll(EntryType.ASSET_AUDIO);
+
+            for (Pair<BasicAudioModel, ImmutableSet<String>> audioWithAllNames :
+                    audiosWithAllNames) {
+                BasicAudioModel audio = audioWithAllNames.first;
+                ContentValues values = audioContentValues(EntryType.ASSET_AUDIO,
+                        audio.getAudioLocation(), audio.getName());
+                values.put(SearchIndexTable.Cols.EXTRA,
+                        Joiner.on(' ').join(audioWithAllNames.second));
+                insertOrThrow(SearchIndexTable.NAME, values);
+            }
+        });
+    }
+
+    /**
+     * Replaces the indexed audio files on the device - if they have changed since they
+     * have last been indexed.
+     */
+    public void replaceDeviceAudiosIfChanged(@NonNull Collection<FullAudioModel> audios) {
+        int fingerprint = fingerprint(audios);
+        if (Objects.equals(deviceAudiosFingerprint, fingerprint)) {
+            return;
+        }
+
+        runInTransaction(() -> {
+            deleteAll(EntryType.DEVICE_AUDIO);
+
+            for (FullAudioModel audio : audios) {
+                ContentValues values = audioContentValues(EntryType.DEVICE_AUDIO,
+                        audio.getAudioLocation(), audio.getName());
+                values.put(SearchIndexTable.Cols.EXTRA, audio.getArtist());
+                @Nullable Date dateAdded = audio.getDateAdded();
+                values.put(SearchIndexTable.Cols.DATE_ADDED,
+                        dateAdded != null ? dateAdded.getTime() : null);
+                values.put(SearchIndexTable.Cols.DURATION_SECS, audio.getDurationSecs());
+                insertOrThrow(SearchIndexTable.NAME, values);
+            }
+        });
+
+        deviceAudiosFingerprint = fingerprint;
+    }
+
+    private static int fingerprint(Collection<FullAudioModel> audios) {
+        int res = audios.size();
+        for (FullAudioModel audio : audios) {
+            res = 31 * res + audio.hashCode();
+        }
+        return res;
+    }
+
+    private void deleteAll(EntryType entryType) {
+        getDatabase().delete(SearchIndexTable.NAME,
+                SearchIndexTable.Cols.ENTRY_TYPE + " = ?",
+                new String[]{entryType.name()});
+    }
+
+    private static ContentValues audioContentValues(EntryType entryType,
+                                                    AbstractAudioLocation audioLocation,
+                                                    String name) {
+        ContentValues values = new ContentValues();
+        values.put(SearchIndexTable.Cols.ENTRY_TYPE, entryType.name());
+        values.put(SearchIndexTable.Cols.ENTRY_KEY, audioLocation.getInternalPath());
+        values.put(SearchIndexTable.Cols.NAME, name);
+        return values;
+    }
+
+    /**
+     * A scored search hit, without details
+     */
+    private static class Hit {
+        static final Comparator<Hit> BEST_FIRST =
+                Comparator.<Hit>comparingInt(h -> -h.score)
+                        .thenComparingInt(h -> h.nameLength)
+                        .thenComparing(h -> h.entryType);
+
+        private final long docId;
+        private final EntryType entryType;
+        private final int nameLength;
+        private final int score;
+
+        Hit(long docId, EntryType entryType, int nameLength, int score) {
+            this.docId = docId;
+            this.entryType = entryType;
+            this.nameLength = nameLength;
+            this.score = score;
+        }
+    }
+}
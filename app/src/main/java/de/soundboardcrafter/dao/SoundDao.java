@@ -1,5 +1,7 @@
 package de.soundboardcrafter.dao;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
@@ -9,9 +11,11 @@ import androidx.annotation.WorkerThread;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
@@ -216,9 +220,11 @@ public class SoundDao extends AbstractDao {
      * (This method is only useful for initialization purposes.)
      */
     void insert(@NonNull Collection<Sound> sounds) {
-        for (Sound sound : sounds) {
-            insert(sound);
-        }
+        runInTransaction(() -> {
+            for (Sound sound : sounds) {
+                insert(sound);
+            }
+        });
     }
 
     /**
@@ -230,6 +236,8 @@ public class SoundDao extends AbstractDao {
         // TODO throw exception if sound name already exists
 
         insertOrThrow(SoundTable.NAME, buildContentValues(sound));
+
+        publish(DaoChange.sound(DaoChange.Type.SOUND_INSERTED, sound.getId()));
     }
 
     /**
@@ -253,6 +261,8 @@ public class SoundDao extends AbstractDao {
         if (rowsUpdated != 1) {
             throw new RuntimeException("Not exactly one sound with ID + " + sound.getId());
         }
+
+        publish(DaoChange.sound(DaoChange.Type.SOUND_UPDATED, sound.getId()));
     }
 
     @NonNull
@@ -294,10 +304,62 @@ public class SoundDao extends AbstractDao {
         getDatabase().delete(SoundTable.NAME,
                 SoundTable.Cols.ID + " = ?",
                 new String[]{soundId.toString()});
+
+        publish(DaoChange.sound(DaoChange.Type.SOUND_DELETED, soundId));
     }
 
+    /**
+     * Deletes these sounds and all their soundboard links - in one transaction.
+     */
+    public void delete(Collection<UUID> soundIds) {
+        // The links make up most of the work - so everything is done on the connection
+        // of the soundboard DAO.
+        soundboardDao.deleteSounds(soundIds);
+    }
+
+    /**
+     * Sets the volume and / or the loop flag of all these sounds - with one statement
+     * (per chunk of sounds) in one transaction.
+     *
+     * @param volumePercentage the new volume - or <code>null</code>, if the volume shall
+     *                         not be changed
+     * @param loop             whether the sounds shall loop - or <code>null</code>, if this
+     *                         shall not be changed
+     */
+    public void updateVolumeAndLoop(Collection<UUID> soundIds,
+                                    @Nullable Integer volumePercentage,
+                                    @Nullable Boolean loop) {
+        ContentValues values = new ContentValues();
+        if (volumePercentage != null) {
+            checkArgument(volumePercentage >= 0, "volumePercentage < 0");
+            checkArgument(volumePercentage <= 100, "volumePercentage > 100");
+            values.put(SoundTable.Cols.VOLUME_PERCENTAGE, volumePercentage);
+        }
+        if (loop != null) {
+            values.put(SoundTable.Cols.LOOP, loop ? 1 : 0);
+        }
+
+        if (values.size() == 0 || soundIds.isEmpty()) {
+            return;
+        }
+
+        runInTransaction(() -> {
+            for (List<UUID> chunk : Iterables.partition(soundIds, MAX_IDS_PER_STATEMENT)) {
+                getDatabase().update(SoundTable.NAME,
+                        values,
+                        in(SoundTable.Cols.ID, chunk.size()),
+                        toArgs(chunk));
+            }
+        });
+
+        for (UUID soundId : soundIds) {
+            publish(DaoChange.sound(DaoChange.Type.SOUND_UPDATED, soundId));
+        }
+    }
 
     public void deleteAllSounds() {
         getDatabase().delete(SoundTable.NAME, null, new String[]{});
+
+        publish(DaoChange.allChanged());
     }
 }
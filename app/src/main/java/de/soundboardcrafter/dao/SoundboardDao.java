@@ -1,5 +1,6 @@
 package de.soundboardcrafter.dao;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import android.content.ContentValues;
@@ -11,24 +12,30 @@ import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
 
 import de.soundboardcrafter.dao.DBSchema.SoundboardFavoritesTable;
 import de.soundboardcrafter.dao.DBSchema.SoundboardSoundTable;
+import de.soundboardcrafter.dao.DBSchema.SoundTable;
 import de.soundboardcrafter.dao.DBSchema.SoundboardTable;
 import de.soundboardcrafter.model.AbstractAudioLocation;
 import de.soundboardcrafter.model.SelectableModel;
 import de.soundboardcrafter.model.Sound;
 import de.soundboardcrafter.model.SoundWithSelectableSoundboards;
 import de.soundboardcrafter.model.Soundboard;
+import de.soundboardcrafter.model.SoundboardSummary;
 import de.soundboardcrafter.model.SoundboardWithSounds;
 import de.soundboardcrafter.model.audio.AudioSelectionChanges;
 import de.soundboardcrafter.model.audio.BasicAudioModel;
@@ -62,11 +69,17 @@ public class SoundboardDao extends AbstractDao {
     }
 
     public void clearDatabase() {
-        unlinkAllSounds();
-        favoritesDao.unlinkAllFavorites();
-        favoritesDao.deleteAllFavorites();
-        soundDao.deleteAllSounds();
-        deleteAllSoundboards();
+        DaoChangeBus changeBus = DaoChangeBus.getInstance();
+        changeBus.beginBulkChange();
+        try {
+            unlinkAllSounds();
+            favoritesDao.unlinkAllFavorites();
+            favoritesDao.deleteAllFavorites();
+            soundDao.deleteAllSounds();
+            deleteAllSoundboards();
+        } finally {
+            changeBus.endBulkChange();
+        }
     }
 
     /**
@@ -76,6 +89,41 @@ public class SoundboardDao extends AbstractDao {
         return !findAll().isEmpty();
     }
 
+    /**
+     * Retrieves all soundboards with the number of their sounds - without loading the
+     * sounds themselves.
+     */
+    public ImmutableList<SoundboardSummary> findAllSummaries() {
+        return findSummaries(rawQueryOrThrow(SoundboardSummaryCursorWrapper.queryString(null)));
+    }
+
+    /**
+     * Retrieves this soundboard with the number of its sounds - without loading the
+     * sounds themselves.
+     */
+    public SoundboardSummary findSummary(UUID soundboardId) {
+        checkNotNull(soundboardId, "soundboardId");
+
+        ImmutableList<SoundboardSummary> resList = findSummaries(rawQueryOrThrow(
+                SoundboardSummaryCursorWrapper.queryString(soundboardId), soundboardId));
+        if (resList.isEmpty()) {
+            throw new IllegalStateException("No soundboard with ID " + soundboardId);
+        }
+
+        return resList.get(0);
+    }
+
+    private ImmutableList<SoundboardSummary> findSummaries(Cursor rawCursor) {
+        try (SoundboardSummaryCursorWrapper cursor =
+                     new SoundboardSummaryCursorWrapper(rawCursor)) {
+            ImmutableList.Builder<SoundboardSummary> res = ImmutableList.builder();
+            while (cursor.moveToNext()) {
+                res.add(cursor.getSoundboardSummary());
+            }
+            return res.build();
+        }
+    }
+
     public ImmutableList<SoundboardWithSounds> findAllWithSounds() {
         return findAllWithSounds(null);
     }
@@ -267,27 +315,43 @@ public class SoundboardDao extends AbstractDao {
     }
 
     /**
-     * Inserts the soundboard and all its sounds - they must not be contained in the
-     * database before - sound duplicates in the soundboard are not supported!
+     * Inserts the soundboards and all their sounds - they must not be contained in the
+     * database before - sound duplicates are not supported!
+     * The sounds, soundboards and links are inserted in one transaction.
      * <p>
      * (This method is only useful for initialization purposes.)
      */
-    public void insertSoundboardAndInsertAllSounds(
-            @NonNull SoundboardWithSounds soundboardWithSounds) {
-        soundDao.insert(soundboardWithSounds.getSounds());
-        insert(soundboardWithSounds.getSoundboard());
-        linkSoundsInOrder(soundboardWithSounds);
+    public void insertSoundboardsAndInsertAllSounds(
+            @NonNull Collection<SoundboardWithSounds> soundboardsWithSounds) {
+        runInTransaction(() -> {
+            // All DAOs share the connection - so the sounds are part of this transaction.
+            soundDao.insert(soundboardsWithSounds.stream()
+                    .flatMap(s -> s.getSounds().stream())
+                    .collect(ImmutableList.toImmutableList()));
+
+            for (SoundboardWithSounds soundboardWithSounds : soundboardsWithSounds) {
+                insert(soundboardWithSounds.getSoundboard());
+                linkSoundsInOrder(soundboardWithSounds);
+            }
+        });
     }
 
     public void relinkSoundsInOrder(@NonNull SoundboardWithSounds soundboardWithSounds) {
         unlinkAllSounds(soundboardWithSounds.getId());
         linkSoundsInOrder(soundboardWithSounds);
+
+        publish(DaoChange.soundboard(DaoChange.Type.LINKS_REORDERED,
+                soundboardWithSounds.getId()));
     }
 
+    /**
+     * Links all sounds to the soundboard, which must not contain any sounds yet.
+     */
     private void linkSoundsInOrder(@NonNull SoundboardWithSounds soundboardWithSounds) {
         for (int i = 0; i < soundboardWithSounds.getSounds().size(); i++) {
             Sound sound = soundboardWithSounds.getSounds().get(i);
-            linkSoundToSoundboard(soundboardWithSounds.getId(), i, sound.getId());
+            // No gap necessary, we are appending
+            insertLink(soundboardWithSounds.getId(), i, sound.getId());
         }
     }
 
@@ -328,6 +392,8 @@ public class SoundboardDao extends AbstractDao {
         int index = findMaxIndex(soundboard) + 1;
 
         linkSoundToSoundboard(soundboard.getId(), index, sound.getId());
+
+        publish(DaoChange.link(DaoChange.Type.LINK_ADDED, soundboard.getId(), sound.getId()));
     }
 
     /**
@@ -367,15 +433,61 @@ public class SoundboardDao extends AbstractDao {
         }
     }
 
+    /**
+     * Moves the sound at <code>oldIndex</code> to <code>newIndex</code> and lets the sounds
+     * in between move up or down - in one transaction, shifting the sounds in between
+     * with one statement.
+     */
     public void moveSound(UUID soundboardId, int oldIndex, int newIndex) {
-        @Nullable UUID soundId = findSoundId(soundboardId, oldIndex);
-        if (soundId == null) {
-            throw new IllegalStateException("There was no sound at index " + oldIndex + ".");
-        }
+        List<DaoChange> changes = new ArrayList<>();
+        runInTransaction(() -> {
+            // Looked up in the transaction, so the positions cannot change in between
+            @Nullable UUID soundId = findSoundId(soundboardId, oldIndex);
+            if (soundId == null) {
+                throw new IllegalStateException("There was no sound at index " + oldIndex + ".");
+            }
+
+            if (oldIndex == newIndex) {
+                return;
+            }
 
-        unlinkSound(soundboardId, oldIndex);
+            changes.add(DaoChange.link(DaoChange.Type.LINK_MOVED, soundboardId, soundId));
 
-        linkSoundToSoundboard(soundboardId, newIndex, soundId);
+            if (oldIndex < newIndex) {
+                shiftSounds(soundboardId, oldIndex + 1, newIndex, -1);
+            } else {
+                shiftSounds(soundboardId, newIndex, oldIndex - 1, 1);
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(SoundboardSoundTable.Cols.POS_INDEX, newIndex);
+            int rowsUpdated = getDatabase().update(SoundboardSoundTable.NAME,
+                    values,
+                    SoundboardSoundTable.Cols.SOUNDBOARD_ID + " = ? and " +
+                            SoundboardSoundTable.Cols.SOUND_ID + " = ? ",
+                    new String[]{soundboardId.toString(), soundId.toString()});
+
+            if (rowsUpdated != 1) {
+                throw new IllegalStateException("Could not move sound " + soundId +
+                        " in soundboard " + soundboardId);
+            }
+        });
+
+        changes.forEach(this::publish);
+    }
+
+    /**
+     * Adds <code>delta</code> to the index of all sounds from <code>fromIndex</code>
+     * to <code>toIndex</code> (inclusive) in this soundboard.
+     */
+    private void shiftSounds(UUID soundboardId, int fromIndex, int toIndex, int delta) {
+        getDatabase().execSQL(
+                "UPDATE " + SoundboardSoundTable.NAME + " " +
+                        "SET " + SoundboardSoundTable.Cols.POS_INDEX + " = " +
+                        SoundboardSoundTable.Cols.POS_INDEX + " + ? " +
+                        "WHERE " + SoundboardSoundTable.Cols.SOUNDBOARD_ID + " = ? " +
+                        "AND " + SoundboardSoundTable.Cols.POS_INDEX + " BETWEEN ? AND ?",
+                new Object[]{delta, soundboardId.toString(), fromIndex, toIndex});
     }
 
     /**
@@ -408,7 +520,10 @@ public class SoundboardDao extends AbstractDao {
         // (at any index)
 
         makeSoundGap(soundboardId, index);
+        insertLink(soundboardId, index, soundId);
+    }
 
+    private void insertLink(UUID soundboardId, int index, @NonNull UUID soundId) {
         ContentValues values = new ContentValues();
         values.put(SoundboardSoundTable.Cols.SOUNDBOARD_ID, soundboardId.toString());
         values.put(SoundboardSoundTable.Cols.SOUND_ID, soundId.toString());
@@ -465,18 +580,24 @@ public class SoundboardDao extends AbstractDao {
     }
 
     private void unlinkSound(UUID soundboardId, UUID soundId) {
+        boolean unlinked = false;
         boolean lookAgain = true;
         while (lookAgain) {
             try (final Cursor cursor =
                          queryIndex(soundboardId, soundId)) {
                 if (cursor.moveToNext()) {
                     int index = cursor.getInt(0);
-                    unlinkSound(soundboardId, index);
+                    deleteLink(soundboardId, index);
+                    unlinked = true;
                 } else {
                     lookAgain = false;
                 }
             }
         }
+
+        if (unlinked) {
+            publish(DaoChange.link(DaoChange.Type.LINK_REMOVED, soundboardId, soundId));
+        }
     }
 
     /**
@@ -495,6 +616,209 @@ public class SoundboardDao extends AbstractDao {
     }
 
     public void unlinkSound(@NonNull UUID soundboardId, int index) {
+        @Nullable UUID soundId = findSoundId(soundboardId, index);
+        if (soundId == null) {
+            throw new RuntimeException("There was no sound at index " + index + ".");
+        }
+
+        deleteLink(soundboardId, index);
+
+        publish(DaoChange.link(DaoChange.Type.LINK_REMOVED, soundboardId, soundId));
+    }
+
+    /**
+     * Removes these sounds from the soundboard - in one transaction. The following sounds
+     * move up only once, at the end.
+     */
+    public void unlinkSounds(@NonNull UUID soundboardId, @NonNull Collection<UUID> soundIds) {
+        checkNotNull(soundIds, "soundIds is null");
+
+        List<UUID> unlinked = new ArrayList<>();
+        runInTransaction(() -> {
+            Set<UUID> linked = findLinkedSoundIds(soundboardId);
+            for (UUID soundId : soundIds) {
+                if (linked.contains(soundId)) {
+                    unlinked.add(soundId);
+                }
+            }
+
+            deleteLinks(soundboardId, unlinked);
+            compactIndexes(soundboardId);
+        });
+
+        for (UUID soundId : unlinked) {
+            publish(DaoChange.link(DaoChange.Type.LINK_REMOVED, soundboardId, soundId));
+        }
+    }
+
+    /**
+     * Moves these sounds from one soundboard to the end of another one (in the given order) -
+     * sounds the other soundboard already contains keep their position there. All in one
+     * transaction, the sounds left in the first soundboard move up only once, at the end.
+     */
+    public void moveSounds(@NonNull UUID fromSoundboardId, @NonNull List<UUID> soundIds,
+                           @NonNull UUID toSoundboardId) {
+        checkNotNull(soundIds, "soundIds is null");
+        checkArgument(!fromSoundboardId.equals(toSoundboardId),
+                "Cannot move sounds to the same soundboard");
+
+        List<DaoChange> changes = new ArrayList<>();
+        runInTransaction(() -> {
+            Set<UUID> linkedInSource = findLinkedSoundIds(fromSoundboardId);
+            Set<UUID> linkedInTarget = findLinkedSoundIds(toSoundboardId);
+            int index = findMaxIndex(toSoundboardId) + 1;
+
+            List<UUID> moved = new ArrayList<>();
+            for (UUID soundId : soundIds) {
+                if (!linkedInSource.contains(soundId)) {
+                    continue;
+                }
+
+                moved.add(soundId);
+                changes.add(DaoChange.link(DaoChange.Type.LINK_REMOVED,
+                        fromSoundboardId, soundId));
+
+                if (linkedInTarget.add(soundId)) {
+                    // No gap necessary, we are appending
+                    insertLink(toSoundboardId, index++, soundId);
+                    changes.add(DaoChange.link(DaoChange.Type.LINK_ADDED,
+                            toSoundboardId, soundId));
+                }
+            }
+
+            deleteLinks(fromSoundboardId, moved);
+            compactIndexes(fromSoundboardId);
+        });
+
+        changes.forEach(this::publish);
+    }
+
+    /**
+     * Deletes these sounds and all their soundboard links - in one transaction. The sounds
+     * in each soundboard concerned move up only once, at the end.
+     */
+    void deleteSounds(@NonNull Collection<UUID> soundIds) {
+        checkNotNull(soundIds, "soundIds is null");
+
+        List<DaoChange> changes = new ArrayList<>();
+        runInTransaction(() -> {
+            Set<UUID> soundboardIds = new HashSet<>();
+
+            for (List<UUID> chunk : Iterables.partition(soundIds, MAX_IDS_PER_STATEMENT)) {
+                String soundIdIn = in(SoundboardSoundTable.Cols.SOUND_ID, chunk.size());
+
+                try (Cursor cursor = getDatabase().query(
+                        SoundboardSoundTable.NAME,
+                        new String[]{SoundboardSoundTable.Cols.SOUNDBOARD_ID,
+                                SoundboardSoundTable.Cols.SOUND_ID},
+                        soundIdIn,
+                        toArgs(chunk),
+                        null,
+                        null,
+                        null)) {
+                    while (cursor.moveToNext()) {
+                        UUID soundboardId = UUID.fromString(cursor.getString(0));
+                        soundboardIds.add(soundboardId);
+                        changes.add(DaoChange.link(DaoChange.Type.LINK_REMOVED,
+                                soundboardId, UUID.fromString(cursor.getString(1))));
+                    }
+                }
+
+                getDatabase().delete(SoundboardSoundTable.NAME, soundIdIn, toArgs(chunk));
+                getDatabase().delete(SoundTable.NAME,
+                        in(SoundTable.Cols.ID, chunk.size()), toArgs(chunk));
+            }
+
+            for (UUID soundboardId : soundboardIds) {
+                compactIndexes(soundboardId);
+            }
+        });
+
+        for (UUID soundId : soundIds) {
+            changes.add(DaoChange.sound(DaoChange.Type.SOUND_DELETED, soundId));
+        }
+
+        changes.forEach(this::publish);
+    }
+
+    /**
+     * Returns the IDs of all sounds in this soundboard.
+     */
+    @NonNull
+    private Set<UUID> findLinkedSoundIds(@NonNull UUID soundboardId) {
+        try (Cursor cursor = getDatabase().query(
+                SoundboardSoundTable.NAME,
+                new String[]{SoundboardSoundTable.Cols.SOUND_ID},
+                SoundboardSoundTable.Cols.SOUNDBOARD_ID + " = ?",
+                new String[]{soundboardId.toString()},
+                null,
+                null,
+                null)) {
+            Set<UUID> res = new HashSet<>();
+            while (cursor.moveToNext()) {
+                res.add(UUID.fromString(cursor.getString(0)));
+            }
+
+            return res;
+        }
+    }
+
+    /**
+     * Removes these sounds from the soundboard - <i>without</i> letting the following
+     * sounds move up (see {@link #compactIndexes(UUID)}).
+     */
+    private void deleteLinks(@NonNull UUID soundboardId, @NonNull Collection<UUID> soundIds) {
+        for (List<UUID> chunk : Iterables.partition(soundIds, MAX_IDS_PER_STATEMENT)) {
+            getDatabase().delete(SoundboardSoundTable.NAME,
+                    SoundboardSoundTable.Cols.SOUNDBOARD_ID + " = ? AND " +
+                            in(SoundboardSoundTable.Cols.SOUND_ID, chunk.size()),
+                    toArgs(chunk, soundboardId.toString()));
+        }
+    }
+
+    /**
+     * Closes all gaps in the indexes of this soundboard, so that the sounds are
+     * numbered 0, 1, 2, ... again - keeping their order. Only the sounds that actually
+     * move up are updated.
+     */
+    private void compactIndexes(@NonNull UUID soundboardId) {
+        List<UUID> soundIds = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        try (Cursor cursor = getDatabase().query(
+                SoundboardSoundTable.NAME,
+                new String[]{SoundboardSoundTable.Cols.SOUND_ID,
+                        SoundboardSoundTable.Cols.POS_INDEX},
+                SoundboardSoundTable.Cols.SOUNDBOARD_ID + " = ?",
+                new String[]{soundboardId.toString()},
+                null,
+                null,
+                SoundboardSoundTable.Cols.POS_INDEX)) {
+            while (cursor.moveToNext()) {
+                soundIds.add(UUID.fromString(cursor.getString(0)));
+                indexes.add(cursor.getInt(1));
+            }
+        }
+
+        for (int newIndex = 0; newIndex < soundIds.size(); newIndex++) {
+            if (indexes.get(newIndex) == newIndex) {
+                continue;
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(SoundboardSoundTable.Cols.POS_INDEX, newIndex);
+            getDatabase().update(SoundboardSoundTable.NAME,
+                    values,
+                    SoundboardSoundTable.Cols.SOUNDBOARD_ID + " = ? and " +
+                            SoundboardSoundTable.Cols.SOUND_ID + " = ? ",
+                    new String[]{soundboardId.toString(), soundIds.get(newIndex).toString()});
+        }
+    }
+
+    /**
+     * Removes the sound at this index from the soundboard and lets the following sounds
+     * move up.
+     */
+    private void deleteLink(@NonNull UUID soundboardId, int index) {
         int numDeleted = getDatabase().delete(SoundboardSoundTable.NAME,
                 SoundboardSoundTable.Cols.SOUNDBOARD_ID + " = ? and " +
                         SoundboardSoundTable.Cols.POS_INDEX + " = ? ",
@@ -574,6 +898,8 @@ public class SoundboardDao extends AbstractDao {
         if (rowsUpdated != 1) {
             throw new RuntimeException("Not exactly one sound with ID + " + soundboard.getId());
         }
+
+        publish(DaoChange.soundboard(DaoChange.Type.SOUNDBOARD_UPDATED, soundboard.getId()));
     }
 
     private void deleteAllSoundboards() {
@@ -585,6 +911,8 @@ public class SoundboardDao extends AbstractDao {
         unlinkAllSounds(soundboardId);
         getDatabase().delete(SoundboardTable.NAME, SoundboardTable.Cols.ID + " = ?",
                 new String[]{soundboardId.toString()});
+
+        publish(DaoChange.soundboard(DaoChange.Type.SOUNDBOARD_DELETED, soundboardId));
     }
 
     public List<Soundboard> findAll() {
@@ -690,6 +1018,8 @@ public class SoundboardDao extends AbstractDao {
     public void insert(Soundboard soundboard) {
         // TODO throw exception if soundboard name already exists
         insertOrThrow(DBSchema.SoundboardTable.NAME, buildContentValues(soundboard));
+
+        publish(DaoChange.soundboard(DaoChange.Type.SOUNDBOARD_INSERTED, soundboard.getId()));
     }
 
     @NonNull
@@ -0,0 +1,51 @@
+package de.soundboardcrafter.dao;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.UUID;
+
+import de.soundboardcrafter.dao.DBSchema.SoundboardSoundTable;
+import de.soundboardcrafter.dao.DBSchema.SoundboardTable;
+import de.soundboardcrafter.model.SoundboardSummary;
+
+/**
+ * Essentially a cursor over soundboards, each with the number of its sounds.
+ */
+@WorkerThread
+class SoundboardSummaryCursorWrapper extends AbstractSimpleSoundboardCursorWrapper {
+    private static final String SOUND_COUNT = "sound_count";
+
+    /**
+     * SQL for getting all soundboards if soundboardId is null or a certain soundboard
+     */
+    static String queryString(@Nullable UUID soundboardId) {
+        String res = "SELECT sb." + SoundboardTable.Cols.ID
+                + ", sb." + SoundboardTable.Cols.NAME
+                + ", sb." + SoundboardTable.Cols.PROVIDED
+                + ", COUNT(sbs." + SoundboardSoundTable.Cols.SOUND_ID + ") AS " + SOUND_COUNT
+                + " " //
+                + "FROM " + SoundboardTable.NAME + " sb "
+                + "LEFT JOIN " + SoundboardSoundTable.NAME + " sbs "
+                + "ON sbs." + SoundboardSoundTable.Cols.SOUNDBOARD_ID + " = sb."
+                + SoundboardTable.Cols.ID + " ";
+
+        if (soundboardId != null) {
+            res += "WHERE sb." + SoundboardTable.Cols.ID + " = ? ";
+        }
+
+        return res + "GROUP BY sb." + SoundboardTable.Cols.ID;
+    }
+
+    SoundboardSummaryCursorWrapper(Cursor cursor) {
+        super(cursor);
+    }
+
+    @NonNull
+    SoundboardSummary getSoundboardSummary() {
+        return new SoundboardSummary(getSoundboard(), getInt(getColumnIndex(SOUND_COUNT)));
+    }
+}
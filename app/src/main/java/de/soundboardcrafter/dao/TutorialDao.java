@@ -4,17 +4,37 @@ import static android.content.Context.MODE_PRIVATE;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import java.util.EnumSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.ParametersAreNonnullByDefault;
 
 /**
  * Used to read and write the state of the tutorial.
+ * <p>
+ * The checked keys are kept in memory: They are loaded once in the background
+ * (starting when the instance is created), and changes are written back in
+ * coalesced batches - so checking or querying a key usually does not access the disk.
+ * If loading takes too long, keys are considered unchecked until loading has finished.
  */
 @ParametersAreNonnullByDefault
 @UiThread
 public class TutorialDao {
+    private static final String TAG = TutorialDao.class.getName();
+
     public enum Key {
         SOUNDBOARD_PLAY_START_SOUND,
         SOUNDBOARD_PLAY_MULTIPLE_SOUNDS,
@@ -32,9 +52,48 @@ public class TutorialDao {
     // app's data, then uninstall and reinstall the app.
     private static final String SHARED_PREFERENCES = "Tutorial_Prefs";
 
+    /**
+     * Changes are written this long after the first unwritten change.
+     */
+    private static final long PERSIST_DELAY_MILLIS = 500;
+
+    /**
+     * How long the UI thread waits for loading to finish, before it considers keys
+     * unchecked.
+     */
+    private static final long LOAD_TIMEOUT_MILLIS = 100;
+
     private static TutorialDao instance;
     private final Context appContext;
 
+    /**
+     * Loads and writes the preferences, one task after the other.
+     */
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Future<EnumSet<Key>> loading;
+
+    /**
+     * The checked keys - <code>null</code>, until loading has finished.
+     */
+    private EnumSet<Key> checked;
+
+    /**
+     * Keys checked before loading had finished - applied to the loaded keys.
+     */
+    private final EnumSet<Key> checkedWhileLoading = EnumSet.noneOf(Key.class);
+
+    /**
+     * Whether all keys have been unchecked before loading had finished.
+     */
+    private boolean uncheckedAllWhileLoading;
+
+    private boolean persistScheduled;
+
+    private final Runnable persist = this::persist;
+
     public static TutorialDao getInstance(final Context context) {
         if (instance == null) {
             instance = new TutorialDao(context);
@@ -44,22 +103,124 @@ public class TutorialDao {
 
     private TutorialDao(Context context) {
         appContext = context.getApplicationContext();
+        loading = diskExecutor.submit(this::load);
     }
 
     public boolean isChecked(Key key) {
-        return getPrefs().getBoolean(key.name(), false);
+        @Nullable EnumSet<Key> checked = getChecked();
+        if (checked == null) {
+            return checkedWhileLoading.contains(key);
+        }
+
+        return checked.contains(key);
     }
 
     public void check(Key key) {
-        SharedPreferences.Editor editor = getPrefs().edit();
-        editor.putBoolean(key.name(), true);
-        editor.apply();
+        @Nullable EnumSet<Key> checked = getChecked();
+        if (checked == null) {
+            checkedWhileLoading.add(key);
+            schedulePersist();
+            return;
+        }
+
+        if (checked.add(key)) {
+            schedulePersist();
+        }
     }
 
     public void uncheckAll() {
+        @Nullable EnumSet<Key> checked = getChecked();
+        if (checked == null) {
+            checkedWhileLoading.clear();
+            uncheckedAllWhileLoading = true;
+            schedulePersist();
+            return;
+        }
+
+        if (!checked.isEmpty()) {
+            checked.clear();
+            schedulePersist();
+        }
+    }
+
+    /**
+     * Returns the (mutable) in-memory set of checked keys. Blocks for a short time at most,
+     * if loading has not finished yet.
+     *
+     * @return the checked keys - or <code>null</code>, if loading has not finished in time
+     */
+    @Nullable
+    private EnumSet<Key> getChecked() {
+        if (checked == null) {
+            EnumSet<Key> loaded;
+            try {
+                loaded = loading.get(LOAD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                Log.w(TAG, "Tutorial state not loaded yet");
+                return null;
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Could not load tutorial state", e);
+                loaded = EnumSet.noneOf(Key.class);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+            if (uncheckedAllWhileLoading) {
+                loaded.clear();
+            }
+            loaded.addAll(checkedWhileLoading);
+            checked = loaded;
+        }
+
+        return checked;
+    }
+
+    private void schedulePersist() {
+        if (!persistScheduled) {
+            persistScheduled = true;
+            mainHandler.postDelayed(persist, PERSIST_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Writes all changes made so far in one batch (in the background).
+     */
+    private void persist() {
+        @Nullable EnumSet<Key> checked = getChecked();
+        if (checked == null) {
+            // Try again later
+            mainHandler.postDelayed(persist, PERSIST_DELAY_MILLIS);
+            return;
+        }
+
+        persistScheduled = false;
+
+        final EnumSet<Key> toWrite = EnumSet.copyOf(checked);
+        diskExecutor.execute(() -> write(toWrite));
+    }
+
+    @WorkerThread
+    private EnumSet<Key> load() {
+        SharedPreferences prefs = getPrefs();
+
+        EnumSet<Key> res = EnumSet.noneOf(Key.class);
+        for (Key key : Key.values()) {
+            if (prefs.getBoolean(key.name(), false)) {
+                res.add(key);
+            }
+        }
+        return res;
+    }
+
+    @WorkerThread
+    private void write(EnumSet<Key> checked) {
         SharedPreferences.Editor editor = getPrefs().edit();
         editor.clear();
-        editor.apply();
+        for (Key key : checked) {
+            editor.putBoolean(key.name(), true);
+        }
+        editor.commit();
     }
 
     private SharedPreferences getPrefs() {
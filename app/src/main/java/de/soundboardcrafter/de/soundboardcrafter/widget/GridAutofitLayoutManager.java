@@ -4,6 +4,7 @@ import android.content.Context;
 import android.util.TypedValue;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -14,11 +15,25 @@ import androidx.recyclerview.widget.RecyclerView;
  */
 // See https://stackoverflow.com/questions/26666143/recyclerview-gridlayoutmanager-how-to-auto-detect-span-count
 public class GridAutofitLayoutManager extends GridLayoutManager {
+    /**
+     * Listener that is informed when the layout manager has chosen the number of columns
+     */
+    public interface OnSpanCountChosenListener {
+        /**
+         * @param spanCount the number of columns
+         * @param width     the width of the recycler view
+         * @param height    the height of the recycler view
+         */
+        void onSpanCountChosen(int spanCount, int width, int height);
+    }
+
     private int columnWidth;
     private final int spacing;
     private boolean isColumnWidthChanged = true;
     private int lastWidth;
     private int lastHeight;
+    @Nullable
+    private OnSpanCountChosenListener onSpanCountChosenListener;
 
     public GridAutofitLayoutManager(@NonNull final Context context, final int columnWidth) {
         this(context, columnWidth, 0);
@@ -72,6 +87,10 @@ public class GridAutofitLayoutManager extends GridLayoutManager {
         }
     }
 
+    public void setOnSpanCountChosenListener(@Nullable OnSpanCountChosenListener listener) {
+        onSpanCountChosenListener = listener;
+    }
+
     @Override
     public void onLayoutChildren(@NonNull final RecyclerView.Recycler recycler, @NonNull final RecyclerView.State state) {
         final int width = getWidth();
@@ -91,6 +110,10 @@ public class GridAutofitLayoutManager extends GridLayoutManager {
 
             setSpanCount(spanCount);
             isColumnWidthChanged = false;
+
+            if (onSpanCountChosenListener != null) {
+                onSpanCountChosenListener.onSpanCountChosen(spanCount, width, height);
+            }
         }
         lastWidth = width;
         lastHeight = height;
@@ -0,0 +1,53 @@
+package de.soundboardcrafter.model;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@link Favorites} with the number of their soundboards - all that's needed to show the
+ * favorites in a list. The soundboards themselves are not loaded.
+ * <p></p>
+ * <code>FavoritesSummary</code>s are not thread-safe. So it might be necessary to use
+ * appropriate synchronization.
+ *
+ * @see FavoritesWithSoundboards
+ */
+public class FavoritesSummary {
+    @NonNull
+    private final Favorites favorites;
+
+    private final int soundboardCount;
+
+    public FavoritesSummary(@NonNull Favorites favorites, int soundboardCount) {
+        this.favorites = checkNotNull(favorites, "favorites is null");
+        this.soundboardCount = soundboardCount;
+    }
+
+    @NonNull
+    public UUID getId() {
+        return favorites.getId();
+    }
+
+    @NonNull
+    public Favorites getFavorites() {
+        return favorites;
+    }
+
+    public int getSoundboardCount() {
+        return soundboardCount;
+    }
+
+    @Override
+    public @Nonnull
+    String toString() {
+        return "FavoritesSummary{" +
+                "favorites=" + favorites +
+                ", soundboardCount=" + soundboardCount +
+                '}';
+    }
+}
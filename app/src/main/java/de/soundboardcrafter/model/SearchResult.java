@@ -0,0 +1,89 @@
+package de.soundboardcrafter.model;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import de.soundboardcrafter.model.audio.AudioModelAndSound;
+
+/**
+ * A result of a full-text search: A sound, a soundboard or an audio file
+ * (which might already be used as a sound).
+ */
+public class SearchResult {
+    @Nullable
+    private final Sound sound;
+
+    @Nullable
+    private final Soundboard soundboard;
+
+    @Nullable
+    private final AudioModelAndSound audio;
+
+    public static SearchResult of(@NonNull Sound sound) {
+        return new SearchResult(checkNotNull(sound, "sound is null"), null, null);
+    }
+
+    public static SearchResult of(@NonNull Soundboard soundboard) {
+        return new SearchResult(null, checkNotNull(soundboard, "soundboard is null"), null);
+    }
+
+    public static SearchResult of(@NonNull AudioModelAndSound audio) {
+        return new SearchResult(null, null, checkNotNull(audio, "audio is null"));
+    }
+
+    private SearchResult(@Nullable Sound sound, @Nullable Soundboard soundboard,
+                         @Nullable AudioModelAndSound audio) {
+        this.sound = sound;
+        this.soundboard = soundboard;
+        this.audio = audio;
+    }
+
+    /**
+     * Returns the sound - or <code>null</code>, if the result is not a sound.
+     */
+    @Nullable
+    public Sound getSound() {
+        return sound;
+    }
+
+    /**
+     * Returns the soundboard - or <code>null</code>, if the result is not a soundboard.
+     */
+    @Nullable
+    public Soundboard getSoundboard() {
+        return soundboard;
+    }
+
+    /**
+     * Returns the audio file - or <code>null</code>, if the result is not an audio file.
+     */
+    @Nullable
+    public AudioModelAndSound getAudio() {
+        return audio;
+    }
+
+    @NonNull
+    public String getName() {
+        if (sound != null) {
+            return sound.getName();
+        }
+
+        if (soundboard != null) {
+            return soundboard.getDisplayName();
+        }
+
+        return checkNotNull(audio).getName();
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return "SearchResult{" +
+                "sound=" + sound +
+                ", soundboard=" + soundboard +
+                ", audio=" + audio +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+package de.soundboardcrafter.model;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import androidx.annotation.NonNull;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link Soundboard} with the number of its sounds - all that's needed to show the
+ * soundboard in a list. The sounds themselves are not loaded.
+ * <p></p>
+ * <code>SoundboardSummary</code>s are not thread-safe. So it might be necessary to use
+ * appropriate synchronization.
+ *
+ * @see SoundboardWithSounds
+ */
+public class SoundboardSummary {
+    public static final Comparator<SoundboardSummary> PROVIDED_LAST_THEN_BY_COLLATION_KEY =
+            Comparator.comparing(SoundboardSummary::getSoundboard,
+                    Soundboard.PROVIDED_LAST_THEN_BY_COLLATION_KEY);
+
+    @NonNull
+    private final Soundboard soundboard;
+
+    private final int soundCount;
+
+    public SoundboardSummary(@NonNull Soundboard soundboard, int soundCount) {
+        this.soundboard = checkNotNull(soundboard, "soundboard is null");
+        this.soundCount = soundCount;
+    }
+
+    @NonNull
+    public UUID getId() {
+        return soundboard.getId();
+    }
+
+    public boolean isProvided() {
+        return soundboard.isProvided();
+    }
+
+    @NonNull
+    public Soundboard getSoundboard() {
+        return soundboard;
+    }
+
+    public int getSoundCount() {
+        return soundCount;
+    }
+
+    @Override
+    public @Nonnull
+    String toString() {
+        return "SoundboardSummary{" +
+                "soundboard=" + soundboard +
+                ", soundCount=" + soundCount +
+                '}';
+    }
+}
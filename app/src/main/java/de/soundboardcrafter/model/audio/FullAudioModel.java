@@ -86,7 +86,7 @@ class FullAudioModel extends BasicAudioModel {
     }
 
     @Nullable
-    Date getDateAdded() {
+    public Date getDateAdded() {
         return dateAdded;
     }
 
@@ -0,0 +1,195 @@
+package de.soundboardcrafter.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The timings of one (cold) start of the app - the named sections measured by
+ * {@link StartupTrace}. Contains no Android dependencies, so that it can be checked
+ * in plain unit tests.
+ * <p>
+ * <code>StartupReport</code>s are thread-safe.
+ */
+public class StartupReport {
+    /**
+     * The section that ends when the first soundboards have been rendered.
+     */
+    public static final String FIRST_FRAME = "first_soundboards_rendered";
+
+    /**
+     * Budgets for the start, in milliseconds: For {@link #FIRST_FRAME}, this is the time
+     * from process start until the section ends, for all other sections it's the sum of the
+     * durations of all sections with this name.
+     */
+    public static final ImmutableMap<String, Long> DEFAULT_BUDGETS_MILLIS =
+            ImmutableMap.<String, Long>builder()
+                    .put(FIRST_FRAME, 2000L)
+                    .put("db_open", 150L)
+                    .put("db_upgrade", 100L)
+                    .put("find_all_summaries", 100L)
+                    .put("find_all_with_sounds", 300L)
+                    .build();
+
+    /**
+     * One measured section
+     */
+    public static class Section {
+        @NonNull
+        private final String name;
+        @NonNull
+        private final String threadName;
+        private final long startMillis;
+        private final long durationMillis;
+
+        /**
+         * @param startMillis start of the section, in milliseconds since process start
+         */
+        Section(@NonNull String name, @NonNull String threadName, long startMillis,
+                long durationMillis) {
+            this.name = name;
+            this.threadName = threadName;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+        }
+
+        @NonNull
+        public String getName() {
+            return name;
+        }
+
+        @NonNull
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public long getEndMillis() {
+            return startMillis + durationMillis;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    private final List<Section> sections = new ArrayList<>();
+
+    synchronized void add(@NonNull String name, @NonNull String threadName, long startMillis,
+                          long durationMillis) {
+        sections.add(new Section(name, threadName, startMillis, durationMillis));
+    }
+
+    public synchronized ImmutableList<Section> getSections() {
+        return ImmutableList.copyOf(sections);
+    }
+
+    /**
+     * Returns the sum of the durations of all sections with this name - or <code>null</code>,
+     * if there is no such section.
+     */
+    @Nullable
+    public synchronized Long getTotalDurationMillis(String name) {
+        @Nullable Long res = null;
+        for (Section section : sections) {
+            if (section.getName().equals(name)) {
+                res = (res != null ? res : 0) + section.getDurationMillis();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the time from process start until the first soundboards have been
+     * rendered - or <code>null</code>, if this did not happen (yet).
+     */
+    @Nullable
+    public synchronized Long getTimeToFirstFrameMillis() {
+        for (Section section : sections) {
+            if (section.getName().equals(FIRST_FRAME)) {
+                return section.getEndMillis();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the sections that exceeded their budget, mapped to the time they took.
+     *
+     * @see #DEFAULT_BUDGETS_MILLIS
+     */
+    public ImmutableMap<String, Long> findBudgetsExceeded(Map<String, Long> budgetsMillis) {
+        ImmutableMap.Builder<String, Long> res = ImmutableMap.builder();
+        for (Map.Entry<String, Long> budget : budgetsMillis.entrySet()) {
+            @Nullable Long actual = budget.getKey().equals(FIRST_FRAME) ?
+                    getTimeToFirstFrameMillis() :
+                    getTotalDurationMillis(budget.getKey());
+            if (actual != null && actual > budget.getValue()) {
+                res.put(budget.getKey(), actual);
+            }
+        }
+        return res.build();
+    }
+
+    /**
+     * Returns a machine-readable (JSON) version of the report.
+     */
+    public String toJson(Map<String, Long> budgetsMillis) {
+        StringBuilder res = new StringBuilder();
+        res.append("{");
+
+        @Nullable Long timeToFirstFrame = getTimeToFirstFrameMillis();
+        res.append("\"timeToFirstFrameMillis\":")
+                .append(timeToFirstFrame != null ? timeToFirstFrame : "null");
+
+        res.append(",\"budgetsMillis\":");
+        appendJson(res, budgetsMillis);
+
+        res.append(",\"budgetsExceeded\":");
+        appendJson(res, findBudgetsExceeded(budgetsMillis));
+
+        res.append(",\"sections\":[");
+        boolean first = true;
+        for (Section section : getSections()) {
+            if (!first) {
+                res.append(",");
+            }
+            first = false;
+            res.append(String.format(Locale.ROOT,
+                    "{\"name\":%s,\"thread\":%s,\"startMillis\":%d,\"durationMillis\":%d}",
+                    quote(section.getName()), quote(section.getThreadName()),
+                    section.getStartMillis(), section.getDurationMillis()));
+        }
+        res.append("]}");
+
+        return res.toString();
+    }
+
+    private static void appendJson(StringBuilder res, Map<String, Long> map) {
+        res.append("{");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : new LinkedHashMap<>(map).entrySet()) {
+            if (!first) {
+                res.append(",");
+            }
+            first = false;
+            res.append(quote(entry.getKey())).append(":").append(entry.getValue());
+        }
+        res.append("}");
+    }
+
+    private static String quote(String string) {
+        return "\"" + string.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,160 @@
+package de.soundboardcrafter.util;
+
+import android.content.Context;
+import android.os.AsyncTask;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Traces the (cold) start of the app, from process start until the first soundboards
+ * have been rendered. Each section is shown in system traces (systrace / Perfetto) and
+ * collected into a {@link StartupReport}, that is logged and written
+ * to <code>files/startup_trace.json</code> as soon as the first soundboards
+ * have been rendered.
+ * <p>
+ * Usage:
+ * <pre>
+ * try (StartupTrace.Section ignored = StartupTrace.begin("db_open")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public class StartupTrace {
+    private static final String TAG = StartupTrace.class.getName();
+
+    private static final String REPORT_FILE_NAME = "startup_trace.json";
+
+    private static final StartupReport report = new StartupReport();
+
+    /**
+     * Whether the report has been finished - later sections are only traced in the system
+     * trace, but not added to the report anymore.
+     */
+    private static volatile boolean finished;
+
+    private StartupTrace() {
+    }
+
+    /**
+     * A traced section. Must be closed on the same thread it has been begun.
+     */
+    public static class Section implements AutoCloseable {
+        private final String name;
+        private final long startRealtime;
+
+        private Section(String name) {
+            this.name = name;
+            startRealtime = SystemClock.elapsedRealtime();
+            Trace.beginSection(name);
+        }
+
+        @Override
+        public void close() {
+            Trace.endSection();
+
+            if (!finished) {
+                long now = SystemClock.elapsedRealtime();
+                report.add(name, Thread.currentThread().getName(),
+                        startRealtime - Process.getStartElapsedRealtime(),
+                        now - startRealtime);
+            }
+        }
+    }
+
+    /**
+     * Begins a section with this name - close it in a <code>finally</code> block (or use
+     * <code>try</code>-with-resources).
+     */
+    public static Section begin(String name) {
+        return new Section(name);
+    }
+
+    /**
+     * Returns the report collected so far.
+     */
+    @NonNull
+    public static StartupReport getReport() {
+        return report;
+    }
+
+    /**
+     * Returns whether the first soundboards have been rendered - so the report is complete.
+     */
+    public static boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * To be called when the first soundboards are shown in this view: Ends the trace
+     * as soon as the view has been drawn and writes the report.
+     */
+    @UiThread
+    public static void firstSoundboardsShown(@NonNull View view) {
+        if (finished) {
+            return;
+        }
+
+        final Context appContext = view.getContext().getApplicationContext();
+
+        view.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        view.getViewTreeObserver().removeOnPreDrawListener(this);
+                        // Posted, so that the frame has been drawn when we measure
+                        view.post(() -> finish(appContext));
+                        return true;
+                    }
+                });
+    }
+
+    @UiThread
+    private static void finish(Context appContext) {
+        if (finished) {
+            return;
+        }
+
+        report.add(StartupReport.FIRST_FRAME, Thread.currentThread().getName(), 0,
+                SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime());
+        finished = true;
+
+        final ImmutableMap<String, Long> budgetsExceeded =
+                report.findBudgetsExceeded(StartupReport.DEFAULT_BUDGETS_MILLIS);
+        if (budgetsExceeded.isEmpty()) {
+            Log.d(TAG, "Startup within budget: " + report.getTimeToFirstFrameMillis() + " ms");
+        } else {
+            Log.w(TAG, "Startup budgets exceeded: " + budgetsExceeded);
+        }
+
+        final String json = report.toJson(StartupReport.DEFAULT_BUDGETS_MILLIS);
+        Log.d(TAG, json);
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(() -> writeReport(appContext, json));
+    }
+
+    private static void writeReport(Context appContext, String json) {
+        File file = new File(appContext.getFilesDir(), REPORT_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write startup report " + file, e);
+        }
+    }
+}
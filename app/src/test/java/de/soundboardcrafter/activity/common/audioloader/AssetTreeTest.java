@@ -0,0 +1,72 @@
+package de.soundboardcrafter.activity.common.audioloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import de.soundboardcrafter.model.audio.BasicAudioModel;
+
+/**
+ * Unit tests for {@link AssetTree}.
+ */
+public class AssetTreeTest {
+    private static final String INDEX = "" +
+            "F\tsounds/animals\n" +
+            "A\tsounds/animals/cat.mp3\n" +
+            "A\tsounds/animals/birds/owl.mp3\n" +
+            "A\tsounds/animals/birds/sea/gull.mp3\n" +
+            "F\tsounds/music\n" +
+            "A\tsounds/music/drum.mp3\n" +
+            "T\tsounds\tde\tanimals\tTiere\n" +
+            "T\tsounds/animals\tde\tcat\tKatze\n" +
+            "T\tsounds/animals\tde\tbirds\tVögel\n";
+
+    @Test
+    public void build_countsAudioFilesRecursively() throws IOException {
+        AssetTree tree = AssetTree.build(index(), ImmutableList.of());
+
+        assertEquals(4, tree.getFolder("sounds").getNumAudioFilesRecursively());
+        assertEquals(3, tree.getFolder("sounds/animals").getNumAudioFilesRecursively());
+        assertEquals(2, tree.getFolder("sounds/animals/birds").getNumAudioFilesRecursively());
+        assertEquals(1, tree.getFolder("sounds/animals/birds/sea").getNumAudioFilesRecursively());
+        assertNull(tree.getFolder("sounds/plants"));
+    }
+
+    @Test
+    public void build_ordersSubFoldersAndAudios() throws IOException {
+        AssetTree tree = AssetTree.build(index(), ImmutableList.of());
+
+        AssetTree.Folder animals = tree.getFolder("sounds/animals");
+        assertEquals(1, animals.getSubFolders().size());
+        assertEquals("sounds/animals/birds", animals.getSubFolders().get(0).getPath());
+        assertEquals(1, animals.getAudios().size());
+        assertEquals("cat", animals.getAudios().get(0).getName());
+
+        assertEquals(ImmutableList.of("animals", "music"),
+                tree.getAllAudiosByTopFolderName().keySet().asList());
+        assertEquals(3, tree.getAllAudiosByTopFolderName().get("animals").size());
+    }
+
+    @Test
+    public void build_translatesFirstMatchingLocale() throws IOException {
+        AssetTree tree = AssetTree.build(index(), ImmutableList.of("fr", "de"));
+
+        assertEquals("Vögel", tree.getFolder("sounds/animals/birds").getName());
+        assertEquals("Tiere", tree.getFolder("sounds/animals").getName());
+        assertEquals("music", tree.getFolder("sounds/music").getName());
+
+        BasicAudioModel cat = tree.getAllAudiosByTopFolderName().get("Tiere").get(0);
+        assertEquals("Katze", cat.getName());
+    }
+
+    private static ProvidedSoundsIndex index() throws IOException {
+        return ProvidedSoundsIndex.parse(new BufferedReader(new StringReader(INDEX)));
+    }
+}
@@ -0,0 +1,56 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link PcmAudio}.
+ */
+public class PcmAudioTest {
+    private static final int SAMPLE_RATE = 48_000;
+
+    @Test
+    public void append_growsWhileIncomplete() {
+        PcmAudio audio = new PcmAudio(SAMPLE_RATE, 2);
+
+        audio.append(new short[]{1, 2, 3, 4}, 0, 4);
+        assertFalse(audio.isComplete());
+        assertEquals(2, audio.getFrameCount());
+
+        short[] samplesBefore = audio.getSamples();
+        audio.append(new short[]{0, 5, 6, 0}, 1, 2);
+
+        assertEquals(3, audio.getFrameCount());
+        assertNotSame(samplesBefore, audio.getSamples());
+        // The old array is still valid for the frames it contained
+        assertArrayEquals(new short[]{1, 2, 3, 4}, samplesBefore);
+        assertArrayEquals(new short[]{1, 2, 3, 4, 5, 6},
+                Arrays.copyOf(audio.getSamples(), 6));
+    }
+
+    @Test
+    public void complete_trimsTheSamples() {
+        PcmAudio audio = new PcmAudio(SAMPLE_RATE, 100);
+        audio.append(new short[]{1, 2}, 0, 2);
+
+        audio.complete();
+
+        assertTrue(audio.isComplete());
+        assertArrayEquals(new short[]{1, 2}, audio.getSamples());
+        assertEquals(2 * Short.BYTES, audio.getSizeInBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void append_failsWhenComplete() {
+        PcmAudio audio = new PcmAudio(new short[]{1, 2}, SAMPLE_RATE);
+
+        audio.append(new short[]{3, 4}, 0, 2);
+    }
+}
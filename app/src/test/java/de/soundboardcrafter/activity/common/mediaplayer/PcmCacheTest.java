@@ -0,0 +1,128 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.soundboardcrafter.model.AbstractAudioLocation;
+import de.soundboardcrafter.model.AssetFolderAudioLocation;
+import de.soundboardcrafter.model.FileSystemFolderAudioLocation;
+
+/**
+ * Unit tests for {@link PcmCache}.
+ */
+public class PcmCacheTest {
+    private static final int SAMPLE_RATE = 48_000;
+
+    /**
+     * Size of the audio created by {@link #audio(int)} for 100 frames
+     */
+    private static final long BYTES_PER_100_FRAMES = 100 * PcmAudio.CHANNEL_COUNT * Short.BYTES;
+
+    @Test
+    public void get_decodesOnlyOnce() throws IOException {
+        PcmCache cache = new PcmCache(10 * BYTES_PER_100_FRAMES);
+        AtomicInteger decodeCount = new AtomicInteger();
+        AssetFolderAudioLocation location = new AssetFolderAudioLocation("a.mp3");
+
+        PcmAudio first = cache.get(handle(location), SAMPLE_RATE, () -> {
+            decodeCount.incrementAndGet();
+            return audio(100);
+        });
+        PcmAudio second = cache.get(handle(location), SAMPLE_RATE, () -> {
+            decodeCount.incrementAndGet();
+            return audio(100);
+        });
+
+        assertSame(first, second);
+        assertEquals(1, decodeCount.get());
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test
+    public void get_otherSampleRateIsAMiss() throws IOException {
+        PcmCache cache = new PcmCache(10 * BYTES_PER_100_FRAMES);
+        AssetFolderAudioLocation location = new AssetFolderAudioLocation("a.mp3");
+
+        cache.get(handle(location), SAMPLE_RATE, () -> audio(100));
+        cache.get(handle(location), 44_100, () -> audio(100));
+
+        assertEquals(2, cache.getStats().missCount());
+    }
+
+    @Test
+    public void get_tooLongIsNotCached() throws IOException {
+        PcmCache cache = new PcmCache(10 * BYTES_PER_100_FRAMES);
+        AssetFolderAudioLocation location = new AssetFolderAudioLocation("long.mp3");
+
+        assertNull(cache.get(handle(location), SAMPLE_RATE, () -> null));
+        assertNull(cache.get(handle(location), SAMPLE_RATE, () -> null));
+
+        assertEquals(2, cache.getStats().missCount());
+        assertEquals(0, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void get_leastRecentlyUsedIsEvicted() throws IOException {
+        PcmCache cache = new PcmCache(2 * BYTES_PER_100_FRAMES);
+        AssetFolderAudioLocation a = new AssetFolderAudioLocation("a.mp3");
+        AssetFolderAudioLocation b = new AssetFolderAudioLocation("b.mp3");
+        AssetFolderAudioLocation c = new AssetFolderAudioLocation("c.mp3");
+
+        cache.get(handle(a), SAMPLE_RATE, () -> audio(100));
+        cache.get(handle(b), SAMPLE_RATE, () -> audio(100));
+        // a is used again, so b is the least recently used
+        cache.get(handle(a), SAMPLE_RATE, () -> audio(100));
+        cache.get(handle(c), SAMPLE_RATE, () -> audio(100));
+
+        assertEquals(1, cache.getStats().evictionCount());
+        assertEquals(2 * BYTES_PER_100_FRAMES, cache.getSizeInBytes());
+
+        AtomicInteger decodeCount = new AtomicInteger();
+        cache.get(handle(a), SAMPLE_RATE, () -> {
+            decodeCount.incrementAndGet();
+            return audio(100);
+        });
+        assertEquals(0, decodeCount.get());
+
+        cache.get(handle(b), SAMPLE_RATE, () -> {
+            decodeCount.incrementAndGet();
+            return audio(100);
+        });
+        assertEquals(1, decodeCount.get());
+    }
+
+    @Test
+    public void get_changedFileIsAMiss() throws IOException {
+        PcmCache cache = new PcmCache(10 * BYTES_PER_100_FRAMES);
+        FileSystemFolderAudioLocation location = new FileSystemFolderAudioLocation("/a.mp3");
+
+        cache.get(handle(location, 1000), SAMPLE_RATE, () -> audio(100));
+        // The file has been opened again - and has another size now
+        cache.get(handle(location, 2000), SAMPLE_RATE, () -> audio(100));
+
+        assertEquals(2, cache.getStats().missCount());
+    }
+
+    private static AudioFileHandles.Handle handle(AbstractAudioLocation location) {
+        return handle(location, 1000);
+    }
+
+    private static AudioFileHandles.Handle handle(AbstractAudioLocation location,
+                                                  long length) {
+        return new AudioFileHandles.Handle(location, new FileDescriptor(), 0, length,
+                () -> {
+                }, null);
+    }
+
+    private static PcmAudio audio(int frames) {
+        return new PcmAudio(new short[frames * PcmAudio.CHANNEL_COUNT], SAMPLE_RATE);
+    }
+}
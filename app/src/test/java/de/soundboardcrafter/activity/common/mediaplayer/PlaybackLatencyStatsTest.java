@@ -0,0 +1,111 @@
+package de.soundboardcrafter.activity.common.mediaplayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import de.soundboardcrafter.activity.common.mediaplayer.PlaybackLatencyStats.AudioLocationType;
+import de.soundboardcrafter.activity.common.mediaplayer.PlaybackLatencyStats.Phase;
+
+/**
+ * Unit tests for {@link PlaybackLatencyStats}.
+ */
+public class PlaybackLatencyStatsTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void empty_hasNoPercentiles() {
+        PlaybackLatencyStats stats = new PlaybackLatencyStats();
+
+        assertEquals(0, stats.getCount(AudioLocationType.ASSET));
+        assertTrue(Double.isNaN(
+                stats.getPercentileMillis(AudioLocationType.ASSET, Phase.TOTAL, 50)));
+    }
+
+    @Test
+    public void percentiles_nearestRank() {
+        PlaybackLatencyStats stats = new PlaybackLatencyStats();
+        // Recorded out of order on purpose
+        for (int millis = 20; millis >= 1; millis--) {
+            record(stats, AudioLocationType.ASSET, millis);
+        }
+
+        assertEquals(20, stats.getCount(AudioLocationType.ASSET));
+        assertEquals(10,
+                stats.getPercentileMillis(AudioLocationType.ASSET, Phase.TOTAL, 50), DELTA);
+        assertEquals(19,
+                stats.getPercentileMillis(AudioLocationType.ASSET, Phase.TOTAL, 95), DELTA);
+        assertEquals(20,
+                stats.getPercentileMillis(AudioLocationType.ASSET, Phase.TOTAL, 100), DELTA);
+    }
+
+    @Test
+    public void percentiles_singleValue() {
+        PlaybackLatencyStats stats = new PlaybackLatencyStats();
+        record(stats, AudioLocationType.ASSET, 7);
+
+        assertEquals(7,
+                stats.getPercentileMillis(AudioLocationType.ASSET, Phase.PREPARE, 50), DELTA);
+        assertEquals(7,
+                stats.getPercentileMillis(AudioLocationType.ASSET, Phase.PREPARE, 95), DELTA);
+    }
+
+    @Test
+    public void window_evictsOldestValues() {
+        PlaybackLatencyStats stats = new PlaybackLatencyStats();
+        for (int i = 0; i < PlaybackLatencyStats.WINDOW_SIZE; i++) {
+            record(stats, AudioLocationType.FILE_SYSTEM, 1);
+        }
+        for (int i = 0; i < 10; i++) {
+            record(stats, AudioLocationType.FILE_SYSTEM, 1000);
+        }
+
+        // 10 of the fast plays have been evicted
+        assertEquals(PlaybackLatencyStats.WINDOW_SIZE,
+                stats.getCount(AudioLocationType.FILE_SYSTEM));
+        assertEquals(1,
+                stats.getPercentileMillis(AudioLocationType.FILE_SYSTEM, Phase.TOTAL, 95),
+                DELTA);
+        assertEquals(1000,
+                stats.getPercentileMillis(AudioLocationType.FILE_SYSTEM, Phase.TOTAL, 96),
+                DELTA);
+
+        for (int i = 0; i < PlaybackLatencyStats.WINDOW_SIZE; i++) {
+            record(stats, AudioLocationType.FILE_SYSTEM, 1000);
+        }
+
+        // All fast plays have been evicted
+        assertEquals(1000,
+                stats.getPercentileMillis(AudioLocationType.FILE_SYSTEM, Phase.TOTAL, 1),
+                DELTA);
+    }
+
+    @Test
+    public void locationTypes_areTrackedSeparately() {
+        PlaybackLatencyStats stats = new PlaybackLatencyStats();
+        record(stats, AudioLocationType.ASSET, 5);
+        record(stats, AudioLocationType.FILE_SYSTEM, 50);
+        record(stats, AudioLocationType.FILE_SYSTEM, 50);
+
+        assertEquals(1, stats.getCount(AudioLocationType.ASSET));
+        assertEquals(2, stats.getCount(AudioLocationType.FILE_SYSTEM));
+        assertEquals(5,
+                stats.getPercentileMillis(AudioLocationType.ASSET, Phase.TOTAL, 50), DELTA);
+        assertEquals(50,
+                stats.getPercentileMillis(AudioLocationType.FILE_SYSTEM, Phase.TOTAL, 50),
+                DELTA);
+    }
+
+    /**
+     * Records one play where each phase took <code>millis</code>.
+     */
+    private static void record(PlaybackLatencyStats stats, AudioLocationType locationType,
+                               long millis) {
+        long[] phaseNanos = new long[Phase.values().length];
+        Arrays.fill(phaseNanos, millis * 1_000_000L);
+        stats.record(locationType, phaseNanos);
+    }
+}
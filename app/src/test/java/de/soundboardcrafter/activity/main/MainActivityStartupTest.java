@@ -0,0 +1,86 @@
+package de.soundboardcrafter.activity.main;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.SQLiteMode;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import de.soundboardcrafter.util.StartupReport;
+import de.soundboardcrafter.util.StartupTrace;
+
+/**
+ * Starts {@link MainActivity} (with an empty database, so the provided soundboards are
+ * generated) until the first soundboards have been rendered - and checks the sections
+ * collected by {@link StartupTrace} against {@link StartupReport#DEFAULT_BUDGETS_MILLIS}.
+ * <p>
+ * Robolectric's clock only advances when told so: While waiting, it's advanced in step with
+ * the real time, so that the sections measure (roughly) their real durations. Creating the
+ * activity itself is not included - Robolectric loads the resources then, which would
+ * dominate the result.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class MainActivityStartupTest {
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private static final long POLL_INTERVAL_MILLIS = 5;
+
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * There is only one test - the trace is static, so it would survive Robolectric's
+     * environment between tests.
+     */
+    @Test
+    public void startup_withinBudgets() throws InterruptedException {
+        Robolectric.buildActivity(MainActivity.class).setup();
+
+        waitUntilFirstSoundboardsRendered();
+
+        StartupReport report = StartupTrace.getReport();
+        assertNotNull("First soundboards not rendered", report.getTimeToFirstFrameMillis());
+
+        ImmutableMap<String, Long> budgetsExceeded =
+                report.findBudgetsExceeded(StartupReport.DEFAULT_BUDGETS_MILLIS);
+        assertTrue("Startup budgets exceeded: " + budgetsExceeded + "\n"
+                        + report.toJson(StartupReport.DEFAULT_BUDGETS_MILLIS),
+                budgetsExceeded.isEmpty());
+    }
+
+    /**
+     * Runs the main looper - advancing Robolectric's clock in step with the real time -
+     * until the first soundboards have been rendered.
+     */
+    private static void waitUntilFirstSoundboardsRendered() throws InterruptedException {
+        ShadowLooper mainLooper = shadowOf(Looper.getMainLooper());
+
+        long startNanos = System.nanoTime();
+        long advancedNanos = startNanos;
+        while (!StartupTrace.isFinished()) {
+            if (System.nanoTime() - startNanos > TIMEOUT_NANOS) {
+                fail("First soundboards not rendered in time");
+            }
+
+            // Loading happens on background threads (AsyncTasks)
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+
+            long elapsedMillis = (System.nanoTime() - advancedNanos) / NANOS_PER_MILLI;
+            advancedNanos += elapsedMillis * NANOS_PER_MILLI;
+            mainLooper.idleFor(Duration.ofMillis(elapsedMillis));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.soundboardcrafter.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for how {@link StartupReport} evaluates its sections against the budgets - fed
+ * with fixed durations. This does <i>not</i> measure the startup itself.
+ */
+public class StartupReportBudgetEvaluationTest {
+    @Test
+    public void findBudgetsExceeded_withinBudget() {
+        StartupReport report = new StartupReport();
+        report.add("db_open", "main", 100, 50);
+        report.add("db_open", "AsyncTask #1", 200, 60);
+        report.add(StartupReport.FIRST_FRAME, "main", 0, 1200);
+
+        assertTrue(report.findBudgetsExceeded(StartupReport.DEFAULT_BUDGETS_MILLIS).isEmpty());
+    }
+
+    @Test
+    public void findBudgetsExceeded_sectionsAreSummedUp() {
+        StartupReport report = new StartupReport();
+        report.add("db_open", "main", 100, 100);
+        report.add("db_open", "AsyncTask #1", 200, 100);
+
+        assertEquals(ImmutableMap.of("db_open", 200L),
+                report.findBudgetsExceeded(ImmutableMap.of("db_open", 150L)));
+    }
+
+    @Test
+    public void findBudgetsExceeded_firstFrameIsMeasuredFromProcessStart() {
+        StartupReport report = new StartupReport();
+        report.add(StartupReport.FIRST_FRAME, "main", 0, 2500);
+
+        assertEquals(ImmutableMap.of(StartupReport.FIRST_FRAME, 2500L),
+                report.findBudgetsExceeded(StartupReport.DEFAULT_BUDGETS_MILLIS));
+    }
+
+    @Test
+    public void getTimeToFirstFrameMillis_notRenderedYet() {
+        StartupReport report = new StartupReport();
+        report.add("db_open", "main", 100, 50);
+
+        assertNull(report.getTimeToFirstFrameMillis());
+    }
+
+    @Test
+    public void toJson() {
+        StartupReport report = new StartupReport();
+        report.add("db_open", "main", 100, 50);
+        report.add(StartupReport.FIRST_FRAME, "main", 0, 900);
+
+        assertEquals("{\"timeToFirstFrameMillis\":900,"
+                        + "\"budgetsMillis\":{\"db_open\":10},"
+                        + "\"budgetsExceeded\":{\"db_open\":50},"
+                        + "\"sections\":["
+                        + "{\"name\":\"db_open\",\"thread\":\"main\","
+                        + "\"startMillis\":100,\"durationMillis\":50},"
+                        + "{\"name\":\"first_soundboards_rendered\",\"thread\":\"main\","
+                        + "\"startMillis\":0,\"durationMillis\":900}]}",
+                report.toJson(ImmutableMap.of("db_open", 10L)));
+    }
+}